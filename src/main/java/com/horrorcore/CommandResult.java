@@ -0,0 +1,33 @@
+package com.horrorcore;
+
+/**
+ * The outcome of a command submitted to a {@link World}.
+ *
+ * @param status  What happened to the command.
+ * @param message A description of the outcome for logs and users.
+ */
+public record CommandResult(Status status, String message) {
+
+    public enum Status {
+        /** The command changed the world. */
+        APPLIED,
+        /** The command was not applicable to the world, e.g. loading when nothing was saved, and changed nothing. */
+        REJECTED,
+        /** The command threw an exception; the world may be partly changed. */
+        FAILED,
+        /** The caller stopped waiting before the command ran. It stays queued and runs at the next tick boundary. */
+        PENDING
+    }
+
+    public static CommandResult applied(String message) {
+        return new CommandResult(Status.APPLIED, message);
+    }
+
+    public static CommandResult rejected(String message) {
+        return new CommandResult(Status.REJECTED, message);
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+}
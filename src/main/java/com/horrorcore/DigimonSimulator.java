@@ -3,14 +3,16 @@ package com.horrorcore;
 import com.horrorcore.entity.CelestialDigimon;
 import com.horrorcore.entity.Digimon;
 import com.horrorcore.gui.VisualGUI;
-import com.horrorcore.systems.events.SimulationSubject;
 import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.MetricsServer;
+import com.horrorcore.metrics.jfr.SimulationRecording;
+import com.horrorcore.metrics.timeseries.TimeSeriesRecorder;
+import com.horrorcore.telemetry.TelemetryServer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.stage.Stage;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -19,11 +21,15 @@ public class DigimonSimulator extends Application {
     private static final Logger LOGGER = Logger.getLogger(DigimonSimulator.class.getName());
     private static World world;
     private static VisualGUI gui;
-    private Timeline guiUpdateTimeline;
+    private TimeSeriesRecorder timeSeriesRecorder;
+    private TelemetryServer telemetryServer;
     private final AtomicBoolean running = new AtomicBoolean(true);
 
 
     public static void main(String[] args) {
+        MetricsRegistry.getInstance().registerMBeans();
+        MetricsServer.startIfConfigured();
+        SimulationRecording.startIfConfigured();
         world = World.getInstance();
         gui = VisualGUI.getInstance(world);
         LOGGER.info("Created VisualGUI instance: " + gui);
@@ -41,33 +47,29 @@ public class DigimonSimulator extends Application {
             
             // Add Digimons
             for (int i = 0; i < 100; i++) {
-                Digimon digimon = DigimonGenerator.generateRandomDigimon();
-                world.addDigimon(digimon);
-                LOGGER.info("Added Digimon: " + digimon.getName());
+                Digimon digimon = DigimonGenerator.generateRandomDigimon(world.getContext().getRandom());
+                CommandResult added = world.addDigimon(digimon);
+                if (!added.isApplied()) {
+                    LOGGER.warning(added.message());
+                }
             }
             
             for(int i = 0; i < 10; i++) {
-                CelestialDigimon celestialDigimon = DigimonGenerator.generateCelestialDigimon();
+                CelestialDigimon celestialDigimon = DigimonGenerator.generateCelestialDigimon(world.getContext());
                 world.addDigimon(celestialDigimon);
                 assert celestialDigimon != null;
                 LOGGER.info("Added Celestial Digimon: " + celestialDigimon.getName());
             }
+            // Tables and remote viewers show the starting population before the first tick
+            world.captureSnapshot();
+            timeSeriesRecorder = TimeSeriesRecorder.startIfConfigured(world);
+            telemetryServer = TelemetryServer.startIfConfigured(world);
             gui.initialize();
             // Initialize GUI
             gui.start(primaryStage);
     
             LOGGER.info("GUI initialized and started");
 
-            // Create a Timeline for GUI updates
-            guiUpdateTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-                gui.updateWorldInfo(world);
-                gui.updateSectorInfo(world.getSectors());
-                SimulationSubject.getInstance().notifyWorldUpdate(world);
-                LOGGER.info("GUI updated");
-            }));
-            guiUpdateTimeline.setCycleCount(Timeline.INDEFINITE);
-            guiUpdateTimeline.play();
-
             // Start the simulation in a separate thread
             Thread simulationThread = getSimulationThread();
 
@@ -75,8 +77,12 @@ public class DigimonSimulator extends Application {
             primaryStage.setOnCloseRequest(event -> {
                 LOGGER.info("Shutting down...");
                 running.set(false);
-                guiUpdateTimeline.stop();
                 simulationThread.interrupt();
+                MetricsServer.stop();
+                SimulationRecording.stop();
+                if (telemetryServer != null) {
+                    telemetryServer.close();
+                }
                 gui.shutdown();
                 Platform.exit();
             });
@@ -105,9 +111,26 @@ public class DigimonSimulator extends Application {
                 LOGGER.log(Level.INFO, "Simulation thread interrupted", e);
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, "Simulation failed", e);
+            } finally {
+                closeTimeSeries();
             }
         });
         simulationThread.start();
         return simulationThread;
     }
+
+    /**
+     * Flushes the time-series recording once the simulation thread, which samples it, has stopped.
+     */
+    private void closeTimeSeries() {
+        if (timeSeriesRecorder == null) {
+            return;
+        }
+        world.setTimeSeriesRecorder(null);
+        try {
+            timeSeriesRecorder.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to finish the time-series recording", e);
+        }
+    }
 }
\ No newline at end of file
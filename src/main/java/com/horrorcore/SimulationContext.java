@@ -0,0 +1,176 @@
+package com.horrorcore;
+
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.grid.PathCache;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.events.Politics;
+import com.horrorcore.systems.events.SimulationSubject;
+import com.horrorcore.systems.movement.SectorRouter;
+import com.horrorcore.systems.schedule.SystemScheduler;
+import com.horrorcore.systems.social.SocialGraph;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything one simulated world owns: the world itself, its random source, its event bus,
+ * the political relations between its tribes, the friendships of its Digimon, its id sequences, its route and path caches and the
+ * entity store its Digimon keep their components in.
+ * Systems are handed the context, or reach it through the sector or tribe they work on,
+ * instead of reading global singletons, so any number of worlds can be simulated in one JVM.
+ *
+ * A world must be ticked by one thread at a time. That thread may run the systems of a tick on a
+ * pool, and the systems that run at once only touch the state they declared to the
+ * {@link SystemScheduler}; the counters and random streams they all share are safe to use from
+ * the pool. The rest of a context is not thread-safe and is meant for the systems that declared it,
+ * or for the ticking thread. Different contexts share nothing but the immutable Digimon templates
+ * and the process-wide {@link MetricsRegistry}, so they can tick concurrently on a shared thread pool.
+ *
+ * The {@link #getDefault() default context} backs {@link World#getInstance()} for the GUI.
+ */
+public class SimulationContext {
+    public static final int MAX_CELESTIALS = 10;
+
+    private static SimulationContext defaultContext;
+
+    private final Random random;
+    private final SimulationSubject events;
+    private final Politics politics;
+    private final SectorRouter router = new SectorRouter();
+    private final PathCache pathCache = new PathCache(() -> increment(SimulationCounter.PATH_SEARCHES));
+    private final EntityStore entities = new EntityStore();
+    private final SocialGraph social;
+    private final MetricsRegistry metrics;
+    private final SimulationParameters parameters;
+    private final World world;
+    private final boolean primary;
+    // Incremented by systems running at once on the scheduler's pool
+    private final LongAdder[] counts = new LongAdder[SimulationCounter.values().length];
+    private int nextTribeId = 1;
+    private int celestials;
+
+    /**
+     * Creates an independent context with an unseeded random source.
+     */
+    public SimulationContext() {
+        this(new Random(), SimulationParameters.DEFAULTS, false);
+    }
+
+    /**
+     * Creates an independent context whose random source is seeded, so that its world
+     * replays the same way for the same seed and the same sequence of calls.
+     *
+     * @param seed The seed of the context's random source.
+     */
+    public SimulationContext(long seed) {
+        this(seed, SimulationParameters.DEFAULTS);
+    }
+
+    /**
+     * Creates an independent, seeded context whose world uses the given probabilities.
+     *
+     * @param seed       The seed of the context's random source.
+     * @param parameters The probabilities the world is simulated with.
+     */
+    public SimulationContext(long seed, SimulationParameters parameters) {
+        this(new Random(seed), parameters, false);
+    }
+
+    private SimulationContext(Random random, SimulationParameters parameters, boolean primary) {
+        this.random = random;
+        this.parameters = parameters;
+        this.primary = primary;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        this.metrics = MetricsRegistry.getInstance();
+        this.events = new SimulationSubject(this);
+        this.politics = new Politics(this);
+        this.world = new World(this);
+        this.social = new SocialGraph(entities, world::getTime);
+    }
+
+    /**
+     * Returns the context of the interactive simulation, creating it on first use.
+     * Only the default context publishes world gauges and a stall watchdog to the metrics registry.
+     *
+     * @return The default context.
+     */
+    public static synchronized SimulationContext getDefault() {
+        if (defaultContext == null) {
+            defaultContext = new SimulationContext(new Random(), SimulationParameters.DEFAULTS, true);
+        }
+        return defaultContext;
+    }
+
+    public World getWorld() { return world; }
+
+    /**
+     * Returns the random source to draw from: the stream of the scheduled system the calling thread runs,
+     * or otherwise the context's own random source.
+     */
+    public Random getRandom() {
+        Random stream = SystemScheduler.currentRandom();
+        return stream != null ? stream : random;
+    }
+
+    public SimulationSubject getEvents() { return events; }
+    public Politics getPolitics() { return politics; }
+    public SectorRouter getRouter() { return router; }
+    public PathCache getPathCache() { return pathCache; }
+    public EntityStore getEntities() { return entities; }
+    public SocialGraph getSocial() { return social; }
+    public MetricsRegistry getMetrics() { return metrics; }
+    public SimulationParameters getParameters() { return parameters; }
+
+    /**
+     * Returns whether this is the default context, which publishes its world to the metrics registry.
+     */
+    public boolean isPrimary() { return primary; }
+
+    /**
+     * Counts one occurrence of a simulation counter, both for this world and in the process-wide registry.
+     *
+     * @param counter The counter to increment.
+     */
+    public void increment(SimulationCounter counter) {
+        counts[counter.ordinal()].increment();
+        metrics.increment(counter);
+    }
+
+    /**
+     * Returns how often a counter was incremented in this world, as opposed to the registry's total over all worlds.
+     * Counts are exact once the systems incrementing them are done, e.g. on the ticking thread between systems.
+     *
+     * @param counter The counter to read.
+     * @return The count in this world.
+     */
+    public long getCount(SimulationCounter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * Hands out the next tribe id of this world.
+     *
+     * @return A tribe id not used before in this context.
+     */
+    public int nextTribeId() {
+        return nextTribeId++;
+    }
+
+    /**
+     * Claims a place for a new Celestial Digimon, of which a world allows at most {@link #MAX_CELESTIALS}.
+     *
+     * @return true if the Celestial may be created, false if the world already has its maximum.
+     */
+    public boolean claimCelestial() {
+        if (celestials >= MAX_CELESTIALS) {
+            return false;
+        }
+        celestials++;
+        return true;
+    }
+
+    public int getCelestialCount() { return celestials; }
+}
@@ -0,0 +1,33 @@
+package com.horrorcore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tunable probabilities of the simulation.
+ *
+ * @param birthChance         Chance per sector and tick of a birth attempt, while the sector has room.
+ * @param deathProbability    Expected share of the population that dies at random each tick.
+ * @param celestialHelpChance Chance per tick that a Celestial Digimon feeds or heals its sector.
+ */
+public record SimulationParameters(double birthChance, double deathProbability, double celestialHelpChance) {
+    public static final SimulationParameters DEFAULTS = new SimulationParameters(0.3, 0.0005, 0.3);
+
+    /**
+     * Builds every combination of the given values, varying the last parameter fastest.
+     *
+     * @return The parameter grid, in a stable order.
+     */
+    public static List<SimulationParameters> grid(List<Double> birthChances, List<Double> deathProbabilities,
+                                                  List<Double> celestialHelpChances) {
+        List<SimulationParameters> grid = new ArrayList<>();
+        for (double birth : birthChances) {
+            for (double death : deathProbabilities) {
+                for (double help : celestialHelpChances) {
+                    grid.add(new SimulationParameters(birth, death, help));
+                }
+            }
+        }
+        return grid;
+    }
+}
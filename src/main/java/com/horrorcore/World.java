@@ -1,25 +1,47 @@
 package com.horrorcore;
 
+import com.horrorcore.ecs.Archetype;
+import com.horrorcore.ecs.EntityStore;
 import com.horrorcore.entity.CelestialDigimon;
 import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Sector;
 import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.BuildingIndex;
 import com.horrorcore.gui.VisualGUI;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.metrics.StallWatchdog;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import com.horrorcore.metrics.jfr.WorldLockWaitEvent;
+import com.horrorcore.metrics.timeseries.TimeSeriesRecorder;
+import com.horrorcore.snapshot.WorldSnapshot;
 import com.horrorcore.systems.tech.TechnologySystem;
 import com.horrorcore.systems.events.*;
 import com.horrorcore.systems.evolution.EvolutionSystem;
 import com.horrorcore.systems.farming.FoodSystem;
+import com.horrorcore.systems.celestial.CelestialAuraSystem;
+import com.horrorcore.systems.lifecycle.AgingSystem;
 import com.horrorcore.systems.lifecycle.BirthSystem;
 import com.horrorcore.systems.lifecycle.DigimonGenerator;
 import com.horrorcore.systems.lifecycle.RebirthSystem;
 import com.horrorcore.systems.movement.SectorMovement;
+import com.horrorcore.systems.schedule.CommandBuffer;
+import com.horrorcore.systems.schedule.Resource;
+import com.horrorcore.systems.schedule.ScheduledSystem;
+import com.horrorcore.systems.schedule.SystemScheduler;
 
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,23 +49,45 @@ import java.util.logging.Logger;
  * Represents the Digimon world, containing all the elements and systems of the simulation.
  * This class manages the overall state of the world, including Digimons, tribes, sectors,
  * and various systems like technology and evolution.
+ *
+ * The thread that ticks the world owns it for the length of a tick. Other threads access it in two ways:
+ * <ul>
+ *     <li>Reads such as {@link #getSectors()} are optimistic: they read without locking and check that no
+ *     tick or command ran meanwhile. Only if one did do they take the read lock, which waits for it to end.</li>
+ *     <li>Changes such as {@link #addDigimon} are commands. A command runs at once if nothing else holds the
+ *     world, and otherwise is queued and run by the holder before it lets go, so a command submitted during a
+ *     tick runs at the end of that tick, before its snapshot is captured. Every command reports a
+ *     {@link CommandResult} instead of silently doing nothing.</li>
+ * </ul>
+ * The ticking thread, and a thread running commands, may read and command the world directly.
  */
 public class World {
-    private static World INSTANCE;
     private static final Logger LOGGER = Logger.getLogger(World.class.getName());
+    private final SimulationContext context;
     private List<Digimon> digimonList;
     private Set<Tribe> tribes;
     private TechnologySystem technologySystem;
-    private int time;
+    private volatile int time;
     private List<Sector> sectors;
-    private Random random;
-    private final ReadWriteLock worldLock = new ReentrantReadWriteLock();
+    private final BuildingIndex buildingIndex = new BuildingIndex();
+    private final StampedLock lock = new StampedLock();
+    // The thread holding the write lock, which must not lock again
+    private volatile Thread writer;
+    // The threads holding the read lock, with how often; the lock itself records no owner for the watchdog to name
+    private final Map<Thread, Integer> readers = new ConcurrentHashMap<>();
+    // The world whose tick the current pool thread is running a system of
+    private static final ThreadLocal<World> TICK_WORKER = new ThreadLocal<>();
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private final List<Integer> agesRequired = List.of(500, 1000, 1500, 2000);
-    private volatile long lastUpdateTime = 0;
+    private static final List<Integer> AGES_REQUIRED = List.of(500, 1000, 1500, 2000);
+    // How long the blocking command methods wait for a running tick
+    private static final long COMMAND_TIMEOUT_SECONDS = 5;
     private WorldState savedState;
-    private Thread watchdogThread;
-    private final AtomicBoolean watchdogRunning = new AtomicBoolean(false);
+    private StallWatchdog watchdog;
+    private final TickTimer tickTimer;
+    private volatile TimeSeriesRecorder timeSeriesRecorder;
+    private volatile WorldSnapshot snapshot;
+    private final SystemScheduler scheduler;
 
     /**
      * Constructs a new World object, initializing all its components.
@@ -53,61 +97,68 @@ public class World {
      * - A new TechnologySystem
      * - The initial time set to 0
      * - An empty list of Sectors
-     * - A new Random object for generating random events
-     * After initializing these components, it calls the initializeSectors() method
-     * to set up the world's geographical structure.
+     * Random events draw from the context's random source. Worlds are created by their
+     * {@link SimulationContext}; call initialize() to set up the world's geographical structure.
+     *
+     * @param context The context that owns this world.
      */
-    private World() {
+    World(SimulationContext context) {
+        this.context = context;
         this.digimonList = new ArrayList<>();
         this.tribes = new HashSet<>();
-        this.technologySystem = new TechnologySystem();
+        this.technologySystem = new TechnologySystem(context);
         this.time = 0;
         this.sectors = new ArrayList<>();
-        this.random = new Random();
+        this.tickTimer = new TickTimer(context.getMetrics(), context::getCount);
+        this.scheduler = new SystemScheduler(context.getMetrics(), tickTimer, body -> () -> {
+            TICK_WORKER.set(this);
+            try {
+                body.run();
+            } finally {
+                TICK_WORKER.remove();
+            }
+        }, context.getRandom().nextLong());
+        scheduleSystems();
     }
 
+    /**
+     * Returns the world of the default context, which the GUI displays.
+     */
     public static World getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new World();
-        }
-        return INSTANCE;
+        return SimulationContext.getDefault().getWorld();
+    }
+
+    public SimulationContext getContext() {
+        return context;
     }
 
     /**
      * Adds a Digimon to a randomly selected sector in the world.
      * This method chooses a random sector from the list of available sectors
-     * and adds the given Digimon to that sector.
+     * and adds the given Digimon to that sector, or to an adjacent one if it is full.
      *
      * @param digimon The Digimon to be added to the world. This Digimon will be
      *                placed in a randomly chosen sector.
+     * @return Whether the Digimon was added, rejected because there was no room for it, or is still
+     *         queued behind a tick; see {@link #execute}.
      */
-    public void addDigimon(Digimon digimon) {
+    public CommandResult addDigimon(Digimon digimon) {
         if (digimon == null) {
             LOGGER.warning("Attempted to add null Digimon to the world");
-            return;
+            return CommandResult.rejected("Cannot add a null Digimon");
         }
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = worldLock.writeLock().tryLock(5, TimeUnit.SECONDS);
-            if (!lockAcquired) {
-                LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping addDigimon operation.");
-                return;
-            }
+        return execute("addDigimon", () -> {
             Sector randomSector = getRandomSector();
-            randomSector.addDigimon(digimon);
-            LOGGER.info("Added Digimon " + digimon.getName() + " to sector " + randomSector.getName());
-        } catch (InterruptedException e) {
-            LOGGER.log(Level.WARNING, "Interrupted while trying to acquire lock", e);
-            Thread.currentThread().interrupt();
-        } finally {
-            if (lockAcquired) {
-                worldLock.writeLock().unlock();
+            if (!randomSector.addDigimon(digimon)) {
+                return CommandResult.rejected("No free cell for " + digimon.getName() + " in or around " + randomSector.getName());
             }
-        }
+            LOGGER.info("Added Digimon " + digimon.getName() + " to sector " + randomSector.getName());
+            return CommandResult.applied("Added " + digimon.getName() + " to " + randomSector.getName());
+        });
     }
 
     private Sector getRandomSector() {
-        return sectors.get(random.nextInt(sectors.size()));
+        return sectors.get(random().nextInt(sectors.size()));
     }
 
     /**
@@ -131,16 +182,16 @@ public class World {
      */
     public void initialize() {
         // Create all sectors here
-        Sector fileIsland = new Sector("File Island");
-        Sector serverContinent = new Sector("Server Continent");
-        Sector folderContinent = new Sector("Folder Continent");
-        Sector wwwContinent = new Sector("WWW Continent");
-        Sector netOcean = new Sector("Net Ocean");
-        Sector desertRegion = new Sector("Desert Region");
-        Sector frozenTundra = new Sector("Frozen Tundra");
-        Sector volcanicZone = new Sector("Volcanic Zone");
-        Sector skyCity = new Sector("Sky City");
-        Sector undergroundCaverns = new Sector("Underground Caverns");
+        Sector fileIsland = new Sector("File Island", context);
+        Sector serverContinent = new Sector("Server Continent", context);
+        Sector folderContinent = new Sector("Folder Continent", context);
+        Sector wwwContinent = new Sector("WWW Continent", context);
+        Sector netOcean = new Sector("Net Ocean", context);
+        Sector desertRegion = new Sector("Desert Region", context);
+        Sector frozenTundra = new Sector("Frozen Tundra", context);
+        Sector volcanicZone = new Sector("Volcanic Zone", context);
+        Sector skyCity = new Sector("Sky City", context);
+        Sector undergroundCaverns = new Sector("Underground Caverns", context);
 
         // Set up adjacencies
         fileIsland.addAdjacentSector(serverContinent);
@@ -181,194 +232,361 @@ public class World {
         for (Sector sector : sectorList) {
             addSector(sector);
         }
+        registerGauges();
+    }
+
+    /**
+     * Registers the world-level gauges with the metrics registry.
+     * Gauges read the live world state when sampled, so they are re-registered
+     * whenever the sectors are recreated. Only the world of the default context is published.
+     */
+    private void registerGauges() {
+        if (!context.isPrimary()) {
+            return;
+        }
+        MetricsRegistry metrics = context.getMetrics();
+        metrics.removeGauge("digimon_sector_population");
+        for (Sector sector : sectors) {
+            metrics.registerGauge("digimon_sector_population", "Digimon living in each sector",
+                    "sector", sector.getName(), () -> sector.getDigimons().size());
+        }
+        metrics.registerGauge("digimon_tribes", "Tribes in the world", () -> tribes.size());
+        metrics.registerGauge("digimon_buildings", "Buildings placed across all sectors", () -> buildingIndex.count());
+        metrics.registerGauge("digimon_path_cache_entries", "Paths held by the path cache",
+                () -> context.getPathCache().getStats().entries());
+        metrics.registerGauge("digimon_path_cache_hit_ratio", "Share of path lookups served from the cache",
+                () -> context.getPathCache().getStats().hitRate());
+        metrics.registerGauge("digimon_path_cache_evictions", "Paths evicted from the path cache",
+                () -> context.getPathCache().getStats().evictions());
+        metrics.registerGauge("digimon_path_cache_bytes", "Estimated memory held by the path cache",
+                () -> context.getPathCache().getStats().estimatedBytes());
     }
 
     private void addSector(Sector sector) {
         sectors.add(sector);
+        sector.getGrid().getBuildingIndex().attachTo(buildingIndex);
     }
 
     /**
      * Simulates the progression of the Digimon world over time.
-     * This method runs in an infinite loop, updating the state of the world at each time step.
-     * It handles Digimon aging, evolution, movement, combat, birth, rebirth, and tribe formation.
-     * It also manages technological advancement and displays the status of each sector and its Digimons.
-     * The simulation performs the following actions:
+     * This method runs in an infinite loop, calling {@link #tick()} and then pausing for
+     * 3 seconds between each time step to allow for observation, until {@link #stop()} is called.
+     * The calling thread is watched for stalled ticks while the loop runs.
+     */
+    public void simulate(VisualGUI gui) {
+            System.out.println("Simulation started with GUI: " + gui);
+
+        startWatchdog();
+        LOGGER.info("Tick schedule:\n" + scheduler.describe());
+            while (running.get()) {
+                if (!tick()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    continue;
+                }
+                System.gc();
+
+            try {
+                Thread.sleep(3000); // Adjust as needed
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Sleep interrupted", e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Advances the world by one time step.
+     * Each tick runs the following systems, in this logical order:
      * - Ages up Digimons and checks for evolution
      * - Initiates combat between aggressive Digimons
      * - Moves Digimons between sectors
      * - Checks for rebirth and initiates random births
      * - Triggers random events
+     * - Distributes food, assigns professions and lets tribes work
      * - Forms new tribes and builds cities
      * - Advances the technological age
-     * - Displays the status of all Digimons in each sector
-     * The simulation pauses for 3 seconds between each time step to allow for observation.
-     * This method does not take any parameters and does not return any value as it runs indefinitely.
+     * - Removes the dead and empty tribes
+     * - Runs commands submitted during the tick, samples the time series and captures the snapshot
+     * and then notifies the observers of the world's event bus.
+     * A {@link SystemScheduler} runs the systems; those that share no state they write, as declared in
+     * {@link #scheduleSystems()}, run at once on its pool, while the ticking thread waits for them.
+     * A tick does not sleep and touches nothing outside this world's context, so independent
+     * worlds can be ticked concurrently, for example by submitting their ticks to a shared pool.
+     * A single world must not be ticked by two threads at once.
+     *
+     * @return true if the tick ran, false if the world lock could not be acquired or the thread was interrupted.
      */
-    public void simulate(VisualGUI gui) {
-            System.out.println("Simulation started with GUI: " + gui);
-
-        if (!watchdogRunning.get()) {
-            startWatchdog();
-        }
-            while (running.get()) {
-                clearTribeFeedingStatus();
-                lastUpdateTime = System.currentTimeMillis();
-                boolean lockAcquired = false;
-                try {
-                    lockAcquired = worldLock.writeLock().tryLock(5, TimeUnit.SECONDS);
-                    if (!lockAcquired) {
-                        LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping this simulation step.");
-                        continue;
-                    }
+    public boolean tick() {
+        clearTribeFeedingStatus();
+        // The wait for the world is part of the tick, so the watchdog sees a tick stuck behind a reader or a command
+        tickTimer.begin(time);
+        tickTimer.enter(TickPhase.WORLD_LOCK);
+        long stamp = 0;
+        try {
+            stamp = lockWrite("tick");
+            if (stamp == 0) {
+                tickTimer.cancel();
+                LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping this simulation step.");
+                return false;
+            }
 
-                    for (Sector sector : sectors) {
-                    for (Digimon digimon : sector.getDigimons()) {
-                        digimon.ageUp();
-                        if (digimon instanceof CelestialDigimon celestial) {
-                            List<Digimon> nearbyDigimon = sector.getDigimons();
-                            if (Math.random() < 0.3) { // 30% chance to help
-                                if (Math.random() < 0.5) {
-                                    celestial.provideFood(nearbyDigimon);
-                                } else {
-                                    celestial.heal(nearbyDigimon);
-                                }
-                            }
-                        }
-                        EvolutionSystem.checkEvolution(digimon);
-
-                        if (digimon.getAggression() > 250) {
-                            Digimon target = findTarget(digimon, sector);
-                            if (target != null) {
-                                digimon.attack(target);
-                            }
-                        }
-
-                        if (digimon.getAge() <= 25 || digimon.getHealth() >= 15 && random.nextBoolean()) {
-                            SectorMovement.moveDigimon(digimon, sector, random);
-                        }
-                    }
-                    for (int i = 0; i < 5; i++) {
-                        DigimonGenerator.generateRandomDigimon();
-                    }
-                        INSTANCE.getTribes().forEach(tribe -> {
-                            tribe.getMembers().forEach(digimon -> {
-                                if (digimon.getProfession() == null || random.nextDouble() < 0.1) {
-                                    String randomProfession = tribe.getTechnologySystem().getRandomProfession();
-                                    if (randomProfession != null) {
-                                        tribe.getTechnologySystem().assignProfession(digimon, randomProfession);
-                                        LOGGER.info(digimon.getName() + " assigned profession: " + randomProfession);
-                                    }
-                                }
-                            });
-                            tribe.getTechnologySystem().performWork(INSTANCE);
-                            tribe.feedTribe();
-                    });
+            tickTimer.enter(null);
+            tickTimer.setScope(null, getPopulation());
+            scheduler.run();
 
-                    List<Digimon> digimons = sector.getDigimons();
-                    RebirthSystem.checkRebirth(digimons);
-                        if (random.nextDouble() < 0.3 && digimons.size() < 25) {  // 30% chance each tick, higher population cap
-                            BirthSystem.randomBirth(digimons);
-                            // Could add multiple birth attempts
-                            if (random.nextDouble() < 0.5) {  // 50% chance of additional birth
-                                BirthSystem.randomBirth(digimons);
-                            }
-                        } if (digimons.isEmpty()) {
-                            BirthSystem.randomBirth(digimons);
-                        }
-                    if (time % 5 == 0) {
-                        EventSystem.triggerRandomEvent(INSTANCE);
-                    }
+            // Observers are told once per tick, after the snapshot they should read is published
+            tickTimer.enter(TickPhase.OBSERVERS);
+            context.getEvents().notifyWorldUpdate(this);
+            tickTimer.enter(null);
 
-                    if (digimons.isEmpty()) {
-                        for (int i = 0; i < 5; i++) {
-                            Digimon newDigimon = DigimonGenerator.generateRandomDigimon();
-                            sector.addDigimon(newDigimon);
-                        }
-                    }
-                    if(random.nextBoolean()) {
-                        FoodSystem.distributeFood(digimons);
-                    }
+            time++;
+            LOGGER.info("World simulated. Time: " + time + ", Tech Age: " + technologySystem.getCurrentAge());
+        } catch (InterruptedException e) {
+            tickTimer.cancel();
+            LOGGER.log(Level.WARNING, "Simulation interrupted", e);
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (stamp != 0) {
+                unlockWrite(stamp);
+            }
+        }
 
-                }
+        tickTimer.finish(getPopulation(), tribes.size(), buildingIndex.count());
+        return true;
+    }
 
+    /**
+     * Declares the systems of a tick in their logical order, with what each reads and writes.
+     * The scheduler derives from that which of them may run at once.
+     */
+    private void scheduleSystems() {
+        scheduler.add(new ScheduledSystem("aging", TickPhase.AGING_EVOLUTION, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS), this::ageAndEvolve));
+        scheduler.add(new ScheduledSystem("combat", TickPhase.COMBAT, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS, Resource.HEAT), this::fight));
+        // Goal fields lead to tribe buildings, and path, route and field lookups update their caches
+        scheduler.add(new ScheduledSystem("movement", TickPhase.MOVEMENT,
+                EnumSet.of(Resource.VITALS, Resource.TRIBES, Resource.BUILDINGS),
+                EnumSet.of(Resource.POSITIONS, Resource.HEAT, Resource.PATHS), this::move));
+        scheduler.add(new ScheduledSystem("births", TickPhase.BIRTHS_REBIRTHS, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.VITALS, Resource.POSITIONS, Resource.HEAT), this::giveBirth));
+        scheduler.add(new ScheduledSystem("events", TickPhase.EVENTS, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.VITALS, Resource.POSITIONS, Resource.HEAT, Resource.TRIBES, Resource.BUILDINGS,
+                        Resource.RELATIONS), this::triggerEvents));
+        scheduler.add(new ScheduledSystem("food", TickPhase.TRIBE_WORK, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS, Resource.TRIBES), this::distributeFood));
+        scheduler.add(new ScheduledSystem("tribe-work", TickPhase.TRIBE_WORK, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS, Resource.TRIBES, Resource.BUILDINGS, Resource.HEAT),
+                this::workInTribes));
+        scheduler.add(new ScheduledSystem("politics", TickPhase.POLITICS, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS, Resource.TRIBES, Resource.BUILDINGS, Resource.HEAT, Resource.RELATIONS),
+                this::updatePolitics));
+        scheduler.add(new ScheduledSystem("tech-age", null, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.TECHNOLOGY), this::advanceAge));
+        scheduler.add(new ScheduledSystem("mortality", TickPhase.MORTALITY, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.VITALS, Resource.POSITIONS, Resource.HEAT, Resource.TRIBES),
+                this::dieOff));
+        scheduler.add(new ScheduledSystem("abandoned-tribes", TickPhase.MORTALITY, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.TRIBES, Resource.BUILDINGS), this::removeAbandonedTribes));
+        // Commands submitted during the tick are part of what it publishes
+        scheduler.add(new ScheduledSystem("commands", null, EnumSet.noneOf(Resource.class),
+                EnumSet.allOf(Resource.class), this::runCommands));
+        scheduler.add(new ScheduledSystem("time-series", TickPhase.OBSERVERS,
+                EnumSet.of(Resource.VITALS, Resource.POSITIONS, Resource.TRIBES, Resource.BUILDINGS, Resource.TECHNOLOGY),
+                EnumSet.of(Resource.TIME_SERIES), this::sampleTimeSeries));
+        scheduler.add(new ScheduledSystem("snapshot", TickPhase.OBSERVERS,
+                EnumSet.of(Resource.VITALS, Resource.POSITIONS, Resource.HEAT, Resource.TRIBES, Resource.BUILDINGS,
+                        Resource.TECHNOLOGY), EnumSet.of(Resource.SNAPSHOT),
+                () -> snapshot = WorldSnapshot.capture(this, snapshot)));
+    }
 
-                if(random.nextBoolean() && tribes.size() > 1) {
-                    LOGGER.info("Triggering Political Situation");
-                    Politics.updatePoliticalSituation();
-                }
-                // Update political relationships
+    /**
+     * Describes the order the systems of a tick run in and which of them run at once, with their mean times so far.
+     */
+    public String describeSchedule() {
+        return scheduler.describe();
+    }
 
-                int currentAgeIndex = Arrays.asList(TechnologySystem.AGES).indexOf(technologySystem.getCurrentAge());
-                // Advance technological age
-                if (time == agesRequired.get(currentAgeIndex)) {
-                    technologySystem.advanceAge();
-                }
+    // Systems
 
-                // Replace console output with GUI updates
+    // The stream of the system being run, or the context's own source outside of the schedule
+    private Random random() {
+        return context.getRandom();
+    }
 
+    // Lets the stall watchdog tell which sector a sector-by-sector system is in
+    private void enterSector(Sector sector) {
+        if (writer == Thread.currentThread()) {
+            tickTimer.setScope(sector.getName(), sector.getDigimons().size());
+        }
+    }
 
-                int totalDigimon = sectors.stream().mapToInt(sector -> sector.getDigimons().size()).sum();
-                double deathProbability = 0.0005; // 5% chance of death per Digimon per time step
-                int expectedDeaths = (int) Math.round(totalDigimon * deathProbability);
-                int actualDeaths = random.nextInt(expectedDeaths * 2 + 1); // Allow for some variability
+    private void ageAndEvolve() {
+        // Aging and the Celestials' help only touch the vitals and positions in the entity store
+        AgingSystem.ageAll(context.getEntities());
+        CelestialAuraSystem.help(context);
+        for (Sector sector : sectors) {
+            enterSector(sector);
+            for (Digimon digimon : sector.getDigimons()) {
+                EvolutionSystem.checkEvolution(digimon);
+            }
+        }
+    }
 
-                for (int i = 0; i < actualDeaths; i++) {
-                    simulateRandomDeath();
+    private void fight() {
+        for (Sector sector : sectors) {
+            enterSector(sector);
+            for (Digimon digimon : sector.getDigimons()) {
+                if (digimon.getAggression() > 250) {
+                    Digimon target = findTarget(digimon, sector);
+                    if (target != null && digimon.attack(target)) {
+                        sector.recordAttack(target);
+                    }
                 }
-                List<Tribe> tribesToRemove = INSTANCE.getTribes().stream()
-                    .filter(tribe -> tribe.getMembers().isEmpty())
-                    .toList();
+            }
+        }
+    }
 
-                if (!tribesToRemove.isEmpty()) {
-                    tribesToRemove.forEach(tribes::remove);
-                    LOGGER.info("Removed " + tribesToRemove.size() + " empty tribes.");
+    private void move() {
+        for (Sector sector : sectors) {
+            enterSector(sector);
+            for (Digimon digimon : sector.getDigimons()) {
+                if (digimon.getAge() <= 25 || digimon.getHealth() >= 15 && random().nextBoolean()) {
+                    SectorMovement.moveDigimon(digimon, sector, random());
                 }
-                tribes = Tribe.getAllTribes();
-                SimulationSubject.getInstance().notifyWorldUpdate(this); // Use the passed GUI instance
+            }
+        }
+    }
 
-                time++;
-                    LOGGER.info("World simulated. Time: " + time + ", Tech Age: " + technologySystem.getCurrentAge());
-                System.gc();
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.WARNING, "Simulation interrupted", e);
-                Thread.currentThread().interrupt();
-                break;
-            } finally {
-                if (lockAcquired) {
-                    worldLock.writeLock().unlock();
+    private void giveBirth() {
+        for (Sector sector : sectors) {
+            enterSector(sector);
+            for (int i = 0; i < 5; i++) {
+                DigimonGenerator.generateRandomDigimon(random());
+            }
+            List<Digimon> digimons = sector.getDigimons();
+            RebirthSystem.checkRebirth(context, sector);
+            if (random().nextDouble() < context.getParameters().birthChance() && digimons.size() < 25) {  // higher population cap
+                BirthSystem.randomBirth(context, sector);
+                // Could add multiple birth attempts
+                if (random().nextDouble() < 0.5) {  // 50% chance of additional birth
+                    BirthSystem.randomBirth(context, sector);
                 }
             }
+            if (digimons.isEmpty()) {
+                BirthSystem.randomBirth(context, sector);
+                for (int i = 0; i < 5; i++) {
+                    Digimon newDigimon = DigimonGenerator.generateRandomDigimon(random());
+                    CommandBuffer.current().spawn(sector, newDigimon);
+                }
+            }
+        }
+    }
 
-            // Update GUI on EDT
-            SimulationSubject.getInstance().notifyWorldUpdate(this);
+    private void triggerEvents() {
+        if (time % 5 == 0) {
+            // One event per sector
+            for (int i = 0; i < sectors.size(); i++) {
+                EventSystem.triggerRandomEvent(context);
+            }
+        }
+    }
 
-            try {
-                Thread.sleep(3000); // Adjust as needed
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.WARNING, "Sleep interrupted", e);
-                Thread.currentThread().interrupt();
-                break;
+    private void distributeFood() {
+        for (Sector sector : sectors) {
+            if (random().nextBoolean()) {
+                FoodSystem.distributeFood(sector.getDigimons());
             }
         }
     }
 
-    private void startWatchdog() {
-        watchdogRunning.set(true);
-        watchdogThread = new Thread(() -> {
-            while (watchdogRunning.get()) {
-                try {
-                    Thread.sleep(10000);
-                    if (System.currentTimeMillis() - lastUpdateTime > 15000) {
-                        LOGGER.warning("Simulation frozen!");
+    private void workInTribes() {
+        for (Tribe tribe : tribes) {
+            // Assigning a profession leaves the members in place, so they are iterated directly
+            for (Digimon digimon : tribe.getMembers()) {
+                if (digimon.getProfession() == null || random().nextDouble() < 0.1) {
+                    String randomProfession = tribe.getTechnologySystem().getRandomProfession();
+                    if (randomProfession != null) {
+                        tribe.getTechnologySystem().assignProfession(digimon, randomProfession);
+                        LOGGER.info(digimon.getName() + " assigned profession: " + randomProfession);
                     }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
                 }
             }
-        });
-        watchdogThread.setDaemon(true);
-        watchdogThread.start();
+        }
+        TechnologySystem.performWork(tribes);
+        tribes.forEach(Tribe::feedTribe);
+    }
+
+    private void updatePolitics() {
+        if (random().nextBoolean() && tribes.size() > 1) {
+            LOGGER.info("Triggering Political Situation");
+            context.getPolitics().updatePoliticalSituation();
+        }
+    }
+
+    private void advanceAge() {
+        int currentAgeIndex = Arrays.asList(TechnologySystem.AGES).indexOf(technologySystem.getCurrentAge());
+        if (time == AGES_REQUIRED.get(currentAgeIndex)) {
+            technologySystem.advanceAge();
+        }
+    }
+
+    private void dieOff() {
+        int totalDigimon = sectors.stream().mapToInt(sector -> sector.getDigimons().size()).sum();
+        double deathProbability = context.getParameters().deathProbability();
+        int expectedDeaths = (int) Math.round(totalDigimon * deathProbability);
+        int actualDeaths = random().nextInt(expectedDeaths * 2 + 1); // Allow for some variability
+
+        for (int i = 0; i < actualDeaths; i++) {
+            simulateRandomDeath();
+        }
+    }
+
+    // Runs after the deaths were played back, so that tribes whose last member died go in the same tick
+    private void removeAbandonedTribes() {
+        tribes.forEach(Tribe::dropDeadMembers);
+        List<Tribe> tribesToRemove = tribes.stream()
+            .filter(tribe -> tribe.getMembers().isEmpty())
+            .toList();
+
+        if (!tribesToRemove.isEmpty()) {
+            for (Tribe tribe : tribesToRemove) {
+                sectors.forEach(sector -> sector.getGrid().cleanupTribeBuildings(tribe));
+                context.getPolitics().forget(tribe);
+                tribes.remove(tribe);
+            }
+            LOGGER.info("Removed " + tribesToRemove.size() + " empty tribes.");
+        }
+    }
+
+    private void sampleTimeSeries() {
+        TimeSeriesRecorder recorder = timeSeriesRecorder;
+        if (recorder != null) {
+            recorder.sample(this);
+        }
+    }
+
+    /**
+     * Starts watching the calling thread, which runs the simulation loop, for stalled ticks.
+     * {@link #simulate} calls this; a thread that calls {@link #tick()} itself may call it before its first tick.
+     *
+     * @return The watchdog, which keeps watching the thread that first started it.
+     */
+    public StallWatchdog startWatchdog() {
+        if (watchdog != null) {
+            return watchdog;
+        }
+        watchdog = new StallWatchdog(tickTimer, Thread.currentThread());
+        watchdog.watchLock(lock, this::lockHolders);
+        if (context.isPrimary()) {
+            context.getMetrics().setWatchdog(watchdog);
+        }
+        watchdog.start();
+        return watchdog;
     }
 
     /**
@@ -376,31 +594,19 @@ public class World {
  * This method has a small chance of removing a random Digimon from the world.
  */
 private void simulateRandomDeath() {
-    List<Digimon> allDigimon = new ArrayList<>();
+    CommandBuffer commands = CommandBuffer.current();
     for (Sector sector : sectors) {
-        allDigimon.addAll(sector.getDigimons());
-    }
-    
-    if (!allDigimon.isEmpty()) {
-        for (Digimon digimon : allDigimon) {
+        for (Digimon digimon : sector.getDigimons()) {
             if (!(digimon instanceof CelestialDigimon)) {
                 if (shouldDigimonDie(digimon)) {
-                    Sector digimonSector = sectors.stream()
-                        .filter(sector -> sector.getDigimons().contains(digimon))
-                        .findFirst()
-                        .orElse(null);
-
-                    if (digimonSector != null) {
-                        if (digimon.getTribe()!= null) {
-                            digimon.leaveTribe();
-                        }
-                        digimonSector.removeDigimon(digimon);
-                        LOGGER.info(digimon.getName() + " has died in " + digimonSector.getName());
-                        SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has died in " + digimonSector.getName(), SimulationEvent.EventType.OTHER);
-                    }
+                    // A Digimon drawn again before the deaths are played back only dies once
+                    commands.despawn(sector, digimon, () -> {
+                        context.increment(SimulationCounter.DEATHS);
+                        LOGGER.info(digimon.getName() + " has died in " + sector.getName());
+                        context.getEvents().notifyEvent(digimon.getName() + " has died in " + sector.getName(), SimulationEvent.EventType.OTHER);
+                    });
                 }
             }
-
         }
     }
 }
@@ -428,7 +634,7 @@ private boolean shouldDigimonDie(Digimon digimon) {
     
     totalDeathChance = Math.max(0, Math.min(totalDeathChance, 50)); // Ensure chance is between 0% and 50%
     
-    return random.nextInt(1000) < totalDeathChance * 10; // This gives more granularity
+    return random().nextInt(1000) < totalDeathChance * 10; // This gives more granularity
 }
 
 private int getEvolutionStageFactor(Digimon digimon) {
@@ -451,67 +657,226 @@ private int getEvolutionStageFactor(Digimon digimon) {
 
     /**
      * Finds a potential target for the attacking Digimon within the current sector or adjacent sectors.
-     * This method creates a list of possible targets by combining all Digimon in the current sector
-     * and its adjacent sectors, excluding the attacker itself. It then randomly selects a target
-     * from this list if it's not empty.
+     * Every Digimon in the current sector and its adjacent sectors, except the attacker itself, is
+     * equally likely to be picked. The sectors' Digimon are counted and indexed in place, not copied.
      *
      * @param attacker The Digimon initiating the attack.
      * @param currentSector The sector where the attacker is currently located.
      * @return A randomly selected Digimon target from the current or adjacent sectors, or null if no targets are available.
      */
     private Digimon findTarget(Digimon attacker, Sector currentSector) {
-        Iterator<Digimon> iterator = new Iterator<>() {
-            private int index = 0;
-            @Override
-            public boolean hasNext() {
-                return index < currentSector.getAdjacentSectors().size();
-            }
-            @Override
-            public Digimon next() {
-                return index++ > 0 ? currentSector.getDigimons().get(index - 1) : null;
-            }
-        };
-
-        List<Digimon> possibleTargets = new ArrayList<>();
+        int candidates = currentSector.getDigimons().size() - (currentSector.contains(attacker) ? 1 : 0);
         for (Sector adjacentSector : currentSector.getAdjacentSectors()) {
-            if (iterator.hasNext()) {
-                possibleTargets.add(iterator.next());
-            } else {
-                possibleTargets.addAll(adjacentSector.getDigimons());
-            }
+            candidates += adjacentSector.getDigimons().size();
+        }
+        if (candidates <= 0) {
+            return null;
         }
-        possibleTargets.remove(attacker);
 
-        if (!possibleTargets.isEmpty()) {
-            return possibleTargets.get(random.nextInt(possibleTargets.size()));
+        int pick = random().nextInt(candidates);
+        for (Digimon digimon : currentSector.getDigimons()) {
+            if (digimon != attacker && pick-- == 0) {
+                return digimon;
+            }
+        }
+        for (Sector adjacentSector : currentSector.getAdjacentSectors()) {
+            List<Digimon> digimons = adjacentSector.getDigimons();
+            if (pick < digimons.size()) {
+                return digimons.get(pick);
+            }
+            pick -= digimons.size();
         }
         return null;
     }
 
     /**
      * Retrieves a list of all sectors in the world.
-     * This method attempts to acquire a read lock on the world state to ensure thread-safe access.
-     * If the lock cannot be acquired within 5 seconds, an empty list is returned.
+     * The list is read optimistically; if a tick or command is running, this waits for it to end.
      *
-     * @return A new ArrayList containing all sectors in the world. If the lock cannot be acquired,
-     *         or if an InterruptedException occurs, an empty ArrayList is returned.
+     * @return A new ArrayList containing all sectors in the world.
      */
     public List<Sector> getSectors() {
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = worldLock.readLock().tryLock(5, TimeUnit.SECONDS);
-            if (!lockAcquired) {
-                LOGGER.warning("Failed to acquire read lock within 5 seconds. Returning empty sector list.");
-                return new ArrayList<>();
+        return read("getSectors", () -> new ArrayList<>(sectors));
+    }
+
+    /**
+     * Counts the Digimon living in all sectors. Unlike getSectors(), this does not take the world lock,
+     * so it is meant for the thread that ticks the world.
+     *
+     * @return The current population.
+     */
+    public int getPopulation() {
+        int population = 0;
+        for (Sector sector : sectors) {
+            population += sector.getDigimons().size();
+        }
+        return population;
+    }
+
+    /**
+     * Reads the world. The read first runs without locking and is kept if no tick or command wrote
+     * to the world meanwhile; otherwise it runs again under the read lock. A reader must therefore
+     * only read, and tolerate seeing a torn state, which is thrown away, on its first run.
+     *
+     * @param operation What is read, for lock wait events.
+     * @param reader    The read.
+     * @return The value read.
+     */
+    private <T> T read(String operation, Supplier<T> reader) {
+        if (ownsWorld()) {
+            return reader.get();
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
             }
-            return new ArrayList<>(sectors);
+        }
+        WorldLockWaitEvent event = new WorldLockWaitEvent();
+        event.begin();
+        stamp = lock.readLock();
+        event.end();
+        commit(event, operation, false, true);
+        readers.merge(Thread.currentThread(), 1, Integer::sum);
+        try {
+            return reader.get();
+        } finally {
+            readers.computeIfPresent(Thread.currentThread(), (thread, holds) -> holds > 1 ? holds - 1 : null);
+            lock.unlockRead(stamp);
+            drainCommands();
+        }
+    }
+
+    // The threads holding the world lock, for the stall watchdog
+    private Collection<Thread> lockHolders() {
+        Thread holder = writer;
+        return holder != null ? List.of(holder) : List.copyOf(readers.keySet());
+    }
+
+    /**
+     * Acquires the write lock, waiting up to 5 seconds.
+     * Waits longer than the threshold of the {@link WorldLockWaitEvent} are reported to any
+     * running flight recording.
+     *
+     * @param operation What the lock is needed for.
+     * @return The stamp to unlock with, or 0 if the lock was not acquired.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private long lockWrite(String operation) throws InterruptedException {
+        WorldLockWaitEvent event = new WorldLockWaitEvent();
+        event.begin();
+        long stamp = lock.tryWriteLock(5, TimeUnit.SECONDS);
+        event.end();
+        commit(event, operation, true, stamp != 0);
+        if (stamp != 0) {
+            writer = Thread.currentThread();
+        }
+        return stamp;
+    }
+
+    // Whether the calling thread holds the world, or runs a system of the tick that does
+    private boolean ownsWorld() {
+        return writer == Thread.currentThread() || TICK_WORKER.get() == this;
+    }
+
+    // Releases the write lock, then runs whatever was queued while it was held
+    private void unlockWrite(long stamp) {
+        writer = null;
+        lock.unlockWrite(stamp);
+        drainCommands();
+    }
+
+    private static void commit(WorldLockWaitEvent event, String operation, boolean write, boolean acquired) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.write = write;
+            event.acquired = acquired;
+            event.commit();
+        }
+    }
+
+    /**
+     * Submits a change to the world. The command runs at once on the calling thread if nothing
+     * holds the world or the caller is the thread holding it; otherwise it is queued, and run by
+     * the holder before it releases the world, which for a tick is before its snapshot is captured.
+     * Commands run one at a time, in submission order, with exclusive access to the world.
+     *
+     * @param operation A name for the command in logs.
+     * @param command   The change, which reports its own outcome. An exception it throws is reported as
+     *                  {@link CommandResult.Status#FAILED}.
+     * @return The outcome, completed once the command ran.
+     */
+    public CompletableFuture<CommandResult> submit(String operation, Supplier<CommandResult> command) {
+        Command queued = new Command(operation, command, new CompletableFuture<>());
+        if (ownsWorld()) {
+            queued.run();
+        } else {
+            commands.add(queued);
+            drainCommands();
+        }
+        return queued.result;
+    }
+
+    /**
+     * Submits a change to the world and waits up to 5 seconds for it to run.
+     *
+     * @return The command's outcome, or {@link CommandResult.Status#PENDING} if it is still queued behind a
+     *         tick when the wait ends or the caller is interrupted. A pending command still runs.
+     */
+    public CommandResult execute(String operation, Supplier<CommandResult> command) {
+        CompletableFuture<CommandResult> result = submit(operation, command);
+        try {
+            return result.get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warning(operation + " is still queued after " + COMMAND_TIMEOUT_SECONDS + " seconds");
+            return new CommandResult(CommandResult.Status.PENDING, operation + " is queued behind a running tick");
         } catch (InterruptedException e) {
-            LOGGER.log(Level.WARNING, "Interrupted while trying to acquire lock", e);
             Thread.currentThread().interrupt();
-            return new ArrayList<>();
-        } finally {
-            if (lockAcquired) {
-                worldLock.readLock().unlock();
+            return new CommandResult(CommandResult.Status.PENDING, operation + " is queued; the caller was interrupted");
+        } catch (ExecutionException e) {
+            // Commands complete their result themselves and never fail it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Runs the queued commands, unless something else holds the world and will run them when it lets go
+    private void drainCommands() {
+        while (!commands.isEmpty()) {
+            long stamp = lock.tryWriteLock();
+            if (stamp == 0) {
+                return;
+            }
+            writer = Thread.currentThread();
+            try {
+                runCommands();
+            } finally {
+                writer = null;
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private void runCommands() {
+        Command command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+    }
+
+    private record Command(String operation, Supplier<CommandResult> action, CompletableFuture<CommandResult> result) {
+        void run() {
+            try {
+                result.complete(action.get());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "World command " + operation + " failed", e);
+                result.complete(new CommandResult(CommandResult.Status.FAILED, operation + " failed: " + e));
             }
         }
     }
@@ -521,13 +886,54 @@ private int getEvolutionStageFactor(Digimon digimon) {
     }
 
     public int getBuildings() {
-        return tribes.stream().mapToInt(Tribe::getBuildings).sum();
+        return read("getBuildings", buildingIndex::count);
+    }
+
+    /**
+     * Returns the index of every building placed in any sector of the world.
+     * Counts by tribe and by type are read from it in constant time.
+     *
+     * @return The world-wide building index.
+     */
+    public BuildingIndex getBuildingIndex() {
+        return buildingIndex;
     }
 
     public TechnologySystem getTechnologySystem() {
         return technologySystem;
     }
 
+    /**
+     * Returns the snapshot taken at the end of the last tick, which is safe to read from any thread.
+     *
+     * @return The latest snapshot, or null if the world has not ticked since it was created, reset or loaded.
+     */
+    public WorldSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Captures a snapshot outside of a tick, so that viewers can show a world that has not ticked yet.
+     *
+     * @return The latest snapshot, which is the previous one if the capture is still queued behind a tick.
+     */
+    public WorldSnapshot captureSnapshot() {
+        execute("captureSnapshot", () -> {
+            snapshot = WorldSnapshot.capture(this, snapshot);
+            return CommandResult.applied("Captured snapshot " + snapshot.version());
+        });
+        return snapshot;
+    }
+
+    /**
+     * Sets the recorder that samples the world at the end of every tick, on the ticking thread.
+     *
+     * @param recorder The recorder, or null to stop sampling.
+     */
+    public void setTimeSeriesRecorder(TimeSeriesRecorder recorder) {
+        this.timeSeriesRecorder = recorder;
+    }
+
     public void stop() {
         running.set(false);
     }
@@ -542,8 +948,18 @@ private int getEvolutionStageFactor(Digimon digimon) {
      *         indicating the number of time units that have passed since the last age transition.
      */
     public int getTimeToNextAge() {
-        int currentAgeIndex = Arrays.asList(TechnologySystem.AGES).indexOf(technologySystem.getCurrentAge());
-        return agesRequired.get(currentAgeIndex) - time;
+        return read("getTimeToNextAge", () -> ticksToNextAge(technologySystem.getCurrentAgeIndex(), time));
+    }
+
+    /**
+     * Calculates the time units from a time to the next technological age, as {@link #getTimeToNextAge()} does.
+     *
+     * @param age  The index of the current age.
+     * @param time The current time.
+     * @return The time units left, negative in the final age.
+     */
+    public static int ticksToNextAge(int age, int time) {
+        return AGES_REQUIRED.get(Math.min(age, AGES_REQUIRED.size() - 1)) - time;
     }
 
     public Tribe getTribeByName(Tribe tribe) {
@@ -556,82 +972,73 @@ private int getEvolutionStageFactor(Digimon digimon) {
     public Set<Tribe> getTribes() {
         return tribes;
     }
-    public void saveState() {
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = worldLock.writeLock().tryLock(5, TimeUnit.SECONDS);
-            if (!lockAcquired) {
-                LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping saveState operation.");
-                return;
-            }
+    /**
+     * Saves the state of the world, to be restored by {@link #loadState()}.
+     *
+     * @return Whether the state was saved.
+     */
+    public CommandResult saveState() {
+        return execute("saveState", () -> {
             this.savedState = new WorldState(this);
             LOGGER.info("World state saved successfully.");
-        } catch (InterruptedException e) {
-            LOGGER.log(Level.WARNING, "Interrupted while trying to acquire lock for saveState", e);
-            Thread.currentThread().interrupt();
-        } finally {
-            if (lockAcquired) {
-                worldLock.writeLock().unlock();
-            }
-        }
+            return CommandResult.applied("Saved the world at time " + time);
+        });
     }
 
     /**
      * Resets the world to its initial state.
+     *
+     * @return Whether the world was reset.
      */
-    public void reset() {
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = worldLock.writeLock().tryLock(5, TimeUnit.SECONDS);
-            if (!lockAcquired) {
-                LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping reset operation.");
-                return;
-            }
+    public CommandResult reset() {
+        return execute("reset", () -> {
+            detachAll();
             this.digimonList = new ArrayList<Digimon>(); // Fixed: Use Digimon
-            this.tribes = Tribe.getAllTribes();
             this.time = 0;
             this.sectors = new ArrayList<>();
-            this.random = new Random();
+            // The cells of the replaced sectors must not be reused by the next snapshot
+            this.snapshot = null;
+            buildingIndex.clear();
             initialize();
             LOGGER.info("World reset to initial state.");
-        } catch (InterruptedException e) {
-            LOGGER.log(Level.WARNING, "Interrupted while trying to acquire lock for reset", e);
-            Thread.currentThread().interrupt();
-        } finally {
-            if (lockAcquired) {
-                worldLock.writeLock().unlock();
-            }
-        }
+            return CommandResult.applied("Reset the world");
+        });
     }
 
     /**
      * Loads a previously saved state of the world.
+     *
+     * @return Whether the state was loaded, or rejected because none was saved.
      */
-    public void loadState() {
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = worldLock.writeLock().tryLock(5, TimeUnit.SECONDS);
-            if (!lockAcquired) {
-                LOGGER.warning("Failed to acquire write lock within 5 seconds. Skipping loadState operation.");
-                return;
-            }
+    public CommandResult loadState() {
+        return execute("loadState", () -> {
             if (this.savedState == null) {
                 LOGGER.warning("No saved state available to load.");
-                return;
+                return CommandResult.rejected("No saved state available to load");
             }
+            detachAll();
             this.digimonList = new ArrayList<>(savedState.digimonList); // Fixed: Use proper copy
             this.tribes = new HashSet<>(savedState.tribes);
             this.time = savedState.time;
             this.sectors = new ArrayList<>(savedState.sectors);
+            this.snapshot = null;
+            buildingIndex.clear();
+            sectors.forEach(sector -> sector.getGrid().getBuildingIndex().attachTo(buildingIndex));
+            sectors.forEach(Sector::restoreEntities);
             LOGGER.info("World state loaded successfully.");
-        } catch (InterruptedException e) {
-            LOGGER.log(Level.WARNING, "Interrupted while trying to acquire lock for loadState", e);
-            Thread.currentThread().interrupt();
-        } finally {
-            if (lockAcquired) {
-                worldLock.writeLock().unlock();
+            return CommandResult.applied("Loaded the world saved at time " + time);
+        });
+    }
+
+    // Moves every Digimon's state out of the entity store, before the sectors it was placed in are replaced
+    private void detachAll() {
+        EntityStore entities = context.getEntities();
+        for (Archetype archetype : entities.getArchetypes()) {
+            while (archetype.size() > 0) {
+                ((Digimon) archetype.owner(0)).detach();
             }
         }
+        entities.clear();
     }
 
     public boolean isInitialized() {
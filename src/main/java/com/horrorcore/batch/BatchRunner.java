@@ -0,0 +1,288 @@
+package com.horrorcore.batch;
+
+import com.horrorcore.SimulationContext;
+import com.horrorcore.SimulationParameters;
+import com.horrorcore.World;
+import com.horrorcore.entity.CelestialDigimon;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.metrics.timeseries.TimeSeriesRecorder;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs many headless worlds for every configuration of a parameter grid and aggregates how they end up.
+ * Each configuration is run once per seed, with the seeds 0 to seeds - 1 shared by all configurations,
+ * and each run ticks its own {@link SimulationContext} to a fixed horizon. Runs are spread over a
+ * thread pool sized to the machine by default.
+ *
+ * Every finished run is appended to a CSV results file as soon as it completes. When the runner is
+ * started again on the same file, the runs already recorded are counted towards the statistics and
+ * not repeated, so an interrupted batch resumes where it stopped. Each result records the horizon and
+ * starting population it was run with, and only results of the runner's own are resumed; those of
+ * other setups stay in the file but are neither counted nor repeated over. Given a time-series directory, every
+ * run also records its per-tick aggregates there with a {@link TimeSeriesRecorder}.
+ *
+ * From the command line:
+ * <pre>
+ * java -cp digimon-simulator.jar com.horrorcore.batch.BatchRunner \
+ *     --birth 0.2,0.3 --death 0.0005,0.001 --celestial-help 0.3 --seeds 16 --ticks 500 --out results.csv
+ * </pre>
+ */
+public class BatchRunner {
+    private static final Logger LOGGER = Logger.getLogger(BatchRunner.class.getName());
+    // Held so the levels set in main are not lost when the loggers are collected
+    private static final Logger SIMULATION_LOGGER = Logger.getLogger("com.horrorcore");
+
+    private final List<SimulationParameters> grid;
+    private final int seeds;
+    private final int horizon;
+    private final Path resultsFile;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int initialPopulation = 100;
+    private int celestials = 10;
+    private Path timeSeriesDirectory;
+
+    /**
+     * @param grid        The configurations to run.
+     * @param seeds       The number of runs per configuration.
+     * @param horizon     The number of ticks each run is simulated for, unless it dies out first.
+     * @param resultsFile The CSV file runs are recorded in and resumed from.
+     */
+    public BatchRunner(List<SimulationParameters> grid, int seeds, int horizon, Path resultsFile) {
+        this.grid = List.copyOf(grid);
+        this.seeds = seeds;
+        this.horizon = horizon;
+        this.resultsFile = resultsFile;
+    }
+
+    public void setThreads(int threads) { this.threads = threads; }
+    public void setInitialPopulation(int initialPopulation) { this.initialPopulation = initialPopulation; }
+    public void setCelestials(int celestials) { this.celestials = celestials; }
+    public void setTimeSeriesDirectory(Path timeSeriesDirectory) { this.timeSeriesDirectory = timeSeriesDirectory; }
+
+    /**
+     * Runs every configuration and seed that has no result in the results file yet.
+     *
+     * @return The statistics of every configuration, in grid order, including resumed runs.
+     * @throws IOException          If the results file cannot be read or written.
+     * @throws InterruptedException If interrupted; the runs finished so far are kept in the results file.
+     */
+    public Map<SimulationParameters, RunStatistics> run() throws IOException, InterruptedException {
+        Map<SimulationParameters, RunStatistics> statistics = new LinkedHashMap<>();
+        for (SimulationParameters parameters : grid) {
+            statistics.put(parameters, new RunStatistics(parameters));
+        }
+
+        RunSetup setup = new RunSetup(horizon, initialPopulation, celestials);
+        Set<RunKey> done = new HashSet<>();
+        int otherSetups = 0;
+        for (RunResult result : loadResults()) {
+            if (!result.setup().equals(setup)) {
+                otherSetups++;
+                continue;
+            }
+            RunStatistics configuration = statistics.get(result.parameters());
+            if (configuration != null && result.seed() < seeds && done.add(new RunKey(result.parameters(), result.seed()))) {
+                configuration.add(result);
+            }
+        }
+        if (otherSetups > 0) {
+            LOGGER.warning("Ignoring " + otherSetups + " recorded runs of a setup other than " + setup);
+        }
+
+        List<RunKey> pending = new ArrayList<>();
+        for (SimulationParameters parameters : grid) {
+            for (long seed = 0; seed < seeds; seed++) {
+                RunKey key = new RunKey(parameters, seed);
+                if (!done.contains(key)) {
+                    pending.add(key);
+                }
+            }
+        }
+        LOGGER.info("Resumed " + done.size() + " runs; " + pending.size() + " runs to go on " + threads + " threads");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter writer = Files.newBufferedWriter(resultsFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (Files.size(resultsFile) == 0) {
+                writer.write(RunResult.CSV_HEADER);
+                writer.newLine();
+                writer.flush();
+            }
+            CompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+            for (RunKey key : pending) {
+                completion.submit(() -> runOne(key.parameters(), setup, key.seed()));
+            }
+            for (int finished = 1; finished <= pending.size(); finished++) {
+                RunResult result = completion.take().get();
+                writer.write(result.toCsv());
+                writer.newLine();
+                writer.flush();
+                statistics.get(result.parameters()).add(result);
+                LOGGER.info("Run " + finished + "/" + pending.size() + " finished: " + result);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulation run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Simulates one world to the horizon, or until no mortal Digimon is left.
+     */
+    RunResult runOne(SimulationParameters parameters, RunSetup setup, long seed) throws InterruptedException, IOException {
+        SimulationContext context = new SimulationContext(seed, parameters);
+        World world = context.getWorld();
+        world.initialize();
+        for (int i = 0; i < setup.initialPopulation(); i++) {
+            world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+        }
+        for (int i = 0; i < setup.celestials(); i++) {
+            world.addDigimon(DigimonGenerator.generateCelestialDigimon(context));
+        }
+
+        TimeSeriesRecorder recorder = null;
+        if (timeSeriesDirectory != null) {
+            recorder = new TimeSeriesRecorder(world, timeSeriesDirectory.resolve(String.format(Locale.ROOT,
+                    "birth%s-death%s-help%s-seed%d.dgts", parameters.birthChance(), parameters.deathProbability(),
+                    parameters.celestialHelpChance(), seed)));
+            world.setTimeSeriesRecorder(recorder);
+        }
+
+        int extinctionTick = -1;
+        try {
+            while (world.getTime() < setup.horizon()) {
+                if (!world.tick() && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Run of seed " + seed + " interrupted at tick " + world.getTime());
+                }
+                if (countMortals(world) == 0) {
+                    extinctionTick = world.getTime();
+                    break;
+                }
+            }
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+        return new RunResult(parameters, setup, seed, world.getTime(), world.getPopulation(), world.getTribes().size(),
+                world.getTechnologySystem().getCurrentAgeIndex(), extinctionTick);
+    }
+
+    private static int countMortals(World world) {
+        int mortals = 0;
+        for (Sector sector : world.getSectors()) {
+            for (Digimon digimon : sector.getDigimons()) {
+                if (!(digimon instanceof CelestialDigimon)) {
+                    mortals++;
+                }
+            }
+        }
+        return mortals;
+    }
+
+    /**
+     * Reads the complete results recorded so far. A results file cut short by an interruption is
+     * rewritten without its incomplete lines, so that new results start on a fresh line. A last line
+     * without its line break is incomplete even if it parses, since it may have been cut off inside
+     * its last field.
+     *
+     * @throws IOException If the file cannot be read or written, or is not a results file with the current columns.
+     */
+    private List<RunResult> loadResults() throws IOException {
+        List<RunResult> results = new ArrayList<>();
+        if (!Files.exists(resultsFile)) {
+            return results;
+        }
+        String contents = Files.readString(resultsFile, StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>(Arrays.asList(contents.split("\\R")));
+        boolean damaged = !contents.isEmpty() && !contents.endsWith("\n");
+        if (damaged) {
+            LOGGER.warning("Ignoring unterminated result: " + lines.remove(lines.size() - 1));
+        }
+        // Rewriting a file of other columns would drop every result in it
+        if (!lines.isEmpty() && !lines.get(0).isBlank() && !lines.get(0).equals(RunResult.CSV_HEADER)) {
+            throw new IOException(resultsFile + " does not start with the results header " + RunResult.CSV_HEADER);
+        }
+        for (String line : lines) {
+            if (line.isBlank() || line.equals(RunResult.CSV_HEADER)) {
+                continue;
+            }
+            try {
+                results.add(RunResult.fromCsv(line));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Ignoring incomplete result: " + line);
+                damaged = true;
+            }
+        }
+        if (damaged) {
+            List<String> kept = new ArrayList<>();
+            kept.add(RunResult.CSV_HEADER);
+            results.forEach(result -> kept.add(result.toCsv()));
+            Files.write(resultsFile, kept, StandardCharsets.UTF_8);
+        }
+        return results;
+    }
+
+    private record RunKey(SimulationParameters parameters, long seed) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        SimulationParameters defaults = SimulationParameters.DEFAULTS;
+        List<SimulationParameters> grid = SimulationParameters.grid(
+                values(options.get("birth"), defaults.birthChance()),
+                values(options.get("death"), defaults.deathProbability()),
+                values(options.get("celestial-help"), defaults.celestialHelpChance()));
+        BatchRunner runner = new BatchRunner(grid,
+                Integer.parseInt(options.getOrDefault("seeds", "8")),
+                Integer.parseInt(options.getOrDefault("ticks", "500")),
+                Path.of(options.getOrDefault("out", "batch-results.csv")));
+        if (options.containsKey("threads")) runner.setThreads(Integer.parseInt(options.get("threads")));
+        if (options.containsKey("population")) runner.setInitialPopulation(Integer.parseInt(options.get("population")));
+        if (options.containsKey("celestials")) runner.setCelestials(Integer.parseInt(options.get("celestials")));
+        if (options.containsKey("timeseries")) {
+            Path directory = Path.of(options.get("timeseries"));
+            Files.createDirectories(directory);
+            runner.setTimeSeriesDirectory(directory);
+        }
+
+        // The worlds log every step; only the batch progress is of interest here
+        SIMULATION_LOGGER.setLevel(Level.WARNING);
+        LOGGER.setLevel(Level.INFO);
+
+        for (RunStatistics configuration : runner.run().values()) {
+            System.out.println(configuration.format());
+        }
+    }
+
+    private static List<Double> values(String option, double fallback) {
+        if (option == null) {
+            return List.of(fallback);
+        }
+        List<Double> values = new ArrayList<>();
+        for (String value : option.split(",")) {
+            values.add(Double.parseDouble(value.trim()));
+        }
+        return values;
+    }
+}
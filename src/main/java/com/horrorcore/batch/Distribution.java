@@ -0,0 +1,55 @@
+package com.horrorcore.batch;
+
+import java.util.Arrays;
+
+/**
+ * The values of one statistic across the runs of a configuration.
+ * Runs are few enough that every value is kept, which makes the percentiles exact.
+ */
+public class Distribution {
+    private double[] values = new double[8];
+    private int count;
+    private double sum;
+    private boolean sorted = true;
+
+    public void add(double value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        sorted = sorted && (count == 0 || values[count - 1] <= value);
+        values[count++] = value;
+        sum += value;
+    }
+
+    public int getCount() { return count; }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : sortedValues()[count - 1];
+    }
+
+    /**
+     * Returns the nearest-rank percentile of the values.
+     *
+     * @param quantile The quantile, between 0 and 1.
+     * @return The smallest value that at least that share of the values are less than or equal to; NaN when empty.
+     */
+    public double percentile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(quantile * count);
+        return sortedValues()[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    private double[] sortedValues() {
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        return values;
+    }
+}
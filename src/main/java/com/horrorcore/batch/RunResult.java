@@ -0,0 +1,51 @@
+package com.horrorcore.batch;
+
+import com.horrorcore.SimulationParameters;
+
+/**
+ * The summary of one simulated world at the end of a batch run.
+ *
+ * @param parameters     The probabilities the world was simulated with.
+ * @param setup          How the world was started and how long it was to be simulated.
+ * @param seed           The seed of the world's random source.
+ * @param ticks          The number of ticks simulated.
+ * @param population     The number of Digimon alive at the end.
+ * @param tribes         The number of tribes at the end.
+ * @param techAge        The index of the technological age reached.
+ * @param extinctionTick The tick at which no mortal Digimon was left, or -1 if that never happened.
+ */
+public record RunResult(SimulationParameters parameters, RunSetup setup, long seed, int ticks, int population,
+                        int tribes, int techAge, int extinctionTick) {
+    static final String CSV_HEADER = "birthChance,deathProbability,celestialHelpChance,horizon,initialPopulation,"
+            + "celestials,seed,ticks,population,tribes,techAge,extinctionTick";
+
+    public boolean isExtinct() {
+        return extinctionTick >= 0;
+    }
+
+    String toCsv() {
+        return parameters.birthChance() + "," + parameters.deathProbability() + "," + parameters.celestialHelpChance()
+                + "," + setup.horizon() + "," + setup.initialPopulation() + "," + setup.celestials() + "," + seed + "," + ticks + "," + population + "," + tribes + "," + techAge + "," + extinctionTick;
+    }
+
+    /**
+     * Parses a line written by {@link #toCsv()}.
+     *
+     * @param line A line of a results file.
+     * @return The run result.
+     * @throws IllegalArgumentException If the line is not a complete result, for example because
+     *                                  writing it was interrupted.
+     */
+    static RunResult fromCsv(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 12) {
+            throw new IllegalArgumentException("Expected 12 fields but found " + fields.length + ": " + line);
+        }
+        SimulationParameters parameters = new SimulationParameters(
+                Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2]));
+        RunSetup setup = new RunSetup(Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5]));
+        return new RunResult(parameters, setup, Long.parseLong(fields[6]), Integer.parseInt(fields[7]),
+                Integer.parseInt(fields[8]), Integer.parseInt(fields[9]), Integer.parseInt(fields[10]),
+                Integer.parseInt(fields[11]));
+    }
+}
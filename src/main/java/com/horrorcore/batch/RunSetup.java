@@ -0,0 +1,12 @@
+package com.horrorcore.batch;
+
+/**
+ * How the worlds of a batch are started and how long they are simulated, which results are only
+ * comparable under.
+ *
+ * @param horizon           The number of ticks each run is simulated for, unless it dies out first.
+ * @param initialPopulation The number of random Digimon each world starts with.
+ * @param celestials        The number of Celestial Digimon each world starts with.
+ */
+public record RunSetup(int horizon, int initialPopulation, int celestials) {
+}
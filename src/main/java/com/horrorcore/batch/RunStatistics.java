@@ -0,0 +1,58 @@
+package com.horrorcore.batch;
+
+import com.horrorcore.SimulationParameters;
+import com.horrorcore.systems.tech.TechnologySystem;
+
+import java.util.Locale;
+
+/**
+ * Aggregates the results of every run of one parameter configuration as they come in.
+ */
+public class RunStatistics {
+    private final SimulationParameters parameters;
+    private final Distribution population = new Distribution();
+    private final Distribution tribes = new Distribution();
+    private final Distribution techAge = new Distribution();
+    private final Distribution extinctionTick = new Distribution();
+
+    public RunStatistics(SimulationParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    public synchronized void add(RunResult result) {
+        population.add(result.population());
+        tribes.add(result.tribes());
+        techAge.add(result.techAge());
+        if (result.isExtinct()) {
+            extinctionTick.add(result.extinctionTick());
+        }
+    }
+
+    public SimulationParameters getParameters() { return parameters; }
+    public synchronized int getRuns() { return population.getCount(); }
+    public Distribution getPopulation() { return population; }
+    public Distribution getTribes() { return tribes; }
+    public Distribution getTechAge() { return techAge; }
+
+    /**
+     * Returns the ticks at which the extinct runs died out; runs that survived are not included.
+     */
+    public Distribution getExtinctionTick() { return extinctionTick; }
+
+    public synchronized String format() {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "birth=%s death=%s help=%s runs=%d | population mean=%.1f p10=%.0f p50=%.0f p90=%.0f"
+                        + " | tribes mean=%.1f p50=%.0f p90=%.0f | tech age mean=%.2f max=%s",
+                parameters.birthChance(), parameters.deathProbability(), parameters.celestialHelpChance(),
+                population.getCount(),
+                population.getMean(), population.percentile(0.1), population.percentile(0.5), population.percentile(0.9),
+                tribes.getMean(), tribes.percentile(0.5), tribes.percentile(0.9),
+                techAge.getMean(), population.getCount() == 0 ? "-" : TechnologySystem.AGES[(int) techAge.getMax()]));
+        line.append(String.format(Locale.ROOT, " | extinct %d/%d", extinctionTick.getCount(), population.getCount()));
+        if (extinctionTick.getCount() > 0) {
+            line.append(String.format(Locale.ROOT, " mean tick=%.1f p50=%.0f",
+                    extinctionTick.getMean(), extinctionTick.percentile(0.5)));
+        }
+        return line.toString();
+    }
+}
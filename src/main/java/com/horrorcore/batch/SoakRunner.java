@@ -0,0 +1,164 @@
+package com.horrorcore.batch;
+
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ticks one headless world for a long time and samples what it holds on to, to find out whether
+ * anything grows with the number of ticks rather than with the population. Every few ticks the
+ * runner records the used heap after a garbage collection, the population, the slots of the
+ * world's entity store and the friendship edges Digimon hold, whether their friends are alive or not.
+ *
+ * Heap usage fluctuates with the population, so whether it stays flat is judged by the slope of a
+ * least squares line through the samples of the second half of the run, after the world settled.
+ *
+ * From the command line:
+ * <pre>
+ * java -cp digimon-simulator.jar com.horrorcore.batch.SoakRunner --ticks 1000000 --sample-every 10000
+ * </pre>
+ */
+public class SoakRunner {
+    private static final Logger LOGGER = Logger.getLogger(SoakRunner.class.getName());
+    // Held so the levels set in main are not lost when the loggers are collected
+    private static final Logger SIMULATION_LOGGER = Logger.getLogger("com.horrorcore");
+
+    private final int ticks;
+    private final int sampleInterval;
+    private long seed;
+    private int initialPopulation = 100;
+    private int celestials = 10;
+
+    /**
+     * @param ticks          The number of ticks to simulate.
+     * @param sampleInterval The number of ticks between samples.
+     */
+    public SoakRunner(int ticks, int sampleInterval) {
+        this.ticks = ticks;
+        this.sampleInterval = sampleInterval;
+    }
+
+    public void setSeed(long seed) { this.seed = seed; }
+    public void setInitialPopulation(int initialPopulation) { this.initialPopulation = initialPopulation; }
+    public void setCelestials(int celestials) { this.celestials = celestials; }
+
+    /**
+     * What a world held on to at one tick.
+     *
+     * @param tick             The tick the sample was taken after.
+     * @param usedHeap         The bytes of heap in use after a garbage collection.
+     * @param population       The number of Digimon in the world's sectors.
+     * @param entitySlots      The slots of the world's entity store, live, free or retired.
+     * @param friendReferences The friendship edges held by the Digimon, including those to friends that died.
+     */
+    public record Sample(int tick, long usedHeap, int population, int entitySlots, long friendReferences) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "tick %d: %.1f MB heap, %d Digimon, %d entity slots, %d friendship edges",
+                    tick, usedHeap / 1e6, population, entitySlots, friendReferences);
+        }
+    }
+
+    /**
+     * Ticks the world and samples it, starting with a sample before the first tick.
+     *
+     * @return The samples, in tick order.
+     * @throws InterruptedException If interrupted while ticking.
+     */
+    public List<Sample> run() throws InterruptedException {
+        SimulationContext context = new SimulationContext(seed);
+        World world = context.getWorld();
+        world.initialize();
+        for (int i = 0; i < initialPopulation; i++) {
+            world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+        }
+        for (int i = 0; i < celestials; i++) {
+            world.addDigimon(DigimonGenerator.generateCelestialDigimon(context));
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        samples.add(sample(context));
+        while (world.getTime() < ticks) {
+            if (!world.tick() && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Soak interrupted at tick " + world.getTime());
+            }
+            if (world.getTime() % sampleInterval == 0 || world.getTime() == ticks) {
+                Sample sample = sample(context);
+                samples.add(sample);
+                LOGGER.info(sample.toString());
+            }
+        }
+        return samples;
+    }
+
+    private static Sample sample(SimulationContext context) {
+        World world = context.getWorld();
+        long friendReferences = 0;
+        for (Sector sector : world.getSectors()) {
+            for (Digimon digimon : sector.getDigimons()) {
+                friendReferences += digimon.getFriendReferences();
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return new Sample(world.getTime(), runtime.totalMemory() - runtime.freeMemory(), world.getPopulation(),
+                context.getEntities().getSlots(), friendReferences);
+    }
+
+    /**
+     * Returns how many bytes of heap the run gained per tick over the second half of its samples, fitted
+     * by least squares; zero if there are fewer than two of them.
+     */
+    public static double heapSlope(List<Sample> samples) {
+        List<Sample> settled = samples.subList(samples.size() / 2, samples.size());
+        if (settled.size() < 2) {
+            return 0;
+        }
+        double meanTick = settled.stream().mapToDouble(Sample::tick).average().orElse(0);
+        double meanHeap = settled.stream().mapToDouble(Sample::usedHeap).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (Sample sample : settled) {
+            covariance += (sample.tick() - meanTick) * (sample.usedHeap() - meanHeap);
+            variance += (sample.tick() - meanTick) * (sample.tick() - meanTick);
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        SoakRunner runner = new SoakRunner(
+                Integer.parseInt(options.getOrDefault("ticks", "1000000")),
+                Integer.parseInt(options.getOrDefault("sample-every", "10000")));
+        if (options.containsKey("seed")) runner.setSeed(Long.parseLong(options.get("seed")));
+        if (options.containsKey("population")) runner.setInitialPopulation(Integer.parseInt(options.get("population")));
+        if (options.containsKey("celestials")) runner.setCelestials(Integer.parseInt(options.get("celestials")));
+
+        // The world logs every step; only the samples are of interest here
+        SIMULATION_LOGGER.setLevel(Level.WARNING);
+        LOGGER.setLevel(Level.INFO);
+
+        List<Sample> samples = runner.run();
+        int peakPopulation = samples.stream().mapToInt(Sample::population).max().orElse(0);
+        System.out.println(samples.get(samples.size() - 1));
+        System.out.printf(Locale.ROOT, "Heap slope over the second half: %.3f bytes per tick; peak population %d, %d entity slots%n",
+                heapSlope(samples), peakPopulation, samples.get(samples.size() - 1).entitySlots());
+    }
+}
@@ -0,0 +1,193 @@
+package com.horrorcore.ecs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The entities that have exactly one set of components, stored as dense columns: one array per
+ * field of every component, plus the entity handles and their owning objects. Row {@code i} of every
+ * column belongs to the same entity. Removing an entity moves the last row into its place, so
+ * the rows stay packed but an entity's row may change.
+ *
+ * Systems read and write the columns directly, for rows below {@link #size()}. Columns are
+ * replaced when the archetype grows, so fetch them again after adding entities.
+ */
+public final class Archetype {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int index;
+    private final int mask;
+    private final Set<Component> components;
+    private int size;
+    private int[] entities = new int[INITIAL_CAPACITY];
+    private Object[] owners = new Object[INITIAL_CAPACITY];
+    // Indexed by component ordinal, then field, then row; null for components the archetype lacks
+    private final int[][][] ints = new int[Component.values().length][][];
+    private final double[][][] doubles = new double[Component.values().length][][];
+    private final Object[][][] objects = new Object[Component.values().length][][];
+
+    Archetype(int index, int mask) {
+        this.index = index;
+        this.mask = mask;
+        EnumSet<Component> set = EnumSet.noneOf(Component.class);
+        for (Component component : Component.values()) {
+            if ((mask & component.bit()) != 0) {
+                set.add(component);
+                ints[component.ordinal()] = new int[component.getIntFields()][INITIAL_CAPACITY];
+                doubles[component.ordinal()] = new double[component.getDoubleFields()][INITIAL_CAPACITY];
+                objects[component.ordinal()] = new Object[component.getObjectFields()][INITIAL_CAPACITY];
+            }
+        }
+        this.components = Collections.unmodifiableSet(set);
+    }
+
+    int index() {
+        return index;
+    }
+
+    int mask() {
+        return mask;
+    }
+
+    public Set<Component> getComponents() {
+        return components;
+    }
+
+    public boolean has(Component component) {
+        return (mask & component.bit()) != 0;
+    }
+
+    /**
+     * Returns the number of entities, which is also the number of valid rows of every column.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int entity(int row) {
+        return entities[row];
+    }
+
+    /**
+     * Returns the object the entity at a row stands for, e.g. its Digimon.
+     */
+    public Object owner(int row) {
+        return owners[row];
+    }
+
+    public int[] ints(Component component, int field) {
+        return column(ints, component)[field];
+    }
+
+    public double[] doubles(Component component, int field) {
+        return column(doubles, component)[field];
+    }
+
+    public Object[] objects(Component component, int field) {
+        return column(objects, component)[field];
+    }
+
+    private <T> T column(T[] columns, Component component) {
+        T column = columns[component.ordinal()];
+        if (column == null) {
+            throw new IllegalArgumentException("Archetype " + components + " has no " + component);
+        }
+        return column;
+    }
+
+    // Appends a row with zeroed fields and returns it
+    int add(int entity, Object owner) {
+        if (size == entities.length) {
+            grow();
+        }
+        entities[size] = entity;
+        owners[size] = owner;
+        return size++;
+    }
+
+    /**
+     * Removes a row by moving the last row into it.
+     *
+     * @return The entity now at the row, or -1 if the removed row was the last one.
+     */
+    int remove(int row) {
+        int last = --size;
+        int moved = -1;
+        if (row != last) {
+            moved = entities[last];
+            entities[row] = moved;
+            owners[row] = owners[last];
+        }
+        owners[last] = null;
+        for (int c = 0; c < ints.length; c++) {
+            if (ints[c] == null) {
+                continue;
+            }
+            for (int[] column : ints[c]) {
+                column[row] = column[last];
+                column[last] = 0;
+            }
+            for (double[] column : doubles[c]) {
+                column[row] = column[last];
+                column[last] = 0;
+            }
+            for (Object[] column : objects[c]) {
+                column[row] = column[last];
+                column[last] = null;
+            }
+        }
+        return moved;
+    }
+
+    // Copies the fields of the components both archetypes have from a row of this one to a row of another
+    void copyRow(int row, Archetype target, int targetRow) {
+        for (int c = 0; c < ints.length; c++) {
+            if (ints[c] == null || target.ints[c] == null) {
+                continue;
+            }
+            for (int f = 0; f < ints[c].length; f++) {
+                target.ints[c][f][targetRow] = ints[c][f][row];
+            }
+            for (int f = 0; f < doubles[c].length; f++) {
+                target.doubles[c][f][targetRow] = doubles[c][f][row];
+            }
+            for (int f = 0; f < objects[c].length; f++) {
+                target.objects[c][f][targetRow] = objects[c][f][row];
+            }
+        }
+    }
+
+    // Drops every row, keeping the columns
+    void clear() {
+        while (size > 0) {
+            remove(size - 1);
+        }
+    }
+
+    private void grow() {
+        int capacity = entities.length * 2;
+        entities = Arrays.copyOf(entities, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        for (int c = 0; c < ints.length; c++) {
+            if (ints[c] == null) {
+                continue;
+            }
+            for (int f = 0; f < ints[c].length; f++) {
+                ints[c][f] = Arrays.copyOf(ints[c][f], capacity);
+            }
+            for (int f = 0; f < doubles[c].length; f++) {
+                doubles[c][f] = Arrays.copyOf(doubles[c][f], capacity);
+            }
+            for (int f = 0; f < objects[c].length; f++) {
+                objects[c][f] = Arrays.copyOf(objects[c][f], capacity);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Archetype" + components + " x " + size;
+    }
+}
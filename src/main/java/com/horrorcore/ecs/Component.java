@@ -0,0 +1,53 @@
+package com.horrorcore.ecs;
+
+/**
+ * A kind of data an entity may have. Every component is a fixed set of int, double and object
+ * fields; an {@link Archetype} stores each field of each of its components as one dense column.
+ * Field indexes within a component are the constants declared below.
+ */
+public enum Component {
+    /** Age, health, hunger and aggression: {@link #AGE}, {@link #HEALTH}, {@link #HUNGER}, {@link #AGGRESSION}. */
+    VITALS(4, 0, 0),
+    /** Personality traits between 0 and 1: {@link #SOCIABILITY}, {@link #TEMPER}, {@link #CURIOSITY}, {@link #LOYALTY}. */
+    PERSONALITY(0, 4, 0),
+    /** The tribe the entity belongs to, as its only object field. Entities without a tribe lack the component. */
+    MEMBERSHIP(0, 0, 1),
+    /** The entity's profession name, as its only object field. Entities without a profession lack the component. */
+    PROFESSION(0, 0, 1),
+    /** Where the entity stands: {@link #SECTOR}, a slot handed out by {@link EntityStore#sectorSlot}, and {@link #X}, {@link #Y}. */
+    POSITION(3, 0, 0),
+    /** Marks a Celestial, whose aura feeds and heals the Digimon of its sector. Has no fields. */
+    AURA(0, 0, 0);
+
+    public static final int AGE = 0;
+    public static final int HEALTH = 1;
+    public static final int HUNGER = 2;
+    public static final int AGGRESSION = 3;
+
+    public static final int SOCIABILITY = 0;
+    public static final int TEMPER = 1;
+    public static final int CURIOSITY = 2;
+    public static final int LOYALTY = 3;
+
+    public static final int SECTOR = 0;
+    public static final int X = 1;
+    public static final int Y = 2;
+
+    private final int ints;
+    private final int doubles;
+    private final int objects;
+
+    Component(int ints, int doubles, int objects) {
+        this.ints = ints;
+        this.doubles = doubles;
+        this.objects = objects;
+    }
+
+    public int getIntFields() { return ints; }
+    public int getDoubleFields() { return doubles; }
+    public int getObjectFields() { return objects; }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+}
@@ -0,0 +1,320 @@
+package com.horrorcore.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the components of a world's entities by archetype. Every entity is known by a handle,
+ * handed out when it is created, and lives in the {@link Archetype} of exactly the components it
+ * has; adding or removing a component moves it to another archetype but keeps its handle. Systems
+ * {@link #query query} the archetypes that have the components they need and work on their columns,
+ * so they never touch entities, or fields, they do not care about.
+ *
+ * A handle is the index of the entity's slot in the store's slot tables together with the slot's
+ * generation. Destroying an entity frees its slot for a later entity and bumps the slot's
+ * generation, so the handles still held to the destroyed entity are recognised as stale in
+ * constant time by {@link #isAlive}, without the store remembering them. Freed slots are reused
+ * first in, first out, and only once {@value #MIN_FREE_SLOTS} of them are waiting, which spreads the
+ * reuse over many slots. A slot whose generation reaches the last of the {@value #GENERATIONS} a handle
+ * can hold is retired instead of freed, so generations never wrap around and no stale handle ever
+ * matches a later entity. The slot tables thus grow with the most entities alive at once, plus one
+ * retired slot per {@value #GENERATIONS} or so entities destroyed, not with every entity ever created.
+ *
+ * Entities also remember the object they stand for, their owner, so that systems can get from a
+ * row back to e.g. its Digimon.
+ *
+ * Like the rest of a {@link com.horrorcore.SimulationContext}, a store is meant for the thread that
+ * ticks the world; threads may read it at once only while nothing writes it.
+ */
+public class EntityStore {
+    static final int INDEX_BITS = 20;
+    static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    // Handles keep the sign bit clear, so that -1 never is one
+    static final int GENERATIONS = 1 << (31 - INDEX_BITS);
+    static final int MIN_FREE_SLOTS = 256;
+
+    private final List<Archetype> archetypes = new ArrayList<>();
+    private final Map<Integer, Archetype> byMask = new HashMap<>();
+    // Indexed by slot; archetypeOf is -1 for free slots, and nextFree links them in the order they were freed
+    private int[] archetypeOf = new int[64];
+    private int[] rowOf = new int[64];
+    private int[] generations = new int[64];
+    private int[] nextFree = new int[64];
+    private int slots;
+    private int firstFree = -1;
+    private int lastFree = -1;
+    private int freeSlots;
+    private int size;
+    private final Map<Object, Integer> sectorSlots = new IdentityHashMap<>();
+    private final Map<Long, Query> queries = new HashMap<>();
+
+    /**
+     * Creates an entity with the given components, all fields zero or null.
+     *
+     * @param owner      The object the entity stands for.
+     * @param components The components of the entity.
+     * @return The handle of the new entity.
+     */
+    public int create(Object owner, Set<Component> components) {
+        int slot = allocateSlot();
+        int entity = generations[slot] << INDEX_BITS | slot;
+        Archetype archetype = archetype(maskOf(components));
+        archetypeOf[slot] = archetype.index();
+        rowOf[slot] = archetype.add(entity, owner);
+        size++;
+        return entity;
+    }
+
+    private int allocateSlot() {
+        if (freeSlots > MIN_FREE_SLOTS) {
+            int slot = firstFree;
+            firstFree = nextFree[slot];
+            if (firstFree < 0) {
+                lastFree = -1;
+            }
+            freeSlots--;
+            return slot;
+        }
+        if (slots > INDEX_MASK) {
+            throw new IllegalStateException("More than " + (INDEX_MASK + 1) + " entities");
+        }
+        if (slots == archetypeOf.length) {
+            int capacity = slots * 2;
+            archetypeOf = Arrays.copyOf(archetypeOf, capacity);
+            rowOf = Arrays.copyOf(rowOf, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            nextFree = Arrays.copyOf(nextFree, capacity);
+        }
+        return slots++;
+    }
+
+    /**
+     * Destroys an entity. Its handle, and every copy of it, is stale from now on.
+     */
+    public void destroy(int entity) {
+        Archetype archetype = archetypeOf(entity);
+        int slot = entity & INDEX_MASK;
+        int moved = archetype.remove(rowOf[slot]);
+        if (moved >= 0) {
+            rowOf[moved & INDEX_MASK] = rowOf[slot];
+        }
+        freeSlot(slot);
+        size--;
+    }
+
+    private void freeSlot(int slot) {
+        archetypeOf[slot] = -1;
+        if (generations[slot] == GENERATIONS - 1) {
+            // Another generation would wrap around to handles that may still be held, so the slot stays unused
+            return;
+        }
+        generations[slot]++;
+        nextFree[slot] = -1;
+        if (lastFree < 0) {
+            firstFree = slot;
+        } else {
+            nextFree[lastFree] = slot;
+        }
+        lastFree = slot;
+        freeSlots++;
+    }
+
+    /**
+     * Returns whether a handle belongs to an entity that was not destroyed. Stale handles are told apart
+     * from the handle of a later entity in the same slot by their generation.
+     */
+    public boolean isAlive(int entity) {
+        int slot = entity & INDEX_MASK;
+        return entity >= 0 && slot < slots && archetypeOf[slot] >= 0 && generations[slot] == entity >>> INDEX_BITS;
+    }
+
+    public boolean has(int entity, Component component) {
+        return archetypeOf(entity).has(component);
+    }
+
+    /**
+     * Gives an entity a component, with all its fields zero or null. Does nothing if it already has it.
+     */
+    public void add(int entity, Component component) {
+        Archetype from = archetypeOf(entity);
+        if (!from.has(component)) {
+            move(entity, from, archetype(from.mask() | component.bit()));
+        }
+    }
+
+    /**
+     * Takes a component from an entity, dropping its fields. Does nothing if it does not have it.
+     */
+    public void remove(int entity, Component component) {
+        Archetype from = archetypeOf(entity);
+        if (from.has(component)) {
+            move(entity, from, archetype(from.mask() & ~component.bit()));
+        }
+    }
+
+    private void move(int entity, Archetype from, Archetype to) {
+        int slot = entity & INDEX_MASK;
+        int row = rowOf[slot];
+        int newRow = to.add(entity, from.owner(row));
+        from.copyRow(row, to, newRow);
+        int moved = from.remove(row);
+        if (moved >= 0) {
+            rowOf[moved & INDEX_MASK] = row;
+        }
+        archetypeOf[slot] = to.index();
+        rowOf[slot] = newRow;
+    }
+
+    public int getInt(int entity, Component component, int field) {
+        return archetypeOf(entity).ints(component, field)[row(entity)];
+    }
+
+    public void setInt(int entity, Component component, int field, int value) {
+        archetypeOf(entity).ints(component, field)[row(entity)] = value;
+    }
+
+    public double getDouble(int entity, Component component, int field) {
+        return archetypeOf(entity).doubles(component, field)[row(entity)];
+    }
+
+    public void setDouble(int entity, Component component, int field, double value) {
+        archetypeOf(entity).doubles(component, field)[row(entity)] = value;
+    }
+
+    /**
+     * Returns the only object field of a component, or null if the entity lacks the component.
+     */
+    public Object getObject(int entity, Component component) {
+        Archetype archetype = archetypeOf(entity);
+        return archetype.has(component) ? archetype.objects(component, 0)[row(entity)] : null;
+    }
+
+    /**
+     * Sets the only object field of a component. Setting null takes the component from the entity,
+     * anything else gives it the component if it lacks it.
+     */
+    public void setObject(int entity, Component component, Object value) {
+        if (value == null) {
+            remove(entity, component);
+            return;
+        }
+        add(entity, component);
+        archetypeOf(entity).objects(component, 0)[row(entity)] = value;
+    }
+
+    public Object getOwner(int entity) {
+        return archetypeOf(entity).owner(row(entity));
+    }
+
+    /**
+     * Returns a query over the archetypes having all of the given components. Queries are kept, so
+     * asking again for the same components returns the same query, with its archetypes already matched.
+     */
+    public Query query(Component... components) {
+        int mask = 0;
+        for (Component component : components) {
+            mask |= component.bit();
+        }
+        return query(mask, 0);
+    }
+
+    Query query(int required, int excluded) {
+        return queries.computeIfAbsent((long) required << 32 | excluded, key -> new Query(this, required, excluded));
+    }
+
+    /**
+     * Returns the number of live entities.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of an entity, a number below {@link #getSlots()} that side tables can be indexed by.
+     * Once the entity is destroyed, a later entity may get the same slot under another handle.
+     */
+    public static int slotOf(int entity) {
+        return entity & INDEX_MASK;
+    }
+
+    /**
+     * Returns the number of slots in the slot tables: the most entities that were alive at once, plus
+     * the freed slots waiting to be reused and the slots retired after their last generation.
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Returns the archetypes created so far, in creation order. Archetypes are never removed, even when empty.
+     */
+    public List<Archetype> getArchetypes() {
+        return List.copyOf(archetypes);
+    }
+
+    /**
+     * Returns the small number that stands for a sector in {@link Component#POSITION}, handing out the next one
+     * the first time the sector is seen.
+     */
+    public int sectorSlot(Object sector) {
+        return sectorSlots.computeIfAbsent(sector, key -> sectorSlots.size());
+    }
+
+    /**
+     * Returns how many sector slots were handed out, which bounds the slots found in positions.
+     */
+    public int getSectorSlots() {
+        return sectorSlots.size();
+    }
+
+    /**
+     * Destroys every entity and forgets every sector slot. Every handle handed out so far is stale afterwards.
+     */
+    public void clear() {
+        // Archetypes stay, so that queries remain valid
+        archetypes.forEach(Archetype::clear);
+        for (int slot = 0; slot < slots; slot++) {
+            if (archetypeOf[slot] >= 0) {
+                freeSlot(slot);
+            }
+        }
+        sectorSlots.clear();
+        size = 0;
+    }
+
+    List<Archetype> archetypes() {
+        return archetypes;
+    }
+
+    private Archetype archetypeOf(int entity) {
+        if (!isAlive(entity)) {
+            throw new IllegalArgumentException("No entity " + entity);
+        }
+        return archetypes.get(archetypeOf[entity & INDEX_MASK]);
+    }
+
+    private int row(int entity) {
+        return rowOf[entity & INDEX_MASK];
+    }
+
+    private Archetype archetype(int mask) {
+        return byMask.computeIfAbsent(mask, key -> {
+            Archetype archetype = new Archetype(archetypes.size(), key);
+            archetypes.add(archetype);
+            return archetype;
+        });
+    }
+
+    private static int maskOf(Set<Component> components) {
+        int mask = 0;
+        for (Component component : components) {
+            mask |= component.bit();
+        }
+        return mask;
+    }
+}
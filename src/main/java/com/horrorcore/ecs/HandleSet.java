@@ -0,0 +1,162 @@
+package com.horrorcore.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of entity handles of one store, for references from one entity to others that must not
+ * keep the others alive, such as friendships. Handles are kept in an open addressing table, so
+ * adding a handle twice keeps one copy and nothing is boxed.
+ *
+ * The entities a set refers to may be destroyed at any time; their handles then go stale. Stale
+ * handles are not removed eagerly, which would take the store knowing every set referring to an
+ * entity, but dropped lazily: whenever the set is iterated, and before the table grows, so a set
+ * never grows because of entities that are gone. Until then they only take up room, and since
+ * {@link EntityStore#isAlive} tells them apart from handles of later entities in the same slot,
+ * they are never mistaken for those.
+ */
+public final class HandleSet {
+    private static final int EMPTY = -1;
+
+    private final EntityStore store;
+    private int[] table = emptyTable(8);
+    // Including stale handles not dropped yet
+    private int size;
+
+    public HandleSet(EntityStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Adds a handle. Does nothing for -1, the handle of no entity.
+     *
+     * @return Whether the handle was added, i.e. was valid and not in the set yet.
+     */
+    public boolean add(int entity) {
+        if (entity < 0) {
+            return false;
+        }
+        int index = indexOf(entity);
+        if (table[index] == entity) {
+            return false;
+        }
+        // Keep the table at most three quarters full, dropping stale handles before growing it
+        if ((size + 1) * 4 > table.length * 3) {
+            purge();
+            if ((size + 1) * 4 > table.length * 3) {
+                rehash(table.length * 2);
+            }
+            index = indexOf(entity);
+        }
+        table[index] = entity;
+        size++;
+        return true;
+    }
+
+    public boolean contains(int entity) {
+        return entity >= 0 && table[indexOf(entity)] == entity;
+    }
+
+    /**
+     * Removes a handle.
+     *
+     * @return Whether the handle was in the set.
+     */
+    public boolean remove(int entity) {
+        if (entity < 0) {
+            return false;
+        }
+        int hole = indexOf(entity);
+        if (table[hole] != entity) {
+            return false;
+        }
+        table[hole] = EMPTY;
+        size--;
+        // Shift later handles of the same run back into the hole unless that would put them before their home
+        int mask = table.length - 1;
+        for (int next = (hole + 1) & mask; table[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(table[next]);
+            boolean homeInBetween = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!homeInBetween) {
+                table[hole] = table[next];
+                table[next] = EMPTY;
+                hole = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of handles, counting stale ones that were not dropped yet.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Drops the handles of destroyed entities.
+     *
+     * @return The number of handles dropped.
+     */
+    public int purge() {
+        int before = size;
+        rehash(table.length);
+        return before - size;
+    }
+
+    /**
+     * Drops the handles of destroyed entities and returns the owners of the others, in no particular order.
+     *
+     * @param type The type of the owners.
+     */
+    public <T> List<T> owners(Class<T> type) {
+        purge();
+        List<T> owners = new ArrayList<>(size);
+        for (int entity : table) {
+            if (entity != EMPTY) {
+                owners.add(type.cast(store.getOwner(entity)));
+            }
+        }
+        return owners;
+    }
+
+    // Rebuilds the table with the given capacity, keeping only live handles
+    private void rehash(int capacity) {
+        int[] old = table;
+        table = emptyTable(capacity);
+        size = 0;
+        for (int entity : old) {
+            if (entity != EMPTY && store.isAlive(entity)) {
+                table[indexOf(entity)] = entity;
+                size++;
+            }
+        }
+    }
+
+    // Returns the index holding the handle, or the empty index it would go to
+    private int indexOf(int entity) {
+        int mask = table.length - 1;
+        int index = home(entity);
+        while (table[index] != EMPTY && table[index] != entity) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int home(int entity) {
+        int hash = entity * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (table.length - 1);
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
@@ -0,0 +1,62 @@
+package com.horrorcore.ecs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The archetypes of a store that have all of some components and none of others. The matching
+ * archetypes are remembered, so iterating a query only looks at archetypes created since the
+ * last iteration, never at entities of archetypes that do not match. Stores hand out one query
+ * per combination of components, so a system asking for its query every tick reuses the matches.
+ *
+ * Iteration yields every matching archetype, including empty ones; callers loop over the rows
+ * of each. Entities must not be created, destroyed or given other components while iterating.
+ */
+public final class Query implements Iterable<Archetype> {
+    private final EntityStore store;
+    private final int required;
+    private final int excluded;
+    private final List<Archetype> matches = new ArrayList<>();
+    private int checked;
+
+    Query(EntityStore store, int required, int excluded) {
+        this.store = store;
+        this.required = required;
+        this.excluded = excluded;
+    }
+
+    /**
+     * Returns a query that additionally skips archetypes having any of the given components.
+     */
+    public Query without(Component... components) {
+        int mask = excluded;
+        for (Component component : components) {
+            mask |= component.bit();
+        }
+        return store.query(required, mask);
+    }
+
+    @Override
+    public Iterator<Archetype> iterator() {
+        List<Archetype> archetypes = store.archetypes();
+        for (; checked < archetypes.size(); checked++) {
+            Archetype archetype = archetypes.get(checked);
+            if ((archetype.mask() & required) == required && (archetype.mask() & excluded) == 0) {
+                matches.add(archetype);
+            }
+        }
+        return matches.iterator();
+    }
+
+    /**
+     * Returns the number of entities that match.
+     */
+    public int count() {
+        int count = 0;
+        for (Archetype archetype : this) {
+            count += archetype.size();
+        }
+        return count;
+    }
+}
@@ -1,20 +1,17 @@
 package com.horrorcore.entity;
 
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 
 import java.util.List;
 
+/**
+ * A Digimon that does not age, join tribes or attack anyone but mass killers.
+ * How many Celestials a world may hold is limited by its {@link com.horrorcore.SimulationContext}.
+ */
 public class CelestialDigimon extends Digimon {
-    private static int totalCelestials = 0;
-    private static final int MAX_CELESTIALS = 10;
 
     public CelestialDigimon(String name, int age, int health, int hunger, int aggression, String stage) {
         super(name, age, health, hunger, aggression, stage);
-        if (totalCelestials >= MAX_CELESTIALS) {
-            throw new IllegalStateException("Maximum number of Celestial Digimon reached");
-        }
-        totalCelestials++;
     }
 
     @Override
@@ -23,14 +20,16 @@ public class CelestialDigimon extends Digimon {
     }
 
     @Override
-    public void attack(Digimon target) {
+    public boolean attack(Digimon target) {
         if (isTargetMassKiller(target)) {
-            super.attack(target);
-            SimulationSubject.getInstance().notifyEvent(
+            boolean landed = super.attack(target);
+            context().getEvents().notifyEvent(
                     getName() + " has judged " + target.getName() + " for their crimes!",
                     SimulationEvent.EventType.ATTACK
             );
+            return landed;
         }
+        return false;
     }
 
     private boolean isTargetMassKiller(Digimon target) {
@@ -41,7 +40,7 @@ public class CelestialDigimon extends Digimon {
         for (Digimon digimon : digimons) {
             digimon.setHunger(Math.max(0, digimon.getHunger() - 30));
         }
-        SimulationSubject.getInstance().notifyEvent(
+        context().getEvents().notifyEvent(
                 getName() + " has provided food to nearby Digimon",
                 SimulationEvent.EventType.OTHER
         );
@@ -51,18 +50,19 @@ public class CelestialDigimon extends Digimon {
         for (Digimon digimon : digimons) {
             digimon.setHealth(Math.min(100, digimon.getHealth() + 20));
         }
-        SimulationSubject.getInstance().notifyEvent(
+        context().getEvents().notifyEvent(
                 getName() + " has healed nearby Digimon",
                 SimulationEvent.EventType.OTHER
         );
     }
 
     @Override
-    public void ageUp() {
-        // Celestials don't age
+    protected boolean hasAura() {
+        return true;
     }
 
-    public static int getTotalCelestials() {
-        return totalCelestials;
+    @Override
+    public void ageUp() {
+        // Celestials don't age
     }
 }
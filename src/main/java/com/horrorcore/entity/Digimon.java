@@ -1,14 +1,34 @@
 package com.horrorcore.entity;
 
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
-
-import java.util.ArrayList;
+import com.horrorcore.SimulationContext;
+import com.horrorcore.ecs.Component;
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.metrics.SimulationCounter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
-
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Digimon. While it is placed in a sector, its vitals, personality, tribe, profession and position
+ * live in the {@link EntityStore} of the sector's world, where systems can work on them by component;
+ * the getters and setters read and write the store. Its own fields hold the same state while it is
+ * not placed, e.g. before it is first added to a world and after it died.
+ *
+ * Friendships are edges between the entities of Digimon in the
+ * {@link com.horrorcore.systems.social.SocialGraph social graph} of the Digimon's world; a Digimon
+ * only makes friends while it is placed, and loses them when it dies.
+ */
 public class Digimon {
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    // Identifies the Digimon to remote viewers; unlike equals, it tells apart Digimon with equal attributes
+    private final transient long id = NEXT_ID.incrementAndGet();
     private String name;
     private int age;
     private int health;
@@ -16,10 +36,13 @@ public class Digimon {
     private int aggression;
     private Tribe tribe;
     private String stage;
-    private int friendship;
     private String profession;
-    private List<Digimon> friends;
     private PersonalityTraits personality;
+    private final transient Deque<Sector> migrationRoute = new ArrayDeque<>();
+    private transient SimulationContext context;
+    private transient EntityStore entities;
+    private transient int entity = -1;
+    private transient boolean placed;
 
     /**
      * Constructs a new Digimon with the specified attributes.
@@ -32,9 +55,7 @@ public class Digimon {
         this.aggression = aggression;
         this.stage = stage;
         this.tribe = null;
-        this.friendship = 0;
         this.profession = null;
-        this.friends = new ArrayList<>();
         this.personality = new PersonalityTraits();
     }
 
@@ -42,16 +63,16 @@ public class Digimon {
      * Constructs a new Digimon by copying the attributes of another Digimon.
      */
     public Digimon(Digimon other) {
-        this(other.name, other.age, other.health, other.hunger, other.aggression, other.stage);
+        this(other.name, other.getAge(), other.getHealth(), other.getHunger(), other.getAggression(), other.stage);
     }
 
     // Lifecycle methods
 
     public void ageUp() {
-        this.age++;
-        this.hunger += 10;
-        if (this.age > 20) {
-            this.health -= 5;
+        setAge(getAge() + 1);
+        setHunger(getHunger() + 10);
+        if (getAge() > 20) {
+            setHealth(getHealth() - 5);
         }
     }
 
@@ -62,12 +83,17 @@ public class Digimon {
             case "Mega" -> 50;
             default -> 20;
         };
-        this.hunger = Math.max(0, this.hunger - hungerReduction);
+        setHunger(Math.max(0, getHunger() - hungerReduction));
     }
 
-    public void attack(Digimon target) {
+    /**
+     * Attacks another Digimon, which only lands if this one is aggressive enough.
+     *
+     * @return Whether the attack landed.
+     */
+    public boolean attack(Digimon target) {
         // More aggressive Digimon deal more damage
-        if (this.aggression > 50 || Math.random() < personality.getAggression()) {
+        if (getAggression() > 50 || context().getRandom().nextDouble() < personality.getAggression()) {
             int damage = switch (this.stage) {
                 case "Rookie" -> (int)(20 * (1 + personality.getAggression() * 0.5));
                 case "Champion" -> (int)(30 * (1 + personality.getAggression() * 0.5));
@@ -75,33 +101,35 @@ public class Digimon {
                 case "Mega" -> (int)(50 * (1 + personality.getAggression() * 0.5));
                 default -> (int)(10 * (1 + personality.getAggression() * 0.5));
             };
-            target.health -= damage;
+            target.setHealth(target.getHealth() - damage);
+            context().increment(SimulationCounter.ATTACKS);
 
             String attackDesc = personality.getAggression() > 0.7 ?
                     " viciously attacked " : " attacked ";
 
-            SimulationSubject.getInstance().notifyEvent(
+            context().getEvents().notifyEvent(
                     this.name + attackDesc + target.name + "!",
                     SimulationEvent.EventType.ATTACK
             );
+            return true;
         }
+        return false;
     }
 
     public boolean shouldExplore() {
         // Curious Digimon explore more often
-        return Math.random() < personality.getCuriosity() * 1.2;
+        return context().getRandom().nextDouble() < personality.getCuriosity() * 1.2;
     }
 
     public void joinTribe(String tribeName) {
         if (tribeName == null) return;
 
         // More social Digimon join tribes more readily
-        if (Math.random() < personality.getSociability() * 1.5) {
-            for (Tribe tribe : Tribe.getAllTribes()) {
+        if (context().getRandom().nextDouble() < personality.getSociability() * 1.5) {
+            for (Tribe tribe : context().getWorld().getTribes()) {
                 if (tribe.getName().equals(tribeName)) {
-                    this.tribe = tribe;
-                    tribe.getMembers().add(this);
-                    SimulationSubject.getInstance().notifyEvent(
+                    tribe.addMember(this);
+                    context().getEvents().notifyEvent(
                             this.name + " eagerly joined the " + tribeName + " tribe.",
                             SimulationEvent.EventType.POLITICAL
                     );
@@ -113,134 +141,306 @@ public class Digimon {
 
     public void leaveTribe() {
         // Loyal Digimon are less likely to leave
-        if (this.tribe != null && Math.random() > personality.getLoyalty()) {
-            this.tribe.getMembers().remove(this);
+        Tribe tribe = getTribe();
+        if (tribe != null && context().getRandom().nextDouble() > personality.getLoyalty()) {
+            tribe.removeMember(this);
             String leaveDesc = personality.getLoyalty() < 0.3 ?
                     " abruptly abandoned " : " left ";
 
-            SimulationSubject.getInstance().notifyEvent(
+            context().getEvents().notifyEvent(
                     this.name + leaveDesc + "the tribe.",
                     SimulationEvent.EventType.POLITICAL
             );
-            this.tribe = null;
+            setTribe(null);
         }
     }
 
     public void evolve(String newName, String newStage) {
-        SimulationSubject.getInstance().notifyEvent(this.name + " is evolving to " + newStage + " stage!", SimulationEvent.EventType.OTHER);
+        context().getEvents().notifyEvent(this.name + " is evolving to " + newStage + " stage!", SimulationEvent.EventType.OTHER);
 
         this.name = newName;
         this.stage = newStage;
 
         switch (newStage) {
-            case "In-Training" -> { this.health += 10; this.aggression += 5; }
-            case "Rookie" -> { this.health += 20; this.aggression += 10; }
-            case "Champion" -> { this.health += 40; this.aggression += 20; }
-            case "Ultimate" -> { this.health += 60; this.aggression += 30; }
-            case "Mega" -> { this.health += 80; this.aggression += 40; }
-            default -> SimulationSubject.getInstance().notifyEvent("Unknown stage: " + newStage, SimulationEvent.EventType.OTHER);
+            case "In-Training" -> strengthen(10, 5);
+            case "Rookie" -> strengthen(20, 10);
+            case "Champion" -> strengthen(40, 20);
+            case "Ultimate" -> strengthen(60, 30);
+            case "Mega" -> strengthen(80, 40);
+            default -> context().getEvents().notifyEvent("Unknown stage: " + newStage, SimulationEvent.EventType.OTHER);
         }
 
-        SimulationSubject.getInstance().notifyEvent(this.name + " has evolved to " + this.stage + " stage!", SimulationEvent.EventType.OTHER);
+        context().getEvents().notifyEvent(this.name + " has evolved to " + this.stage + " stage!", SimulationEvent.EventType.OTHER);
     }
 
+    private void strengthen(int health, int aggression) {
+        setHealth(getHealth() + health);
+        setAggression(getAggression() + aggression);
+    }
 
     public void increaseFriendship(Digimon tribeMember, int friendshipPoints) {
-        this.friendship += friendshipPoints;
-        this.friends.add(tribeMember);
+        context().getSocial().befriend(this, tribeMember, friendshipPoints);
     }
 
     public void decreaseFriendship(Digimon digimon, int friendship) {
-        this.friendship -= friendship;
-        this.friends.remove(digimon);
+        context().getSocial().befriend(this, digimon, -friendship);
     }
 
     // Getters and Setters
 
+    /**
+     * Returns an id unique among the Digimon created in this JVM.
+     */
+    public long getId() { return id; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public int getAge() { return age; }
-    public void setAge(int age) { this.age = age; }
+    public int getAge() { return entities != null ? entities.getInt(entity, Component.VITALS, Component.AGE) : age; }
+    public void setAge(int age) { if (entities != null) setVital(Component.AGE, age); else this.age = age; }
 
-    public int getHealth() { return health; }
-    public void setHealth(int health) { this.health = health; }
+    public int getHealth() { return entities != null ? entities.getInt(entity, Component.VITALS, Component.HEALTH) : health; }
+    public void setHealth(int health) { if (entities != null) setVital(Component.HEALTH, health); else this.health = health; }
 
-    public int getHunger() { return hunger; }
-    public void setHunger(int hunger) { this.hunger = hunger; }
+    public int getHunger() { return entities != null ? entities.getInt(entity, Component.VITALS, Component.HUNGER) : hunger; }
+    public void setHunger(int hunger) { if (entities != null) setVital(Component.HUNGER, hunger); else this.hunger = hunger; }
 
-    public int getAggression() { return aggression; }
-    public void setAggression(int aggression) { this.aggression = aggression; }
+    public int getAggression() { return entities != null ? entities.getInt(entity, Component.VITALS, Component.AGGRESSION) : aggression; }
+    public void setAggression(int aggression) { if (entities != null) setVital(Component.AGGRESSION, aggression); else this.aggression = aggression; }
 
-    public Tribe getTribe() { return tribe; }
-    public void setTribe(Tribe tribe) { this.tribe = tribe; }
+    private void setVital(int field, int value) {
+        entities.setInt(entity, Component.VITALS, field, value);
+    }
 
-    public String getTribeName() { return tribe != null ? tribe.getName() : null; }
+    public Tribe getTribe() { return entities != null ? (Tribe) entities.getObject(entity, Component.MEMBERSHIP) : tribe; }
+    public void setTribe(Tribe tribe) {
+        if (entities != null) {
+            entities.setObject(entity, Component.MEMBERSHIP, tribe);
+        } else {
+            this.tribe = tribe;
+        }
+    }
+
+    public String getTribeName() {
+        Tribe tribe = getTribe();
+        return tribe != null ? tribe.getName() : null;
+    }
 
     public String getStage() { return stage; }
     public void setStage(String stage) { this.stage = stage; }
 
-    public int getFriendship() { return friendship; }
-    public void setFriendship(int friendship) { this.friendship = friendship; }
+    /**
+     * Returns the summed, decayed weight of the Digimon's friendships with other Digimon.
+     */
+    public int getFriendship() { return Math.round(context().getSocial().getTotalFriendship(this)); }
+
+    public String getProfession() { return entities != null ? (String) entities.getObject(entity, Component.PROFESSION) : profession; }
+    public void setProfession(String profession) {
+        if (entities != null) {
+            entities.setObject(entity, Component.PROFESSION, profession);
+        } else {
+            this.profession = profession;
+        }
+    }
 
-    public String getProfession() { return profession; }
-    public void setProfession(String profession) { this.profession = profession; }
+    /**
+     * Returns the friends that are still alive, dropping those that died or whose friendship faded.
+     */
+    public List<Digimon> getFriends() { return context().getSocial().getFriends(this); }
+
+    /**
+     * Returns the number of friendship edges held, including those to friends that died and were not dropped yet.
+     */
+    public int getFriendReferences() { return context().getSocial().getDegree(this); }
+
+    /**
+     * Returns the context of the world this Digimon lives in. A Digimon belongs to the world
+     * of the sector it was last placed in, or else of its tribe; one that was never placed
+     * reports to the default context.
+     */
+    protected SimulationContext context() {
+        if (context != null) return context;
+        Tribe tribe = getTribe();
+        return tribe != null ? tribe.getContext() : SimulationContext.getDefault();
+    }
+
+    void setContext(SimulationContext context) { this.context = context; }
 
-    public List<Digimon> getFriends() { return friends; }
-    public void setFriends(List<Digimon> friends) { this.friends = friends; }
+    // Entity storage
+
+    /**
+     * Returns the handle of the Digimon's entity in its world's store, or -1 while it is not stored.
+     */
+    public int getEntity() { return entities != null ? entity : -1; }
+
+    /**
+     * Returns whether the Digimon's entity carries a Celestial's {@link Component#AURA aura}.
+     */
+    protected boolean hasAura() { return false; }
+
+    // Called by the sector's grid whenever the Digimon is placed on one of its cells
+    void place(Sector sector, int x, int y) {
+        EntityStore store = sector.getContext().getEntities();
+        if (entities != store) {
+            detach();
+            attach(store, sector.getContext().getRandom());
+        }
+        store.add(entity, Component.POSITION);
+        store.setInt(entity, Component.POSITION, Component.SECTOR, store.sectorSlot(sector));
+        store.setInt(entity, Component.POSITION, Component.X, x);
+        store.setInt(entity, Component.POSITION, Component.Y, y);
+    }
+
+    // Called by the sector when the Digimon leaves it; the entity lives on without a position
+    void unplace() {
+        if (entities != null) {
+            entities.remove(entity, Component.POSITION);
+        }
+    }
+
+    private void attach(EntityStore store, Random random) {
+        EnumSet<Component> components = EnumSet.of(Component.VITALS, Component.PERSONALITY);
+        if (hasAura()) {
+            components.add(Component.AURA);
+        }
+        entity = store.create(this, components);
+        entities = store;
+        placed = true;
+        setAge(age);
+        setHealth(health);
+        setHunger(hunger);
+        setAggression(aggression);
+        setTribe(tribe);
+        setProfession(profession);
+        if (personality != null) {
+            personality.draw(random);
+            personality.store();
+        }
+    }
+
+    /**
+     * Moves the Digimon's state out of its world's entity store back into the Digimon and destroys its entity,
+     * e.g. once it died. Does nothing if it is not stored.
+     */
+    public void detach() {
+        if (entities == null) {
+            return;
+        }
+        age = getAge();
+        health = getHealth();
+        hunger = getHunger();
+        aggression = getAggression();
+        tribe = getTribe();
+        profession = getProfession();
+        if (personality != null) {
+            personality.load();
+        }
+        entities.destroy(entity);
+        entities = null;
+        entity = -1;
+    }
+
+    /**
+     * Returns whether the Digimon was placed in a world and has left it since, i.e. it died.
+     */
+    public boolean isDead() { return placed && entities == null; }
+
+    public Sector getNextMigrationStep() { return migrationRoute.peek(); }
+    public Sector getMigrationDestination() { return migrationRoute.peekLast(); }
+    public void advanceMigration() { migrationRoute.poll(); }
+    public boolean isMigrating() { return !migrationRoute.isEmpty(); }
+    public void setMigrationRoute(List<Sector> route) {
+        migrationRoute.clear();
+        migrationRoute.addAll(route);
+    }
 
     // Utility methods
 
     public String getStatusString() {
+        String profession = getProfession();
+        Tribe tribe = getTribe();
         return "Name: " + this.name + 
-               ", Age: " + this.age + 
-               ", Health: " + this.health +
-               ", Hunger: " + this.hunger + 
-               ", Aggression: " + this.aggression + 
+               ", Age: " + getAge() + 
+               ", Health: " + getHealth() +
+               ", Hunger: " + getHunger() + 
+               ", Aggression: " + getAggression() + 
                ", Stage: " + this.stage +
-               ", Profession: " + (this.profession != null ? this.profession : "None") +
-               ", Tribe: " + (this.tribe != null ? this.tribe.getName() : "Independent");
+               ", Profession: " + (profession != null ? profession : "None") +
+               ", Tribe: " + (tribe != null ? tribe.getName() : "Independent");
     }
 
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Digimon digimon)) return false;
-        return age == digimon.age &&
-               health == digimon.health &&
-               hunger == digimon.hunger &&
-               aggression == digimon.aggression &&
+        return getAge() == digimon.getAge() &&
+               getHealth() == digimon.getHealth() &&
+               getHunger() == digimon.getHunger() &&
+               getAggression() == digimon.getAggression() &&
                Objects.equals(name, digimon.name) &&
-               Objects.equals(tribe, digimon.tribe) &&
+               Objects.equals(getTribe(), digimon.getTribe()) &&
                Objects.equals(stage, digimon.stage);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, age, health, hunger, aggression, stage);
+        return Objects.hash(name, getAge(), getHealth(), getHunger(), getAggression(), stage);
     }
 
     public PersonalityTraits getPersonality() {
         return personality;
     }
 
+    /**
+     * The traits are drawn once, from the random source of the first world the Digimon is placed in,
+     * so that a seeded world replays with the same personalities. A Digimon that was never placed
+     * draws them from the source of its context when they are first read.
+     */
     public class PersonalityTraits {
         private double sociability;    // Affects tribe joining/leaving
         private double aggression;     // Affects combat initiation
         private double curiosity;      // Affects exploration
         private double loyalty;        // Affects tribe dedication
+        private boolean drawn;
+
+        // Getters
+        public double getSociability() { return entities != null ? stored(Component.SOCIABILITY) : drawn().sociability; }
+        public double getAggression() { return entities != null ? stored(Component.TEMPER) : drawn().aggression; }
+        public double getCuriosity() { return entities != null ? stored(Component.CURIOSITY) : drawn().curiosity; }
+        public double getLoyalty() { return entities != null ? stored(Component.LOYALTY) : drawn().loyalty; }
 
-        public PersonalityTraits() {
-            Random rand = new Random();
-            this.sociability = rand.nextDouble();
-            this.aggression = rand.nextDouble();
-            this.curiosity = rand.nextDouble();
-            this.loyalty = rand.nextDouble();
+        private double stored(int field) {
+            return entities.getDouble(entity, Component.PERSONALITY, field);
         }
 
-        // Getters
-        public double getSociability() { return sociability; }
-        public double getAggression() { return aggression; }
-        public double getCuriosity() { return curiosity; }
-        public double getLoyalty() { return loyalty; }
+        private PersonalityTraits drawn() {
+            draw(context().getRandom());
+            return this;
+        }
+
+        private void draw(Random random) {
+            if (drawn) {
+                return;
+            }
+            sociability = random.nextDouble();
+            aggression = random.nextDouble();
+            curiosity = random.nextDouble();
+            loyalty = random.nextDouble();
+            drawn = true;
+        }
+
+        // Copies the traits into the Digimon's entity
+        private void store() {
+            entities.setDouble(entity, Component.PERSONALITY, Component.SOCIABILITY, sociability);
+            entities.setDouble(entity, Component.PERSONALITY, Component.TEMPER, aggression);
+            entities.setDouble(entity, Component.PERSONALITY, Component.CURIOSITY, curiosity);
+            entities.setDouble(entity, Component.PERSONALITY, Component.LOYALTY, loyalty);
+        }
+
+        // Copies the traits back from the Digimon's entity
+        private void load() {
+            sociability = getSociability();
+            aggression = getAggression();
+            curiosity = getCuriosity();
+            loyalty = getLoyalty();
+        }
     }
 }
@@ -1,25 +1,47 @@
 package com.horrorcore.entity;
 
+import com.horrorcore.SimulationContext;
 import com.horrorcore.grid.Grid;
 import com.horrorcore.grid.GridCell;
-import com.horrorcore.grid.PathFinder;
+import com.horrorcore.metrics.SimulationCounter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.logging.Logger;
 
 public class Sector {
+    private static final Logger LOGGER = Logger.getLogger(Sector.class.getName());
     private final String name;
     private final List<Digimon> digimons;
+    private final List<Digimon> digimonView;
     private final List<Sector> adjacentSectors;
     private final Grid grid;
+    private final SimulationContext context;
     private static final int DEFAULT_GRID_SIZE = 20;
 
+    /**
+     * Creates a sector of the default world.
+     */
     public Sector(String name) {
+        this(name, SimulationContext.getDefault());
+    }
+
+    /**
+     * Creates a sector of the world owned by the given context.
+     * Digimon placed in the sector become part of that world.
+     */
+    public Sector(String name, SimulationContext context) {
         this.name = name;
         this.digimons = new ArrayList<>();
+        this.digimonView = Collections.unmodifiableList(digimons);
         this.adjacentSectors = new ArrayList<>();
-        this.grid = new Grid(DEFAULT_GRID_SIZE, DEFAULT_GRID_SIZE);
+        this.context = context;
+        this.grid = new Grid(DEFAULT_GRID_SIZE, DEFAULT_GRID_SIZE, context.getRandom());
+        grid.getHeatMap().setClock(() -> context.getWorld() != null ? context.getWorld().getTime() : 0);
+        grid.setOccupantListener((digimon, cell) -> digimon.place(this, cell.getX(), cell.getY()));
         initializeBorderCells();
     }
 
@@ -35,47 +57,94 @@ public class Sector {
         }
     }
 
-    public void addDigimon(Digimon digimon) {
+    /**
+     * Places a Digimon on a random free cell of this sector.
+     * When the sector is full the Digimon overflows, in order, onto a free border cell
+     * of this sector and then onto a free interior cell of an adjacent sector.
+     * If every candidate is full the Digimon is not placed.
+     *
+     * @param digimon The Digimon to add.
+     * @return true if the Digimon was placed in this sector or an adjacent one.
+     */
+    public boolean addDigimon(Digimon digimon) {
         if (digimon == null) {
             throw new IllegalArgumentException("Cannot add null Digimon to sector");
         }
 
-        // Find an empty cell for the Digimon
-        Optional<GridCell> emptyCell = findEmptyCell();
+        Random random = context.getRandom();
+        Optional<GridCell> emptyCell = grid.randomFreeCell(random)
+                .or(() -> grid.randomFreeBorderCell(random));
         if (emptyCell.isPresent()) {
-            GridCell cell = emptyCell.get();
-            cell.setOccupant(digimon);
-            digimons.add(digimon);
-        } else {
-            throw new IllegalStateException("No empty cells available in sector " + name);
+            addDigimonAt(digimon, emptyCell.get());
+            return true;
         }
-    }
 
-    private Optional<GridCell> findEmptyCell() {
-        for (int x = 1; x < DEFAULT_GRID_SIZE - 1; x++) {
-            for (int y = 1; y < DEFAULT_GRID_SIZE - 1; y++) {
-                GridCell cell = grid.getCell(x, y);
-                if (cell.getOccupant() == null && cell.getBuilding() == null
-                        && cell.getType() != GridCell.CellType.BLOCKED) {
-                    return Optional.of(cell);
-                }
+        for (Sector adjacent : adjacentSectors) {
+            Optional<GridCell> adjacentCell = adjacent.grid.randomFreeCell(random);
+            if (adjacentCell.isPresent()) {
+                adjacent.addDigimonAt(digimon, adjacentCell.get());
+                LOGGER.fine(name + " is full; " + digimon.getName() + " overflowed into " + adjacent.getName());
+                return true;
             }
         }
-        return Optional.empty();
+
+        LOGGER.warning("No empty cells available in sector " + name + " or its neighbours; "
+                + digimon.getName() + " was not placed");
+        return false;
+    }
+
+    /**
+     * Places a Digimon on a specific cell of this sector. The cell is expected to be free.
+     *
+     * @param digimon The Digimon to add.
+     * @param cell    The cell of this sector's grid the Digimon will occupy.
+     */
+    public void addDigimonAt(Digimon digimon, GridCell cell) {
+        cell.setOccupant(digimon);
+        digimons.add(digimon);
+        digimon.setContext(context);
     }
 
     public void removeDigimon(Digimon digimon) {
-        // Find and clear the cell containing this Digimon
-        for (int x = 0; x < DEFAULT_GRID_SIZE; x++) {
-            for (int y = 0; y < DEFAULT_GRID_SIZE; y++) {
-                GridCell cell = grid.getCell(x, y);
-                if (digimon.equals(cell.getOccupant())) {
-                    cell.setOccupant(null);
-                    break;
-                }
+        GridCell cell = grid.locate(digimon);
+        if (cell != null) {
+            cell.setOccupant(null);
+            digimon.unplace();
+        }
+        digimons.removeIf(d -> d == digimon);
+    }
+
+    /**
+     * Puts the Digimon standing in this sector back into the world's entity store, e.g. after a saved world
+     * was restored.
+     */
+    public void restoreEntities() {
+        for (Digimon digimon : digimons) {
+            GridCell cell = grid.locate(digimon);
+            if (cell != null) {
+                digimon.place(this, cell.getX(), cell.getY());
             }
         }
-        digimons.remove(digimon);
+    }
+
+    /**
+     * Records on the heat map an attack that landed on a Digimon in this sector.
+     */
+    public void recordAttack(Digimon target) {
+        GridCell cell = grid.locate(target);
+        if (cell != null) {
+            grid.getHeatMap().recordAttack(cell.getX(), cell.getY());
+        }
+    }
+
+    /**
+     * Records on the heat map the death of a Digimon in this sector. Must be called before it is removed.
+     */
+    public void recordDeath(Digimon digimon) {
+        GridCell cell = grid.locate(digimon);
+        if (cell != null) {
+            grid.getHeatMap().recordDeath(cell.getX(), cell.getY());
+        }
     }
 
     public void addAdjacentSector(Sector sector) {
@@ -87,7 +156,7 @@ public class Sector {
 
     public boolean moveDigimon(Digimon digimon, int newX, int newY) {
         // Check if the new position is valid
-        if (newX < 0 || newX >= DEFAULT_GRID_SIZE || newY < 0 || newY >= DEFAULT_GRID_SIZE) {
+        if (newX < 0 || newX >= grid.getWidth() || newY < 0 || newY >= grid.getHeight()) {
             return false;
         }
 
@@ -99,18 +168,15 @@ public class Sector {
             return false;
         }
 
-        // Find the Digimon's current cell and clear it
-        for (int x = 0; x < DEFAULT_GRID_SIZE; x++) {
-            for (int y = 0; y < DEFAULT_GRID_SIZE; y++) {
-                GridCell cell = grid.getCell(x, y);
-                if (digimon.equals(cell.getOccupant())) {
-                    cell.setOccupant(null);
-                    targetCell.setOccupant(digimon);
-                    return true;
-                }
-            }
+        // Clear the Digimon's current cell
+        GridCell currentCell = grid.locate(digimon);
+        if (currentCell == null) {
+            return false;
         }
-        return false;
+        currentCell.setOccupant(null);
+        targetCell.setOccupant(digimon);
+        context.increment(SimulationCounter.MOVES);
+        return true;
     }
 
     public boolean placeBuilding(Building building, int x, int y) {
@@ -122,9 +188,22 @@ public class Sector {
         }
     }
 
+    /**
+     * Returns whether a Digimon stands in this sector, in constant time.
+     */
+    public boolean contains(Digimon digimon) {
+        return grid.locate(digimon) != null;
+    }
+
     // Getters
     public String getName() { return name; }
-    public List<Digimon> getDigimons() { return new ArrayList<>(digimons); }
+
+    /**
+     * Returns the Digimon of this sector as a read-only view, which changes as Digimon come and go.
+     * Systems iterate it directly and record additions and removals in their
+     * {@link com.horrorcore.systems.schedule.CommandBuffer}, so it does not change while they do.
+     */
+    public List<Digimon> getDigimons() { return digimonView; }
     public List<Sector> getAdjacentSectors() { return adjacentSectors; }
     public Grid getGrid() { return grid; }
 
@@ -137,9 +216,17 @@ public class Sector {
         return grid.getCell(x, y);
     }
 
+    /**
+     * Finds a terrain path between two cells of this sector through the world's path cache.
+     * Occupants are ignored, so callers should check each step is free before taking it.
+     *
+     * @return The cells from start to end inclusive, or an empty list if no path exists.
+     */
     public List<GridCell> findPath(int startX, int startY, int endX, int endY) {
         GridCell start = grid.getCell(startX, startY);
         GridCell end = grid.getCell(endX, endY);
-        return PathFinder.findPath(grid, start, end);
+        return context.getPathCache().findPath(grid, start, end);
     }
+
+    public SimulationContext getContext() { return context; }
 }
\ No newline at end of file
@@ -1,51 +1,50 @@
 package com.horrorcore.entity;
 
 import com.horrorcore.*;
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.ecs.HandleSet;
 import com.horrorcore.systems.building.BuildingSystem;
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 import com.horrorcore.systems.tech.TechnologySystem;
 
 import java.util.*;
 
 public class Tribe {
-    private static int nextId = 1;
-
+    private final transient SimulationContext context;
     private final int id;
     private String name;
     private List<Digimon> members;
-    private Digimon leader;
-    private int buildings;
+    // The handle of the leader's entity, so that a leader that died is not kept alive but noticed when asked for
+    private transient int leader = -1;
     private final TechnologySystem technologySystem;
     private int totalFood;
     private int militaryStrength;
     private int researchPoints;
-    private final Set<Digimon> recentlyFed = new HashSet<>();
-    private long lastFeedTime = 0;
-    private static final long FEED_COOLDOWN = 1000;
+    private final transient HandleSet recentlyFed;
+    private int lastFeedTick = -1;
 
     // Constructors
 
-    public Tribe(int id, String name) {
-        this.id = id;
+    /**
+     * Creates a tribe in a world, taking the next tribe id of the world's context.
+     */
+    public Tribe(SimulationContext context, String name) {
+        this.context = context;
+        this.id = context.nextTribeId();
         this.name = name;
         this.members = new ArrayList<>();
-        this.buildings = 0;
         this.totalFood = 150;
         this.militaryStrength = 3;
         this.researchPoints = 0;
-        this.technologySystem = new TechnologySystem();
-        nextId++;
+        this.technologySystem = new TechnologySystem(context);
+        this.recentlyFed = new HandleSet(context.getEntities());
     }
 
     // Static methods
 
-    public static Set<Tribe> getAllTribes() {
-        return World.getInstance().getTribes();
-    }
-
     public static void formNewTribe(World world) {
-        Random random = new Random();
+        SimulationContext context = world.getContext();
+        Random random = context.getRandom();
         List<Digimon> availableDigimon = new ArrayList<>();
 
         for (Sector sector : world.getSectors()) {
@@ -57,7 +56,7 @@ public class Tribe {
         if (availableDigimon.size() >= 2) {
             Digimon leader = availableDigimon.get(random.nextInt(availableDigimon.size()));
             String tribeName = "Tribe of " + leader.getName();
-            Tribe newTribe = new Tribe(nextId, tribeName);
+            Tribe newTribe = new Tribe(context, tribeName);
 
             newTribe.setLeader(leader);
             availableDigimon.remove(leader);
@@ -72,23 +71,25 @@ public class Tribe {
             world.getTribes().add(newTribe);
 
             Sector tribeSector = world.getSectors().stream()
-                    .filter(sector -> sector.getDigimons().contains(leader))
+                    .filter(sector -> sector.contains(leader))
                     .findFirst()
                     .orElse(world.getSectors().get(0));
 
-            SimulationSubject.getInstance().notifyEvent(tribeName + " has been formed in " + tribeSector.getName() + "!", SimulationEvent.EventType.POLITICAL);
+            context.getEvents().notifyEvent(tribeName + " has been formed in " + tribeSector.getName() + "!", SimulationEvent.EventType.POLITICAL);
         }
     }
 
+    /**
+     * Has a tribe build a city near its leader. Success is announced once the city center was actually placed.
+     */
     public static void buildCity(Tribe tribe) {
-        if (BuildingSystem.buildCity(tribe, World.getInstance())) {
-            tribe.buildings++;
-            SimulationSubject.getInstance().notifyEvent(
-                    tribe.getName() + " has successfully built a new city with surrounding buildings!",
-                    SimulationEvent.EventType.POLITICAL
-            );
-        } else {
-            SimulationSubject.getInstance().notifyEvent(
+        boolean siteFound = BuildingSystem.buildCity(tribe, tribe.context.getWorld(), () ->
+                tribe.context.getEvents().notifyEvent(
+                        tribe.getName() + " has successfully built a new city with surrounding buildings!",
+                        SimulationEvent.EventType.POLITICAL
+                ));
+        if (!siteFound) {
+            tribe.context.getEvents().notifyEvent(
                     tribe.getName() + " failed to find a suitable location for a new city.",
                     SimulationEvent.EventType.POLITICAL
             );
@@ -97,28 +98,59 @@ public class Tribe {
 
     // Instance methods
 
+    /**
+     * Adds a Digimon, taking it out of the tribe it was a member of before. A Digimon's tribe is the one tribe
+     * that lists it, so membership is checked in constant time.
+     */
     public void addMember(Digimon digimon) {
+        Tribe previous = digimon.getTribe();
+        if (previous == this) {
+            return;
+        }
+        if (previous != null) {
+            previous.removeMember(digimon);
+        }
         militaryStrength++;
         digimon.setTribe(this);
         members.add(digimon);
+        technologySystem.onMemberJoined(digimon);
         digimon.joinTribe(this.name);
     }
 
     public void removeMember(Digimon digimon) {
-        members.removeIf(digi -> digi.equals(digimon));
+        if (digimon.getTribe() == this) {
+            digimon.setTribe(null);
+        }
+        if (members.removeIf(digi -> digi == digimon)) {
+            technologySystem.onMemberLeft(digimon);
+        }
     }
 
-    public void addFood(int foodProduced) {
-        totalFood += foodProduced;
+    /**
+     * Drops the members that died without leaving the tribe.
+     *
+     * @return The number of members dropped.
+     */
+    public int dropDeadMembers() {
+        List<Digimon> dead = members.stream().filter(Digimon::isDead).toList();
+        dead.forEach(this::removeMember);
+        return dead.size();
     }
 
-    public void addBuildings(int buildingsConstructed) {
-        buildings += buildingsConstructed;
+    public boolean isMember(Digimon digimon) {
+        return digimon.getTribe() == this;
     }
 
+    public void addFood(int foodProduced) {
+        totalFood += foodProduced;
+    }
+
+    /**
+     * Feeds the members from the tribe's food store, at most once per world tick.
+     */
     public void feedTribe() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFeedTime < FEED_COOLDOWN) {
+        int currentTick = context.getWorld().getTime();
+        if (currentTick == lastFeedTick) {
             return;
         }
 
@@ -132,44 +164,44 @@ public class Tribe {
                 int extraFood = Math.min((totalFood - foodThreshold) / 2, foodToFeed);
                 totalFood -= (foodToFeed + extraFood);
                 members.stream()
-                        .filter(digimon -> !recentlyFed.contains(digimon))
+                        .filter(digimon -> !recentlyFed.contains(digimon.getEntity()))
                         .forEach(digimon -> {
                             digimon.setHunger(Math.max(0, digimon.getHunger() - 30));
-                            recentlyFed.add(digimon);
+                            recentlyFed.add(digimon.getEntity());
                         });
-                SimulationSubject.getInstance().notifyEvent(getName() + " has well fed their tribe with extra food!", SimulationEvent.EventType.POLITICAL);
+                context.getEvents().notifyEvent(getName() + " has well fed their tribe with extra food!", SimulationEvent.EventType.POLITICAL);
             } else {
                 // Regular feeding
                 totalFood -= foodToFeed;
                 members.stream()
-                        .filter(digimon -> !recentlyFed.contains(digimon))
+                        .filter(digimon -> !recentlyFed.contains(digimon.getEntity()))
                         .forEach(digimon -> {
                             digimon.setHunger(Math.max(0, digimon.getHunger() - 20));
-                            recentlyFed.add(digimon);
+                            recentlyFed.add(digimon.getEntity());
                         });
-                SimulationSubject.getInstance().notifyEvent(
+                context.getEvents().notifyEvent(
                         getName() + " has fed their tribe!",
                         SimulationEvent.EventType.POLITICAL
                 );
             }
-            lastFeedTime = currentTime;
+            lastFeedTick = currentTick;
         } else if (totalFood > 0) {
             // Not enough food, but feed what we can
             int partialFood = totalFood;
             totalFood = 0;
             members.stream()
-                    .filter(digimon -> !recentlyFed.contains(digimon))
+                    .filter(digimon -> !recentlyFed.contains(digimon.getEntity()))
                     .forEach(digimon -> {
                         digimon.setHunger(Math.max(0, digimon.getHunger() - 10));
-                        recentlyFed.add(digimon);
+                        recentlyFed.add(digimon.getEntity());
                     });
-            SimulationSubject.getInstance().notifyEvent(
+            context.getEvents().notifyEvent(
                     getName() + " has partially fed their tribe with " + partialFood + " food!",
                     SimulationEvent.EventType.POLITICAL
             );
-            lastFeedTime = currentTime;
+            lastFeedTick = currentTick;
         } else {
-            SimulationSubject.getInstance().notifyEvent(getName() + " has no food to feed their tribe!", SimulationEvent.EventType.POLITICAL);
+            context.getEvents().notifyEvent(getName() + " has no food to feed their tribe!", SimulationEvent.EventType.POLITICAL);
         }
     }
 
@@ -179,14 +211,14 @@ public class Tribe {
 
     public void produceFood() {
         int baseProduction = 10;
-        int farmersCount = this.technologySystem.getProfessions().getOrDefault("Agriculture", new ArrayList<>()).size();
+        int farmersCount = this.technologySystem.getWorkerCount("Agriculture");
         int initialProduction = farmersCount * baseProduction;
 
         double technologyBonus = 1 + (this.technologySystem.getTechnologyLevel("Agriculture") * 0.1);
         int foodProduced = (int) (initialProduction * technologyBonus);
 
         addFood(foodProduced);
-        SimulationSubject.getInstance().notifyEvent(getName() + " has produced " + foodProduced + " food!", SimulationEvent.EventType.POLITICAL);
+        context.getEvents().notifyEvent(getName() + " has produced " + foodProduced + " food!", SimulationEvent.EventType.POLITICAL);
     }
 
     public void addResearchPoints(int points) {
@@ -200,15 +232,25 @@ public class Tribe {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public Digimon getLeader() { return leader; }
-    public void setLeader(Digimon leader) { this.leader = leader; }
+    /**
+     * Returns the leader, or null if the tribe has none or its leader died.
+     */
+    public Digimon getLeader() {
+        EntityStore entities = context.getEntities();
+        if (leader >= 0 && !entities.isAlive(leader)) {
+            leader = -1;
+        }
+        return leader >= 0 ? (Digimon) entities.getOwner(leader) : null;
+    }
+
+    /**
+     * Makes a Digimon the leader. Only Digimon placed in the tribe's world can lead it; others leave the tribe without one.
+     */
+    public void setLeader(Digimon leader) { this.leader = leader != null ? leader.getEntity() : -1; }
 
     public List<Digimon> getMembers() { return members; }
     public void setMembers(List<Digimon> members) { this.members = members; }
 
-    public int getBuildings() { return buildings; }
-    public void setBuildings(int buildings) { this.buildings = buildings; }
-
     public int getTotalFood() { return totalFood; }
     public void setTotalFood(int totalFood) { this.totalFood = totalFood; }
 
@@ -220,8 +262,7 @@ public class Tribe {
 
     public TechnologySystem getTechnologySystem() { return technologySystem; }
 
-    public static int getNextId() { return nextId; }
-    public static void setNextId(int nextId) { Tribe.nextId = nextId; }
+    public SimulationContext getContext() { return context; }
 
     // Object overrides
 
@@ -229,13 +270,13 @@ public class Tribe {
     public boolean equals(Object o) {
         if (!(o instanceof Tribe tribe)) return false;
         return id == tribe.id && 
-               buildings == tribe.buildings && 
                Objects.equals(name, tribe.name) && 
                Objects.equals(members, tribe.members);
     }
 
+    // Only the id, so that a tribe stays findable in hashed collections while its members change
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, members, buildings);
+        return Objects.hash(id);
     }
 }
@@ -0,0 +1,99 @@
+package com.horrorcore.grid;
+
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Tribe;
+
+import java.util.*;
+
+/**
+ * Indexes buildings by owning tribe and by type, with running totals kept up to date on
+ * every add and remove so that counts are constant-time reads.
+ * A grid keeps one index for its own buildings; an index may roll its changes up into a
+ * parent index, which is how the world keeps world-wide totals without re-summing.
+ */
+public class BuildingIndex {
+    private static final int TYPE_COUNT = Building.BuildingType.values().length;
+
+    private final Map<Tribe, List<Building>> byTribe = new IdentityHashMap<>();
+    private final Map<Tribe, int[]> countsByTribe = new IdentityHashMap<>();
+    private final int[] countsByType = new int[TYPE_COUNT];
+    private int total;
+    private BuildingIndex parent;
+
+    /**
+     * Rolls this index up into a parent index. Buildings already indexed here are added to
+     * the parent straight away, and every later add and remove is forwarded to it.
+     *
+     * @param parent The index to roll up into.
+     */
+    public void attachTo(BuildingIndex parent) {
+        this.parent = parent;
+        byTribe.values().forEach(owned -> owned.forEach(parent::add));
+    }
+
+    public void add(Building building) {
+        byTribe.computeIfAbsent(building.getOwner(), tribe -> new ArrayList<>()).add(building);
+        countsByTribe.computeIfAbsent(building.getOwner(), tribe -> new int[TYPE_COUNT])[building.getType().ordinal()]++;
+        countsByType[building.getType().ordinal()]++;
+        total++;
+        if (parent != null) {
+            parent.add(building);
+        }
+    }
+
+    /**
+     * Removes a building from the index.
+     *
+     * @param building The building to remove.
+     * @return true if the building was indexed and has been removed.
+     */
+    public boolean remove(Building building) {
+        List<Building> owned = byTribe.get(building.getOwner());
+        if (owned == null || !owned.removeIf(b -> b == building)) {
+            return false;
+        }
+        if (owned.isEmpty()) {
+            byTribe.remove(building.getOwner());
+            countsByTribe.remove(building.getOwner());
+        } else {
+            countsByTribe.get(building.getOwner())[building.getType().ordinal()]--;
+        }
+        countsByType[building.getType().ordinal()]--;
+        total--;
+        if (parent != null) {
+            parent.remove(building);
+        }
+        return true;
+    }
+
+    public void clear() {
+        byTribe.clear();
+        countsByTribe.clear();
+        Arrays.fill(countsByType, 0);
+        total = 0;
+    }
+
+    /**
+     * Returns the buildings owned by a tribe, in placement order.
+     *
+     * @param tribe The owning tribe.
+     * @return An unmodifiable view of the tribe's buildings; empty if it owns none.
+     */
+    public List<Building> getBuildings(Tribe tribe) {
+        List<Building> owned = byTribe.get(tribe);
+        return owned == null ? List.of() : Collections.unmodifiableList(owned);
+    }
+
+    public int count() { return total; }
+    public int count(Building.BuildingType type) { return countsByType[type.ordinal()]; }
+
+    public int count(Tribe tribe) {
+        List<Building> owned = byTribe.get(tribe);
+        return owned == null ? 0 : owned.size();
+    }
+
+    public int count(Tribe tribe, Building.BuildingType type) {
+        int[] counts = countsByTribe.get(tribe);
+        return counts == null ? 0 : counts[type.ordinal()];
+    }
+}
@@ -0,0 +1,111 @@
+package com.horrorcore.grid;
+
+/**
+ * Per-cell bit masks for the features that matter to building placement, with a
+ * summed-area table (integral image) per feature so that "how many cells in this
+ * rectangle are blocked / border / built / occupied" is answered in constant time.
+ *
+ * The masks are updated incrementally by the owning grid on every cell change. A layer's
+ * table is only rebuilt, in one O(width * height) pass, the next time that layer is
+ * queried after a change. Occupants move every tick, so a burst of placement queries
+ * pays for at most one rebuild instead of one neighbourhood scan per candidate.
+ */
+public class CellMasks {
+    public static final int BLOCKED = 1;
+    public static final int BORDER = 1 << 1;
+    public static final int BUILDING = 1 << 2;
+    public static final int OCCUPANT = 1 << 3;
+    public static final int ALL = BLOCKED | BORDER | BUILDING | OCCUPANT;
+    private static final int LAYER_COUNT = 4;
+
+    private final int width;
+    private final int height;
+    private final byte[] bits;
+    private final int[][] tables = new int[LAYER_COUNT][];
+    private final boolean[] dirty = new boolean[LAYER_COUNT];
+
+    public CellMasks(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new byte[width * height];
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            tables[layer] = new int[(width + 1) * (height + 1)];
+        }
+    }
+
+    static int maskOf(GridCell cell) {
+        int mask = 0;
+        if (cell.getType() == GridCell.CellType.BLOCKED) mask |= BLOCKED;
+        if (cell.getType() == GridCell.CellType.BORDER) mask |= BORDER;
+        if (cell.getBuilding() != null) mask |= BUILDING;
+        if (cell.getOccupant() != null) mask |= OCCUPANT;
+        return mask;
+    }
+
+    void update(int x, int y, int mask) {
+        int index = y * width + x;
+        int changed = bits[index] ^ mask;
+        if (changed == 0) {
+            return;
+        }
+        bits[index] = (byte) mask;
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            if ((changed & (1 << layer)) != 0) {
+                dirty[layer] = true;
+            }
+        }
+    }
+
+    /**
+     * Counts the cells in a rectangle that have any of the given features.
+     * The rectangle is inclusive and clipped to the grid.
+     *
+     * @param layers A combination of {@link #BLOCKED}, {@link #BORDER}, {@link #BUILDING} and {@link #OCCUPANT}.
+     * @return The summed count over the requested layers.
+     */
+    public int count(int layers, int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width - 1, x1);
+        y1 = Math.min(height - 1, y1);
+        if (x0 > x1 || y0 > y1) {
+            return 0;
+        }
+
+        int total = 0;
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            if ((layers & (1 << layer)) == 0) continue;
+            int[] table = table(layer);
+            total += table[at(x1 + 1, y1 + 1)] - table[at(x0, y1 + 1)]
+                    - table[at(x1 + 1, y0)] + table[at(x0, y0)];
+        }
+        return total;
+    }
+
+    /**
+     * Checks that no cell in the square of the given radius around (x, y) has any of the given features.
+     */
+    public boolean isSquareClear(int layers, int x, int y, int radius) {
+        return count(layers, x - radius, y - radius, x + radius, y + radius) == 0;
+    }
+
+    private int[] table(int layer) {
+        int[] table = tables[layer];
+        if (dirty[layer]) {
+            int bit = 1 << layer;
+            for (int y = 0; y < height; y++) {
+                int rowSum = 0;
+                for (int x = 0; x < width; x++) {
+                    rowSum += (bits[y * width + x] & bit) != 0 ? 1 : 0;
+                    table[at(x + 1, y + 1)] = table[at(x + 1, y)] + rowSum;
+                }
+            }
+            dirty[layer] = false;
+        }
+        return table;
+    }
+
+    private int at(int x, int y) {
+        return y * (width + 1) + x;
+    }
+}
@@ -0,0 +1,104 @@
+package com.horrorcore.grid;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A precomputed field that tells every cell of a grid how to step towards a shared goal.
+ * The integration field holds the number of steps from each cell to the nearest goal cell,
+ * and the direction field holds the neighbour to step onto next. Both are filled by a
+ * single breadth-first search outward from the goals, so any number of Digimon can
+ * take their next step towards the same goal in constant time.
+ * Occupants are ignored while building the field; callers check the next cell before moving.
+ */
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+    private static final byte NO_DIRECTION = -1;
+
+    private final Grid grid;
+    private final int[] integration;
+    private final byte[] direction;
+    private final long terrainVersion;
+
+    /**
+     * Builds the flow field for the given goal cells.
+     * Goal cells are always seeded, even if they hold a building, so Digimon can be
+     * steered towards a building and stop on a cell next to it.
+     *
+     * @param grid  The grid the field covers.
+     * @param goals The cells the field leads to.
+     */
+    public FlowField(Grid grid, Collection<GridCell> goals) {
+        this.grid = grid;
+        this.terrainVersion = grid.getTerrainVersion();
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        this.integration = new int[width * height];
+        this.direction = new byte[width * height];
+        Arrays.fill(integration, UNREACHABLE);
+        Arrays.fill(direction, NO_DIRECTION);
+
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        for (GridCell goal : goals) {
+            int index = goal.getY() * width + goal.getX();
+            if (integration[index] != 0) {
+                integration[index] = 0;
+                queue[tail++] = index;
+            }
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int y = current / width;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int nx = x + DIRECTIONS[d][0];
+                int ny = y + DIRECTIONS[d][1];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                int neighbour = ny * width + nx;
+                if (integration[neighbour] != UNREACHABLE || !isPassable(grid.getCell(nx, ny))) continue;
+
+                integration[neighbour] = integration[current] + 1;
+                // The neighbour reaches the goal by stepping back the way we came
+                direction[neighbour] = (byte) ((d + 2) % DIRECTIONS.length);
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell to step onto from the given cell to get closer to the goal.
+     *
+     * @param from The cell a Digimon currently stands on.
+     * @return The next cell along the field, or null if the cell is a goal or cannot reach one.
+     */
+    public GridCell nextStep(GridCell from) {
+        byte d = direction[from.getY() * grid.getWidth() + from.getX()];
+        if (d == NO_DIRECTION) {
+            return null;
+        }
+        return grid.getCell(from.getX() + DIRECTIONS[d][0], from.getY() + DIRECTIONS[d][1]);
+    }
+
+    /**
+     * Returns the number of steps from the given cell to the nearest goal.
+     *
+     * @param x The cell's x coordinate.
+     * @param y The cell's y coordinate.
+     * @return The distance in steps, or {@link #UNREACHABLE} if no goal can be reached.
+     */
+    public int distanceFrom(int x, int y) {
+        return integration[y * grid.getWidth() + x];
+    }
+
+    public long getTerrainVersion() {
+        return terrainVersion;
+    }
+
+    public static boolean isPassable(GridCell cell) {
+        return cell.getType() != GridCell.CellType.BLOCKED && cell.getBuilding() == null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.horrorcore.grid;
+
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Tribe;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches flow fields for a single grid, keyed by goal.
+ * Every cached field is discarded as soon as the grid's terrain version moves on,
+ * which happens whenever a building is placed or removed or a cell changes type.
+ */
+public class FlowFieldCache {
+    private final Grid grid;
+    private final Map<String, FlowField> fields = new HashMap<>();
+    private long cachedVersion;
+
+    public FlowFieldCache(Grid grid) {
+        this.grid = grid;
+        this.cachedVersion = grid.getTerrainVersion();
+    }
+
+    /**
+     * Returns the flow field for a goal, building it on first use or after the terrain changed.
+     *
+     * @param key   A key identifying the goal, for example "border" or "city:3".
+     * @param goals Supplies the goal cells; only called when the field has to be rebuilt.
+     * @return The flow field leading to the goal cells.
+     */
+    public FlowField get(String key, Supplier<? extends Collection<GridCell>> goals) {
+        if (cachedVersion != grid.getTerrainVersion()) {
+            fields.clear();
+            cachedVersion = grid.getTerrainVersion();
+        }
+        return fields.computeIfAbsent(key, k -> new FlowField(grid, goals.get()));
+    }
+
+    public void invalidate() {
+        fields.clear();
+    }
+
+    /**
+     * Returns the key of the field leading to a tribe's buildings of one type.
+     */
+    public static String tribeKey(Building.BuildingType type, Tribe tribe) {
+        return type + ":" + tribe.getId();
+    }
+
+    /**
+     * Discards the fields leading to a tribe's buildings, once the tribe is gone. Tribe ids are not reused,
+     * so the fields would otherwise stay until the terrain changes.
+     */
+    public void forget(Tribe tribe) {
+        for (Building.BuildingType type : Building.BuildingType.values()) {
+            fields.remove(tribeKey(type, tribe));
+        }
+    }
+
+    public int size() {
+        return fields.size();
+    }
+}
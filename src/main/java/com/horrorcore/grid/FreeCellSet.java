@@ -0,0 +1,63 @@
+package com.horrorcore.grid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A set of cell indices that supports insert, remove, membership and uniform
+ * random selection in constant time.
+ * The {@code positions} array doubles as the occupancy bitmap (a cell is a member
+ * when its slot is non-negative), while {@code members} keeps the free cells densely
+ * packed so a random pick never has to scan.
+ */
+public class FreeCellSet {
+    private final int[] members;
+    private final int[] positions;
+    private int size;
+
+    public FreeCellSet(int capacity) {
+        this.members = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public boolean add(int index) {
+        if (positions[index] >= 0) {
+            return false;
+        }
+        members[size] = index;
+        positions[index] = size;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int index) {
+        int slot = positions[index];
+        if (slot < 0) {
+            return false;
+        }
+        // Move the last member into the vacated slot to keep the array dense
+        int last = members[--size];
+        members[slot] = last;
+        positions[last] = slot;
+        positions[index] = -1;
+        return true;
+    }
+
+    public boolean contains(int index) {
+        return positions[index] >= 0;
+    }
+
+    /**
+     * Picks a uniformly random member of the set.
+     *
+     * @param random The random source to draw from.
+     * @return A member index, or -1 if the set is empty.
+     */
+    public int random(Random random) {
+        return size == 0 ? -1 : members[random.nextInt(size)];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+}
@@ -1,31 +1,63 @@
 package com.horrorcore.grid;
 
 import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Tribe;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 public class Grid {
     private final GridCell[][] cells;
     private final int width;
     private final int height;
-    private final List<Building> buildings = new ArrayList<>();
+    private final BuildingIndex buildings = new BuildingIndex();
+    private final FreeCellSet freeInteriorCells;
+    private final FreeCellSet freeBorderCells;
+    private final Map<Digimon, GridCell> occupantCells = new IdentityHashMap<>();
+    private final FlowFieldCache flowFields;
+    private final CellMasks masks;
+    private final HeatMap heatMap;
+    private BiConsumer<Digimon, GridCell> occupantListener;
+    private long terrainVersion = 0;
     private static final double BLOCKED_CELL_PROBABILITY = 0.15; // 15% chance for a cell to be blocked
     private static final int MIN_PATH_WIDTH = 2;
 
     public Grid(int width, int height) {
+        this(width, height, new Random());
+    }
+
+    /**
+     * Creates a grid whose blocked cells are laid out by the given random source.
+     */
+    public Grid(int width, int height, Random random) {
         this.width = width;
         this.height = height;
         this.cells = new GridCell[width][height];
-        initializeGrid();
+        this.freeInteriorCells = new FreeCellSet(width * height);
+        this.freeBorderCells = new FreeCellSet(width * height);
+        this.masks = new CellMasks(width, height);
+        this.heatMap = new HeatMap(width, height);
+        initializeGrid(random);
+        attachCells();
+        this.flowFields = new FlowFieldCache(this);
     }
 
-    private void initializeGrid() {
-        Random random = new Random();
+    private void attachCells() {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                cells[x][y].attach(this);
+                onCellChanged(cells[x][y]);
+            }
+        }
+    }
 
+    private void initializeGrid(Random random) {
         // First, initialize all cells as NORMAL
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
@@ -152,31 +184,153 @@ public class Grid {
 
         buildings.add(building);
         cells[x][y].setBuilding(building);
+        heatMap.onBuildingPlaced(building);
     }
 
     public void removeBuilding(Building building) {
-        buildings.remove(building);
-        cells[building.getX()][building.getY()].setBuilding(null);
+        if (buildings.remove(building)) {
+            cells[building.getX()][building.getY()].setBuilding(null);
+        }
     }
 
     private boolean isValidBuildingLocation(int x, int y, Building.BuildingType type) {
         if (x < 0 || x >= width || y < 0 || y >= height) return false;
-        if (cells[x][y].getBuilding() != null) return false;
-
-        // Check radius around building location
-        int radius = type.getRadius();
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dy = -radius; dy <= radius; dy++) {
-                int newX = x + dx;
-                int newY = y + dy;
-                if (newX >= 0 && newX < width && newY >= 0 && newY < height) {
-                    if (cells[newX][newY].getBuilding() != null) {
-                        return false;
-                    }
+
+        // No other building within the radius around the building location
+        return masks.isSquareClear(CellMasks.BUILDING, x, y, type.getRadius());
+    }
+
+    // Occupancy tracking
+
+    void onOccupantChanged(GridCell cell, Digimon previous, Digimon occupant) {
+        if (previous != null && occupantCells.get(previous) == cell) {
+            occupantCells.remove(previous);
+        }
+        if (occupant != null) {
+            occupantCells.put(occupant, cell);
+        }
+        heatMap.onOccupantChanged(cell, previous, occupant);
+        if (occupant != null && occupantListener != null) {
+            occupantListener.accept(occupant, cell);
+        }
+        onCellChanged(cell);
+    }
+
+    void onTerrainChanged(GridCell cell) {
+        terrainVersion++;
+        onCellChanged(cell);
+    }
+
+    void onCellChanged(GridCell cell) {
+        masks.update(cell.getX(), cell.getY(), CellMasks.maskOf(cell));
+        int index = indexOf(cell.getX(), cell.getY());
+        freeInteriorCells.remove(index);
+        freeBorderCells.remove(index);
+        if (cell.getOccupant() != null || cell.getBuilding() != null) {
+            return;
+        }
+        switch (cell.getType()) {
+            case NORMAL -> freeInteriorCells.add(index);
+            case BORDER -> freeBorderCells.add(index);
+            default -> { }
+        }
+    }
+
+    /**
+     * Picks a random unoccupied, unbuilt interior cell in constant expected time.
+     *
+     * @param random The random source to draw from.
+     * @return A free interior cell, or empty if the interior is full.
+     */
+    public Optional<GridCell> randomFreeCell(Random random) {
+        return cellAt(freeInteriorCells.random(random));
+    }
+
+    /**
+     * Picks a random unoccupied, unbuilt border cell in constant expected time.
+     *
+     * @param random The random source to draw from.
+     * @return A free border cell, or empty if every border cell is taken.
+     */
+    public Optional<GridCell> randomFreeBorderCell(Random random) {
+        return cellAt(freeBorderCells.random(random));
+    }
+
+    /**
+     * Returns the cell currently holding the given Digimon, matched by identity.
+     *
+     * @param digimon The Digimon to locate.
+     * @return The occupied cell, or null if the Digimon is not on this grid.
+     */
+    public GridCell locate(Digimon digimon) {
+        return occupantCells.get(digimon);
+    }
+
+    /**
+     * Returns a counter that increases every time a building is placed or removed
+     * or a cell changes type. Anything derived from the terrain can compare versions
+     * to know when it has gone stale.
+     *
+     * @return The current terrain version.
+     */
+    public long getTerrainVersion() {
+        return terrainVersion;
+    }
+
+    public CellMasks getMasks() {
+        return masks;
+    }
+
+    public FlowFieldCache getFlowFields() {
+        return flowFields;
+    }
+
+    public HeatMap getHeatMap() {
+        return heatMap;
+    }
+
+    /**
+     * Sets what is told of every Digimon placed on a cell of this grid, e.g. to keep a position
+     * stored elsewhere current.
+     *
+     * @param listener Called with the Digimon and its new cell, or null to tell no one.
+     */
+    public void setOccupantListener(BiConsumer<Digimon, GridCell> listener) {
+        this.occupantListener = listener;
+    }
+
+    /**
+     * Collects the passable cells on the outer edge of the grid.
+     *
+     * @return The border cells that are not blocked and hold no building.
+     */
+    public List<GridCell> getPassableBorderCells() {
+        List<GridCell> borderCells = new ArrayList<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                GridCell cell = cells[x][y];
+                if (cell.getType() == GridCell.CellType.BORDER && FlowField.isPassable(cell)) {
+                    borderCells.add(cell);
                 }
             }
         }
-        return true;
+        return borderCells;
+    }
+
+    public int getFreeCellCount() {
+        return freeInteriorCells.size();
+    }
+
+    public int getFreeBorderCellCount() {
+        return freeBorderCells.size();
+    }
+
+    private int indexOf(int x, int y) {
+        return y * width + x;
+    }
+
+    private Optional<GridCell> cellAt(int index) {
+        return index < 0 ? Optional.empty() : Optional.of(cells[index % width][index / width]);
     }
 
     // Navigation methods
@@ -189,14 +343,17 @@ public class Grid {
     }
 
     public List<Building> getTribeBuildings(Tribe tribe) {
-        return buildings.stream()
-                .filter(b -> b.getOwner().equals(tribe))
-                .collect(Collectors.toList());
+        return buildings.getBuildings(tribe);
     }
 
     public void cleanupTribeBuildings(Tribe tribe) {
-        List<Building> tribeBuildings = getTribeBuildings(tribe);
+        List<Building> tribeBuildings = new ArrayList<>(buildings.getBuildings(tribe));
         tribeBuildings.forEach(this::removeBuilding);
+        flowFields.forget(tribe);
+    }
+
+    public BuildingIndex getBuildingIndex() {
+        return buildings;
     }
 
     public int getWidth() {
@@ -9,9 +9,13 @@ public class GridCell {
     private final int x;
     private final int y;
     private CellType type;
+    private Grid grid;
 
     public void setType(CellType cellType) {
         this.type = cellType;
+        if (grid != null) {
+            grid.onTerrainChanged(this);
+        }
     }
 
     public enum CellType {
@@ -26,11 +30,27 @@ public class GridCell {
         this.type = type;
     }
 
+    // Called once by the owning grid so that cell changes keep its indexes current
+    void attach(Grid grid) {
+        this.grid = grid;
+    }
+
     // Getters/Setters
     public Digimon getOccupant() { return occupant; }
-    public void setOccupant(Digimon occupant) { this.occupant = occupant; }
+    public void setOccupant(Digimon occupant) {
+        Digimon previous = this.occupant;
+        this.occupant = occupant;
+        if (grid != null && previous != occupant) {
+            grid.onOccupantChanged(this, previous, occupant);
+        }
+    }
     public Building getBuilding() { return building; }
-    public void setBuilding(Building building) { this.building = building; }
+    public void setBuilding(Building building) {
+        this.building = building;
+        if (grid != null) {
+            grid.onTerrainChanged(this);
+        }
+    }
     public int getX() { return x; }
     public int getY() { return y; }
     public CellType getType() { return type; }
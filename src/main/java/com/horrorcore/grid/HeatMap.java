@@ -0,0 +1,223 @@
+package com.horrorcore.grid;
+
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Tribe;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Activity overlays of one grid, kept per tile of {@link #getTileSize() tile size} by tile size
+ * cells so that the overlays of a large grid stay small. The layers are updated where the activity
+ * happens, when a cell's occupant changes, an attack lands, a Digimon dies or a building is
+ * placed, and are never recomputed from the whole grid.
+ *
+ * Every layer decays exponentially with a half-life in ticks, set by the {@value #HALF_LIFE_PROPERTY}
+ * system property. Decay is lazy: a tile remembers the tick it was last updated at, and the decay
+ * since then is applied when the tile is next updated or read.
+ * <ul>
+ *     <li>{@link Layer#OCCUPANCY} is the moving average of the share of the tile's cells holding a Digimon, from 0 to 1.</li>
+ *     <li>{@link Layer#ATTACKS} and {@link Layer#DEATHS} are decayed counts of attacks landed on and deaths of Digimon in the tile.</li>
+ *     <li>{@link Layer#TERRITORY} is the decayed presence of the tile's owning tribe. Members moving into the tile and
+ *     buildings placed on it add presence; another tribe's presence wears it down and takes the tile over.</li>
+ * </ul>
+ */
+public class HeatMap {
+    public static final String HALF_LIFE_PROPERTY = "digimon.heatmap.halflife";
+    public static final int DEFAULT_HALF_LIFE = 50;
+    // Grids wider than this are kept in tiles of several cells
+    public static final int MAX_TILES = 128;
+    // A building counts as this many visits by its tribe
+    private static final float BUILDING_PRESENCE = 10;
+    // Below this a tile's territory is not shown as owned
+    private static final float OWNED_PRESENCE = 0.5f;
+
+    public enum Layer { OCCUPANCY, ATTACKS, DEATHS, TERRITORY }
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    private final int rows;
+    private final float[][] values = new float[Layer.values().length][];
+    private final int[][] updated = new int[Layer.values().length][];
+    private final int[] occupied;
+    private final int[] owners;
+    // decay[n] is what a value keeps of itself after n ticks
+    private final float[] decay;
+    private IntSupplier clock = () -> 0;
+
+    public HeatMap(int width, int height) {
+        this(width, height, Integer.getInteger(HALF_LIFE_PROPERTY, DEFAULT_HALF_LIFE));
+    }
+
+    /**
+     * @param width    The grid width in cells.
+     * @param height   The grid height in cells.
+     * @param halfLife The ticks after which a value has decayed to half.
+     */
+    public HeatMap(int width, int height, int halfLife) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = Math.max(1, (Math.max(width, height) + MAX_TILES - 1) / MAX_TILES);
+        this.columns = (width + tileSize - 1) / tileSize;
+        this.rows = (height + tileSize - 1) / tileSize;
+        for (Layer layer : Layer.values()) {
+            values[layer.ordinal()] = new float[columns * rows];
+            updated[layer.ordinal()] = new int[columns * rows];
+        }
+        this.occupied = new int[columns * rows];
+        this.owners = new int[columns * rows];
+
+        double factor = Math.pow(0.5, 1.0 / Math.max(1, halfLife));
+        // After this many ticks every value has decayed below a ten-thousandth
+        int ticks = (int) Math.ceil(Math.log(1e-4) / Math.log(factor));
+        this.decay = new float[ticks];
+        for (int i = 0; i < ticks; i++) {
+            decay[i] = (float) Math.pow(factor, i);
+        }
+    }
+
+    /**
+     * Sets where the current tick is read from, which the grid's sector points at its world.
+     */
+    public void setClock(IntSupplier clock) {
+        this.clock = clock;
+    }
+
+    public int getTileSize() { return tileSize; }
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+
+    /**
+     * Returns the tile a cell belongs to.
+     */
+    public int tileOf(int x, int y) {
+        return (y / tileSize) * columns + x / tileSize;
+    }
+
+    // Recording
+
+    void onOccupantChanged(GridCell cell, Digimon previous, Digimon occupant) {
+        int tile = tileOf(cell.getX(), cell.getY());
+        int now = clock.getAsInt();
+        if ((previous == null) != (occupant == null)) {
+            settle(Layer.OCCUPANCY, tile, now);
+            occupied[tile] += occupant != null ? 1 : -1;
+        }
+        if (occupant != null) {
+            Tribe tribe = occupant.getTribe();
+            if (tribe != null) {
+                claim(tile, tribe.getId(), 1, now);
+            }
+        }
+    }
+
+    void onBuildingPlaced(Building building) {
+        if (building.getOwner() != null) {
+            claim(tileOf(building.getX(), building.getY()), building.getOwner().getId(), BUILDING_PRESENCE, clock.getAsInt());
+        }
+    }
+
+    /**
+     * Records an attack that landed on the Digimon in a cell.
+     */
+    public void recordAttack(int x, int y) {
+        count(Layer.ATTACKS, tileOf(x, y));
+    }
+
+    /**
+     * Records the death of the Digimon in a cell.
+     */
+    public void recordDeath(int x, int y) {
+        count(Layer.DEATHS, tileOf(x, y));
+    }
+
+    private void count(Layer layer, int tile) {
+        settle(layer, tile, clock.getAsInt());
+        values[layer.ordinal()][tile] += 1;
+    }
+
+    private void claim(int tile, int tribe, float presence, int now) {
+        settle(Layer.TERRITORY, tile, now);
+        float[] strength = values[Layer.TERRITORY.ordinal()];
+        if (owners[tile] == tribe || strength[tile] <= 0) {
+            owners[tile] = tribe;
+            strength[tile] += presence;
+        } else if (strength[tile] >= presence) {
+            strength[tile] -= presence;
+        } else {
+            owners[tile] = tribe;
+            strength[tile] = presence - strength[tile];
+        }
+    }
+
+    // Brings a tile's value up to the given tick
+    private void settle(Layer layer, int tile, int now) {
+        values[layer.ordinal()][tile] = valueAt(layer, tile, now);
+        updated[layer.ordinal()][tile] = now;
+    }
+
+    private float valueAt(Layer layer, int tile, int now) {
+        float value = values[layer.ordinal()][tile];
+        int elapsed = now - updated[layer.ordinal()][tile];
+        float kept = elapsed <= 0 ? 1 : elapsed < decay.length ? decay[elapsed] : 0;
+        if (layer == Layer.OCCUPANCY) {
+            // The average moves from its last value towards the share occupied since then
+            float share = (float) occupied[tile] / cellsIn(tile);
+            return share + (value - share) * kept;
+        }
+        return value * kept;
+    }
+
+    private int cellsIn(int tile) {
+        int x = (tile % columns) * tileSize;
+        int y = (tile / columns) * tileSize;
+        return Math.min(tileSize, width - x) * Math.min(tileSize, height - y);
+    }
+
+    // Reading
+
+    /**
+     * Returns a tile's value at the current tick.
+     */
+    public float get(Layer layer, int tile) {
+        return valueAt(layer, tile, clock.getAsInt());
+    }
+
+    /**
+     * Returns the id of the tribe that owns a tile, or 0 if no tribe has enough presence in it.
+     */
+    public int getOwner(int tile) {
+        return get(Layer.TERRITORY, tile) >= OWNED_PRESENCE ? owners[tile] : 0;
+    }
+
+    /**
+     * Quantizes a layer to one byte per tile, read as unsigned: occupancy from 0 to 1 maps linearly to 0 to 255,
+     * and the counts and territory presence map to {@code 255 * v / (v + 1)}, so one recent event shows at half
+     * intensity and more saturate towards full.
+     *
+     * @return The layer's tiles, row by row.
+     */
+    public byte[] capture(Layer layer) {
+        int now = clock.getAsInt();
+        byte[] levels = new byte[columns * rows];
+        for (int tile = 0; tile < levels.length; tile++) {
+            float value = valueAt(layer, tile, now);
+            float level = layer == Layer.OCCUPANCY ? value : value / (value + 1);
+            levels[tile] = (byte) Math.round(Math.max(0, Math.min(1, level)) * 255);
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the owner of every tile, as {@link #getOwner} does, row by row.
+     */
+    public int[] captureOwners() {
+        int[] captured = new int[columns * rows];
+        for (int tile = 0; tile < captured.length; tile++) {
+            captured[tile] = getOwner(tile);
+        }
+        return captured;
+    }
+}
@@ -0,0 +1,147 @@
+package com.horrorcore.grid;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded least-recently-used cache of terrain paths, keyed by (grid, start, goal).
+ * Paths are computed while ignoring occupants, so they only go stale when the terrain
+ * changes. Each entry remembers the grid's terrain version it was computed against and
+ * is recomputed on the next lookup once that version has moved on. Callers that care
+ * about occupants only need to re-check the next step before taking it.
+ *
+ * The cache is bounded both by entry count and by the total number of cells stored,
+ * configurable through the {@code digimon.pathCache.maxEntries} and
+ * {@code digimon.pathCache.maxCells} system properties.
+ *
+ * Every search run on a miss is reported to the cache's search listener, so that its owner can
+ * count the searches of its own world.
+ */
+public class PathCache {
+    public static final int DEFAULT_MAX_ENTRIES = Integer.getInteger("digimon.pathCache.maxEntries", 4096);
+    public static final int DEFAULT_MAX_CELLS = Integer.getInteger("digimon.pathCache.maxCells", DEFAULT_MAX_ENTRIES * 16);
+    // Rough per-entry overhead: map node, key record, entry object and array header
+    private static final int ENTRY_OVERHEAD_BYTES = 112;
+
+    private final int maxEntries;
+    private final int maxCells;
+    private final Runnable onSearch;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long cellsStored;
+
+    public PathCache() {
+        this(() -> { });
+    }
+
+    /**
+     * @param onSearch Called for every path search the cache runs.
+     */
+    public PathCache(Runnable onSearch) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_CELLS, onSearch);
+    }
+
+    public PathCache(int maxEntries, int maxCells) {
+        this(maxEntries, maxCells, () -> { });
+    }
+
+    public PathCache(int maxEntries, int maxCells, Runnable onSearch) {
+        this.maxEntries = maxEntries;
+        this.maxCells = maxCells;
+        this.onSearch = onSearch;
+    }
+
+    /**
+     * Returns the terrain path between two cells of a grid, computing it on a miss.
+     *
+     * @param grid  The grid to search.
+     * @param start The starting cell.
+     * @param goal  The goal cell.
+     * @return The cells from start to goal inclusive, or an empty list if the goal is unreachable.
+     */
+    public synchronized List<GridCell> findPath(Grid grid, GridCell start, GridCell goal) {
+        Key key = new Key(grid, indexOf(grid, start), indexOf(grid, goal));
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.terrainVersion == grid.getTerrainVersion()) {
+                hits++;
+                return toCells(grid, entry.path);
+            }
+            invalidations++;
+            remove(key);
+        }
+
+        misses++;
+        onSearch.run();
+        List<GridCell> path = PathFinder.findPath(grid, start, goal, false);
+        int[] compact = new int[path.size()];
+        for (int i = 0; i < compact.length; i++) {
+            compact[i] = indexOf(grid, path.get(i));
+        }
+        entries.put(key, new Entry(compact, grid.getTerrainVersion()));
+        cellsStored += compact.length;
+        evictIfNeeded();
+        return path;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cellsStored = 0;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters for sizing and monitoring.
+     *
+     * @return The current cache statistics.
+     */
+    public synchronized Stats getStats() {
+        long estimatedBytes = entries.size() * (long) ENTRY_OVERHEAD_BYTES + cellsStored * Integer.BYTES;
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), cellsStored, estimatedBytes);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || cellsStored > maxCells) && eldest.hasNext()) {
+            cellsStored -= eldest.next().getValue().path.length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            cellsStored -= removed.path.length;
+        }
+    }
+
+    private static int indexOf(Grid grid, GridCell cell) {
+        return cell.getY() * grid.getWidth() + cell.getX();
+    }
+
+    private static List<GridCell> toCells(Grid grid, int[] path) {
+        List<GridCell> cells = new ArrayList<>(path.length);
+        for (int index : path) {
+            cells.add(grid.getCell(index % grid.getWidth(), index / grid.getWidth()));
+        }
+        return cells;
+    }
+
+    private record Key(Grid grid, int start, int goal) {}
+
+    private record Entry(int[] path, long terrainVersion) {}
+
+    public record Stats(long hits, long misses, long evictions, long invalidations,
+                        int entries, long cellsStored, long estimatedBytes) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+}
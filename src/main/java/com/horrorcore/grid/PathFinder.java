@@ -1,11 +1,46 @@
 package com.horrorcore.grid;
 
+import com.horrorcore.metrics.jfr.SlowPathSearchEvent;
+
 import java.util.*;
 
 public class PathFinder {
     public static List<GridCell> findPath(Grid grid, GridCell start, GridCell end) {
-        PriorityQueue<Node> openSet = new PriorityQueue<>();
+        return findPath(grid, start, end, true);
+    }
+
+    /**
+     * Finds a shortest path between two cells with A*.
+     *
+     * @param grid            The grid to search.
+     * @param start           The starting cell.
+     * @param end             The goal cell.
+     * @param avoidOccupants  Whether cells holding other Digimon count as obstacles.
+     *                        Terrain-only paths can be cached until the terrain changes.
+     * @return The cells from start to end inclusive, or an empty list if no path exists.
+     */
+    public static List<GridCell> findPath(Grid grid, GridCell start, GridCell end, boolean avoidOccupants) {
+        SlowPathSearchEvent event = new SlowPathSearchEvent();
+        event.begin();
         Set<GridCell> closedSet = new HashSet<>();
+        List<GridCell> path = search(grid, start, end, avoidOccupants, closedSet);
+        event.end();
+        if (event.shouldCommit()) {
+            event.startX = start.getX();
+            event.startY = start.getY();
+            event.goalX = end.getX();
+            event.goalY = end.getY();
+            event.avoidOccupants = avoidOccupants;
+            event.nodesExpanded = closedSet.size();
+            event.pathLength = path.size();
+            event.commit();
+        }
+        return path;
+    }
+
+    private static List<GridCell> search(Grid grid, GridCell start, GridCell end, boolean avoidOccupants,
+                                         Set<GridCell> closedSet) {
+        PriorityQueue<Node> openSet = new PriorityQueue<>();
         Map<GridCell, Node> allNodes = new HashMap<>();
 
         Node startNode = new Node(start);
@@ -24,7 +59,7 @@ public class PathFinder {
 
             closedSet.add(current.cell);
 
-            for (GridCell neighbor : getValidNeighbors(grid, current.cell)) {
+            for (GridCell neighbor : getValidNeighbors(grid, current.cell, avoidOccupants)) {
                 if (closedSet.contains(neighbor)) continue;
 
                 double tentativeG = current.g + 1;
@@ -66,7 +101,7 @@ public class PathFinder {
         }
     }
 
-    private static List<GridCell> getValidNeighbors(Grid grid, GridCell cell) {
+    private static List<GridCell> getValidNeighbors(Grid grid, GridCell cell, boolean avoidOccupants) {
         List<GridCell> neighbors = new ArrayList<>();
         int[][] dirs = {{0,1}, {1,0}, {0,-1}, {-1,0}};
 
@@ -79,7 +114,7 @@ public class PathFinder {
                 GridCell neighbor = grid.getCell(newX, newY);
                 if (neighbor.getType() != GridCell.CellType.BLOCKED &&
                         neighbor.getBuilding() == null &&
-                        neighbor.getOccupant() == null) {
+                        (!avoidOccupants || neighbor.getOccupant() == null)) {
                     neighbors.add(neighbor);
                 }
             }
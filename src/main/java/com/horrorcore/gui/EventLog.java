@@ -0,0 +1,107 @@
+package com.horrorcore.gui;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded log of simulation events, kept in a ring of parallel arrays so that appending an event
+ * stores its tick and message without allocating. Every event gets a sequence number; the log
+ * retains the last {@link #getCapacity() capacity} of them and overwrites the oldest.
+ *
+ * Any thread may append, and appends are serialized by the log's monitor. Readers do not lock:
+ * {@link #getMessage} and {@link #getTick} return null or -1 for an event that was overwritten,
+ * even if that happens while they read it.
+ */
+public class EventLog {
+    public static final String RETENTION_PROPERTY = "digimon.gui.events.retention";
+    public static final int DEFAULT_RETENTION = 5000;
+
+    private final int capacity;
+    private final int[] ticks;
+    private final String[] messages;
+    // Events [oldest, next) are retained; oldest moves up before a slot is overwritten
+    private volatile long oldest;
+    private volatile long next;
+
+    /**
+     * @param capacity The number of events to retain.
+     */
+    public EventLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ticks = new int[capacity];
+        this.messages = new String[capacity];
+    }
+
+    /**
+     * Returns the retention depth set by the {@value #RETENTION_PROPERTY} system property, or the default.
+     */
+    public static int configuredRetention() {
+        return Math.max(1, Integer.getInteger(RETENTION_PROPERTY, DEFAULT_RETENTION));
+    }
+
+    /**
+     * Appends an event, overwriting the oldest one if the log is full.
+     *
+     * @param tick    The tick the event happened at.
+     * @param message The event message.
+     */
+    public synchronized void append(int tick, String message) {
+        long sequence = next;
+        int slot = (int) (sequence % capacity);
+        if (sequence >= capacity) {
+            oldest = sequence - capacity + 1;
+            // Readers must see the slot retired before they can see it overwritten
+            VarHandle.releaseFence();
+        }
+        ticks[slot] = tick;
+        messages[slot] = message;
+        next = sequence + 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the sequence number of the oldest retained event.
+     */
+    public long getFirst() {
+        return oldest;
+    }
+
+    /**
+     * Returns the sequence number the next event will get, which is the number of events ever appended.
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * @param sequence The sequence number of an event.
+     * @return The event's message, or null if the event is not retained.
+     */
+    public String getMessage(long sequence) {
+        if (sequence >= next) {
+            return null;
+        }
+        String message = messages[(int) (sequence % capacity)];
+        // The slot must be read before checking that it was not retired meanwhile
+        VarHandle.acquireFence();
+        return sequence >= oldest ? message : null;
+    }
+
+    /**
+     * @param sequence The sequence number of an event.
+     * @return The tick of the event, or -1 if the event is not retained.
+     */
+    public int getTick(long sequence) {
+        if (sequence >= next) {
+            return -1;
+        }
+        int tick = ticks[(int) (sequence % capacity)];
+        VarHandle.acquireFence();
+        return sequence >= oldest ? tick : -1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.horrorcore.gui;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+
+/**
+ * A read-only, filtered view of an {@link EventLog} for a ListView, newest event first.
+ * The view keeps the sequence numbers of the matching events in a primitive ring of its own and
+ * resolves their text only when a visible cell asks for it. It changes only in {@link #refresh()},
+ * which the FX thread calls once per frame: events that left the log are removed from the end
+ * and new matching events are added at the top, each as one list change.
+ */
+public class EventLogList extends ObservableListBase<String> {
+    private final EventLog log;
+    private final long[] matches;
+    // The matches ring, oldest match at head
+    private int head;
+    private int size;
+    private long scanned;
+    private String filter = "";
+
+    /**
+     * @param log The log to show.
+     */
+    public EventLogList(EventLog log) {
+        this.log = log;
+        this.matches = new long[log.getCapacity()];
+    }
+
+    /**
+     * Shows only the events whose message contains the given text, ignoring case, and rescans the retained events.
+     * Must be called on the FX thread.
+     *
+     * @param text The text to look for, or null or empty to show every event.
+     */
+    public void setFilter(String text) {
+        String filter = text != null ? text.strip() : "";
+        if (filter.equals(this.filter)) {
+            return;
+        }
+        this.filter = filter;
+        int removed = size;
+        head = 0;
+        size = 0;
+        scanned = 0;
+        if (removed > 0) {
+            beginChange();
+            nextRemove(0, Collections.nCopies(removed, (String) null));
+            endChange();
+        }
+        refresh();
+    }
+
+    /**
+     * Brings the view up to date with the log. Must be called on the FX thread.
+     */
+    public void refresh() {
+        // Scanning at most one capacity of events keeps the matches within the ring while events keep arriving
+        long end = log.getNext();
+        long first = Math.max(log.getFirst(), end - matches.length);
+
+        int dropped = 0;
+        while (size > 0 && matches[head] < first) {
+            head = (head + 1) % matches.length;
+            size--;
+            dropped++;
+        }
+        if (dropped > 0) {
+            // The oldest events are at the end of the list
+            beginChange();
+            nextRemove(size, Collections.nCopies(dropped, (String) null));
+            endChange();
+        }
+
+        int added = 0;
+        for (long sequence = Math.max(scanned, first); sequence < end; sequence++) {
+            String message = log.getMessage(sequence);
+            if (message != null && matches(message)) {
+                matches[(head + size) % matches.length] = sequence;
+                size++;
+                added++;
+            }
+        }
+        scanned = end;
+        if (added > 0) {
+            beginChange();
+            nextAdd(0, added);
+            endChange();
+        }
+    }
+
+    private boolean matches(String message) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i + filter.length() <= message.length(); i++) {
+            if (message.regionMatches(true, i, filter, 0, filter.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        long sequence = matches[(head + size - 1 - index) % matches.length];
+        String message = log.getMessage(sequence);
+        int tick = log.getTick(sequence);
+        // An event overwritten since the last refresh is removed on the next one
+        return message != null && tick >= 0 ? "[" + tick + "] " + message : "";
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
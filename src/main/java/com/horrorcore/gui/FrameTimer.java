@@ -0,0 +1,81 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.World;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.snapshot.WorldSnapshot;
+import javafx.animation.AnimationTimer;
+
+import java.util.function.Consumer;
+
+/**
+ * The one thing that refreshes the GUI. It runs on every FX pulse and renders a frame only when
+ * the world published a snapshot it has not rendered yet, so the simulation never queues work on
+ * the FX thread and a burst of ticks costs at most one frame per pulse.
+ *
+ * When a frame takes longer than a pulse, the timer skips pulses for as long as the frame took,
+ * which leaves at least half of the FX thread to input and layout. Pulses that arrived late
+ * because the FX thread was busy, and pulses skipped with a newer snapshot waiting, count as
+ * dropped frames. The FX-thread time of every rendered frame goes to the metrics registry.
+ */
+final class FrameTimer extends AnimationTimer {
+    // JavaFX pulses at most 60 times a second
+    private static final long PULSE_NANOS = 1_000_000_000L / 60;
+
+    private final World world;
+    private final Consumer<WorldSnapshot> render;
+    private final Runnable pulse;
+    private final MetricsRegistry metrics;
+    private WorldSnapshot rendered;
+    private boolean invalidated;
+    private long lastPulse;
+    private long resumeAt;
+
+    /**
+     * @param world  The world whose snapshots are rendered.
+     * @param render Renders a snapshot on the FX thread.
+     * @param pulse  Runs on every pulse, to put work finished off the FX thread on screen.
+     */
+    FrameTimer(World world, Consumer<WorldSnapshot> render, Runnable pulse) {
+        this.world = world;
+        this.render = render;
+        this.pulse = pulse;
+        this.metrics = world.getContext().getMetrics();
+    }
+
+    /**
+     * Renders the current snapshot again on the next frame, even if it was rendered already.
+     */
+    void invalidate() {
+        invalidated = true;
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastPulse != 0) {
+            long late = (now - lastPulse + PULSE_NANOS / 2) / PULSE_NANOS - 1;
+            if (late > 0) {
+                metrics.add(SimulationCounter.GUI_FRAMES_DROPPED, late);
+            }
+        }
+        lastPulse = now;
+        pulse.run();
+
+        WorldSnapshot snapshot = world.getSnapshot();
+        if (snapshot == null || (snapshot == rendered && !invalidated)) {
+            return;
+        }
+        if (now < resumeAt) {
+            metrics.increment(SimulationCounter.GUI_FRAMES_DROPPED);
+            return;
+        }
+        long start = System.nanoTime();
+        render.accept(snapshot);
+        long elapsed = System.nanoTime() - start;
+        rendered = snapshot;
+        invalidated = false;
+        metrics.recordFrame(elapsed);
+        metrics.increment(SimulationCounter.GUI_FRAMES);
+        resumeAt = elapsed > PULSE_NANOS ? start + 2 * elapsed : 0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The rows a {@link PopulationTable} shows for one snapshot: its Digimon, narrowed by a filter and
+ * put in the table's sort order. An index is immutable and built off the FX thread, so the FX
+ * thread only swaps one index for the next and reads the rows of the visible cells.
+ */
+public final class PopulationIndex {
+    public static final String INDEPENDENT = "Independent";
+    static final PopulationIndex EMPTY = new PopulationIndex(new Row[0], 0, new TreeSet<>(), new TreeSet<>());
+
+    private final Row[] rows;
+    private final int total;
+    private final SortedSet<String> stages;
+    private final SortedSet<String> tribes;
+
+    /**
+     * One Digimon of the snapshot, with the names the table shows for its sector and tribe.
+     *
+     * @param tribe The name of the Digimon's tribe, or {@link #INDEPENDENT}.
+     */
+    public record Row(EntityView entity, String sector, String tribe) {
+        /**
+         * Returns the stage shown for the Digimon, which is "Celestial" for a Celestial Digimon.
+         */
+        public String stage() {
+            return entity.celestial() ? "Celestial" : entity.stage();
+        }
+    }
+
+    /**
+     * The rows to keep.
+     *
+     * @param stage     The stage to keep, or null for every stage.
+     * @param tribe     The tribe name to keep, or null for every tribe.
+     * @param minHealth The least health to keep.
+     */
+    public record Filter(String stage, String tribe, int minHealth) {
+        public static final Filter NONE = new Filter(null, null, 0);
+
+        boolean accepts(Row row) {
+            return (stage == null || stage.equals(row.stage()))
+                    && (tribe == null || tribe.equals(row.tribe()))
+                    && row.entity().health() >= minHealth;
+        }
+    }
+
+    private PopulationIndex(Row[] rows, int total, SortedSet<String> stages, SortedSet<String> tribes) {
+        this.rows = rows;
+        this.total = total;
+        this.stages = Collections.unmodifiableSortedSet(stages);
+        this.tribes = Collections.unmodifiableSortedSet(tribes);
+    }
+
+    /**
+     * Builds the index of a snapshot. Rows of equal sort keys stay in snapshot order.
+     *
+     * @param snapshot The snapshot.
+     * @param sector   The name of the sector to index, or null for every sector.
+     * @param filter   The rows to keep.
+     * @param order    The sort order, or null to keep snapshot order.
+     * @return The index.
+     */
+    public static PopulationIndex build(WorldSnapshot snapshot, String sector, Filter filter, Comparator<Row> order) {
+        Map<Integer, String> tribeNames = new HashMap<>();
+        SortedSet<String> tribes = new TreeSet<>();
+        for (TribeView tribe : snapshot.tribes()) {
+            tribeNames.put(tribe.id(), tribe.name());
+            tribes.add(tribe.name());
+        }
+        SortedSet<String> stages = new TreeSet<>();
+        List<Row> kept = new ArrayList<>();
+        int total = 0;
+        for (SectorView sectorView : snapshot.sectors()) {
+            if (sector != null && !sector.equals(sectorView.name())) {
+                continue;
+            }
+            for (EntityView entity : sectorView.entities()) {
+                Row row = new Row(entity, sectorView.name(), tribeNames.getOrDefault(entity.tribe(), INDEPENDENT));
+                stages.add(row.stage());
+                total++;
+                if (filter.accepts(row)) {
+                    kept.add(row);
+                }
+            }
+        }
+        Row[] rows = kept.toArray(new Row[0]);
+        if (order != null) {
+            Arrays.sort(rows, order);
+        }
+        return new PopulationIndex(rows, total, stages, tribes);
+    }
+
+    public int size() { return rows.length; }
+    public Row get(int index) { return rows[index]; }
+
+    /**
+     * Returns the rows as a list that reads through to the index.
+     */
+    public List<Row> asList() {
+        return Collections.unmodifiableList(Arrays.asList(rows));
+    }
+
+    /**
+     * Returns the number of Digimon in the indexed sectors, before filtering.
+     */
+    public int total() { return total; }
+
+    /**
+     * Returns the stages of the Digimon in the indexed sectors, before filtering.
+     */
+    public SortedSet<String> stages() { return stages; }
+
+    /**
+     * Returns the names of every tribe in the snapshot.
+     */
+    public SortedSet<String> tribes() { return tribes; }
+}
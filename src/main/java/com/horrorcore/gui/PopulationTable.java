@@ -0,0 +1,242 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.gui.PopulationIndex.Filter;
+import com.horrorcore.gui.PopulationIndex.Row;
+import com.horrorcore.snapshot.WorldSnapshot;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A sortable, filterable table of the Digimon in one sector, or in the whole world.
+ * The rows are filtered and sorted off the FX thread into a {@link PopulationIndex} for each
+ * snapshot, filter or sort order; the FX thread only swaps in the finished index. At most one index
+ * per table is built at a time; snapshots and changes that arrive meanwhile are coalesced into the
+ * next one. Cells read their values from the index rows, and the TableView only creates cells for
+ * the rows that are visible, so the work on the FX thread does not grow with the population.
+ */
+public class PopulationTable {
+    private static final Logger LOGGER = Logger.getLogger(PopulationTable.class.getName());
+    private static final String ALL_STAGES = "All stages";
+    private static final String ALL_TRIBES = "All tribes";
+
+    private final String sector;
+    private final Executor indexer;
+    private final IndexList rows = new IndexList();
+    private final TableView<Row> table = new TableView<>(rows);
+    private final Map<TableColumn<Row, ?>, Comparator<Row>> comparators = new HashMap<>();
+    private final ChoiceBox<String> stageFilter = new ChoiceBox<>();
+    private final ChoiceBox<String> tribeFilter = new ChoiceBox<>();
+    private final Spinner<Integer> healthFilter = new Spinner<>(0, 100_000, 0, 10);
+    private final Label count = new Label();
+    private final VBox node;
+    private WorldSnapshot latest;
+    private Comparator<Row> order;
+    private List<Object> sortKeys = List.of();
+    private boolean indexing;
+    private boolean stale;
+
+    /**
+     * @param sector  The name of the sector to show, or null to show every sector with a sector column.
+     * @param indexer Builds the indexes, off the FX thread.
+     */
+    public PopulationTable(String sector, Executor indexer) {
+        this.sector = sector;
+        this.indexer = indexer;
+
+        addColumn("Name", row -> row.entity().name(), 140);
+        addColumn("Stage", Row::stage, 95);
+        if (sector == null) {
+            addColumn("Sector", Row::sector, 150);
+        }
+        addColumn("Tribe", Row::tribe, 130);
+        addColumn("Profession", row -> row.entity().profession(), 90);
+        addColumn("Health", row -> row.entity().health(), 65);
+        addColumn("Age", row -> row.entity().age(), 50);
+        addColumn("Hunger", row -> row.entity().hunger(), 65);
+        addColumn("Aggression", row -> row.entity().aggression(), 85);
+        table.setFixedCellSize(SnapshotTables.ROW_HEIGHT);
+        table.setPlaceholder(new Label("No Digimon"));
+        // Sorting is part of the index, so the table only hands over its sort order
+        table.setSortPolicy(view -> {
+            reorder();
+            return true;
+        });
+
+        stageFilter.getItems().add(ALL_STAGES);
+        stageFilter.setValue(ALL_STAGES);
+        tribeFilter.getItems().addAll(ALL_TRIBES, PopulationIndex.INDEPENDENT);
+        tribeFilter.setValue(ALL_TRIBES);
+        healthFilter.setEditable(true);
+        healthFilter.setPrefWidth(90);
+        stageFilter.valueProperty().addListener((observable, old, value) -> requestIndex());
+        tribeFilter.valueProperty().addListener((observable, old, value) -> requestIndex());
+        healthFilter.valueProperty().addListener((observable, old, value) -> requestIndex());
+
+        HBox filters = new HBox(8, label("Stage:"), stageFilter, label("Tribe:"), tribeFilter,
+                label("Min health:"), healthFilter, count);
+        filters.setAlignment(Pos.CENTER_LEFT);
+        filters.setPadding(new Insets(0, 0, 4, 0));
+        count.setStyle("-fx-text-fill: #00ff00;");
+        VBox.setVgrow(table, Priority.ALWAYS);
+        node = new VBox(filters, table);
+    }
+
+    private <T extends Comparable<T>> void addColumn(String title, Function<Row, T> value, double width) {
+        TableColumn<Row, T> column = SnapshotTables.valueColumn(title, value, width);
+        comparators.put(column, Comparator.comparing(value, Comparator.nullsFirst(Comparator.naturalOrder())));
+        table.getColumns().add(column);
+    }
+
+    private static Label label(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-text-fill: #00ff00;");
+        return label;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Shows a snapshot. Must be called on the FX thread; a snapshot already shown is ignored.
+     *
+     * @param snapshot The snapshot, or null if the world has none yet.
+     */
+    public void show(WorldSnapshot snapshot) {
+        if (snapshot == null || snapshot == latest) {
+            return;
+        }
+        latest = snapshot;
+        requestIndex();
+    }
+
+    // Turns the table's sort order into a comparator of rows, and re-indexes if it changed
+    private void reorder() {
+        List<Object> keys = new ArrayList<>();
+        Comparator<Row> comparator = null;
+        for (TableColumn<Row, ?> column : table.getSortOrder()) {
+            Comparator<Row> byColumn = comparators.get(column);
+            if (byColumn == null) {
+                continue;
+            }
+            if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                byColumn = byColumn.reversed();
+            }
+            keys.add(column);
+            keys.add(column.getSortType());
+            comparator = comparator == null ? byColumn : comparator.thenComparing(byColumn);
+        }
+        if (keys.equals(sortKeys)) {
+            return;
+        }
+        sortKeys = keys;
+        order = comparator;
+        requestIndex();
+    }
+
+    private void requestIndex() {
+        if (latest == null || indexing) {
+            stale = true;
+            return;
+        }
+        indexing = true;
+        stale = false;
+        WorldSnapshot snapshot = latest;
+        Filter filter = filter();
+        Comparator<Row> order = this.order;
+        indexer.execute(() -> {
+            PopulationIndex index = null;
+            try {
+                index = PopulationIndex.build(snapshot, sector, filter, order);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to index the population of " + (sector != null ? sector : "the world"), e);
+            }
+            PopulationIndex built = index;
+            Platform.runLater(() -> present(built));
+        });
+    }
+
+    private Filter filter() {
+        String stage = stageFilter.getValue();
+        String tribe = tribeFilter.getValue();
+        Integer minimum = healthFilter.getValue();
+        return new Filter(ALL_STAGES.equals(stage) ? null : stage, ALL_TRIBES.equals(tribe) ? null : tribe,
+                minimum != null ? minimum : 0);
+    }
+
+    private void present(PopulationIndex index) {
+        indexing = false;
+        if (index != null) {
+            rows.setIndex(index);
+            count.setText(index.size() + " of " + index.total() + " Digimon");
+            updateChoices(stageFilter, ALL_STAGES, List.of(), index.stages());
+            updateChoices(tribeFilter, ALL_TRIBES, List.of(PopulationIndex.INDEPENDENT), index.tribes());
+        }
+        if (stale) {
+            requestIndex();
+        }
+    }
+
+    private static void updateChoices(ChoiceBox<String> choices, String all, List<String> fixed, Set<String> values) {
+        List<String> items = new ArrayList<>();
+        items.add(all);
+        items.addAll(fixed);
+        items.addAll(values);
+        if (items.equals(choices.getItems())) {
+            return;
+        }
+        String selected = choices.getValue();
+        choices.getItems().setAll(items);
+        choices.setValue(items.contains(selected) ? selected : all);
+    }
+
+    /**
+     * The table's items: a read-only view of the current index, replaced as a whole in one change.
+     */
+    private static final class IndexList extends ObservableListBase<Row> {
+        private PopulationIndex index = PopulationIndex.EMPTY;
+
+        void setIndex(PopulationIndex next) {
+            PopulationIndex previous = index;
+            index = next;
+            if (previous.size() == 0 && next.size() == 0) {
+                return;
+            }
+            beginChange();
+            nextReplace(0, next.size(), previous.asList());
+            endChange();
+        }
+
+        @Override
+        public Row get(int index) {
+            return this.index.get(index);
+        }
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+    }
+}
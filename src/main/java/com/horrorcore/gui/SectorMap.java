@@ -0,0 +1,207 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.gui.SectorRaster.Overlay;
+import com.horrorcore.gui.SectorRaster.Viewport;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.StackPane;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An interactive map of one sector: a view that zooms with the mouse wheel and pans by dragging,
+ * and a minimap of the whole sector in its corner that recenters the view when clicked. A choice
+ * box in the other corner blends one of the sector's heat map overlays over both.
+ *
+ * Frames are rasterized by {@link SectorRaster} on a background executor into a back buffer, and
+ * copied into the {@link PixelBuffer} behind the on-screen image on the next FX pulse. At most one
+ * frame per map is rasterized at a time; snapshots and view changes that arrive meanwhile are
+ * coalesced into the next frame. A map only rasterizes while it is {@link #setActive active}.
+ */
+public class SectorMap {
+    private static final Logger LOGGER = Logger.getLogger(SectorMap.class.getName());
+    static final int VIEW_SIZE = 400;
+    static final int MINIMAP_SIZE = 100;
+    private static final double ZOOM_STEP = 1.25;
+    private static final double MAX_SCALE = 48;
+
+    private final Executor rasterizer;
+    private final int[] back = new int[VIEW_SIZE * VIEW_SIZE];
+    private final int[] minimapBack = new int[MINIMAP_SIZE * MINIMAP_SIZE];
+    private final PixelBuffer<IntBuffer> front = pixelBuffer(VIEW_SIZE);
+    private final PixelBuffer<IntBuffer> minimapFront = pixelBuffer(MINIMAP_SIZE);
+    private final AtomicBoolean ready = new AtomicBoolean();
+    private final StackPane node;
+    private SectorView sector;
+    private Viewport viewport;
+    private Overlay overlay = Overlay.NONE;
+    private double minScale;
+    private boolean active;
+    private boolean rasterizing;
+    private boolean stale;
+    private double dragX;
+    private double dragY;
+
+    /**
+     * @param rasterizer  Runs the rasterization, off the FX thread.
+     * @param cellClicked Told the column and row of a cell clicked in the view.
+     */
+    public SectorMap(Executor rasterizer, BiConsumer<Integer, Integer> cellClicked) {
+        this.rasterizer = rasterizer;
+
+        ImageView view = new ImageView(new WritableImage(front));
+        view.setSmooth(false);
+        view.setOnScroll(event -> {
+            if (viewport != null) {
+                double factor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+                setViewport(viewport.zoom(factor, event.getX(), event.getY(), minScale, MAX_SCALE));
+            }
+            event.consume();
+        });
+        view.setOnMousePressed(event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        view.setOnMouseDragged(event -> {
+            if (viewport != null) {
+                setViewport(viewport.pan(event.getX() - dragX, event.getY() - dragY));
+            }
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        view.setOnMouseClicked(event -> {
+            if (viewport != null && event.isStillSincePress()) {
+                cellClicked.accept(viewport.column(event.getX()), viewport.row(event.getY()));
+            }
+        });
+
+        ImageView minimap = new ImageView(new WritableImage(minimapFront));
+        minimap.setSmooth(false);
+        minimap.setOnMousePressed(this::recenter);
+        minimap.setOnMouseDragged(this::recenter);
+        minimap.setStyle("-fx-effect: dropshadow(gaussian, #00ff00, 2, 1, 0, 0);");
+
+        ChoiceBox<Overlay> overlays = new ChoiceBox<>();
+        overlays.getItems().setAll(Overlay.values());
+        overlays.setValue(overlay);
+        overlays.valueProperty().addListener((observable, previous, selected) -> {
+            overlay = selected;
+            requestFrame();
+        });
+
+        node = new StackPane(view, minimap, overlays);
+        StackPane.setAlignment(minimap, Pos.TOP_RIGHT);
+        StackPane.setMargin(minimap, new Insets(6));
+        StackPane.setAlignment(overlays, Pos.TOP_LEFT);
+        StackPane.setMargin(overlays, new Insets(6));
+        node.setMaxSize(VIEW_SIZE, VIEW_SIZE);
+    }
+
+    private static PixelBuffer<IntBuffer> pixelBuffer(int size) {
+        IntBuffer buffer = ByteBuffer.allocateDirect(size * size * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        return new PixelBuffer<>(size, size, buffer, PixelFormat.getIntArgbPreInstance());
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Shows a new state of the sector. Must be called on the FX thread.
+     *
+     * @param sector The sector in the latest snapshot.
+     */
+    public void show(SectorView sector) {
+        SectorView previous = this.sector;
+        this.sector = sector;
+        if (previous == null || previous.width() != sector.width() || previous.height() != sector.height()) {
+            viewport = Viewport.fit(sector.width(), sector.height(), VIEW_SIZE, VIEW_SIZE);
+            minScale = viewport.scale() / 2;
+        }
+        requestFrame();
+    }
+
+    /**
+     * Starts or stops rasterizing, e.g. as the map's tab is selected or deselected. Must be called on the FX thread.
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+        requestFrame();
+    }
+
+    /**
+     * Puts a finished frame on screen. Called by the frame timer on every FX pulse.
+     */
+    public void present() {
+        if (!ready.getAndSet(false)) {
+            return;
+        }
+        front.updateBuffer(buffer -> {
+            buffer.getBuffer().put(0, back);
+            return null;
+        });
+        minimapFront.updateBuffer(buffer -> {
+            buffer.getBuffer().put(0, minimapBack);
+            return null;
+        });
+        rasterizing = false;
+        if (stale) {
+            requestFrame();
+        }
+    }
+
+    private void recenter(MouseEvent event) {
+        if (viewport != null && sector != null) {
+            Viewport whole = Viewport.fit(sector.width(), sector.height(), MINIMAP_SIZE, MINIMAP_SIZE);
+            setViewport(viewport.centeredOn(whole.originX() + event.getX() / whole.scale(),
+                    whole.originY() + event.getY() / whole.scale(), VIEW_SIZE, VIEW_SIZE));
+        }
+        event.consume();
+    }
+
+    private void setViewport(Viewport viewport) {
+        this.viewport = viewport;
+        requestFrame();
+    }
+
+    private void requestFrame() {
+        if (!active || sector == null) {
+            stale = true;
+            return;
+        }
+        if (rasterizing) {
+            stale = true;
+            return;
+        }
+        rasterizing = true;
+        stale = false;
+        SectorView sector = this.sector;
+        Viewport viewport = this.viewport;
+        Overlay overlay = this.overlay;
+        rasterizer.execute(() -> {
+            try {
+                SectorRaster.rasterize(sector, viewport, overlay, back, VIEW_SIZE, VIEW_SIZE);
+                SectorRaster.rasterizeMinimap(sector, viewport, VIEW_SIZE, VIEW_SIZE, overlay, minimapBack, MINIMAP_SIZE);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to rasterize sector " + sector.name(), e);
+            } finally {
+                ready.set(true);
+            }
+        });
+    }
+}
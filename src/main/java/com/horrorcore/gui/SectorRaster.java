@@ -0,0 +1,400 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.entity.Building;
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.HeatView;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+
+import java.util.Arrays;
+
+/**
+ * Rasterizes one sector of a snapshot into opaque ARGB pixels. The work is proportional to the
+ * number of pixels drawn plus the Digimon in the sector, never to the number of cells, so a frame
+ * of a 1000 by 1000 grid costs about the same as one of a 20 by 20 grid. What is drawn depends on
+ * the zoom, in pixels per cell:
+ * <ul>
+ *     <li>below {@link #DETAIL_SCALE}, every cell is a single colour: its terrain, its building or the Digimon on it;</li>
+ *     <li>from {@link #DETAIL_SCALE}, grid lines, Digimon discs and building squares;</li>
+ *     <li>from {@link #GLYPH_SCALE}, a letter on every Digimon and building as well.</li>
+ * </ul>
+ * An {@link Overlay} of the sector's heat map can be blended over the terrain, below the Digimon and buildings.
+ * Rasterizing only reads the immutable snapshot, so it can run on any thread.
+ */
+public final class SectorRaster {
+    public static final double DETAIL_SCALE = 4;
+    public static final double GLYPH_SCALE = 12;
+
+    static final int OUTSIDE = 0xFF0A0A0A;
+    static final int NORMAL = 0xFF000000;
+    static final int BORDER = 0xFFA9A9A9;
+    static final int BLOCKED = 0xFFFF0000;
+    static final int GRID_LINE = 0xFF006400;
+    static final int DIGIMON = 0xFF008000;
+    static final int CELESTIAL = 0xFFFFFF00;
+    static final int BUILDING = 0xFF0000FF;
+    static final int GLYPH = 0xFFFFFFFF;
+    static final int VIEWPORT = 0xFF00FF00;
+
+    // 5 by 7 glyphs, one row per entry with the leftmost pixel in bit 4
+    private static final int[] GLYPH_D = {0b11110, 0b10001, 0b10001, 0b10001, 0b10001, 0b10001, 0b11110};
+    private static final int[] GLYPH_C = {0b01111, 0b10000, 0b10000, 0b10000, 0b10000, 0b10000, 0b01111};
+    private static final int[] GLYPH_H = {0b10001, 0b10001, 0b10001, 0b11111, 0b10001, 0b10001, 0b10001};
+    private static final int[] GLYPH_F = {0b11111, 0b10000, 0b10000, 0b11110, 0b10000, 0b10000, 0b10000};
+    private static final int[] GLYPH_B = {0b11110, 0b10001, 0b10001, 0b11110, 0b10001, 0b10001, 0b11110};
+
+    // Tribe territories cycle through these colours by tribe id
+    private static final int[] TERRITORY_COLOURS = {
+            0xFFE6194B, 0xFF3CB44B, 0xFFFFE119, 0xFF4363D8, 0xFFF58231, 0xFF911EB4, 0xFF46F0F0, 0xFFF032E6
+    };
+    private static final int TERRITORY_ALPHA = 0x70;
+
+    private SectorRaster() {}
+
+    /**
+     * The heat map layer blended over a sector, if any.
+     */
+    public enum Overlay {
+        NONE("None", 0),
+        DENSITY("Density", 0xFF00BFFF),
+        ATTACKS("Attacks", 0xFFFF8C00),
+        DEATHS("Deaths", 0xFFB040FF),
+        TERRITORY("Territory", 0);
+
+        private final String title;
+        private final int colour;
+
+        Overlay(String title, int colour) {
+            this.title = title;
+            this.colour = colour;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    /**
+     * The part of a sector shown in a view: the cell at the top-left corner and the zoom.
+     *
+     * @param originX The column at the left edge of the view, which may be fractional or outside the sector.
+     * @param originY The row at the top edge of the view.
+     * @param scale   The zoom in pixels per cell, below 1 when a pixel covers several cells.
+     */
+    public record Viewport(double originX, double originY, double scale) {
+
+        /**
+         * Returns the viewport that shows a whole sector, centered in a view.
+         */
+        public static Viewport fit(int columns, int rows, int width, int height) {
+            double scale = Math.min((double) width / columns, (double) height / rows);
+            return new Viewport((columns - width / scale) / 2, (rows - height / scale) / 2, scale);
+        }
+
+        public int column(double x) {
+            return (int) Math.floor(originX + x / scale);
+        }
+
+        public int row(double y) {
+            return (int) Math.floor(originY + y / scale);
+        }
+
+        /**
+         * Zooms in or out, keeping the cell under a point of the view in place.
+         *
+         * @param factor   The zoom factor, above 1 to zoom in.
+         * @param x        The point's x in the view.
+         * @param y        The point's y in the view.
+         * @param minScale The smallest zoom allowed.
+         * @param maxScale The largest zoom allowed.
+         */
+        public Viewport zoom(double factor, double x, double y, double minScale, double maxScale) {
+            double zoomed = Math.max(minScale, Math.min(maxScale, scale * factor));
+            return new Viewport(originX + x / scale - x / zoomed, originY + y / scale - y / zoomed, zoomed);
+        }
+
+        /**
+         * Moves the view by a distance in pixels, as if dragging the map.
+         */
+        public Viewport pan(double dx, double dy) {
+            return new Viewport(originX - dx / scale, originY - dy / scale, scale);
+        }
+
+        /**
+         * Returns the viewport of the same zoom centered on a cell position.
+         */
+        public Viewport centeredOn(double column, double row, int width, int height) {
+            return new Viewport(column - width / scale / 2, row - height / scale / 2, scale);
+        }
+    }
+
+    /**
+     * Draws the part of a sector in a viewport.
+     *
+     * @param sector The sector.
+     * @param view   The viewport.
+     * @param pixels The pixels, row by row, which are all overwritten.
+     * @param width  The width of the view in pixels.
+     * @param height The height of the view in pixels.
+     */
+    public static void rasterize(SectorView sector, Viewport view, int[] pixels, int width, int height) {
+        rasterize(sector, view, Overlay.NONE, pixels, width, height);
+    }
+
+    /**
+     * Draws the part of a sector in a viewport with a heat map overlay.
+     *
+     * @param sector  The sector.
+     * @param view    The viewport.
+     * @param overlay The heat map layer to blend over the terrain.
+     * @param pixels  The pixels, row by row, which are all overwritten.
+     * @param width   The width of the view in pixels.
+     * @param height  The height of the view in pixels.
+     */
+    public static void rasterize(SectorView sector, Viewport view, Overlay overlay, int[] pixels, int width, int height) {
+        int columns = sector.width();
+        int rows = sector.height();
+        byte[] cells = sector.cells();
+        double scale = view.scale();
+        boolean detail = scale >= DETAIL_SCALE;
+        boolean glyphs = scale >= GLYPH_SCALE;
+
+        int[] columnAt = new int[width];
+        for (int x = 0; x < width; x++) {
+            int column = view.column(x);
+            columnAt[x] = column >= 0 && column < columns ? column : -1;
+        }
+        for (int y = 0; y < height; y++) {
+            int row = view.row(y);
+            int offset = y * width;
+            if (row < 0 || row >= rows) {
+                Arrays.fill(pixels, offset, offset + width, OUTSIDE);
+                continue;
+            }
+            int rowStart = row * columns;
+            for (int x = 0; x < width; x++) {
+                int column = columnAt[x];
+                pixels[offset + x] = column < 0 ? OUTSIDE : cellColour(cells[rowStart + column], !detail);
+            }
+        }
+        if (overlay != Overlay.NONE) {
+            blendOverlay(sector.heat(), overlay, view, columnAt, rows, pixels, width, height);
+        }
+
+        // The cells that overlap the view
+        int firstColumn = Math.max(0, view.column(0));
+        int lastColumn = Math.min(columns - 1, view.column(width - 1));
+        int firstRow = Math.max(0, view.row(0));
+        int lastRow = Math.min(rows - 1, view.row(height - 1));
+
+        if (detail) {
+            for (int column = firstColumn; column <= lastColumn + 1; column++) {
+                int x = left(column, view);
+                fill(pixels, width, height, x, top(firstRow, view), x + 1, top(lastRow + 1, view), GRID_LINE);
+            }
+            for (int row = firstRow; row <= lastRow + 1; row++) {
+                int y = top(row, view);
+                fill(pixels, width, height, left(firstColumn, view), y, left(lastColumn + 1, view), y + 1, GRID_LINE);
+            }
+        }
+
+        for (EntityView entity : sector.entities()) {
+            int column = entity.x();
+            int row = entity.y();
+            if (column < firstColumn || column > lastColumn || row < firstRow || row > lastRow) {
+                continue;
+            }
+            int x0 = left(column, view);
+            int y0 = top(row, view);
+            int x1 = Math.max(x0 + 1, left(column + 1, view));
+            int y1 = Math.max(y0 + 1, top(row + 1, view));
+            if (!detail) {
+                fill(pixels, width, height, x0, y0, x1, y1, entity.celestial() ? CELESTIAL : DIGIMON);
+                continue;
+            }
+            int inset = (int) (scale / 10);
+            disc(pixels, width, height, x0 + inset, y0 + inset, x1 - inset, y1 - inset, DIGIMON);
+            if (glyphs) {
+                glyph(pixels, width, height, x0, y0, x1, y1, entity.celestial() ? GLYPH_C : GLYPH_D,
+                        entity.celestial() ? CELESTIAL : GLYPH, scale);
+            }
+        }
+
+        if (detail) {
+            int inset = (int) (scale / 5);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    Building.BuildingType building = WorldSnapshot.buildingType(cells[row * columns + column]);
+                    if (building == null) {
+                        continue;
+                    }
+                    int x0 = left(column, view);
+                    int y0 = top(row, view);
+                    int x1 = left(column + 1, view);
+                    int y1 = top(row + 1, view);
+                    fill(pixels, width, height, x0 + inset, y0 + inset, x1 - inset, y1 - inset, BUILDING);
+                    if (glyphs) {
+                        glyph(pixels, width, height, x0, y0, x1, y1, buildingGlyph(building), GLYPH, scale);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a whole sector scaled to fit a square, with the outline of a viewport on top.
+     *
+     * @param sector     The sector.
+     * @param view       The viewport to outline.
+     * @param viewWidth  The width of the viewport's view in pixels.
+     * @param viewHeight The height of the viewport's view in pixels.
+     * @param overlay    The heat map layer to blend over the terrain.
+     * @param pixels     The minimap pixels, row by row, which are all overwritten.
+     * @param size       The width and height of the minimap in pixels.
+     */
+    public static void rasterizeMinimap(SectorView sector, Viewport view, int viewWidth, int viewHeight,
+                                        Overlay overlay, int[] pixels, int size) {
+        Viewport whole = Viewport.fit(sector.width(), sector.height(), size, size);
+        rasterize(sector, whole, overlay, pixels, size, size);
+
+        // Cell positions of the viewport's corners, in minimap pixels
+        int x0 = (int) Math.floor((view.originX() - whole.originX()) * whole.scale());
+        int y0 = (int) Math.floor((view.originY() - whole.originY()) * whole.scale());
+        int x1 = (int) Math.ceil((view.originX() + viewWidth / view.scale() - whole.originX()) * whole.scale());
+        int y1 = (int) Math.ceil((view.originY() + viewHeight / view.scale() - whole.originY()) * whole.scale());
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(size, x1);
+        y1 = Math.min(size, y1);
+        fill(pixels, size, size, x0, y0, x1, y0 + 1, VIEWPORT);
+        fill(pixels, size, size, x0, y1 - 1, x1, y1, VIEWPORT);
+        fill(pixels, size, size, x0, y0, x0 + 1, y1, VIEWPORT);
+        fill(pixels, size, size, x1 - 1, y0, x1, y1, VIEWPORT);
+    }
+
+    // Blends the overlay colour of each pixel's tile over the pixels inside the sector
+    private static void blendOverlay(HeatView heat, Overlay overlay, Viewport view, int[] columnAt, int rows,
+                                     int[] pixels, int width, int height) {
+        int tileSize = heat.tileSize();
+        int[] tileColumnAt = new int[width];
+        for (int x = 0; x < width; x++) {
+            tileColumnAt[x] = columnAt[x] < 0 ? -1 : columnAt[x] / tileSize;
+        }
+        for (int y = 0; y < height; y++) {
+            int row = view.row(y);
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            int tileRow = row / tileSize * heat.columns();
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                if (tileColumnAt[x] >= 0) {
+                    int tint = overlayColour(heat, overlay, tileRow + tileColumnAt[x]);
+                    if (tint >>> 24 != 0) {
+                        pixels[offset + x] = blend(pixels[offset + x], tint);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the colour of an overlay over a tile, with the blend weight in the alpha byte, or 0 where it shows nothing.
+     */
+    static int overlayColour(HeatView heat, Overlay overlay, int tile) {
+        if (overlay == Overlay.TERRITORY) {
+            int owner = heat.territory()[tile];
+            return owner == 0 ? 0
+                    : TERRITORY_ALPHA << 24 | TERRITORY_COLOURS[Math.floorMod(owner, TERRITORY_COLOURS.length)] & 0xFFFFFF;
+        }
+        int level = switch (overlay) {
+            case DENSITY -> heat.occupancy()[tile] & 0xff;
+            case ATTACKS -> heat.attacks()[tile] & 0xff;
+            case DEATHS -> heat.deaths()[tile] & 0xff;
+            default -> 0;
+        };
+        // Never fully hide the terrain
+        return (level * 3 / 4) << 24 | overlay.colour & 0xFFFFFF;
+    }
+
+    // Mixes an opaque colour with a tint whose alpha is its weight
+    private static int blend(int colour, int tint) {
+        int weight = tint >>> 24;
+        int keep = 255 - weight;
+        int red = (((colour >> 16) & 0xff) * keep + ((tint >> 16) & 0xff) * weight) / 255;
+        int green = (((colour >> 8) & 0xff) * keep + ((tint >> 8) & 0xff) * weight) / 255;
+        int blue = ((colour & 0xff) * keep + (tint & 0xff) * weight) / 255;
+        return 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    static int cellColour(byte code, boolean showBuildings) {
+        if (showBuildings && WorldSnapshot.buildingType(code) != null) {
+            return BUILDING;
+        }
+        return switch (WorldSnapshot.cellType(code)) {
+            case BORDER -> BORDER;
+            case BLOCKED -> BLOCKED;
+            default -> NORMAL;
+        };
+    }
+
+    private static int[] buildingGlyph(Building.BuildingType building) {
+        return switch (building) {
+            case HOUSE -> GLYPH_H;
+            case FARM -> GLYPH_F;
+            case BARRACKS -> GLYPH_B;
+            case CITY_CENTER -> GLYPH_C;
+        };
+    }
+
+    private static int left(int column, Viewport view) {
+        return (int) Math.floor((column - view.originX()) * view.scale());
+    }
+
+    private static int top(int row, Viewport view) {
+        return (int) Math.floor((row - view.originY()) * view.scale());
+    }
+
+    private static void fill(int[] pixels, int width, int height, int x0, int y0, int x1, int y1, int colour) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width, x1);
+        y1 = Math.min(height, y1);
+        for (int y = y0; y < y1; y++) {
+            Arrays.fill(pixels, y * width + x0, Math.max(y * width + x0, y * width + x1), colour);
+        }
+    }
+
+    private static void disc(int[] pixels, int width, int height, int x0, int y0, int x1, int y1, int colour) {
+        double cx = (x0 + x1) / 2.0;
+        double cy = (y0 + y1) / 2.0;
+        double radius = Math.min(x1 - x0, y1 - y0) / 2.0;
+        for (int y = Math.max(0, y0); y < Math.min(height, y1); y++) {
+            double dy = y + 0.5 - cy;
+            for (int x = Math.max(0, x0); x < Math.min(width, x1); x++) {
+                double dx = x + 0.5 - cx;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    pixels[y * width + x] = colour;
+                }
+            }
+        }
+    }
+
+    // Centers a glyph in a cell, scaled to whole pixels
+    private static void glyph(int[] pixels, int width, int height, int x0, int y0, int x1, int y1,
+                              int[] glyph, int colour, double scale) {
+        int dot = Math.max(1, (int) (scale / GLYPH_SCALE));
+        int left = (x0 + x1 - 5 * dot) / 2;
+        int top = (y0 + y1 - 7 * dot) / 2;
+        for (int row = 0; row < glyph.length; row++) {
+            for (int column = 0; column < 5; column++) {
+                if ((glyph[row] & (0b10000 >> column)) != 0) {
+                    int x = left + column * dot;
+                    int y = top + row * dot;
+                    fill(pixels, width, height, x, y, x + dot, y + dot, colour);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.horrorcore.gui;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.function.Function;
+
+/**
+ * Helpers shared by the tables that show snapshot rows.
+ */
+final class SnapshotTables {
+    // Rows of equal height let the table virtualize without measuring each row
+    static final double ROW_HEIGHT = 22;
+
+    private SnapshotTables() {}
+
+    /**
+     * Makes a table sort its backing list in place instead of wrapping it in a SortedList.
+     * Rows are updated in place, which a SortedList would only notice through an extractor that
+     * re-sorts on every single property change; sorting the backing list once per snapshot with
+     * {@link TableView#sort()} keeps that to one permutation per update.
+     *
+     * @param table The table, whose items are the backing list or a FilteredList over it.
+     * @param rows  The backing list.
+     */
+    static <S> void sortInPlace(TableView<S> table, ObservableList<S> rows) {
+        table.setSortPolicy(sorted -> {
+            if (sorted.getComparator() != null) {
+                FXCollections.sort(rows, sorted.getComparator());
+            }
+            return true;
+        });
+    }
+
+    static <S, T> TableColumn<S, T> column(String title, Function<S, ObservableValue<T>> property, double width) {
+        TableColumn<S, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> property.apply(cell.getValue()));
+        column.setPrefWidth(width);
+        return column;
+    }
+
+    /**
+     * Makes a column of plain values read from immutable rows. The value is only read when a
+     * visible cell shows the row, and no property is kept per row.
+     */
+    static <S, T> TableColumn<S, T> valueColumn(String title, Function<S, T> value, double width) {
+        TableColumn<S, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+}
@@ -0,0 +1,53 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+import com.horrorcore.systems.tech.TechnologySystem;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * One tribe in the tribes table, updated in place from each new snapshot so that table cells bound
+ * to its properties only redraw the values that changed.
+ */
+public class TribeRow {
+    private final int id;
+    private final StringProperty name = new SimpleStringProperty(this, "name");
+    private final StringProperty leader = new SimpleStringProperty(this, "leader");
+    private final StringProperty age = new SimpleStringProperty(this, "age");
+    private final IntegerProperty members = new SimpleIntegerProperty(this, "members");
+    private final IntegerProperty buildings = new SimpleIntegerProperty(this, "buildings");
+    private final IntegerProperty food = new SimpleIntegerProperty(this, "food");
+    private final IntegerProperty military = new SimpleIntegerProperty(this, "military");
+    private final IntegerProperty research = new SimpleIntegerProperty(this, "research");
+    private long seen;
+
+    TribeRow(int id) {
+        this.id = id;
+    }
+
+    void update(TribeView tribe, long version) {
+        seen = version;
+        name.set(tribe.name());
+        leader.set(tribe.leader() != null ? tribe.leader() : "None");
+        age.set(TechnologySystem.AGES[Math.min(tribe.age(), TechnologySystem.AGES.length - 1)]);
+        members.set(tribe.members());
+        buildings.set(tribe.buildings());
+        food.set(tribe.food());
+        military.set(tribe.military());
+        research.set(tribe.research());
+    }
+
+    public int getId() { return id; }
+    long getSeen() { return seen; }
+
+    public StringProperty nameProperty() { return name; }
+    public StringProperty leaderProperty() { return leader; }
+    public StringProperty ageProperty() { return age; }
+    public IntegerProperty membersProperty() { return members; }
+    public IntegerProperty buildingsProperty() { return buildings; }
+    public IntegerProperty foodProperty() { return food; }
+    public IntegerProperty militaryProperty() { return military; }
+    public IntegerProperty researchProperty() { return research; }
+}
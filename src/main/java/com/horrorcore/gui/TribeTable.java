@@ -0,0 +1,78 @@
+package com.horrorcore.gui;
+
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sortable table of the tribes, fed from {@link WorldSnapshot snapshots} on the FX thread. There are only a
+ * few tribes, so each keeps its {@link TribeRow} and the table is updated in place rather than indexed off the
+ * FX thread like a {@link PopulationTable}.
+ */
+public class TribeTable {
+    private final ObservableList<TribeRow> rows = FXCollections.observableArrayList();
+    private final Map<Integer, TribeRow> rowsById = new HashMap<>();
+    private final TableView<TribeRow> table = new TableView<>(rows);
+    private WorldSnapshot shown;
+    private long generation;
+
+    public TribeTable() {
+        table.getColumns().add(SnapshotTables.column("Tribe", TribeRow::nameProperty, 150));
+        table.getColumns().add(SnapshotTables.column("Leader", TribeRow::leaderProperty, 140));
+        table.getColumns().add(SnapshotTables.column("Age", TribeRow::ageProperty, 110));
+        table.getColumns().add(SnapshotTables.column("Members", TribeRow::membersProperty, 75));
+        table.getColumns().add(SnapshotTables.column("Buildings", TribeRow::buildingsProperty, 75));
+        table.getColumns().add(SnapshotTables.column("Food", TribeRow::foodProperty, 70));
+        table.getColumns().add(SnapshotTables.column("Military", TribeRow::militaryProperty, 70));
+        table.getColumns().add(SnapshotTables.column("Research", TribeRow::researchProperty, 70));
+        table.setFixedCellSize(SnapshotTables.ROW_HEIGHT);
+        table.setPlaceholder(new Label("No tribes"));
+        SnapshotTables.sortInPlace(table, rows);
+    }
+
+    public Node getNode() {
+        return table;
+    }
+
+    /**
+     * Shows a snapshot. Must be called on the FX thread; a snapshot already shown is ignored.
+     *
+     * @param snapshot The snapshot, or null if the world has none yet.
+     */
+    public void show(WorldSnapshot snapshot) {
+        if (snapshot == null || snapshot == shown) {
+            return;
+        }
+        shown = snapshot;
+        long stamp = ++generation;
+
+        List<TribeRow> added = new ArrayList<>();
+        for (TribeView tribe : snapshot.tribes()) {
+            TribeRow row = rowsById.get(tribe.id());
+            if (row == null) {
+                row = new TribeRow(tribe.id());
+                rowsById.put(tribe.id(), row);
+                added.add(row);
+            }
+            row.update(tribe, stamp);
+        }
+        rows.addAll(added);
+        Set<TribeRow> gone = new HashSet<>();
+        rowsById.values().removeIf(row -> row.getSeen() != stamp && gone.add(row));
+        if (!gone.isEmpty()) {
+            rows.removeAll(gone);
+        }
+        table.sort();
+    }
+}
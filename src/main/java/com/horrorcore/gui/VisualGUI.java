@@ -1,14 +1,12 @@
 package com.horrorcore.gui;
 
 import com.horrorcore.World;
-import com.horrorcore.entity.CelestialDigimon;
-import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Sector;
-import com.horrorcore.entity.Tribe;
 import com.horrorcore.grid.Grid;
-import com.horrorcore.grid.GridCell;
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import com.horrorcore.systems.tech.TechnologySystem;
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -16,46 +14,50 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 
 public class VisualGUI extends Application implements SimulationObserver {
-    private static final int MAX_EVENTS = 20;
-    private static final int UPDATE_INTERVAL_MS = 100;
-    private final Map<String, Canvas> sectorGridCanvases;
-    private static final int CELL_SIZE = 20;
-    private static final int GRID_SIZE = 20;// Update every 100ms
+    private final Map<String, SectorMap> sectorMaps = new HashMap<>();
+    // Rasterizes the sector maps off the FX thread
+    private final ExecutorService rasterizer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grid-rasterizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Filters and sorts the population tables off the FX thread
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static VisualGUI instance;
     private final World world;
     private Stage primaryStage;
-    private static Map<String, TextArea> sectorPanels;
+    private final Map<String, PopulationTable> sectorTables = new HashMap<>();
+    private PopulationTable populationTable;
+    private TribeTable tribeTable;
     private Text worldInfoArea;
-    private TextArea attackEventArea;
-    private TextArea politicalEventArea;
-    private TextArea tribeInfoArea;
-    private TextArea otherEventArea;
-    private final ScheduledExecutorService executor;
-    private final ReadWriteLock worldLock = new ReentrantReadWriteLock();
+    private final Map<EventType, EventLog> eventLogs = new EnumMap<>(EventType.class);
+    private final Map<EventType, EventLogList> eventLists = new EnumMap<>(EventType.class);
+    private final FrameTimer frameTimer;
     private boolean initialized = false;
-    private int lastClearTime = 0;
 
     private VisualGUI(World world) {
         this.world = world;
-        sectorPanels = new HashMap<>();
-        this.executor = Executors.newSingleThreadScheduledExecutor();
-        this.sectorGridCanvases = new HashMap<>();
+        this.frameTimer = new FrameTimer(world, this::render, () -> sectorMaps.values().forEach(SectorMap::present));
+        // Events are logged from the start, before the window exists
+        int retention = EventLog.configuredRetention();
+        for (EventType type : EventType.values()) {
+            eventLogs.put(type, new EventLog(retention));
+        }
     }
 
     public static VisualGUI getInstance(World world) {
@@ -108,35 +110,29 @@ public class VisualGUI extends Application implements SimulationObserver {
                 HBox sectorContent = new HBox(10);
                 sectorContent.setPadding(new Insets(10));
 
-                // Create a VBox for the grid canvas
+                // Create a VBox for the sector map
                 VBox gridBox = new VBox(10);
 
-                // Create canvas for grid visualization
-                Canvas gridCanvas = new Canvas(GRID_SIZE * CELL_SIZE, GRID_SIZE * CELL_SIZE);
-                gridCanvas.setStyle("-fx-background-color: #000000;");
-                sectorGridCanvases.put(sector.getName(), gridCanvas);
-
-                // Create text area for sector info
-                TextArea sectorArea = new TextArea();
-                sectorArea.setEditable(false);
-                sectorArea.setPrefRowCount(5);
-                sectorArea.setStyle("-fx-control-inner-background: #000000; -fx-text-fill: #00ff00;");
-                sectorPanels.put(sector.getName(), sectorArea);
+                // Create the table of the Digimon in this sector
+                PopulationTable sectorTable = new PopulationTable(sector.getName(), indexer);
+                sectorTables.put(sector.getName(), sectorTable);
 
                 // Create and store GridInfoPanel
                 GridInfoPanel infoPanel = new GridInfoPanel();
                 gridInfoPanels.put(sector.getName(), infoPanel);
 
-                // Add mouse click event handler to the canvas
-                gridCanvas.setOnMouseClicked(event -> {
-                    int x = (int) (event.getX() / CELL_SIZE);
-                    int y = (int) (event.getY() / CELL_SIZE);
-                    GridCell cell = sector.getCellAt(x, y);
-                    infoPanel.updateInfo(cell);
+                // Create the map, which shows the clicked cell in the info panel
+                SectorMap map = new SectorMap(rasterizer, (x, y) -> {
+                    Grid grid = sector.getGrid();
+                    if (x >= 0 && y >= 0 && x < grid.getWidth() && y < grid.getHeight()) {
+                        infoPanel.updateInfo(sector.getCellAt(x, y));
+                    }
                 });
+                sectorMaps.put(sector.getName(), map);
 
                 // Add components to their containers
-                gridBox.getChildren().addAll(gridCanvas, sectorArea);
+                gridBox.getChildren().addAll(map.getNode(), sectorTable.getNode());
+                VBox.setVgrow(sectorTable.getNode(), Priority.ALWAYS);
                 sectorContent.getChildren().addAll(gridBox, infoPanel);
 
                 Tab tab = new Tab(sector.getName(), sectorContent);
@@ -144,28 +140,40 @@ public class VisualGUI extends Application implements SimulationObserver {
             }
 
             sectorsTab.setContent(sectorTabs);
+            // Only the map on screen is rasterized
+            Runnable activateMap = () -> sectorMaps.forEach((name, map) -> map.setActive(sectorsTab.isSelected()
+                    && sectorTabs.getSelectionModel().getSelectedItem() != null
+                    && name.equals(sectorTabs.getSelectionModel().getSelectedItem().getText())));
+            sectorsTab.selectedProperty().addListener((observable, old, selected) -> activateMap.run());
+            sectorTabs.getSelectionModel().selectedItemProperty().addListener((observable, old, tab) -> activateMap.run());
+            activateMap.run();
 
             // Rest of the initialize method remains the same...
             Tab tribesTab = new Tab("Tribes");
-            tribeInfoArea = new TextArea();
-            tribeInfoArea.setEditable(false);
-            tribeInfoArea.setStyle("-fx-control-inner-background: #000000; -fx-text-fill: #00ff00;");
-            tribesTab.setContent(tribeInfoArea);
+            tribeTable = new TribeTable();
+            tribesTab.setContent(tribeTable.getNode());
+
+            // Every Digimon in the world, filterable by stage, tribe and health
+            Tab populationTab = new Tab("Population");
+            populationTable = new PopulationTable(null, indexer);
+            populationTab.setContent(populationTable.getNode());
 
             // Event info tab
             Tab eventsTab = new Tab("Events");
             VBox eventBox = new VBox(10);
-            attackEventArea = createEventArea("Attack Events");
-            politicalEventArea = createEventArea("Political Events");
-            otherEventArea = createEventArea("Other Events");
-            eventBox.getChildren().addAll(
-                    new Label("Attack Events:"), attackEventArea,
-                    new Label("Political Events:"), politicalEventArea,
-                    new Label("Other Events:"), otherEventArea
-            );
+            TextField eventFilter = new TextField();
+            eventFilter.setPromptText("Filter events");
+            eventFilter.textProperty().addListener((observable, old, text) ->
+                    eventLists.values().forEach(list -> list.setFilter(text)));
+            eventBox.getChildren().add(eventFilter);
+            for (EventType type : EventType.values()) {
+                EventLogList events = new EventLogList(eventLogs.get(type));
+                eventLists.put(type, events);
+                eventBox.getChildren().addAll(new Label(type.getTitle() + ":"), createEventList(events));
+            }
             eventsTab.setContent(eventBox);
 
-            infoTabs.getTabs().addAll(sectorsTab, tribesTab, eventsTab);
+            infoTabs.getTabs().addAll(sectorsTab, populationTab, tribesTab, eventsTab);
             mainContent.getChildren().addAll(worldInfoText, infoTabs);
             root.setCenter(mainContent);
 
@@ -181,263 +189,89 @@ public class VisualGUI extends Application implements SimulationObserver {
             // Update references
             this.worldInfoArea = worldInfoText;
 
-            // Start periodic updates
-            startPeriodicUpdates();
+            // Every refresh from here on is driven by the frame timer
+            frameTimer.start();
         });
 
-        // Ensure initial update
-        updateDisplay();
-
-        SimulationSubject.getInstance().addObserver(this);
+        world.getContext().getEvents().addObserver(this);
         initialized = true;
     }
 
-    private TextArea createEventArea(String title) {
-        TextArea area = new TextArea();
-        area.setText(title);
-        area.setEditable(false);
-        area.setPrefRowCount(5);
-        area.setStyle("-fx-control-inner-background: #000000; -fx-text-fill: #00ff00;");
-        return area;
+    private ListView<String> createEventList(EventLogList events) {
+        ListView<String> list = new ListView<>(events);
+        list.setFixedCellSize(SnapshotTables.ROW_HEIGHT);
+        list.setPrefHeight(SnapshotTables.ROW_HEIGHT * 6);
+        VBox.setVgrow(list, Priority.ALWAYS);
+        return list;
     }
 
-    private void startPeriodicUpdates() {
-        executor.scheduleAtFixedRate(this::updateDisplayAsync, 0, UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
-    }
-
-    private void updateDisplayAsync() {
-        Platform.runLater(this::updateDisplay);
-    }
-
-    private void drawGrid(Canvas canvas, Sector sector) {
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
-        // Draw grid
-        Grid grid = sector.getGrid();
-        for (int x = 0; x < GRID_SIZE; x++) {
-            for (int y = 0; y < GRID_SIZE; y++) {
-                GridCell cell = grid.getCell(x, y);
-                double xPos = x * CELL_SIZE;
-                double yPos = y * CELL_SIZE;
-
-                // Draw cell background
-                switch (cell.getType()) {
-                    case BORDER:
-                        gc.setFill(Color.DARKGRAY);
-                        break;
-                    case BLOCKED:
-                        gc.setFill(Color.RED);
-                        break;
-                    default:
-                        gc.setFill(Color.BLACK);
-                        break;
-                }
-                gc.fillRect(xPos, yPos, CELL_SIZE, CELL_SIZE);
-
-                // Draw grid lines
-                gc.setStroke(Color.DARKGREEN);
-                gc.strokeRect(xPos, yPos, CELL_SIZE, CELL_SIZE);
-
-                // Draw occupants with labels
-                if (cell.getOccupant() != null) {
-                    gc.setFill(Color.GREEN);
-                    gc.fillOval(xPos + 2, yPos + 2, CELL_SIZE - 4, CELL_SIZE - 4);
-
-                    // Add a small "D" indicator
-                    if(cell.getOccupant() != null) {
-                        gc.setFill(Color.WHITE);
-                        gc.setFont(new Font(10));
-                        gc.fillText("D", xPos + 7, yPos + 14);
-                    } else if (cell.getOccupant() instanceof CelestialDigimon) {
-                        gc.setFill(Color.YELLOW);
-                        gc.setFont(new Font(10));
-                        gc.fillText("C", xPos + 7, yPos + 14);
-                    }
-                }
-
-                // Draw buildings with type indicators
-                if (cell.getBuilding() != null) {
-                    gc.setFill(Color.BLUE);
-                    gc.fillRect(xPos + 4, yPos + 4, CELL_SIZE - 8, CELL_SIZE - 8);
-
-                    // Add building type indicator
-                    gc.setFill(Color.WHITE);
-                    gc.setFont(new Font(10));
-                    String buildingLabel = switch(cell.getBuilding().getType()) {
-                        case HOUSE -> "H";
-                        case FARM -> "F";
-                        case BARRACKS -> "B";
-                        case CITY_CENTER -> "C";
-                    };
-                    gc.fillText(buildingLabel, xPos + 7, yPos + 14);
-                }
+    /**
+     * Renders one frame from a snapshot. Called by the frame timer on the FX thread, and only for
+     * a snapshot that has not been rendered yet.
+     */
+    private void render(WorldSnapshot snapshot) {
+        int totalDigimon = 0;
+        for (SectorView sector : snapshot.sectors()) {
+            totalDigimon += sector.entities().size();
+            SectorMap map = sectorMaps.get(sector.name());
+            if (map != null) {
+                map.show(sector);
             }
         }
-    }
-
-    public void updateDisplay() {
-        Platform.runLater(() -> {
-            worldLock.readLock().lock();
-            try {
-                // Update sector panels
-                for (Sector sector : world.getSectors()) {
-                    String sectorName = sector.getName();
-                    TextArea sectorArea = sectorPanels.get(sectorName);
-                    Canvas canvas = sectorGridCanvases.get(sector.getName());
-                    if (sectorArea == null) {
-                        System.err.println("Warning: No TextArea found for sector: " + sectorName);
-                        continue;
-                    }
-                    StringBuilder sectorInfo = new StringBuilder();
-                    sectorInfo.append("Digimons in ").append(sectorName).append(":\n");
+        // Population tables index the snapshot in the background; the tribe table updates changed rows
+        for (PopulationTable table : sectorTables.values()) {
+            table.show(snapshot);
+        }
+        populationTable.show(snapshot);
+        tribeTable.show(snapshot);
+        for (EventLogList events : eventLists.values()) {
+            events.refresh();
+        }
 
-                    if (canvas != null) {
-                        drawGrid(canvas, sector);
-                    }
-                    for (Digimon digimon : sector.getDigimons()) {
-                        if (digimon == null) {
-                            System.err.println("Warning: Null Digimon found in sector: " + sectorName);
-                            continue;
-                        }
-                        sectorInfo.append(digimon.getStatusString()).append("\n");
-                    }
-                    sectorArea.setText(sectorInfo.toString());
-                }
-
-                // Update world info
-                int totalDigimon = world.getSectors().stream()
-                        .mapToInt(s -> s.getDigimons().size())
-                        .sum();
-                int timeToNextTechAge = world.getTimeToNextAge();
-                int totalBuildings = world.getBuildings();
-                worldInfoArea.setText(String.format(
-                        """
-                                Time: %d
-                                Technology Age: %s
-                                Total Digimon: %d
-                                Total Tribes: %d
-                                Time To Next Tech Age: %d
-                                Total Buildings: %d
-                                """,
-                        world.getTime(),
-                        world.getTechnologySystem().getCurrentAge(),
-                        totalDigimon,
-                        Tribe.getAllTribes().size(),
-                        timeToNextTechAge,
-                        totalBuildings
-                ));
-
-                // Update tribe information
-                StringBuilder tribeInfo = new StringBuilder();
-                tribeInfo.append("Tribes:\n");
-                for (Tribe tribe : Tribe.getAllTribes()) {
-                    tribeInfo.append(String.format("- %s (Leader: %s)\n", 
-                        tribe.getName(), 
-                        tribe.getLeader() != null ? tribe.getLeader().getName() : "None"));
-                    tribeInfo.append("  Members: ").append(tribe.getMembers().size()).append("\n");
-                    tribeInfo.append("  Territory: ").append(tribe.getTechnologySystem().getTechnologyLevels()).append("\n");
-                    tribeInfo.append("  Military: ").append(tribe.getMilitaryStrength()).append("\n");
-                    tribeInfo.append("\n");
-                }
-                tribeInfoArea.setText(tribeInfo.toString());
-            } finally {
-                worldLock.readLock().unlock();
-            }
-        });
+        worldInfoArea.setText(String.format(
+                """
+                        Time: %d
+                        Technology Age: %s
+                        Total Digimon: %d
+                        Total Tribes: %d
+                        Time To Next Tech Age: %d
+                        Total Buildings: %d
+                        """,
+                snapshot.tick(),
+                TechnologySystem.AGES[Math.min(snapshot.age(), TechnologySystem.AGES.length - 1)],
+                totalDigimon,
+                snapshot.tribes().size(),
+                World.ticksToNextAge(snapshot.age(), snapshot.tick()),
+                snapshot.buildings()
+        ));
     }
 
+    /**
+     * Logs an event. Called from any thread; the event lists show it on the next frame.
+     *
+     * @param event The event message.
+     * @param type  The category to log it under.
+     */
     public void addEvent(String event, EventType type) {
-        Platform.runLater(() -> {
-            TextArea targetArea;
-            int currentTime = world.getTime();
-
-            targetArea = switch (type) {
-                case ATTACK -> attackEventArea;
-                case POLITICAL -> politicalEventArea;
-                default -> otherEventArea;
-            };
-            String[] events = targetArea.getText().split("\n");
-            StringBuilder newEvents = new StringBuilder();
-
-            newEvents.append(event).append("\n");
-
-            int endIndex = Math.min(events.length, MAX_EVENTS - 1);
-            for (int i = 0; i < endIndex; i++) {
-                newEvents.append(events[i]).append("\n");
-            }
-
-            targetArea.setText(newEvents.toString());
-            targetArea.positionCaret(0);
-            if (currentTime - lastClearTime >= 25) {
-                clearAllEvents();
-                lastClearTime = currentTime;
-            }
-        });
-
-    }
-
-    private void clearAllEvents() {
-        Platform.runLater(() -> {
-            attackEventArea.clear();
-            politicalEventArea.clear();
-            otherEventArea.clear();
-        });
+        eventLogs.get(type).append(world.getTime(), event);
     }
 
+    /**
+     * Redraws the world on the next frame even if no new snapshot was published since the last one.
+     * The frame timer already redraws whenever the world ticks, so this is only needed after
+     * changes made outside of a tick.
+     *
+     * @param world The world, which must be the one this GUI shows.
+     */
     public void updateWorldInfo(World world) {
-        Platform.runLater(() -> {
-            int totalDigimon = world.getSectors().stream()
-                    .mapToInt(s -> s.getDigimons().size())
-                    .sum();
-            int timeToNextTechAge = world.getTimeToNextAge();
-            int totalBuildings = world.getBuildings();
-            worldInfoArea.setText(String.format(
-                    """
-                            Time: %d
-                            Technology Age: %s
-                            Total Digimon: %d
-                            Total Tribes: %d
-                            Time To Next Tech Age: %d
-                            Total Buildings: %d
-                            """,
-                    world.getTime(),
-                    world.getTechnologySystem().getCurrentAge(),
-                    totalDigimon,
-                    Tribe.getAllTribes().size(),
-                    timeToNextTechAge,
-                    totalBuildings
-            ));
-        });
-    }
-
-    public void updateSectorInfo(List<Sector> sectors) {
-        Platform.runLater(() -> {
-            for (Sector sector : sectors) {
-                String sectorName = sector.getName();
-                TextArea sectorArea = sectorPanels.get(sectorName);
-                if (sectorArea == null) {
-                    System.err.println("Warning: No TextArea found for sector: " + sectorName);
-                    continue;
-                }
-                StringBuilder sectorInfo = new StringBuilder();
-                sectorInfo.append("Digimons in ").append(sectorName).append(":\n");
-
-                for (Digimon digimon : sector.getDigimons()) {
-                    if (digimon == null) {
-                        System.err.println("Warning: Null Digimon found in sector: " + sectorName);
-                        continue;
-                    }
-                    sectorInfo.append(digimon.getStatusString()).append("\n");
-                }
-                sectorArea.setText(sectorInfo.toString());
-            }
-        });
+        Platform.runLater(frameTimer::invalidate);
     }
 
     public void shutdown() {
-        SimulationSubject.getInstance().removeObserver(this);
-        executor.shutdown();
+        world.getContext().getEvents().removeObserver(this);
+        Platform.runLater(frameTimer::stop);
+        rasterizer.shutdown();
+        indexer.shutdown();
     }
 
     @Override
@@ -447,7 +281,7 @@ public class VisualGUI extends Application implements SimulationObserver {
 
     @Override
     public void onWorldUpdate(World world) {
-        updateDisplay();
+        // The frame timer picks up the new snapshot on the next pulse; queueing work here would pile up on the FX thread
     }
 
     private EventType convertEventType(SimulationEvent.EventType type) {
@@ -459,8 +293,18 @@ public class VisualGUI extends Application implements SimulationObserver {
     }
 
     public enum EventType {
-        ATTACK,
-        POLITICAL,
-        OTHER
+        ATTACK("Attack Events"),
+        POLITICAL("Political Events"),
+        OTHER("Other Events");
+
+        private final String title;
+
+        EventType(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
     }
 }
@@ -0,0 +1,85 @@
+package com.horrorcore.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed power-of-two buckets, from 1 microsecond up to about a minute.
+ * Recording is a bucket index computation plus a few {@link LongAdder} increments, so it does
+ * not allocate and is safe to call from any thread. Quantiles are estimated as the upper
+ * bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    static final int BUCKET_COUNT = 28;
+    private static final long FIRST_BOUND_NANOS = 1_000;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos <= FIRST_BOUND_NANOS) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BOUND_NANOS));
+    }
+
+    /**
+     * Returns the inclusive upper bound of a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The bound in nanoseconds, or {@link Long#MAX_VALUE} for the overflow bucket.
+     */
+    static long upperBoundNanos(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : FIRST_BOUND_NANOS << bucket;
+    }
+
+    long bucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getSumNanos() { return sumNanos.sum(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    public double getMeanNanos() {
+        long samples = count.sum();
+        return samples == 0 ? 0.0 : (double) sumNanos.sum() / samples;
+    }
+
+    /**
+     * Estimates a quantile of the recorded latencies.
+     *
+     * @param quantile The quantile, between 0 and 1.
+     * @return The upper bound of the bucket holding the quantile in nanoseconds, capped at the maximum seen.
+     */
+    public long quantileNanos(double quantile) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(upperBoundNanos(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,303 @@
+package com.horrorcore.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the simulation's metrics: a latency histogram per tick phase, per scheduled system and for whole ticks,
+ * counters for the things the simulation does, and gauges sampled when the metrics are read.
+ * Everything on the recording side is lock-free and allocation-free so it can be called from
+ * the tick loop. The metrics are exposed as MXBeans and in the Prometheus text format.
+ */
+public class MetricsRegistry {
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    private static final String DOMAIN = "com.horrorcore";
+    private static MetricsRegistry instance;
+
+    private final Map<TickPhase, LatencyHistogram> phases = new EnumMap<>(TickPhase.class);
+    private final Map<String, LatencyHistogram> systems = new ConcurrentSkipListMap<>();
+    private final LatencyHistogram ticks = new LatencyHistogram();
+    private final LatencyHistogram frames = new LatencyHistogram();
+    private final LongAdder[] counters = new LongAdder[SimulationCounter.values().length];
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private boolean mbeansRegistered;
+    private volatile StallWatchdog watchdog;
+
+    MetricsRegistry() {
+        for (TickPhase phase : TickPhase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        registerGauge("jvm_heap_used_bytes", "Heap memory in use",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    // Recording
+
+    public void increment(SimulationCounter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(SimulationCounter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    public void recordPhase(TickPhase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Records the time of one run of a scheduled system. The system's histogram is created on its first run.
+     */
+    public void recordSystem(String system, long nanos) {
+        systems.computeIfAbsent(system, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void recordTick(long nanos) {
+        ticks.record(nanos);
+    }
+
+    /**
+     * Records the FX-thread time of one rendered GUI frame.
+     */
+    public void recordFrame(long nanos) {
+        frames.record(nanos);
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name and label.
+     *
+     * @param name  The metric name.
+     * @param help  A one-line description of the metric.
+     * @param value Supplies the current value whenever the metrics are read.
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value) {
+        registerGauge(name, help, null, null, value);
+    }
+
+    /**
+     * Registers one labelled series of a gauge, such as the population of a single sector.
+     *
+     * @param name       The metric name shared by all series.
+     * @param help       A one-line description of the metric.
+     * @param labelName  The label that tells the series apart.
+     * @param labelValue The label value of this series.
+     * @param value      Supplies the current value whenever the metrics are read.
+     */
+    public void registerGauge(String name, String help, String labelName, String labelValue, DoubleSupplier value) {
+        String key = labelName == null ? name : name + "{" + labelName + "=" + labelValue + "}";
+        gauges.put(key, new Gauge(name, help, labelName, labelValue, value));
+    }
+
+    /**
+     * Removes every series of a gauge, e.g. before re-registering the sectors after a reset.
+     *
+     * @param name The metric name.
+     */
+    public void removeGauge(String name) {
+        gauges.values().removeIf(gauge -> gauge.name().equals(name));
+    }
+
+    /**
+     * Makes a watchdog's stall reports available through the metrics surface.
+     *
+     * @param watchdog The watchdog of the running simulation.
+     */
+    public synchronized void setWatchdog(StallWatchdog watchdog) {
+        this.watchdog = watchdog;
+        if (mbeansRegistered) {
+            registerWatchdogMBean();
+        }
+    }
+
+    public StallWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    // Reading
+
+    public LatencyHistogram getPhaseHistogram(TickPhase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * Returns the run times of a scheduled system, or null if it never ran.
+     */
+    public LatencyHistogram getSystemHistogram(String system) {
+        return systems.get(system);
+    }
+
+    public LatencyHistogram getTickHistogram() {
+        return ticks;
+    }
+
+    public LatencyHistogram getFrameHistogram() {
+        return frames;
+    }
+
+    public long getCount(SimulationCounter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Samples every gauge.
+     *
+     * @return The current gauge values keyed by series, in name order.
+     */
+    public Map<String, Double> sampleGauges() {
+        Map<String, Double> values = new TreeMap<>();
+        gauges.forEach((key, gauge) -> values.put(key, sample(gauge)));
+        return values;
+    }
+
+    private static double sample(Gauge gauge) {
+        try {
+            return gauge.value().getAsDouble();
+        } catch (RuntimeException e) {
+            // Gauges read live simulation state without locking; skip a sample that raced a change
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     *
+     * @param out Where to write the metrics.
+     * @throws IOException If writing fails.
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        writeHeader(out, "digimon_tick_seconds", "Wall time of a whole simulation tick", "histogram");
+        writeHistogram(out, "digimon_tick_seconds", null, ticks);
+
+        writeHeader(out, "digimon_tick_phase_seconds", "Wall time spent in each phase of a tick", "histogram");
+        for (Map.Entry<TickPhase, LatencyHistogram> phase : phases.entrySet()) {
+            writeHistogram(out, "digimon_tick_phase_seconds", "phase=\"" + phase.getKey().getLabel() + "\"", phase.getValue());
+        }
+
+        writeHeader(out, "digimon_system_seconds", "Time spent in each scheduled system of a tick", "histogram");
+        for (Map.Entry<String, LatencyHistogram> system : systems.entrySet()) {
+            writeHistogram(out, "digimon_system_seconds", "system=\"" + escape(system.getKey()) + "\"", system.getValue());
+        }
+
+        writeHeader(out, "digimon_gui_frame_seconds", "FX thread time spent rendering a GUI frame", "histogram");
+        writeHistogram(out, "digimon_gui_frame_seconds", null, frames);
+
+        for (SimulationCounter counter : SimulationCounter.values()) {
+            writeHeader(out, counter.getMetricName(), counter.getHelp(), "counter");
+            out.append(counter.getMetricName()).append(' ').append(Long.toString(getCount(counter))).append('\n');
+        }
+
+        String current = null;
+        for (Gauge gauge : gauges.values()) {
+            if (!gauge.name().equals(current)) {
+                current = gauge.name();
+                writeHeader(out, current, gauge.help(), "gauge");
+            }
+            out.append(current);
+            if (gauge.labelName() != null) {
+                out.append('{').append(gauge.labelName()).append("=\"").append(escape(gauge.labelValue())).append("\"}");
+            }
+            out.append(' ').append(formatDouble(sample(gauge))).append('\n');
+        }
+    }
+
+    private static void writeHeader(Appendable out, String name, String help, String type) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeHistogram(Appendable out, String name, String labels, LatencyHistogram histogram) throws IOException {
+        String prefix = labels == null ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            cumulative += histogram.bucketCount(i);
+            long bound = LatencyHistogram.upperBoundNanos(i);
+            String le = bound == Long.MAX_VALUE ? "+Inf" : formatDouble(bound / 1e9);
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                    .append(Long.toString(cumulative)).append('\n');
+        }
+        String suffix = labels == null ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ')
+                .append(formatDouble(histogram.getSumNanos() / 1e9)).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ')
+                .append(Long.toString(cumulative)).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // JMX
+
+    /**
+     * Registers the simulation and per-phase MXBeans with the platform MBean server.
+     * Calling this more than once has no further effect.
+     */
+    public synchronized void registerMBeans() {
+        if (mbeansRegistered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=Simulation"), new SimulationMetrics(this));
+            register(server, new ObjectName(DOMAIN + ":type=TickPhase,name=tick"), new PhaseMetrics(ticks));
+            for (Map.Entry<TickPhase, LatencyHistogram> phase : phases.entrySet()) {
+                register(server, new ObjectName(DOMAIN + ":type=TickPhase,name=" + phase.getKey().getLabel()),
+                        new PhaseMetrics(phase.getValue()));
+            }
+            mbeansRegistered = true;
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register simulation MBeans", e);
+        }
+        if (watchdog != null) {
+            registerWatchdogMBean();
+        }
+    }
+
+    private void registerWatchdogMBean() {
+        try {
+            register(ManagementFactory.getPlatformMBeanServer(), new ObjectName(DOMAIN + ":type=Watchdog"),
+                    new WatchdogMetrics(watchdog));
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register watchdog MBean", e);
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        try {
+            server.registerMBean(mbean, name);
+        } catch (InstanceAlreadyExistsException e) {
+            server.unregisterMBean(name);
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    private record Gauge(String name, String help, String labelName, String labelValue, DoubleSupplier value) {}
+}
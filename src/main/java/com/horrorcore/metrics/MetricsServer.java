@@ -0,0 +1,100 @@
+package com.horrorcore.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the metrics registry in the Prometheus text format on {@code /metrics},
+ * and the watchdog's recent stall reports on {@code /watchdog}.
+ * The server only listens on the loopback interface, on the port given by the
+ * {@code digimon.metrics.port} system property, and is not started when the property is unset.
+ */
+public class MetricsServer {
+    private static final Logger LOGGER = Logger.getLogger(MetricsServer.class.getName());
+    public static final String PORT_PROPERTY = "digimon.metrics.port";
+    private static HttpServer server;
+
+    private MetricsServer() {}
+
+    /**
+     * Starts the server if a port is configured and it is not already running.
+     *
+     * @return true if the server is running after the call.
+     */
+    public static synchronized boolean startIfConfigured() {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (server != null) {
+            return true;
+        }
+        if (port == null) {
+            return false;
+        }
+        try {
+            start(port);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to start metrics server on port " + port, e);
+            return false;
+        }
+    }
+
+    /**
+     * Starts the server on the given loopback port.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port the server is listening on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static synchronized int start(int port) throws IOException {
+        if (server != null) {
+            return server.getAddress().getPort();
+        }
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/metrics", exchange -> {
+            StringBuilder body = new StringBuilder(16 * 1024);
+            MetricsRegistry.getInstance().writePrometheus(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        httpServer.createContext("/watchdog", exchange -> {
+            StringBuilder body = new StringBuilder();
+            StallWatchdog watchdog = MetricsRegistry.getInstance().getWatchdog();
+            if (watchdog == null) {
+                body.append("No simulation is running.\n");
+            } else {
+                List<StallReport> reports = watchdog.getReports();
+                body.append(reports.size()).append(" recent stall reports\n");
+                reports.forEach(report -> body.append('\n').append(report.format()));
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        httpServer.start();
+        server = httpServer;
+        LOGGER.info("Metrics available at http://127.0.0.1:" + httpServer.getAddress().getPort() + "/metrics");
+        return httpServer.getAddress().getPort();
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.horrorcore.metrics;
+
+class PhaseMetrics implements PhaseMetricsMXBean {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private final LatencyHistogram histogram;
+
+    PhaseMetrics(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override public long getCount() { return histogram.getCount(); }
+    @Override public double getMeanMillis() { return histogram.getMeanNanos() / NANOS_PER_MILLI; }
+    @Override public double getMaxMillis() { return histogram.getMaxNanos() / NANOS_PER_MILLI; }
+    @Override public double getP50Millis() { return histogram.quantileNanos(0.50) / NANOS_PER_MILLI; }
+    @Override public double getP95Millis() { return histogram.quantileNanos(0.95) / NANOS_PER_MILLI; }
+    @Override public double getP99Millis() { return histogram.quantileNanos(0.99) / NANOS_PER_MILLI; }
+}
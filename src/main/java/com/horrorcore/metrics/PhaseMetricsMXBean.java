@@ -0,0 +1,13 @@
+package com.horrorcore.metrics;
+
+/**
+ * Latency statistics of one tick phase, or of whole ticks.
+ */
+public interface PhaseMetricsMXBean {
+    long getCount();
+    double getMeanMillis();
+    double getMaxMillis();
+    double getP50Millis();
+    double getP95Millis();
+    double getP99Millis();
+}
@@ -0,0 +1,28 @@
+package com.horrorcore.metrics;
+
+/**
+ * The things the simulation counts, each exported as a monotonically increasing counter.
+ */
+public enum SimulationCounter {
+    MOVES("digimon_moves_total", "Cell moves and sector transitions made by Digimon"),
+    PATH_SEARCHES("digimon_path_searches_total", "A* searches run on a sector grid"),
+    ATTACKS("digimon_attacks_total", "Attacks that dealt damage"),
+    BIRTHS("digimon_births_total", "Digimon born"),
+    REBIRTHS("digimon_rebirths_total", "Digimon reborn after dying in combat"),
+    DEATHS("digimon_deaths_total", "Digimon that died, with or without rebirth"),
+    EVENTS_EMITTED("digimon_events_emitted_total", "Simulation events published to observers"),
+    STALLS("digimon_watchdog_stalls_total", "Ticks or tick phases that ran over their watchdog budget"),
+    GUI_FRAMES("digimon_gui_frames_total", "Frames the GUI rendered from a new world snapshot"),
+    GUI_FRAMES_DROPPED("digimon_gui_frames_dropped_total", "Display frames the GUI missed or skipped because the FX thread was busy");
+
+    private final String metricName;
+    private final String help;
+
+    SimulationCounter(String metricName, String help) {
+        this.metricName = metricName;
+        this.help = help;
+    }
+
+    public String getMetricName() { return metricName; }
+    public String getHelp() { return help; }
+}
@@ -0,0 +1,23 @@
+package com.horrorcore.metrics;
+
+import java.util.Map;
+
+class SimulationMetrics implements SimulationMetricsMXBean {
+    private final MetricsRegistry registry;
+
+    SimulationMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override public long getTicks() { return registry.getTickHistogram().getCount(); }
+    @Override public long getMoves() { return registry.getCount(SimulationCounter.MOVES); }
+    @Override public long getPathSearches() { return registry.getCount(SimulationCounter.PATH_SEARCHES); }
+    @Override public long getAttacks() { return registry.getCount(SimulationCounter.ATTACKS); }
+    @Override public long getBirths() { return registry.getCount(SimulationCounter.BIRTHS); }
+    @Override public long getRebirths() { return registry.getCount(SimulationCounter.REBIRTHS); }
+    @Override public long getDeaths() { return registry.getCount(SimulationCounter.DEATHS); }
+    @Override public long getEventsEmitted() { return registry.getCount(SimulationCounter.EVENTS_EMITTED); }
+    @Override public long getGuiFrames() { return registry.getCount(SimulationCounter.GUI_FRAMES); }
+    @Override public long getGuiFramesDropped() { return registry.getCount(SimulationCounter.GUI_FRAMES_DROPPED); }
+    @Override public Map<String, Double> getGauges() { return registry.sampleGauges(); }
+}
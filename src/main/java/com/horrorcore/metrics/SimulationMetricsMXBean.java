@@ -0,0 +1,20 @@
+package com.horrorcore.metrics;
+
+import java.util.Map;
+
+/**
+ * Simulation-wide counters and gauges.
+ */
+public interface SimulationMetricsMXBean {
+    long getTicks();
+    long getMoves();
+    long getPathSearches();
+    long getAttacks();
+    long getBirths();
+    long getRebirths();
+    long getDeaths();
+    long getEventsEmitted();
+    long getGuiFrames();
+    long getGuiFramesDropped();
+    Map<String, Double> getGauges();
+}
@@ -0,0 +1,52 @@
+package com.horrorcore.metrics;
+
+import java.time.Instant;
+
+/**
+ * What the stalled thread was doing when a tick or one of its phases ran over budget. A stalled phase
+ * is reported for the thread running it: the simulation thread, or the pool thread running a system.
+ *
+ * @param time          When the stall was detected.
+ * @param tick          The tick number.
+ * @param phase         The phase over budget, or "tick" when the whole tick ran over.
+ * @param sector        The sector being simulated, or null for world-wide phases.
+ * @param elapsedMillis How long the phase or tick had been running.
+ * @param budgetMillis  The budget it exceeded.
+ * @param thread        The name of the thread that stalled.
+ * @param threadState   The state of that thread.
+ * @param lockName      The lock the thread was waiting for, or null.
+ * @param lockOwner     The thread holding that lock, the threads if several share it, or null if unknown.
+ * @param stack         The thread's stack, with the locks it holds.
+ * @param ownerStack    The stack of the lock's holder, or of each one if several share it; null if unknown.
+ */
+public record StallReport(Instant time, int tick, String phase, String sector, long elapsedMillis,
+                          long budgetMillis, String thread, Thread.State threadState, String lockName, String lockOwner,
+                          String stack, String ownerStack) {
+
+    /**
+     * Formats the report for logs and the metrics endpoint.
+     *
+     * @return A multi-line description of the stall.
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(time).append(" tick ").append(tick).append(": ").append(phase);
+        if (sector != null) {
+            text.append(" in ").append(sector);
+        }
+        text.append(" running for ").append(elapsedMillis).append(" ms (budget ").append(budgetMillis).append(" ms), thread ")
+                .append(thread).append(' ').append(threadState).append('\n');
+        if (lockName != null) {
+            text.append("  waiting for ").append(lockName);
+            if (lockOwner != null) {
+                text.append(" held by ").append(lockOwner);
+            }
+            text.append('\n');
+        }
+        text.append(stack);
+        if (ownerStack != null) {
+            text.append("  lock owner ").append(lockOwner).append(":\n").append(ownerStack);
+        }
+        return text.toString();
+    }
+}
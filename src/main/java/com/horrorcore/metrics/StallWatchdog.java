@@ -0,0 +1,272 @@
+package com.horrorcore.metrics;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the simulation thread through its {@link TickTimer} and diagnoses stalls.
+ * When the current phase has run longer than its budget, or the whole tick longer than the
+ * tick budget, the watchdog captures the simulation thread's stack, the locks it holds and
+ * the lock it is waiting for, along with the stack of that lock's owner. Phases that systems
+ * run on pool threads are held to the same budgets, and their stalls are diagnosed on the
+ * pool thread rather than on the simulation thread waiting for it. Each stall is
+ * reported once, logged, and kept in a ring buffer of the most recent reports.
+ * A tick waiting for the world lock, behind a reader or a command, is in the {@code world_lock}
+ * phase and held to its budget like any other. The sleep between ticks is idle time and never
+ * counts as a stall.
+ *
+ * The JVM names no owner for locks that record none, such as the world's StampedLock. Their
+ * holders are told to the watchdog through {@link #watchLock}, so that reports name them too.
+ *
+ * Budgets are read from system properties, in milliseconds:
+ * {@code digimon.watchdog.budget.<phase>} per phase (e.g. {@code digimon.watchdog.budget.movement}),
+ * {@code digimon.watchdog.budget.phase} as the default for phases, and
+ * {@code digimon.watchdog.budget.tick} for the whole tick. The number of reports kept is
+ * set by {@code digimon.watchdog.reports}.
+ */
+public class StallWatchdog {
+    private static final Logger LOGGER = Logger.getLogger(StallWatchdog.class.getName());
+    private static final String BUDGET_PROPERTY = "digimon.watchdog.budget.";
+    public static final long POLL_MILLIS = Long.getLong("digimon.watchdog.pollMillis", 250);
+    public static final long DEFAULT_PHASE_BUDGET_MILLIS = Long.getLong(BUDGET_PROPERTY + "phase", 2_000);
+    public static final long TICK_BUDGET_MILLIS = Long.getLong(BUDGET_PROPERTY + "tick", 10_000);
+    public static final int REPORT_CAPACITY = Integer.getInteger("digimon.watchdog.reports", 16);
+
+    private final TickTimer timer;
+    private final Thread simulationThread;
+    private final Map<TickPhase, Long> budgets = new EnumMap<>(TickPhase.class);
+    private final Deque<StallReport> reports = new ArrayDeque<>();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    // The start of the last slice reported per pool thread
+    private final Map<Thread, Long> reportedWorkerStarts = new HashMap<>();
+    private final List<WatchedLock> watchedLocks = new CopyOnWriteArrayList<>();
+    private long reportedSliceStart = -1;
+    private long reportedTickStart = -1;
+    private long stallCount;
+    private volatile Thread watcher;
+
+    public StallWatchdog(TickTimer timer, Thread simulationThread) {
+        this.timer = timer;
+        this.simulationThread = simulationThread;
+        for (TickPhase phase : TickPhase.values()) {
+            budgets.put(phase, Long.getLong(BUDGET_PROPERTY + phase.getLabel(), DEFAULT_PHASE_BUDGET_MILLIS));
+        }
+    }
+
+    // A lock that records no owner, with what returns its holders
+    private record WatchedLock(Object lock, Supplier<Collection<Thread>> holders) {
+        boolean is(LockInfo info) {
+            return info.getIdentityHashCode() == System.identityHashCode(lock)
+                    && info.getClassName().equals(lock.getClass().getName());
+        }
+
+        String name() {
+            return lock.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(lock));
+        }
+    }
+
+    /**
+     * Names the holders of a lock that records no owner of its own, such as a StampedLock.
+     *
+     * @param lock    The lock.
+     * @param holders Returns the threads holding the lock; called from the watchdog's thread.
+     */
+    public void watchLock(Object lock, Supplier<Collection<Thread>> holders) {
+        watchedLocks.add(new WatchedLock(lock, holders));
+    }
+
+    public synchronized void start() {
+        if (watcher != null) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while (watcher == Thread.currentThread()) {
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                    check();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }, "simulation-watchdog");
+        thread.setDaemon(true);
+        watcher = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        Thread thread = watcher;
+        watcher = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Checks the simulation thread once, reporting a stall if it is over budget.
+     *
+     * @return The new report, or null if the thread is idle, within budget, or already reported.
+     */
+    public synchronized StallReport check() {
+        if (!timer.isTicking()) {
+            return null;
+        }
+        long now = System.nanoTime();
+        TickPhase phase = timer.getPhase();
+        long sliceStart = timer.getSliceStartNanos();
+        long tickStart = timer.getTickStartNanos();
+
+        if (phase != null && sliceStart != reportedSliceStart) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - sliceStart);
+            if (elapsed > budgets.get(phase)) {
+                reportedSliceStart = sliceStart;
+                return record(simulationThread, phase.getLabel(), timer.getScope(), elapsed, budgets.get(phase));
+            }
+        }
+        for (TickTimer.WorkerSlice slice : timer.getWorkerSlices()) {
+            Long reported = reportedWorkerStarts.get(slice.thread());
+            if (reported != null && reported == slice.startNanos()) {
+                continue;
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - slice.startNanos());
+            if (elapsed > budgets.get(slice.phase())) {
+                reportedWorkerStarts.put(slice.thread(), slice.startNanos());
+                return record(slice.thread(), slice.phase().getLabel(), null, elapsed, budgets.get(slice.phase()));
+            }
+        }
+        if (tickStart != reportedTickStart) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - tickStart);
+            if (elapsed > TICK_BUDGET_MILLIS) {
+                reportedTickStart = tickStart;
+                return record(simulationThread, "tick", timer.getScope(), elapsed, TICK_BUDGET_MILLIS);
+            }
+        }
+        return null;
+    }
+
+    private StallReport record(Thread thread, String phase, String sector, long elapsedMillis, long budgetMillis) {
+        ThreadInfo info = threadInfo(thread.getId());
+        String lockName = null;
+        String lockOwner = null;
+        String stack = "  (thread has exited)\n";
+        String ownerStack = null;
+        Thread.State state = thread.getState();
+        if (info != null) {
+            state = info.getThreadState();
+            lockName = info.getLockName();
+            lockOwner = info.getLockOwnerName();
+            stack = formatStack(info);
+            if (info.getLockOwnerId() >= 0) {
+                ThreadInfo owner = threadInfo(info.getLockOwnerId());
+                ownerStack = owner == null ? null : formatStack(owner);
+            } else if (info.getLockInfo() != null) {
+                List<Thread> holders = holdersOf(info.getLockInfo());
+                if (!holders.isEmpty()) {
+                    lockOwner = holders.stream().map(Thread::getName).collect(Collectors.joining(", "));
+                    ownerStack = formatStacks(holders);
+                }
+            }
+        }
+
+        StallReport report = new StallReport(Instant.now(), timer.getTick(), phase, sector, elapsedMillis,
+                budgetMillis, thread.getName(), state, lockName, lockOwner, stack, ownerStack);
+        reports.addLast(report);
+        while (reports.size() > REPORT_CAPACITY) {
+            reports.removeFirst();
+        }
+        stallCount++;
+        MetricsRegistry.getInstance().increment(SimulationCounter.STALLS);
+        LOGGER.warning("Simulation stalled: " + report.format());
+        return report;
+    }
+
+    private ThreadInfo threadInfo(long threadId) {
+        ThreadInfo[] infos = threads.getThreadInfo(new long[]{threadId},
+                threads.isObjectMonitorUsageSupported(), threads.isSynchronizerUsageSupported());
+        return infos.length == 0 ? null : infos[0];
+    }
+
+    private List<Thread> holdersOf(LockInfo lockInfo) {
+        for (WatchedLock watched : watchedLocks) {
+            if (watched.is(lockInfo)) {
+                return List.copyOf(watched.holders().get());
+            }
+        }
+        return List.of();
+    }
+
+    // The stacks of the holders of a watched lock, each under its thread's name if there are several
+    private String formatStacks(List<Thread> holders) {
+        StringBuilder text = new StringBuilder();
+        for (Thread holder : holders) {
+            ThreadInfo info = threadInfo(holder.getId());
+            if (holders.size() > 1) {
+                text.append("  ").append(holder.getName()).append(":\n");
+            }
+            text.append(info == null ? "    (thread has exited)\n" : formatStack(info));
+        }
+        return text.toString();
+    }
+
+    private String formatStack(ThreadInfo info) {
+        StringBuilder text = new StringBuilder();
+        StackTraceElement[] frames = info.getStackTrace();
+        MonitorInfo[] monitors = info.getLockedMonitors();
+        for (int depth = 0; depth < frames.length; depth++) {
+            text.append("    at ").append(frames[depth]).append('\n');
+            for (MonitorInfo monitor : monitors) {
+                if (monitor.getLockedStackDepth() == depth) {
+                    text.append("      - locked ").append(monitor).append('\n');
+                }
+            }
+        }
+        for (LockInfo synchronizer : info.getLockedSynchronizers()) {
+            text.append("    holds ").append(synchronizer).append('\n');
+        }
+        for (WatchedLock watched : watchedLocks) {
+            for (Thread holder : watched.holders().get()) {
+                if (holder.getId() == info.getThreadId()) {
+                    text.append("    holds ").append(watched.name()).append('\n');
+                    break;
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    // Reading
+
+    public synchronized List<StallReport> getReports() {
+        return new ArrayList<>(reports);
+    }
+
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    public long getBudgetMillis(TickPhase phase) {
+        return budgets.get(phase);
+    }
+
+    public TickTimer getTimer() {
+        return timer;
+    }
+}
@@ -0,0 +1,33 @@
+package com.horrorcore.metrics;
+
+/**
+ * The phases of a simulation tick that are timed separately.
+ */
+public enum TickPhase {
+    // Waiting for the world lock before the systems run
+    WORLD_LOCK("world_lock"),
+    AGING_EVOLUTION("aging_evolution"),
+    COMBAT("combat"),
+    MOVEMENT("movement"),
+    BIRTHS_REBIRTHS("births_rebirths"),
+    TRIBE_WORK("tribe_work"),
+    EVENTS("events"),
+    POLITICS("politics"),
+    MORTALITY("mortality"),
+    OBSERVERS("observers");
+
+    private final String label;
+
+    TickPhase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the name used for this phase in metric labels and MBean names.
+     *
+     * @return The lower-case phase label.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
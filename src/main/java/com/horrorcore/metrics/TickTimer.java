@@ -0,0 +1,254 @@
+package com.horrorcore.metrics;
+
+import com.horrorcore.metrics.jfr.EventBurstEvent;
+import com.horrorcore.metrics.jfr.TickEvent;
+import com.horrorcore.metrics.jfr.TickPhaseEvent;
+import jdk.jfr.EventType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Splits the wall time of one tick between its phases.
+ * Rather than recording every slice, the timer adds each slice to a per-phase total as the
+ * ticking thread {@link #enter(TickPhase) enters} the next phase, and records the totals into
+ * the registry once in {@link #finish}. A timer is driven by a single simulation thread. Systems
+ * run on pool threads report their slices through {@link #enterWorker} and {@link #exitWorker},
+ * and the simulation thread {@link #charge charges} their time once they are done. The phases
+ * running on the simulation thread and on the workers can be read from any thread, which is
+ * what the {@link StallWatchdog} uses.
+ *
+ * While a flight recording is running, the timer also emits a JFR event for the tick, one
+ * for every phase slice, and one when the tick published more simulation events than the
+ * {@code digimon.jfr.eventBurstThreshold} system property allows (200 by default). Those events
+ * are counted in the timed world's own counters, so worlds ticking side by side do not add up.
+ */
+public class TickTimer {
+    public static final int EVENT_BURST_THRESHOLD = Integer.getInteger("digimon.jfr.eventBurstThreshold", 200);
+    private static final EventType PHASE_EVENT_TYPE = EventType.getEventType(TickPhaseEvent.class);
+
+    private final MetricsRegistry registry;
+    private final ToLongFunction<SimulationCounter> counts;
+    private final long[] phaseNanos = new long[TickPhase.values().length];
+    private final ThreadLocal<TickPhaseEvent> workerEvents = new ThreadLocal<>();
+    private TickEvent tickEvent;
+    private TickPhaseEvent phaseEvent;
+    private int scopeEntities;
+    private long eventsAtStart;
+    private long attacksAtStart;
+    private long deathsAtStart;
+    private long birthsAtStart;
+
+    // Progress, published for the watchdog
+    private volatile boolean ticking;
+    private volatile int tick;
+    private volatile long tickStart;
+    private volatile TickPhase phase;
+    private volatile long sliceStart;
+    private volatile String scope;
+    private final Map<Thread, WorkerSlice> workers = new ConcurrentHashMap<>();
+
+    /**
+     * A phase slice running on a thread other than the simulation thread.
+     *
+     * @param thread     The thread running the slice.
+     * @param phase      The phase it runs.
+     * @param startNanos When the slice started.
+     */
+    public record WorkerSlice(Thread thread, TickPhase phase, long startNanos) {}
+
+    /**
+     * Creates a timer that reads the simulation counters from the registry, for a world that is timed alone.
+     */
+    public TickTimer(MetricsRegistry registry) {
+        this(registry, registry::getCount);
+    }
+
+    /**
+     * @param registry The registry the phase and tick times are recorded into.
+     * @param counts   Reads the simulation counters of the timed world.
+     */
+    public TickTimer(MetricsRegistry registry, ToLongFunction<SimulationCounter> counts) {
+        this.registry = registry;
+        this.counts = counts;
+    }
+
+    /**
+     * Starts timing a tick. No phase is current until the first {@link #enter(TickPhase)}.
+     *
+     * @param tick The tick number.
+     */
+    public void begin(int tick) {
+        Arrays.fill(phaseNanos, 0);
+        tickEvent = new TickEvent();
+        tickEvent.begin();
+        eventsAtStart = counts.applyAsLong(SimulationCounter.EVENTS_EMITTED);
+        attacksAtStart = counts.applyAsLong(SimulationCounter.ATTACKS);
+        deathsAtStart = counts.applyAsLong(SimulationCounter.DEATHS);
+        birthsAtStart = counts.applyAsLong(SimulationCounter.BIRTHS);
+        scope = null;
+        scopeEntities = 0;
+        phase = null;
+        this.tick = tick;
+        long now = System.nanoTime();
+        tickStart = now;
+        sliceStart = now;
+        ticking = true;
+    }
+
+    /**
+     * Sets what the phase slices entered from now on operate on.
+     *
+     * @param sector   The sector being simulated, or null for world-wide phases.
+     * @param entities The number of Digimon in scope.
+     */
+    public void setScope(String sector, int entities) {
+        this.scope = sector;
+        this.scopeEntities = entities;
+    }
+
+    /**
+     * Ends the current phase slice, charging its time to the current phase, and starts a slice of another phase.
+     *
+     * @param next The phase about to run, or null for work that is not charged to any phase.
+     */
+    public void enter(TickPhase next) {
+        long now = System.nanoTime();
+        TickPhase current = phase;
+        if (current != null) {
+            phaseNanos[current.ordinal()] += now - sliceStart;
+            if (phaseEvent != null) {
+                phaseEvent.phase = current.getLabel();
+                phaseEvent.commit();
+            }
+        }
+        // Publish the slice start before the phase, so a reader never pairs a new phase with an old start
+        sliceStart = now;
+        phase = next;
+        // Only allocate slice events while a recording has them enabled
+        if (next != null && PHASE_EVENT_TYPE.isEnabled()) {
+            phaseEvent = new TickPhaseEvent();
+            phaseEvent.sector = scope;
+            phaseEvent.entities = scopeEntities;
+            phaseEvent.begin();
+        } else {
+            phaseEvent = null;
+        }
+    }
+
+    /**
+     * Starts a phase slice on the calling thread, which is not the simulation thread, e.g. a system run on a pool
+     * thread. The slice is not charged to its phase here; the simulation thread {@link #charge charges} its time.
+     *
+     * @param phase The phase about to run, or null for work that is not charged to any phase.
+     */
+    public void enterWorker(TickPhase phase) {
+        if (phase == null) {
+            return;
+        }
+        workers.put(Thread.currentThread(), new WorkerSlice(Thread.currentThread(), phase, System.nanoTime()));
+        if (PHASE_EVENT_TYPE.isEnabled()) {
+            TickPhaseEvent event = new TickPhaseEvent();
+            event.phase = phase.getLabel();
+            event.begin();
+            workerEvents.set(event);
+        }
+    }
+
+    /**
+     * Ends the calling thread's slice started by {@link #enterWorker}, if any.
+     */
+    public void exitWorker() {
+        workers.remove(Thread.currentThread());
+        TickPhaseEvent event = workerEvents.get();
+        if (event != null) {
+            workerEvents.remove();
+            event.commit();
+        }
+    }
+
+    /**
+     * Charges time spent outside of the phase slices, e.g. by systems run on other threads, to a phase.
+     *
+     * @param phase The phase to charge.
+     * @param nanos The time spent.
+     */
+    public void charge(TickPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Ends the current phase slice and records the phase totals and the tick duration.
+     * The timer is idle until the next {@link #begin(int)}.
+     *
+     * @param population The number of Digimon alive at the end of the tick.
+     * @param tribes     The number of tribes.
+     * @param buildings  The number of buildings.
+     */
+    public void finish(int population, int tribes, int buildings) {
+        enter(null);
+        ticking = false;
+        TickPhase[] phases = TickPhase.values();
+        for (int i = 0; i < phases.length; i++) {
+            registry.recordPhase(phases[i], phaseNanos[i]);
+        }
+        registry.recordTick(System.nanoTime() - tickStart);
+
+        long eventsEmitted = counts.applyAsLong(SimulationCounter.EVENTS_EMITTED) - eventsAtStart;
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.tick = tick;
+            tickEvent.population = population;
+            tickEvent.tribes = tribes;
+            tickEvent.buildings = buildings;
+            tickEvent.eventsEmitted = eventsEmitted;
+            tickEvent.commit();
+        }
+
+        if (eventsEmitted >= EVENT_BURST_THRESHOLD) {
+            EventBurstEvent burst = new EventBurstEvent();
+            if (burst.shouldCommit()) {
+                burst.tick = tick;
+                burst.eventsEmitted = eventsEmitted;
+                burst.attacks = counts.applyAsLong(SimulationCounter.ATTACKS) - attacksAtStart;
+                burst.deaths = counts.applyAsLong(SimulationCounter.DEATHS) - deathsAtStart;
+                burst.births = counts.applyAsLong(SimulationCounter.BIRTHS) - birthsAtStart;
+                burst.commit();
+            }
+        }
+    }
+
+    /**
+     * Ends the tick without recording it, e.g. when it never got hold of the world.
+     * The timer is idle until the next {@link #begin(int)}.
+     */
+    public void cancel() {
+        enter(null);
+        ticking = false;
+    }
+
+    // Progress readers, safe to call from other threads
+
+    /**
+     * Returns whether a tick is in progress, as opposed to the loop sleeping between ticks.
+     */
+    public boolean isTicking() { return ticking; }
+    public int getTick() { return tick; }
+    public long getTickStartNanos() { return tickStart; }
+
+    /**
+     * Returns the phase currently running, or null between phases and while idle.
+     */
+    public TickPhase getPhase() { return phase; }
+    public long getSliceStartNanos() { return sliceStart; }
+    public String getScope() { return scope; }
+
+    /**
+     * Returns the phase slices currently running on threads other than the simulation thread.
+     */
+    public Collection<WorkerSlice> getWorkerSlices() { return List.copyOf(workers.values()); }
+}
@@ -0,0 +1,13 @@
+package com.horrorcore.metrics;
+
+import java.util.List;
+
+/**
+ * The state of the stall watchdog and its most recent reports.
+ */
+public interface WatchdogMXBean {
+    long getStallCount();
+    String getCurrentPhase();
+    long getMillisInCurrentPhase();
+    List<String> getRecentReports();
+}
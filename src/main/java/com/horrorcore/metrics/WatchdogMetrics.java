@@ -0,0 +1,38 @@
+package com.horrorcore.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class WatchdogMetrics implements WatchdogMXBean {
+    private final StallWatchdog watchdog;
+
+    WatchdogMetrics(StallWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public long getStallCount() {
+        return watchdog.getStallCount();
+    }
+
+    @Override
+    public String getCurrentPhase() {
+        TickTimer timer = watchdog.getTimer();
+        if (!timer.isTicking()) {
+            return "idle";
+        }
+        TickPhase phase = timer.getPhase();
+        return phase == null ? "between phases" : phase.getLabel();
+    }
+
+    @Override
+    public long getMillisInCurrentPhase() {
+        TickTimer timer = watchdog.getTimer();
+        return timer.isTicking() ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - timer.getSliceStartNanos()) : 0;
+    }
+
+    @Override
+    public List<String> getRecentReports() {
+        return watchdog.getReports().stream().map(StallReport::format).toList();
+    }
+}
@@ -0,0 +1,34 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reports a tick that published an unusually large number of simulation events,
+ * such as a war declaration cascading through every tribe or a plague over the population.
+ */
+@Name("digimon.EventBurst")
+@Label("Event Burst")
+@Category({"Digimon Simulator", "Events"})
+@Description("A tick that emitted more simulation events than the burst threshold")
+@StackTrace(false)
+public class EventBurstEvent extends Event {
+    @Label("Tick")
+    public int tick;
+
+    @Label("Events Emitted")
+    public long eventsEmitted;
+
+    @Label("Attacks")
+    public long attacks;
+
+    @Label("Deaths")
+    public long deaths;
+
+    @Label("Births")
+    public long births;
+}
@@ -0,0 +1,94 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts a flight recording of the simulation from within the application.
+ * The recording uses a JDK settings profile ({@code profile} unless overridden by the
+ * {@code digimon.jfr.settings} system property) with the simulation's own event settings from
+ * {@code jfr/digimon.jfc} layered on top, and is written to the file given by the
+ * {@code digimon.jfr.file} system property when the simulator shuts down.
+ */
+public class SimulationRecording {
+    private static final Logger LOGGER = Logger.getLogger(SimulationRecording.class.getName());
+    public static final String FILE_PROPERTY = "digimon.jfr.file";
+    public static final String SETTINGS_PROPERTY = "digimon.jfr.settings";
+    private static final String SIMULATION_SETTINGS = "/jfr/digimon.jfc";
+    private static Recording recording;
+
+    private SimulationRecording() {}
+
+    /**
+     * Starts the recording if a destination file is configured and no recording is running yet.
+     *
+     * @return true if the recording is running after the call.
+     */
+    public static synchronized boolean startIfConfigured() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (recording != null) {
+            return true;
+        }
+        if (file == null) {
+            return false;
+        }
+        try {
+            Recording started = new Recording(settings(System.getProperty(SETTINGS_PROPERTY, "profile")));
+            started.setName("digimon");
+            started.setToDisk(true);
+            started.setDestination(Path.of(file));
+            started.setDumpOnExit(true);
+            started.start();
+            recording = started;
+            LOGGER.info("Flight recording started, writing to " + file);
+            return true;
+        } catch (IOException | ParseException e) {
+            LOGGER.log(Level.WARNING, "Failed to start flight recording", e);
+            return false;
+        }
+    }
+
+    /**
+     * Merges a JDK settings profile with the simulation's event settings.
+     *
+     * @param profile The name of the JDK profile, such as {@code default} or {@code profile}.
+     * @return The combined event settings.
+     * @throws IOException    If a settings file cannot be read.
+     * @throws ParseException If a settings file is malformed.
+     */
+    public static Map<String, String> settings(String profile) throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(profile).getSettings());
+        try (InputStream in = SimulationRecording.class.getResourceAsStream(SIMULATION_SETTINGS)) {
+            if (in == null) {
+                throw new IOException("Missing " + SIMULATION_SETTINGS + " on the classpath");
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Stops the recording, which writes it to its destination file.
+     */
+    public static synchronized void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+            recording = null;
+        }
+    }
+}
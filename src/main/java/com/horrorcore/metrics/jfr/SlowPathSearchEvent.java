@@ -0,0 +1,40 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * An A* search on a sector grid that took longer than the configured threshold.
+ */
+@Name("digimon.SlowPathSearch")
+@Label("Slow Path Search")
+@Category({"Digimon Simulator", "Movement"})
+@Description("A path search that exceeded the threshold")
+@Threshold("2 ms")
+public class SlowPathSearchEvent extends Event {
+    @Label("Start X")
+    public int startX;
+
+    @Label("Start Y")
+    public int startY;
+
+    @Label("Goal X")
+    public int goalX;
+
+    @Label("Goal Y")
+    public int goalY;
+
+    @Label("Avoid Occupants")
+    public boolean avoidOccupants;
+
+    @Label("Nodes Expanded")
+    public int nodesExpanded;
+
+    @Label("Path Length")
+    @Description("Cells in the path found, or 0 if the goal was unreachable")
+    public int pathLength;
+}
@@ -0,0 +1,35 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans one whole simulation tick, from taking the world lock to notifying observers.
+ */
+@Name("digimon.Tick")
+@Label("Simulation Tick")
+@Category({"Digimon Simulator", "Tick"})
+@Description("One step of the simulation loop")
+@StackTrace(false)
+public class TickEvent extends Event {
+    @Label("Tick")
+    public int tick;
+
+    @Label("Population")
+    @Description("Digimon alive at the end of the tick")
+    public int population;
+
+    @Label("Tribes")
+    public int tribes;
+
+    @Label("Buildings")
+    public int buildings;
+
+    @Label("Events Emitted")
+    @Description("Simulation events published during the tick")
+    public long eventsEmitted;
+}
@@ -0,0 +1,30 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans one contiguous slice of a tick phase: one run of a scheduled system, or the playback of
+ * the structural changes it recorded, so a recording shows which system a stall happened in.
+ */
+@Name("digimon.TickPhase")
+@Label("Tick Phase")
+@Category({"Digimon Simulator", "Tick"})
+@Description("A slice of a simulation tick spent in one system")
+@StackTrace(false)
+public class TickPhaseEvent extends Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Sector")
+    @Description("The sector being simulated, or null for world-wide phases")
+    public String sector;
+
+    @Label("Entities")
+    @Description("Digimon in scope of the phase: the sector's population, or the whole world's")
+    public int entities;
+}
@@ -0,0 +1,29 @@
+package com.horrorcore.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Time spent waiting to acquire the world lock, recorded when it exceeds the configured threshold.
+ */
+@Name("digimon.WorldLockWait")
+@Label("World Lock Wait")
+@Category({"Digimon Simulator", "Locking"})
+@Description("A wait for the world lock that exceeded the threshold")
+@Threshold("10 ms")
+public class WorldLockWaitEvent extends Event {
+    @Label("Operation")
+    @Description("What the waiting thread wanted the lock for")
+    public String operation;
+
+    @Label("Write Lock")
+    public boolean write;
+
+    @Label("Acquired")
+    @Description("False if the wait timed out")
+    public boolean acquired;
+}
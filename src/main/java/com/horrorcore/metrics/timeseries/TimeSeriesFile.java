@@ -0,0 +1,268 @@
+package com.horrorcore.metrics.timeseries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A time-series file written by {@link TimeSeriesRecorder}, memory-mapped for reading.
+ *
+ * All numbers are little-endian. The file starts with a header:
+ * <pre>
+ * int32   magic "DGTS"
+ * int32   version (1)
+ * int32   header length in bytes
+ * int32   rows per block (B)
+ * int32   column count (C)
+ * C times int16 name length, UTF-8 name
+ * zero padding to a multiple of 8 bytes
+ * </pre>
+ * followed by blocks. A block holds an int32 row count (R), an int32 that is reserved, and then
+ * C columns of R int32 values each. Every block but the last is full, with R = B, so the value of
+ * column c in row r of a full block is found at
+ * {@code header + (r / B) * (8 + 4 * C * B) + 8 + 4 * (c * B + r % B)} without scanning the file.
+ * A last block cut short by a crash is ignored.
+ */
+public class TimeSeriesFile {
+    static final int MAGIC = 0x53544744; // "DGTS" read as a little-endian int
+    static final int VERSION = 1;
+    private static final int HEADER_PREFIX = 20;
+    private static final int BLOCK_PREFIX = 8;
+
+    private final List<String> columns;
+    private final int blockRows;
+    private final int blockBytes;
+    private final long fullBlocks;
+    private final int tailRows;
+    private final long rows;
+    // Each segment maps a whole number of full blocks, since one mapping cannot exceed 2 GB
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int blocksPerSegment;
+    private MappedByteBuffer tail;
+
+    private TimeSeriesFile(List<String> columns, int blockRows, long fullBlocks, int tailRows) {
+        this.columns = columns;
+        this.blockRows = blockRows;
+        this.blockBytes = blockBytes(columns.size(), blockRows);
+        this.fullBlocks = fullBlocks;
+        this.tailRows = tailRows;
+        this.rows = fullBlocks * blockRows + tailRows;
+        this.blocksPerSegment = Math.max(1, Integer.MAX_VALUE / blockBytes);
+    }
+
+    /**
+     * Maps a time-series file for reading.
+     *
+     * @param file The file to read.
+     * @return The mapped file.
+     * @throws IOException If the file cannot be read or is not a time-series file.
+     */
+    public static TimeSeriesFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer prefix = ByteBuffer.allocate(HEADER_PREFIX).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, prefix, 0);
+            if (prefix.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a time-series file");
+            }
+            if (prefix.getInt(4) != VERSION) {
+                throw new IOException("Unsupported time-series version " + prefix.getInt(4) + " in " + file);
+            }
+            int headerBytes = prefix.getInt(8);
+            int blockRows = prefix.getInt(12);
+            int columnCount = prefix.getInt(16);
+
+            ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.position(HEADER_PREFIX);
+            List<String> columns = new ArrayList<>();
+            for (int i = 0; i < columnCount; i++) {
+                byte[] name = new byte[header.getShort() & 0xFFFF];
+                header.get(name);
+                columns.add(new String(name, StandardCharsets.UTF_8));
+            }
+
+            int blockBytes = blockBytes(columnCount, blockRows);
+            long data = Math.max(0, size - headerBytes);
+            long fullBlocks = data / blockBytes;
+            long tailStart = headerBytes + fullBlocks * blockBytes;
+            int tailRows = 0;
+            if (data % blockBytes >= BLOCK_PREFIX) {
+                ByteBuffer rows = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, rows, tailStart);
+                int candidate = rows.getInt(0);
+                if (candidate > 0 && candidate < blockRows && data % blockBytes >= blockBytes(columnCount, candidate)) {
+                    tailRows = candidate;
+                }
+            }
+
+            TimeSeriesFile series = new TimeSeriesFile(List.copyOf(columns), blockRows, fullBlocks, tailRows);
+            for (long block = 0; block < fullBlocks; block += series.blocksPerSegment) {
+                long length = Math.min(series.blocksPerSegment, fullBlocks - block) * blockBytes;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, headerBytes + block * blockBytes, length);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                series.segments.add(segment);
+            }
+            if (tailRows > 0) {
+                series.tail = channel.map(FileChannel.MapMode.READ_ONLY, tailStart, blockBytes(columnCount, tailRows));
+                series.tail.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return series;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Time-series file ends early");
+            }
+        }
+    }
+
+    static int blockBytes(int columnCount, int blockRows) {
+        long bytes = BLOCK_PREFIX + 4L * columnCount * blockRows;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A block of " + columnCount + " columns by " + blockRows + " rows is too large");
+        }
+        return (int) bytes;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Encodes the header of a file with the given columns.
+     *
+     * @return The header, ready to be written.
+     */
+    static ByteBuffer encodeHeader(List<String> columns, int blockRows) {
+        List<byte[]> names = new ArrayList<>();
+        int length = HEADER_PREFIX;
+        for (String column : columns) {
+            byte[] name = column.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            length += 2 + name.length;
+        }
+        int headerBytes = (int) align(length);
+        ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(headerBytes).putInt(blockRows).putInt(columns.size());
+        for (byte[] name : names) {
+            header.putShort((short) name.length).put(name);
+        }
+        header.clear();
+        return header;
+    }
+
+    public List<String> getColumns() { return columns; }
+    public long getRowCount() { return rows; }
+
+    /**
+     * Returns the position of a column.
+     *
+     * @param name The column name.
+     * @return The column index, or -1 if the file has no such column.
+     */
+    public int getColumnIndex(String name) {
+        return columns.indexOf(name);
+    }
+
+    /**
+     * Reads one value.
+     *
+     * @param column The column index.
+     * @param row    The row, counted from the first recorded tick.
+     * @return The value.
+     */
+    public int getInt(int column, long row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+        long block = row / blockRows;
+        if (block == fullBlocks) {
+            return tail.getInt(BLOCK_PREFIX + 4 * (column * tailRows + (int) (row % blockRows)));
+        }
+        MappedByteBuffer segment = segments.get((int) (block / blocksPerSegment));
+        int offset = (int) (block % blocksPerSegment) * blockBytes
+                + BLOCK_PREFIX + 4 * (column * blockRows + (int) (row % blockRows));
+        return segment.getInt(offset);
+    }
+
+    /**
+     * Copies a whole column into an array.
+     *
+     * @param name The column name.
+     * @return The column's values, one per row.
+     */
+    public int[] readColumn(String name) {
+        int column = getColumnIndex(name);
+        if (column < 0) {
+            throw new IllegalArgumentException("No column " + name);
+        }
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many rows to copy into an array: " + rows);
+        }
+        int[] values = new int[(int) rows];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = getInt(column, row);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the file as CSV, with a header line of column names and one line per row.
+     *
+     * @param out Where to write the CSV.
+     * @throws IOException If writing fails.
+     */
+    public void exportCsv(Writer out) throws IOException {
+        out.write(String.join(",", columns));
+        out.write('\n');
+        StringBuilder line = new StringBuilder();
+        for (long row = 0; row < rows; row++) {
+            line.setLength(0);
+            for (int column = 0; column < columns.size(); column++) {
+                if (column > 0) {
+                    line.append(',');
+                }
+                line.append(getInt(column, row));
+            }
+            line.append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    /**
+     * Converts a time-series file to CSV.
+     * <pre>
+     * java -cp digimon-simulator.jar com.horrorcore.metrics.timeseries.TimeSeriesFile run.dgts [run.csv]
+     * </pre>
+     * Without an output file the CSV is written to standard output.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TimeSeriesFile <file.dgts> [out.csv]");
+            System.exit(2);
+        }
+        TimeSeriesFile series = open(Path.of(args[0]));
+        if (args.length > 1) {
+            try (Writer out = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+                series.exportCsv(out);
+            }
+        } else {
+            series.exportCsv(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        }
+    }
+}
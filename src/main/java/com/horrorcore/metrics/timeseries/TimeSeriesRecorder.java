@@ -0,0 +1,365 @@
+package com.horrorcore.metrics.timeseries;
+
+import com.horrorcore.World;
+import com.horrorcore.entity.CelestialDigimon;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.tech.TechnologySystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records per-tick aggregates of one world into a columnar time-series file.
+ * Every {@link #sample(World) sample} writes one row of 32-bit integers into preallocated column
+ * buffers; when a block of {@link #DEFAULT_BLOCK_ROWS} rows is full it is handed to a background
+ * writer thread and sampling continues in a recycled block, so the ticking thread never waits on I/O
+ * and the buffers are reused for the whole run.
+ *
+ * The columns are fixed when the recorder is created: the tick, the population by stage and by
+ * sector, tribe counts, sizes and stockpiles, the highest technology levels, and the births,
+ * deaths, rebirths, attacks and moves of the tick. The counts of events are taken from the
+ * world's own {@link com.horrorcore.SimulationContext#getCount counters}, so recording one of
+ * several worlds running side by side is not skewed by the others. The file layout is described
+ * in {@link TimeSeriesFile}, which also reads it back.
+ *
+ * A recorder is driven by the thread that ticks its world. Setting the {@code digimon.timeseries.file}
+ * system property records the interactive world.
+ */
+public class TimeSeriesRecorder implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(TimeSeriesRecorder.class.getName());
+    public static final String FILE_PROPERTY = "digimon.timeseries.file";
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+    // Blocks allocated up front; more are only allocated when the writer falls behind
+    private static final int POOLED_BLOCKS = 3;
+    private static final String[] STAGES = {"Fresh", "In-Training", "Rookie", "Champion", "Ultimate", "Mega"};
+    private static final String[] TECHNOLOGIES = {"Agriculture", "Construction", "Military", "Science"};
+    private static final SimulationCounter[] COUNTERS = {
+            SimulationCounter.BIRTHS, SimulationCounter.DEATHS, SimulationCounter.REBIRTHS,
+            SimulationCounter.ATTACKS, SimulationCounter.MOVES};
+    private static final Block END_OF_STREAM = new Block(0, 0);
+
+    private final List<String> columns = new ArrayList<>();
+    private final List<String> sectorNames = new ArrayList<>();
+    private final int blockRows;
+    private final FileChannel channel;
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(POOLED_BLOCKS);
+    private final BlockingQueue<Block> filled = new LinkedBlockingQueue<>();
+    private final long[] countsAtLastSample = new long[COUNTERS.length];
+    private final int[] technologyLevels = new int[TECHNOLOGIES.length];
+    private final Thread writer;
+    private final int tickColumn;
+    private final int populationColumn;
+    private final int stageColumns;
+    private final int celestialColumn;
+    private final int otherStageColumn;
+    private final int sectorColumns;
+    private final int tribeColumns;
+    private final int technologyColumns;
+    private final int counterColumns;
+    private Block current;
+    private int lastTick = -1;
+    private long rows;
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Starts recording a world with the default block size.
+     *
+     * @param world The world to record, which must be initialized so that its sectors are known.
+     * @param file  The file to write, replaced if it exists.
+     * @throws IOException If the file cannot be created.
+     */
+    public TimeSeriesRecorder(World world, Path file) throws IOException {
+        this(world, file, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Starts recording a world.
+     *
+     * @param world     The world to record, which must be initialized so that its sectors are known.
+     * @param file      The file to write, replaced if it exists.
+     * @param blockRows The number of ticks buffered before a block is written.
+     * @throws IOException If the file cannot be created.
+     */
+    public TimeSeriesRecorder(World world, Path file, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Blocks must hold at least one row: " + blockRows);
+        }
+        this.blockRows = blockRows;
+
+        tickColumn = column("tick");
+        populationColumn = column("population");
+        stageColumns = columns.size();
+        for (String stage : STAGES) {
+            column("population.stage." + stage);
+        }
+        celestialColumn = column("population.stage.Celestial");
+        otherStageColumn = column("population.stage.Other");
+        sectorColumns = columns.size();
+        for (Sector sector : world.getSectors()) {
+            sectorNames.add(sector.getName());
+            column("population.sector." + sector.getName());
+        }
+        tribeColumns = columns.size();
+        for (String name : new String[]{"tribes", "tribe.members.total", "tribe.members.max",
+                "tribe.food.total", "tribe.military.total", "tribe.research.total", "buildings"}) {
+            column(name);
+        }
+        technologyColumns = columns.size();
+        column("tech.age");
+        for (String technology : TECHNOLOGIES) {
+            column("tech." + technology + ".max");
+        }
+        counterColumns = columns.size();
+        for (int i = 0; i < COUNTERS.length; i++) {
+            column(COUNTERS[i].name().toLowerCase(Locale.ROOT));
+            countsAtLastSample[i] = world.getContext().getCount(COUNTERS[i]);
+        }
+
+        for (int i = 0; i < POOLED_BLOCKS; i++) {
+            free.add(new Block(columns.size(), blockRows));
+        }
+        current = free.poll();
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = TimeSeriesFile.encodeHeader(columns, blockRows);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        writer = new Thread(this::writeBlocks, "timeseries-writer");
+        writer.setDaemon(true);
+        writer.start();
+        LOGGER.info("Recording " + columns.size() + " columns to " + file);
+    }
+
+    /**
+     * Starts recording the given world if the {@code digimon.timeseries.file} system property names a file.
+     *
+     * @param world The initialized world to record.
+     * @return The recorder, already attached to the world, or null if none is configured or it failed to start.
+     */
+    public static TimeSeriesRecorder startIfConfigured(World world) {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null) {
+            return null;
+        }
+        try {
+            TimeSeriesRecorder recorder = new TimeSeriesRecorder(world, Path.of(file));
+            world.setTimeSeriesRecorder(recorder);
+            return recorder;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to start the time-series recorder", e);
+            return null;
+        }
+    }
+
+    private int column(String name) {
+        columns.add(name);
+        return columns.size() - 1;
+    }
+
+    /**
+     * Records one row for the world's current tick. A tick that was already sampled is not recorded again.
+     *
+     * @param world The recorded world, at the end of a tick.
+     */
+    public void sample(World world) {
+        if (closed || world.getTime() == lastTick) {
+            return;
+        }
+        lastTick = world.getTime();
+        int[][] values = current.columns;
+        int row = current.rows;
+
+        values[tickColumn][row] = lastTick;
+        for (int i = stageColumns; i < tribeColumns; i++) {
+            values[i][row] = 0;
+        }
+        int population = 0;
+        for (Sector sector : world.getSectors()) {
+            List<Digimon> digimons = sector.getDigimons();
+            population += digimons.size();
+            int sectorIndex = sectorNames.indexOf(sector.getName());
+            if (sectorIndex >= 0) {
+                values[sectorColumns + sectorIndex][row] = digimons.size();
+            }
+            for (Digimon digimon : digimons) {
+                values[stageColumn(digimon)][row]++;
+            }
+        }
+        values[populationColumn][row] = population;
+
+        int members = 0, largest = 0, food = 0, military = 0, research = 0;
+        int[] technologies = technologyLevels;
+        Arrays.fill(technologies, 0);
+        for (Tribe tribe : world.getTribes()) {
+            int size = tribe.getMembers().size();
+            members += size;
+            largest = Math.max(largest, size);
+            food += tribe.getTotalFood();
+            military += tribe.getMilitaryStrength();
+            research += tribe.getResearchPoints();
+            TechnologySystem technology = tribe.getTechnologySystem();
+            for (int i = 0; i < TECHNOLOGIES.length; i++) {
+                technologies[i] = Math.max(technologies[i], technology.getTechnologyLevel(TECHNOLOGIES[i]));
+            }
+        }
+        values[tribeColumns][row] = world.getTribes().size();
+        values[tribeColumns + 1][row] = members;
+        values[tribeColumns + 2][row] = largest;
+        values[tribeColumns + 3][row] = food;
+        values[tribeColumns + 4][row] = military;
+        values[tribeColumns + 5][row] = research;
+        values[tribeColumns + 6][row] = world.getBuildings();
+
+        values[technologyColumns][row] = world.getTechnologySystem().getCurrentAgeIndex();
+        for (int i = 0; i < TECHNOLOGIES.length; i++) {
+            values[technologyColumns + 1 + i][row] = technologies[i];
+        }
+
+        for (int i = 0; i < COUNTERS.length; i++) {
+            long count = world.getContext().getCount(COUNTERS[i]);
+            values[counterColumns + i][row] = (int) (count - countsAtLastSample[i]);
+            countsAtLastSample[i] = count;
+        }
+
+        rows++;
+        if (++current.rows == blockRows) {
+            submitCurrent();
+        }
+    }
+
+    private int stageColumn(Digimon digimon) {
+        if (digimon instanceof CelestialDigimon) {
+            return celestialColumn;
+        }
+        String stage = digimon.getStage();
+        for (int i = 0; i < STAGES.length; i++) {
+            if (STAGES[i].equals(stage)) {
+                return stageColumns + i;
+            }
+        }
+        return otherStageColumn;
+    }
+
+    private void submitCurrent() {
+        filled.add(current);
+        Block next = free.poll();
+        current = next != null ? next : new Block(columns.size(), blockRows);
+    }
+
+    private void writeBlocks() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TimeSeriesFile.blockBytes(columns.size(), blockRows))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (true) {
+                Block block = filled.take();
+                if (block == END_OF_STREAM) {
+                    return;
+                }
+                if (failure == null) {
+                    try {
+                        block.encode(buffer);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    } catch (IOException e) {
+                        LOGGER.log(Level.SEVERE, "Time-series recording failed; later samples are dropped", e);
+                        failure = e;
+                    }
+                }
+                block.rows = 0;
+                free.offer(block);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public List<String> getColumns() { return List.copyOf(columns); }
+
+    /**
+     * Returns the number of rows sampled so far, including rows still buffered.
+     */
+    public long getRows() { return rows; }
+
+    /**
+     * Writes the buffered rows, waits for the writer to finish and closes the file.
+     * Must be called by the thread that samples, or after it stopped.
+     *
+     * @throws IOException If any block could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current.rows > 0) {
+            filled.add(current);
+        }
+        filled.add(END_OF_STREAM);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        LOGGER.info("Recorded " + rows + " ticks");
+    }
+
+    /**
+     * One block of rows, stored column by column.
+     */
+    private static class Block {
+        final int[][] columns;
+        int rows;
+
+        Block(int columnCount, int blockRows) {
+            columns = new int[columnCount][blockRows];
+        }
+
+        /**
+         * Lays the block out as in the file: the row count, a reserved word, then every column's rows.
+         * Only the last block of a file is ever written with fewer rows than a block holds.
+         */
+        void encode(ByteBuffer buffer) {
+            buffer.clear();
+            buffer.putInt(rows);
+            buffer.putInt(0);
+            IntBuffer ints = buffer.asIntBuffer();
+            for (int[] column : columns) {
+                ints.put(column, 0, rows);
+            }
+            buffer.position(0).limit(TimeSeriesFile.blockBytes(columns.length, rows));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.horrorcore.snapshot;
+
+import com.horrorcore.World;
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.CelestialDigimon;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.grid.HeatMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable copy of everything a viewer shows of a world, taken at the end of a tick.
+ * The ticking thread captures a snapshot while it still holds the world lock and publishes it
+ * through {@link World#getSnapshot()}, so readers on other threads never touch live entities.
+ *
+ * Snapshots are numbered by a version that increases by one per capture. Terrain is copied into
+ * one byte per cell only when a sector's terrain version changed since the previous snapshot;
+ * otherwise the previous snapshot's cell array is shared, so consumers can compare the arrays
+ * by identity to find the sectors whose cells changed.
+ *
+ * @param version   The capture number, starting at 1 for the first snapshot of a world.
+ * @param tick      The tick the snapshot was taken at.
+ * @param age       The index of the world's technological age.
+ * @param buildings The number of buildings in the world.
+ * @param sectors   The sectors, in world order.
+ * @param tribes    The tribes, ordered by id.
+ */
+public record WorldSnapshot(long version, int tick, int age, int buildings, List<SectorView> sectors,
+                            List<TribeView> tribes) {
+    private static final Comparator<EntityView> BY_ID = Comparator.comparingLong(EntityView::id);
+    private static final GridCell.CellType[] CELL_TYPES = GridCell.CellType.values();
+    private static final Building.BuildingType[] BUILDING_TYPES = Building.BuildingType.values();
+
+    /**
+     * The state of one sector.
+     *
+     * @param name            The sector name.
+     * @param width           The grid width.
+     * @param height          The grid height.
+     * @param terrainVersion  The grid's terrain version the cells were copied at.
+     * @param cells           One {@link #cellCode cell code} per cell, row by row. Must not be modified.
+     * @param entities        The Digimon in the sector, ordered by id.
+     * @param heat            The sector's heat map overlays.
+     */
+    public record SectorView(String name, int width, int height, long terrainVersion, byte[] cells,
+                             List<EntityView> entities, HeatView heat) {}
+
+    /**
+     * The overlays of a sector's {@link HeatMap}, one entry per tile, row by row. The arrays must not be modified.
+     *
+     * @param tileSize  The width and height of a tile in cells.
+     * @param columns   The tiles per row.
+     * @param rows      The rows of tiles.
+     * @param occupancy The occupancy levels, as unsigned bytes quantized by {@link HeatMap#capture}.
+     * @param attacks   The attack levels, likewise.
+     * @param deaths    The death levels, likewise.
+     * @param territory The id of the tribe owning each tile, or 0.
+     */
+    public record HeatView(int tileSize, int columns, int rows, byte[] occupancy, byte[] attacks, byte[] deaths,
+                           int[] territory) {
+        /**
+         * Copies the overlays of a heat map at its current tick.
+         */
+        public static HeatView of(HeatMap heatMap) {
+            return new HeatView(heatMap.getTileSize(), heatMap.getColumns(), heatMap.getRows(),
+                    heatMap.capture(HeatMap.Layer.OCCUPANCY), heatMap.capture(HeatMap.Layer.ATTACKS),
+                    heatMap.capture(HeatMap.Layer.DEATHS), heatMap.captureOwners());
+        }
+    }
+
+    /**
+     * The state of one Digimon.
+     *
+     * @param x          The grid column, or -1 if the Digimon has no cell.
+     * @param y          The grid row, or -1 if the Digimon has no cell.
+     * @param tribe      The id of the Digimon's tribe, or 0 if it has none.
+     * @param profession The profession held in the tribe, or null.
+     */
+    public record EntityView(long id, String name, String stage, int x, int y, int health, int age,
+                             int hunger, int aggression, int tribe, String profession, boolean celestial) {}
+
+    /**
+     * The state of one tribe.
+     *
+     * @param leader The name of the tribe's leader, or null.
+     * @param age    The index of the tribe's technological age.
+     */
+    public record TribeView(int id, String name, String leader, int members, int food, int military, int research,
+                            int buildings, int age) {}
+
+    /**
+     * Encodes a cell: the cell type in the low two bits and, above them, the building type plus one, or 0 without a building.
+     *
+     * @param cell The cell.
+     * @return The cell code.
+     */
+    public static byte cellCode(GridCell cell) {
+        Building building = cell.getBuilding();
+        int code = cell.getType().ordinal();
+        if (building != null) {
+            code |= (building.getType().ordinal() + 1) << 2;
+        }
+        return (byte) code;
+    }
+
+    /**
+     * Decodes the cell type of a {@link #cellCode cell code}.
+     */
+    public static GridCell.CellType cellType(byte code) {
+        return CELL_TYPES[code & 3];
+    }
+
+    /**
+     * Decodes the building type of a {@link #cellCode cell code}.
+     *
+     * @return The building type, or null if the cell has no building.
+     */
+    public static Building.BuildingType buildingType(byte code) {
+        int building = (code & 0xff) >> 2;
+        return building == 0 ? null : BUILDING_TYPES[building - 1];
+    }
+
+    /**
+     * Copies the state of a world. Must be called by the thread that ticks the world, between ticks or at the end of one.
+     *
+     * @param world    The world.
+     * @param previous The world's previous snapshot, whose unchanged cell arrays are reused, or null.
+     * @return The new snapshot.
+     */
+    public static WorldSnapshot capture(World world, WorldSnapshot previous) {
+        List<Sector> sectors = world.getSectors();
+        List<SectorView> sectorViews = new ArrayList<>(sectors.size());
+        for (int s = 0; s < sectors.size(); s++) {
+            Sector sector = sectors.get(s);
+            Grid grid = sector.getGrid();
+            SectorView before = previous != null && s < previous.sectors.size() ? previous.sectors.get(s) : null;
+            byte[] cells;
+            if (before != null && before.name.equals(sector.getName()) && before.terrainVersion == grid.getTerrainVersion()) {
+                cells = before.cells;
+            } else {
+                cells = new byte[grid.getWidth() * grid.getHeight()];
+                for (int y = 0; y < grid.getHeight(); y++) {
+                    for (int x = 0; x < grid.getWidth(); x++) {
+                        cells[y * grid.getWidth() + x] = cellCode(grid.getCell(x, y));
+                    }
+                }
+            }
+
+            List<Digimon> digimons = sector.getDigimons();
+            EntityView[] entities = new EntityView[digimons.size()];
+            for (int i = 0; i < entities.length; i++) {
+                Digimon digimon = digimons.get(i);
+                GridCell cell = grid.locate(digimon);
+                Tribe tribe = digimon.getTribe();
+                entities[i] = new EntityView(digimon.getId(), digimon.getName(), digimon.getStage(),
+                        cell != null ? cell.getX() : -1, cell != null ? cell.getY() : -1,
+                        digimon.getHealth(), digimon.getAge(), digimon.getHunger(), digimon.getAggression(),
+                        tribe != null ? tribe.getId() : 0, digimon.getProfession(), digimon instanceof CelestialDigimon);
+            }
+            Arrays.sort(entities, BY_ID);
+            sectorViews.add(new SectorView(sector.getName(), grid.getWidth(), grid.getHeight(),
+                    grid.getTerrainVersion(), cells, List.of(entities), HeatView.of(grid.getHeatMap())));
+        }
+
+        List<TribeView> tribes = new ArrayList<>();
+        for (Tribe tribe : world.getTribes()) {
+            Digimon leader = tribe.getLeader();
+            tribes.add(new TribeView(tribe.getId(), tribe.getName(), leader != null ? leader.getName() : null,
+                    tribe.getMembers().size(), tribe.getTotalFood(),
+                    tribe.getMilitaryStrength(), tribe.getResearchPoints(), world.getBuildingIndex().count(tribe),
+                    tribe.getTechnologySystem().getCurrentAgeIndex()));
+        }
+        tribes.sort(Comparator.comparingInt(TribeView::id));
+
+        long version = previous != null ? previous.version + 1 : 1;
+        return new WorldSnapshot(version, world.getTime(), world.getTechnologySystem().getCurrentAgeIndex(),
+                world.getBuildings(), List.copyOf(sectorViews), List.copyOf(tribes));
+    }
+
+    /**
+     * Returns the index of a sector by name.
+     *
+     * @return The index, or -1 if the snapshot has no such sector.
+     */
+    public int sectorIndex(String name) {
+        for (int i = 0; i < sectors.size(); i++) {
+            if (sectors.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
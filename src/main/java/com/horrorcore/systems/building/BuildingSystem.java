@@ -2,25 +2,35 @@ package com.horrorcore.systems.building;
 
 import com.horrorcore.World;
 import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Sector;
 import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.CellMasks;
 import com.horrorcore.grid.Grid;
 import com.horrorcore.grid.GridCell;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
 public class BuildingSystem {
     /**
      * Attempts to build a city for a tribe in their current sector.
      * This method will try to place a city center and surrounding buildings
-     * in a valid configuration within the sector's grid.
+     * in a valid configuration within the sector's grid. The city center is placed once the
+     * current system is done; only then are the surrounding buildings fitted around it.
      *
-     * @param tribe The tribe building the city
-     * @param world The current world instance
-     * @return boolean indicating if city was successfully built
+     * @param tribe   The tribe building the city
+     * @param world   The current world instance
+     * @param onBuilt Run once the city center and its surrounding buildings were placed; not run
+     *                if the city center was skipped because something else took its site
+     * @return boolean indicating if a site for the city was found
      */
-    public static boolean buildCity(Tribe tribe, World world) {
+    public static boolean buildCity(Tribe tribe, World world, Runnable onBuilt) {
         // Find the sector where the tribe's leader is
+        Digimon leader = tribe.getLeader();
+        if (leader == null) {
+            return false;
+        }
         Sector tribeSector = world.getSectors().stream()
-                .filter(sector -> sector.getDigimons().contains(tribe.getLeader()))
+                .filter(sector -> sector.contains(leader))
                 .findFirst()
                 .orElse(null);
 
@@ -30,62 +40,89 @@ public class BuildingSystem {
 
         Grid grid = tribeSector.getGrid();
 
-        // Find a suitable location for the city center
-        BuildingLocation cityCenter = findBuildingLocation(grid, Building.BuildingType.CITY_CENTER);
+        // Find a suitable location for the city center, as close to the leader as possible
+        GridCell leaderCell = grid.locate(leader);
+        BuildingLocation near = leaderCell != null
+                ? new BuildingLocation(leaderCell.getX(), leaderCell.getY())
+                : new BuildingLocation(grid.getWidth() / 2, grid.getHeight() / 2);
+        BuildingLocation cityCenter = findBuildingLocationNear(grid, Building.BuildingType.CITY_CENTER, near);
         if (cityCenter == null) {
             return false;
         }
 
-        // Place the city center
+        // Place the city center. Buildings are placed once the current system is done, and skipped
+        // if something else took their place by then
         Building cityCenterBuilding = new Building(Building.BuildingType.CITY_CENTER, tribe,
                 cityCenter.x(), cityCenter.y());
-        if (!tribeSector.placeBuilding(cityCenterBuilding, cityCenter.x(), cityCenter.y())) {
-            return false;
-        }
-
-        // Try to place surrounding buildings
-        placeAdjacentBuildings(tribeSector, tribe, cityCenter);
+        CommandBuffer.current().placeBuilding(tribeSector, cityCenterBuilding, () -> {
+            // Try to place surrounding buildings, checked against the grid with the city center in place
+            placeAdjacentBuildings(tribeSector, tribe, cityCenter);
+            onBuilt.run();
+        });
 
         return true;
     }
 
     private static void placeAdjacentBuildings(Sector sector, Tribe tribe, BuildingLocation cityCenter) {
-        // Attempt to place different building types around the city center
+        // Place each building type on the free site closest to the city center
         Building.BuildingType[] buildingTypes = {
                 Building.BuildingType.HOUSE,
                 Building.BuildingType.FARM,
                 Building.BuildingType.BARRACKS
         };
 
-        int[][] offsets = {
-                {-2, -2}, {-2, 2}, {2, -2}, {2, 2},  // Corner buildings
-                {0, -3}, {0, 3}, {-3, 0}, {3, 0}     // Cardinal direction buildings
-        };
-
-        for (int i = 0; i < offsets.length && i < buildingTypes.length; i++) {
-            int newX = cityCenter.x() + offsets[i][0];
-            int newY = cityCenter.y() + offsets[i][1];
-
-            if (isValidBuildingLocation(sector.getGrid(), newX, newY, buildingTypes[i % buildingTypes.length])) {
-                Building building = new Building(buildingTypes[i % buildingTypes.length],
-                        tribe, newX, newY);
-                sector.placeBuilding(building, newX, newY);
+        for (Building.BuildingType type : buildingTypes) {
+            BuildingLocation site = findBuildingLocationNear(sector.getGrid(), type, cityCenter);
+            if (site != null) {
+                // Run once the city center is in place, so each building is placed before the next site is searched
+                CommandBuffer.current().placeBuilding(sector, new Building(type, tribe, site.x(), site.y()));
             }
         }
     }
 
-    private static BuildingLocation findBuildingLocation(Grid grid, Building.BuildingType type) {
-        int radius = type.getRadius();
-
-        // Search for a suitable location
-        for (int x = radius; x < grid.getWidth() - radius; x++) {
-            for (int y = radius; y < grid.getHeight() - radius; y++) {
-                if (isValidBuildingLocation(grid, x, y, type)) {
-                    return new BuildingLocation(x, y);
+    /**
+     * Finds the valid building location closest to a point.
+     * Candidates are visited along the outlines of rings of growing Chebyshev distance around
+     * the point, keeping the one with the smallest Euclidean distance. Every cell of ring r is
+     * at least r away, so the search stops at the first ring farther out than the best candidate.
+     * Each candidate is checked in constant time against the grid's summed-area tables.
+     *
+     * @param grid The grid to search.
+     * @param type The type of building to place.
+     * @param near The point the building should be as close to as possible.
+     * @return The closest valid location, or null if the grid has none.
+     */
+    public static BuildingLocation findBuildingLocationNear(Grid grid, Building.BuildingType type,
+                                                            BuildingLocation near) {
+        int maxRing = Math.max(grid.getWidth(), grid.getHeight());
+        BuildingLocation best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing && ring * ring <= bestDistance; ring++) {
+            // Walk the outline clockwise, one side of 2 * ring cells at a time
+            int outline = ring == 0 ? 1 : 8 * ring;
+            for (int k = 0; k < outline; k++) {
+                int side = ring == 0 ? 0 : k / (2 * ring);
+                int step = ring == 0 ? 0 : k % (2 * ring);
+                int dx = switch (side) {
+                    case 0 -> step - ring;
+                    case 1 -> ring;
+                    case 2 -> ring - step;
+                    default -> -ring;
+                };
+                int dy = switch (side) {
+                    case 0 -> -ring;
+                    case 1 -> step - ring;
+                    case 2 -> ring;
+                    default -> ring - step;
+                };
+                int distance = dx * dx + dy * dy;
+                if (distance < bestDistance && isValidBuildingLocation(grid, near.x() + dx, near.y() + dy, type)) {
+                    best = new BuildingLocation(near.x() + dx, near.y() + dy);
+                    bestDistance = distance;
                 }
             }
         }
-        return null;
+        return best;
     }
 
     private static boolean isValidBuildingLocation(Grid grid, int x, int y, Building.BuildingType type) {
@@ -97,23 +134,7 @@ public class BuildingSystem {
             return false;
         }
 
-        // Check the building area and surrounding cells
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dy = -radius; dy <= radius; dy++) {
-                int checkX = x + dx;
-                int checkY = y + dy;
-
-                GridCell cell = grid.getCell(checkX, checkY);
-                if (cell == null ||
-                        cell.getType() == GridCell.CellType.BLOCKED ||
-                        cell.getType() == GridCell.CellType.BORDER ||
-                        cell.getBuilding() != null ||
-                        cell.getOccupant() != null) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        // The building area and surrounding cells must be free of terrain, buildings and occupants
+        return grid.getMasks().isSquareClear(CellMasks.ALL, x, y, radius);
     }
 }
@@ -0,0 +1,65 @@
+package com.horrorcore.systems.celestial;
+
+import com.horrorcore.SimulationContext;
+import com.horrorcore.ecs.Archetype;
+import com.horrorcore.ecs.Component;
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.systems.events.SimulationEvent;
+
+import java.util.Random;
+
+public class CelestialAuraSystem {
+    /**
+     * Lets every placed Celestial, with the world's celestial help chance, either feed or heal the Digimon
+     * of its sector, itself included, like {@link com.horrorcore.entity.CelestialDigimon#provideFood} and
+     * {@link com.horrorcore.entity.CelestialDigimon#heal} do. The Celestials are found through their aura,
+     * and their help is applied in one pass over the vitals and positions of the world's entities.
+     *
+     * @param context The context of the world the Celestials live in.
+     */
+    public static void help(SimulationContext context) {
+        EntityStore entities = context.getEntities();
+        Random random = context.getRandom();
+        double chance = context.getParameters().celestialHelpChance();
+        int[] feedings = new int[entities.getSectorSlots()];
+        int[] healings = new int[entities.getSectorSlots()];
+        boolean helped = false;
+
+        for (Archetype celestials : entities.query(Component.AURA, Component.POSITION)) {
+            int[] sector = celestials.ints(Component.POSITION, Component.SECTOR);
+            for (int row = 0; row < celestials.size(); row++) {
+                if (random.nextDouble() >= chance) {
+                    continue;
+                }
+                String name = ((Digimon) celestials.owner(row)).getName();
+                if (random.nextDouble() < 0.5) {
+                    feedings[sector[row]]++;
+                    context.getEvents().notifyEvent(name + " has provided food to nearby Digimon", SimulationEvent.EventType.OTHER);
+                } else {
+                    healings[sector[row]]++;
+                    context.getEvents().notifyEvent(name + " has healed nearby Digimon", SimulationEvent.EventType.OTHER);
+                }
+                helped = true;
+            }
+        }
+        if (!helped) {
+            return;
+        }
+
+        for (Archetype archetype : entities.query(Component.VITALS, Component.POSITION)) {
+            int[] sector = archetype.ints(Component.POSITION, Component.SECTOR);
+            int[] hunger = archetype.ints(Component.VITALS, Component.HUNGER);
+            int[] health = archetype.ints(Component.VITALS, Component.HEALTH);
+            for (int row = 0; row < archetype.size(); row++) {
+                int slot = sector[row];
+                for (int i = 0; i < feedings[slot]; i++) {
+                    hunger[row] = Math.max(0, hunger[row] - 30);
+                }
+                for (int i = 0; i < healings[slot]; i++) {
+                    health[row] = Math.min(100, health[row] + 20);
+                }
+            }
+        }
+    }
+}
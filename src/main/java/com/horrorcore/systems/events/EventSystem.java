@@ -2,8 +2,10 @@ package com.horrorcore.systems.events;
 
 import com.horrorcore.*;
 import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
 import com.horrorcore.entity.Tribe;
 import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
 import java.util.List;
 import java.util.Random;
@@ -20,42 +22,43 @@ public class EventSystem {
         "Food Shortage", "Plague", "Storm", "Earthquake", "Mass Birth"
     };
 
-    public static Random random = new Random();
-
     /**
      * Triggers a random event in the Digimon world, which can be political, natural, or healing.
      * The event is chosen randomly and its effects are applied to the Digimon and tribes.
      *
-     * @param world using the current state of the Digimon world.
+     * @param context The context of the world the event happens in.
      */
-    public static void triggerRandomEvent(World world) {
+    public static void triggerRandomEvent(SimulationContext context) {
+        World world = context.getWorld();
+        Random random = context.getRandom();
+        SimulationSubject events = context.getEvents();
         int eventType = random.nextInt(3); // 0: Political, 1: Natural, 2: Healing
 
         switch (eventType) {
             case 0:
-                if (world.getTribes().size() >= 2 && Math.random() < 0.1) {
+                if (world.getTribes().size() >= 2 && random.nextDouble() < 0.1) {
                     String politicalEvent = POLITICAL_EVENTS[random.nextInt(POLITICAL_EVENTS.length)];
-                    SimulationSubject.getInstance().notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
-                    handlePoliticalEvent(world, politicalEvent);
+                    events.notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
+                    handlePoliticalEvent(context, politicalEvent);
                     break;
                 } else if (random.nextBoolean() && random.nextInt(10) % ((random.nextInt(10) + 1)) == 0) {
                     String politicalEvent = "Form New Tribe";
-                    SimulationSubject.getInstance().notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
-                    handlePoliticalEvent(world, politicalEvent);
+                    events.notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
+                    handlePoliticalEvent(context, politicalEvent);
                     break;
                 } else if (random.nextBoolean() && world.getTribes().size() > 1) {
                     String politicalEvent = "Convert Digimon";
-                    SimulationSubject.getInstance().notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
-                    handlePoliticalEvent(world, politicalEvent);
+                    events.notifyEvent("Political Event: " + politicalEvent, SimulationEvent.EventType.POLITICAL);
+                    handlePoliticalEvent(context, politicalEvent);
                     break;
                 }
             case 1:
                 String naturalEvent = NATURAL_EVENTS[random.nextInt(NATURAL_EVENTS.length)];
-                SimulationSubject.getInstance().notifyEvent("Natural Event: " + naturalEvent, SimulationEvent.EventType.OTHER);
-                handleNaturalEvent(world, naturalEvent);
+                events.notifyEvent("Natural Event: " + naturalEvent, SimulationEvent.EventType.OTHER);
+                handleNaturalEvent(context, naturalEvent);
                 break;
             case 2:
-                SimulationSubject.getInstance().notifyEvent("Healing Event: A mysterious force heals all Digimon!", SimulationEvent.EventType.OTHER);
+                events.notifyEvent("Healing Event: A mysterious force heals all Digimon!", SimulationEvent.EventType.OTHER);
                 world.getSectors().stream()
                         .flatMap(sector -> sector.getDigimons().stream())
                         .forEach(digimon -> digimon.setHealth(100));
@@ -69,13 +72,15 @@ public class EventSystem {
      * declaring war, making trade agreements, and more. Each event type has its own set of
      * effects on the tribes and their member Digimon.
      *
-     * @param world Current instance of the Digimon world.
+     * @param context The context of the world the event happens in.
      * @param event A string representing the type of political event to be handled. Valid
      *              events include "Alliance Formed", "War Declared", "Trade Agreement",
      *              "Cultural Exchange", "Diplomatic Mission", "Espionage", "Convert Digimon",
      *              and "Make Peace".
      */
-    private static void handlePoliticalEvent(World world, String event) {
+    private static void handlePoliticalEvent(SimulationContext context, String event) {
+        World world = context.getWorld();
+        SimulationSubject events = context.getEvents();
         Set<Tribe> tribes = world.getTribes();
 
         switch (event) {
@@ -84,7 +89,7 @@ public class EventSystem {
                 if (tribes.size() >= 2) {
                     Tribe tribeA = tribes.stream().findFirst().get();
                     Tribe tribeB = tribes.stream().filter(t -> t != tribeA).findFirst().get();
-                    Politics.formAlliance(tribeA, tribeB);
+                    context.getPolitics().formAlliance(tribeA, tribeB);
                     final Tribe finalTribeA = tribeA;
                     final Tribe finalTribeB = tribeB;
                     world.getSectors().stream()
@@ -104,7 +109,7 @@ public class EventSystem {
                 if (tribes.size() >= 2) {
                     Tribe tribeA = tribes.stream().findFirst().get();
                     Tribe tribeB = tribes.stream().filter(t -> t != tribeA).findFirst().get();
-                    SimulationSubject.getInstance().notifyEvent("Trade agreement formed between " + tribeA.getName() + " and " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
+                    events.notifyEvent("Trade agreement formed between " + tribeA.getName() + " and " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
                     final Tribe finalTribeA = tribeA;
                     final Tribe finalTribeB = tribeB;
                     world.getSectors().stream()
@@ -121,19 +126,16 @@ public class EventSystem {
             case "Cultural Exchange":
                 if (tribes.size() >= 2) {
                     Tribe tribeA = tribes.stream().findFirst().get();
-                    Tribe tribeB = tribes.stream().findFirst().get();
-                    while (tribeB == tribeA) {
-                        tribeB = tribes.stream().findFirst().get();
-                    }
+                    Tribe tribeB = tribes.stream().filter(t -> t != tribeA).findFirst().get();
                     
-                    SimulationSubject.getInstance().notifyEvent("Cultural exchange initiated between " + tribeA.getName() + " and " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
+                    events.notifyEvent("Cultural exchange initiated between " + tribeA.getName() + " and " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
                     
                 }
                 break;
             case "Diplomatic Mission":
                 if (!tribes.isEmpty()) {
                     Tribe tribe = tribes.stream().findFirst().get();
-                    SimulationSubject.getInstance().notifyEvent(tribe.getName() + " has sent out a diplomatic mission", SimulationEvent.EventType.POLITICAL);
+                    events.notifyEvent(tribe.getName() + " has sent out a diplomatic mission", SimulationEvent.EventType.POLITICAL);
                     // Implement diplomatic mission effects
                     tribes.stream()
                             .flatMap(sTribe -> sTribe.getMembers().stream())
@@ -147,11 +149,8 @@ public class EventSystem {
             case "Espionage":
                 if (tribes.size() >= 2) {
                     Tribe tribeA = tribes.stream().findFirst().get();
-                    Tribe tribeB = tribes.stream().findFirst().get();
-                    while (tribeB == tribeA) {
-                        tribeB = tribes.stream().findFirst().get();
-                    }
-                    SimulationSubject.getInstance().notifyEvent(tribeA.getName() + " is spying on " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
+                    Tribe tribeB = tribes.stream().filter(t -> t != tribeA).findFirst().get();
+                    events.notifyEvent(tribeA.getName() + " is spying on " + tribeB.getName(), SimulationEvent.EventType.POLITICAL);
                     // Implement espionage effects
 
                 }
@@ -165,10 +164,9 @@ public class EventSystem {
                             .toList();
 
                     if (!unaffiliatedDigimon.isEmpty()) {
-                        Digimon convertedDigimon = unaffiliatedDigimon.get(random.nextInt(unaffiliatedDigimon.size()));
-                        convertingTribe.addMember(convertedDigimon);
-                        Politics.convertDigimon(convertedDigimon, convertingTribe);
-                        SimulationSubject.getInstance().notifyEvent(convertedDigimon.getName() + " has been converted to " + convertingTribe.getName(), SimulationEvent.EventType.POLITICAL);
+                        Digimon convertedDigimon = unaffiliatedDigimon.get(context.getRandom().nextInt(unaffiliatedDigimon.size()));
+                        context.getPolitics().convertDigimon(convertedDigimon, convertingTribe);
+                        events.notifyEvent(convertedDigimon.getName() + " has been converted to " + convertingTribe.getName(), SimulationEvent.EventType.POLITICAL);
 
                         // Increase loyalty and decrease aggression of the converted Digimon
                         convertedDigimon.setAggression(Math.max(0, convertedDigimon.getAggression() - 25));
@@ -179,12 +177,9 @@ public class EventSystem {
             case "Make Peace":
                 if (tribes.size() >= 2) {
                     Tribe tribeA = tribes.stream().findFirst().get();
-                    Tribe tribeB = tribes.stream().findFirst().get();
-                    while (tribeB == tribeA) {
-                        tribeB = tribes.stream().findFirst().get();
-                    }
+                    Tribe tribeB = tribes.stream().filter(t -> t != tribeA).findFirst().get();
 
-                    SimulationSubject.getInstance().notifyEvent(tribeA.getName() + " and " + tribeB.getName() + " have made peace", SimulationEvent.EventType.POLITICAL);
+                    events.notifyEvent(tribeA.getName() + " and " + tribeB.getName() + " have made peace", SimulationEvent.EventType.POLITICAL);
 
                     // Decrease aggression and increase happiness for both tribes
                     Stream.concat(tribeA.getMembers().stream(), tribeB.getMembers().stream())
@@ -197,7 +192,6 @@ public class EventSystem {
                 case "Build City":
                     Tribe tribe = tribes.stream().findAny().orElse(null);
                     if (tribe!= null) {
-                        SimulationSubject.getInstance().notifyEvent(tribe.getName() + " has built a city", SimulationEvent.EventType.POLITICAL);
                         Tribe.buildCity(tribe);
                     }
                     break;
@@ -210,13 +204,16 @@ public class EventSystem {
      * to each Digimon in the provided list. Currently, it handles two types of events:
      * "Food Shortage" and "Plague".
      *
-     * @param world Current state of the Digimon World.
+     * @param context The context of the world the event happens in.
      * @param event A String representing the type of natural event occurring.
      *              Valid values are "Food Shortage" and "Plague".
      *              For "Food Shortage", Digimon's aggression and hunger increase.
      *              For "Plague", Digimon's hunger and aggression increase, while health decreases.
      */
-    private static void handleNaturalEvent(World world, String event) {
+    private static void handleNaturalEvent(SimulationContext context, String event) {
+        World world = context.getWorld();
+        Random random = context.getRandom();
+        SimulationSubject events = context.getEvents();
         List<Digimon> allDigimon = world.getSectors().stream()
                 .flatMap(sector -> sector.getDigimons().stream())
                 .toList();
@@ -226,29 +223,30 @@ public class EventSystem {
                 case "Food Shortage":
                     digimon.setAggression(digimon.getAggression() + 25);
                     digimon.setHunger(digimon.getHunger() + 30);
-                    SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has been affected by a food shortage", SimulationEvent.EventType.OTHER);
+                    events.notifyEvent(digimon.getName() + " has been affected by a food shortage", SimulationEvent.EventType.OTHER);
                     break;
                 case "Plague":
                     digimon.setHunger(digimon.getHunger() + 10);
                     digimon.setAggression(digimon.getAggression() + 10);
                     digimon.setHealth(digimon.getHealth() - 20);
-                    SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has been affected by a plague", SimulationEvent.EventType.OTHER);
+                    events.notifyEvent(digimon.getName() + " has been affected by a plague", SimulationEvent.EventType.OTHER);
                     break;
                 case "Storm":
                     digimon.setHealth(digimon.getHealth() - 15);
-                    SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has been affected by a storm", SimulationEvent.EventType.OTHER);
+                    events.notifyEvent(digimon.getName() + " has been affected by a storm", SimulationEvent.EventType.OTHER);
                     break;
                 case "Earthquake":
                     digimon.setHealth(digimon.getHealth() - 25);
                     digimon.setAggression(digimon.getAggression() + 15);
-                    SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has been affected by an earthquake", SimulationEvent.EventType.OTHER);
+                    events.notifyEvent(digimon.getName() + " has been affected by an earthquake", SimulationEvent.EventType.OTHER);
                     break;
                 case "Mass Birth":
+                    // Recorded rather than added, as the sectors' Digimon are being iterated
                     for (int i = 0; i < random.nextInt(100); i++) {
-                        world.getSectors().stream().findAny().orElse(world.getSectors().get(random.nextInt(world.getSectors().size())))
-                                .getDigimons().add(DigimonGenerator.generateRandomDigimon());
+                        Sector sector = world.getSectors().stream().findAny().orElse(world.getSectors().get(random.nextInt(world.getSectors().size())));
+                        CommandBuffer.current().spawn(sector, DigimonGenerator.generateRandomDigimon(random));
                     }
-                    SimulationSubject.getInstance().notifyEvent("A mass birth event has occurred!", SimulationEvent.EventType.OTHER);
+                    events.notifyEvent("A mass birth event has occurred!", SimulationEvent.EventType.OTHER);
                     return; // This will exit the method immediately after handling Mass Birth
             }
         }
@@ -1,52 +1,69 @@
 package com.horrorcore.systems.events;
 
+import com.horrorcore.SimulationContext;
 import com.horrorcore.World;
 import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Sector;
 import com.horrorcore.entity.Tribe;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The alliances and wars between the tribes of one world. Each {@link SimulationContext} owns one.
+ */
 public class Politics {
-    private static final Map<Tribe, Set<Tribe>> alliances = new ConcurrentHashMap<>();
-    private static final Map<Tribe, Set<Tribe>> wars = new ConcurrentHashMap<>();
+    private final SimulationContext context;
+    private final Map<Tribe, Set<Tribe>> alliances = new ConcurrentHashMap<>();
+    private final Map<Tribe, Set<Tribe>> wars = new ConcurrentHashMap<>();
+
+    public Politics(SimulationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Ends the alliances, wars and relations of a tribe that is gone.
+     */
+    public void forget(Tribe tribe) {
+        context.getSocial().forget(tribe);
+        alliances.remove(tribe);
+        wars.remove(tribe);
+        alliances.values().forEach(allies -> allies.remove(tribe));
+        wars.values().forEach(enemies -> enemies.remove(tribe));
+    }
 
     // Alliance methods
-    public static void formAlliance(Tribe tribe1, Tribe tribe2) {
+    public void formAlliance(Tribe tribe1, Tribe tribe2) {
         addAlliance(tribe1, tribe2);
         increaseFriendshipBetweenAllies(tribe1, tribe2);
         increaseAggressionOfOtherTribes(tribe1, tribe2);
         announceAlliance(tribe1, tribe2);
     }
 
-    private static void addAlliance(Tribe tribe1, Tribe tribe2) {
+    private void addAlliance(Tribe tribe1, Tribe tribe2) {
         alliances.computeIfAbsent(tribe1, k -> new HashSet<>()).add(tribe2);
         alliances.computeIfAbsent(tribe2, k -> new HashSet<>()).add(tribe1);
     }
 
-    private static void increaseFriendshipBetweenAllies(Tribe tribe1, Tribe tribe2) {
-        for (Digimon digimon1 : tribe1.getMembers()) {
-            for (Digimon digimon2 : tribe2.getMembers()) {
-                digimon1.increaseFriendship(digimon2, 20);
-                digimon2.increaseFriendship(digimon1, 20);
-            }
-        }
+    // One edge between the tribes, which every member of each counts towards every member of the other
+    private void increaseFriendshipBetweenAllies(Tribe tribe1, Tribe tribe2) {
+        context.getSocial().relate(tribe1, tribe2, 20);
     }
 
-    private static void increaseAggressionOfOtherTribes(Tribe tribe1, Tribe tribe2) {
-        World.getInstance().getTribes().stream()
+    private void increaseAggressionOfOtherTribes(Tribe tribe1, Tribe tribe2) {
+        context.getWorld().getTribes().stream()
             .filter(tribe -> tribe != tribe1 && tribe != tribe2)
             .forEach(tribe -> tribe.getMembers().forEach(digimon -> digimon.setAggression(digimon.getAggression() + 10)));
     }
 
-    private static void announceAlliance(Tribe tribe1, Tribe tribe2) {
-        SimulationSubject.getInstance().notifyEvent(tribe1.getName() + " and " + tribe2.getName() + " have formed an alliance!", SimulationEvent.EventType.POLITICAL);
+    private void announceAlliance(Tribe tribe1, Tribe tribe2) {
+        context.getEvents().notifyEvent(tribe1.getName() + " and " + tribe2.getName() + " have formed an alliance!", SimulationEvent.EventType.POLITICAL);
     }
 
     // War methods
-    public static void declareWar(Tribe attacker, Tribe defender) {
+    public void declareWar(Tribe attacker, Tribe defender) {
         addWar(attacker, defender);
         increaseAggressionOfWarringTribes(attacker, defender);
         involveAllies(attacker, defender);
@@ -54,17 +71,17 @@ public class Politics {
         announceWar(attacker, defender);
     }
 
-    private static void addWar(Tribe attacker, Tribe defender) {
+    private void addWar(Tribe attacker, Tribe defender) {
         wars.computeIfAbsent(attacker, k -> new HashSet<>()).add(defender);
         wars.computeIfAbsent(defender, k -> new HashSet<>()).add(attacker);
     }
 
-    private static void increaseAggressionOfWarringTribes(Tribe attacker, Tribe defender) {
+    private void increaseAggressionOfWarringTribes(Tribe attacker, Tribe defender) {
         attacker.getMembers().forEach(digimon -> digimon.setAggression(digimon.getAggression() + 75));
         defender.getMembers().forEach(digimon -> digimon.setAggression(digimon.getAggression() + 75));
     }
 
-    private static void involveAllies(Tribe attacker, Tribe defender) {
+    private void involveAllies(Tribe attacker, Tribe defender) {
         Set<Tribe> attackerAllies = alliances.getOrDefault(attacker, new HashSet<>());
         Set<Tribe> defenderAllies = alliances.getOrDefault(defender, new HashSet<>());
 
@@ -77,36 +94,33 @@ public class Politics {
             .forEach(ally -> declareWar(ally, attacker));
     }
 
-    private static void otherTribesReact(Tribe attacker, Tribe defender) {
+    private void otherTribesReact(Tribe attacker, Tribe defender) {
         Set<Tribe> attackerAllies = alliances.getOrDefault(attacker, new HashSet<>());
         Set<Tribe> defenderAllies = alliances.getOrDefault(defender, new HashSet<>());
 
-        World.getInstance().getTribes().stream()
+        context.getWorld().getTribes().stream()
             .filter(tribe -> tribe != attacker && tribe != defender && !attackerAllies.contains(tribe) && !defenderAllies.contains(tribe))
             .forEach(tribe -> tribe.getMembers().forEach(digimon -> digimon.setAggression(digimon.getAggression() + 20)));
     }
 
-    private static void announceWar(Tribe attacker, Tribe defender) {
-        SimulationSubject.getInstance().notifyEvent(attacker.getName() + " has declared war on " + defender.getName() + "!", SimulationEvent.EventType.POLITICAL);
+    private void announceWar(Tribe attacker, Tribe defender) {
+        context.getEvents().notifyEvent(attacker.getName() + " has declared war on " + defender.getName() + "!", SimulationEvent.EventType.POLITICAL);
     }
 
     // Conversion methods
-    public static void convertDigimon(Digimon digimon, Tribe newTribe) {
-        Tribe oldTribe = World.getInstance().getTribeByName(digimon.getTribe());
-        updateTribeMembership(digimon, oldTribe, newTribe);
+    public void convertDigimon(Digimon digimon, Tribe newTribe) {
+        Tribe oldTribe = context.getWorld().getTribeByName(digimon.getTribe());
+        updateTribeMembership(digimon, newTribe);
         updateRelationships(digimon, oldTribe, newTribe);
         announceConversion(digimon, newTribe);
     }
 
-    private static void updateTribeMembership(Digimon digimon, Tribe oldTribe, Tribe newTribe) {
-        if (oldTribe != null) {
-            oldTribe.removeMember(digimon);
-        }
-        digimon.joinTribe(newTribe.getName());
-        newTribe.addMember(digimon);
+    // Deferred while a system runs, as callers may be iterating either tribe's members
+    private void updateTribeMembership(Digimon digimon, Tribe newTribe) {
+        CommandBuffer.current().joinTribe(newTribe, digimon);
     }
 
-    private static void updateRelationships(Digimon digimon, Tribe oldTribe, Tribe newTribe) {
+    private void updateRelationships(Digimon digimon, Tribe oldTribe, Tribe newTribe) {
         newTribe.getMembers().stream()
             .filter(member -> member != digimon)
             .forEach(member -> {
@@ -115,27 +129,29 @@ public class Politics {
             });
 
         if (oldTribe != null) {
-            oldTribe.getMembers().forEach(oldMember -> oldMember.decreaseFriendship(digimon, 20));
+            oldTribe.getMembers().stream()
+                .filter(oldMember -> oldMember != digimon)
+                .forEach(oldMember -> oldMember.decreaseFriendship(digimon, 20));
         }
     }
 
-    private static void announceConversion(Digimon digimon, Tribe newTribe) {
-        SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has converted to the " + newTribe.getName() + " tribe.", SimulationEvent.EventType.POLITICAL);
+    private void announceConversion(Digimon digimon, Tribe newTribe) {
+        context.getEvents().notifyEvent(digimon.getName() + " has converted to the " + newTribe.getName() + " tribe.", SimulationEvent.EventType.POLITICAL);
     }
 
     // Political situation update methods
-    public static void updatePoliticalSituation() {
+    public void updatePoliticalSituation() {
         handleRandomPoliticalEvents();
         updateWarSituations();
     }
 
-    private static void handleRandomPoliticalEvents() {
-        Set<Tribe> tribes = World.getInstance().getTribes();
-        if (tribes.size() >= 2 && Math.random() < 0.1) {
+    private void handleRandomPoliticalEvents() {
+        Set<Tribe> tribes = context.getWorld().getTribes();
+        if (tribes.size() >= 2 && context.getRandom().nextDouble() < 0.1) {
             Tribe tribe1 = getRandomTribe(tribes);
             Tribe tribe2 = getRandomTribe(tribes);
             if (tribe1 != tribe2) {
-                if (Math.random() < 0.6) {
+                if (context.getRandom().nextDouble() < 0.6) {
                     formAlliance(tribe1, tribe2);
                 } else {
                     declareWar(tribe1, tribe2);
@@ -148,10 +164,10 @@ public class Politics {
         return tribes.stream().findAny().orElse(null);
     }
 
-    private static void updateWarSituations() {
+    private void updateWarSituations() {
         wars.forEach((attacker, defenders) ->
             defenders.forEach(defender -> {
-                if (Math.random() < 0.1) {
+                if (context.getRandom().nextDouble() < 0.1) {
                     battle(attacker, defender);
                 }
             })
@@ -160,8 +176,8 @@ public class Politics {
 
     // Battle methods
 
-        private static void battle(Tribe attacker, Tribe defender) {
-            World world = World.getInstance();
+        private void battle(Tribe attacker, Tribe defender) {
+            World world = context.getWorld();
             Map<Sector, List<Digimon>> attackerForces = new HashMap<>();
             Map<Sector, List<Digimon>> defenderForces = new HashMap<>();
         
@@ -197,11 +213,11 @@ public class Politics {
                 if (attackStrength > defenseStrength) {
                     // Attackers win in this sector
                     applyBattleDamage(sectorDefenders, 20);
-                    SimulationSubject.getInstance().notifyEvent(attacker.getName() + " won a battle against " + defender.getName() + " in " + sector.getName() + "!", SimulationEvent.EventType.POLITICAL);
+                    context.getEvents().notifyEvent(attacker.getName() + " won a battle against " + defender.getName() + " in " + sector.getName() + "!", SimulationEvent.EventType.POLITICAL);
                 } else {
                     // Defenders win in this sector
                     applyBattleDamage(sectorAttackers, 20);
-                    SimulationSubject.getInstance().notifyEvent(defender.getName() + " successfully defended against " + attacker.getName() + " in " + sector.getName() + "!", SimulationEvent.EventType.POLITICAL);
+                    context.getEvents().notifyEvent(defender.getName() + " successfully defended against " + attacker.getName() + " in " + sector.getName() + "!", SimulationEvent.EventType.POLITICAL);
                 }
             }
         }
@@ -213,12 +229,12 @@ public class Politics {
                 .sum();
     }
 
-    private static void applyBattleDamage(List<Digimon> force, int damage) {
+    private void applyBattleDamage(List<Digimon> force, int damage) {
         force.forEach(digimon -> {
             int newHealth = Math.max(0, digimon.getHealth() - damage);
             digimon.setHealth(newHealth);
             if (newHealth == 0) {
-                SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has been defeated in battle!", SimulationEvent.EventType.POLITICAL);
+                context.getEvents().notifyEvent(digimon.getName() + " has been defeated in battle!", SimulationEvent.EventType.POLITICAL);
             }
         });
     }
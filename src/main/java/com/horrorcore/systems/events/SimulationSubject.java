@@ -1,22 +1,29 @@
 package com.horrorcore.systems.events;
 
+import com.horrorcore.SimulationContext;
 import com.horrorcore.gui.SimulationObserver;
 import com.horrorcore.World;
+import com.horrorcore.metrics.SimulationCounter;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * The event bus of one world. Each {@link SimulationContext} owns its own subject.
+ */
 public class SimulationSubject {
-    private static SimulationSubject instance;
     private final List<SimulationObserver> observers = new CopyOnWriteArrayList<>();
+    private final SimulationContext context;
 
-    private SimulationSubject() {}
+    public SimulationSubject(SimulationContext context) {
+        this.context = context;
+    }
 
+    /**
+     * Returns the event bus of the default context, which the GUI observes.
+     */
     public static SimulationSubject getInstance() {
-        if (instance == null) {
-            instance = new SimulationSubject();
-        }
-        return instance;
+        return SimulationContext.getDefault().getEvents();
     }
 
     public void addObserver(SimulationObserver observer) {
@@ -29,6 +36,7 @@ public class SimulationSubject {
 
     public void notifyEvent(String message, SimulationEvent.EventType type) {
         SimulationEvent event = new SimulationEvent(message, type);
+        context.increment(SimulationCounter.EVENTS_EMITTED);
         for (SimulationObserver observer : observers) {
             observer.onSimulationEvent(event);
         }
@@ -39,4 +47,4 @@ public class SimulationSubject {
             observer.onWorldUpdate(world);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.horrorcore.systems.lifecycle;
+
+import com.horrorcore.ecs.Archetype;
+import com.horrorcore.ecs.Component;
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.ecs.Query;
+
+public class AgingSystem {
+    /**
+     * Ages every placed Digimon by one tick, as {@link com.horrorcore.entity.Digimon#ageUp()} does, working on the
+     * vitals columns of the entity store only. Celestials, whose entities carry an aura, do not age.
+     *
+     * @param entities The store of the world whose Digimon age.
+     */
+    public static void ageAll(EntityStore entities) {
+        Query aging = entities.query(Component.VITALS, Component.POSITION).without(Component.AURA);
+        for (Archetype archetype : aging) {
+            int[] age = archetype.ints(Component.VITALS, Component.AGE);
+            int[] health = archetype.ints(Component.VITALS, Component.HEALTH);
+            int[] hunger = archetype.ints(Component.VITALS, Component.HUNGER);
+            for (int row = 0; row < archetype.size(); row++) {
+                age[row]++;
+                hunger[row] += 10;
+                if (age[row] > 20) {
+                    health[row] -= 5;
+                }
+            }
+        }
+    }
+}
@@ -1,30 +1,34 @@
 package com.horrorcore.systems.lifecycle;
 
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Sector;
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 import com.horrorcore.entity.Digimon;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
-import java.util.List;
 import java.util.Random;
 
 public class BirthSystem {
     /**
      * Simulates the random birth of a new Digimon.
-     * This method has a 25% chance of generating and adding a new Digimon to the provided list.
+     * This method has a 25% chance of generating a new Digimon and recording its birth into the sector
+     * in the current {@link CommandBuffer}; the birth is counted and announced once the Digimon was placed.
      *
-     * @param digimonList The list of Digimon to which a new Digimon may be added.
-     *                    This list is modified in place if a new Digimon is born.
+     * @param context The context of the world the birth happens in.
+     * @param sector  The sector the new Digimon may be born in.
      */
-    public static void randomBirth(List<Digimon> digimonList) {
-        Random random = new Random();
+    public static void randomBirth(SimulationContext context, Sector sector) {
+        Random random = context.getRandom();
         if (random.nextInt(100) < 25) { // 25% chance
-            Digimon newDigimon = DigimonGenerator.generateRebirthDigimon();
-            // Add to the provided sector's list instead
-            digimonList.add(newDigimon);
-            SimulationSubject.getInstance().notifyEvent(
-                    "A new Digimon, " + newDigimon.getName() + ", has been born!",
-                    SimulationEvent.EventType.OTHER
-            );
+            Digimon newDigimon = DigimonGenerator.generateRebirthDigimon(random);
+            CommandBuffer.current().spawn(sector, newDigimon, () -> {
+                context.increment(SimulationCounter.BIRTHS);
+                context.getEvents().notifyEvent(
+                        "A new Digimon, " + newDigimon.getName() + ", has been born!",
+                        SimulationEvent.EventType.OTHER
+                );
+            });
         }
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.horrorcore.SimulationContext;
 import com.horrorcore.entity.CelestialDigimon;
 import com.horrorcore.entity.Digimon;
 
@@ -35,11 +36,11 @@ public class DigimonGenerator {
      * This method selects a random Digimon from the available list and creates
      * a new instance with slightly adjusted health.
      *
+     * @param random The random source of the world the Digimon is generated for.
      * @return A new Digimon instance with randomly selected attributes and modified health.
      *         The health value is increased by 40 points from the original Digimon's health.
      */
-    public static Digimon generateRandomDigimon() {
-        Random random = new Random();
+    public static Digimon generateRandomDigimon(Random random) {
         Digimon randomDigimon = digimonList.get(random.nextInt(digimonList.size()));
         String name = randomDigimon.getName();
         int age = randomDigimon.getAge();
@@ -50,13 +51,18 @@ public class DigimonGenerator {
         return new Digimon(name, age, health, hunger, aggression, stage);
     }
 
-    // Add to DigimonGenerator.java
-    public static CelestialDigimon generateCelestialDigimon() {
-        if (CelestialDigimon.getTotalCelestials() >= 10) {
+    /**
+     * Generates a Celestial Digimon for a world, unless the world already has its maximum of Celestials.
+     *
+     * @param context The context of the world the Celestial is generated for.
+     * @return A new Celestial Digimon, or null if the world has no room for another.
+     */
+    public static CelestialDigimon generateCelestialDigimon(SimulationContext context) {
+        if (!context.claimCelestial()) {
             return null;
         }
 
-        Random random = new Random();
+        Random random = context.getRandom();
         String[] celestialNames = {
                 "Seraphimon", "Ophanimon", "Cherubimon",
                 "ClavisAngemon", "SlashAngemon", "GuardiAngemon",
@@ -82,11 +88,11 @@ public class DigimonGenerator {
  * This method selects a random In-Training or Rookie Digimon from the available list
  * and creates a new instance with modified attributes to represent a rebirth.
  *
+ * @param random The random source of the world the Digimon is reborn in.
  * @return A new Digimon instance representing a reborn Digimon with adjusted stats.
  * @throws RuntimeException if no In-Training or Rookie Digimon are found in the list.
  */
-public static Digimon generateRebirthDigimon() {
-    Random random = new Random();
+public static Digimon generateRebirthDigimon(Random random) {
     List<Digimon> rebirthCandidates = digimonList.stream()
             .filter(d -> d.getStage().equals("In-Training") || d.getStage().equals("Rookie") || d.getStage().equals("Fresh"))
             .toList();
@@ -1,28 +1,30 @@
 package com.horrorcore.systems.lifecycle;
 
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Sector;
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 import com.horrorcore.entity.Digimon;
-
-import java.util.List;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
 public class RebirthSystem {
     /**
-     * Checks and processes the rebirth of Digimon in the given list.
-     * This method iterates through the list of Digimon, identifies those with zero or negative health,
+     * Checks and processes the rebirth of Digimon in the given sector.
+     * This method iterates through the Digimon of the sector, identifies those with zero or negative health,
      * and replaces them with reborn Digimon. The rebirth process depends on the Digimon's current stage.
      *
-     * @param digimonList A List of Digimon objects to be checked for rebirth.
-     *                    This list is modified in place, with dead Digimon replaced by reborn ones.
+     * @param context The context of the world the Digimon live in.
+     * @param sector  The sector to check. The dead Digimon and their reborn successors are recorded in the
+     *                current {@link CommandBuffer}, so the sector changes once it is played back.
      */
-    public static void checkRebirth(List<Digimon> digimonList) {
-        for (int i = 0; i < digimonList.size(); i++) {
-            Digimon digimon = digimonList.get(i);
+    public static void checkRebirth(SimulationContext context, Sector sector) {
+        CommandBuffer commands = CommandBuffer.current();
+        for (Digimon digimon : sector.getDigimons()) {
             if (digimon.getHealth() <= 0) {
-                SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has died and will be reborn!", SimulationEvent.EventType.OTHER);
+                context.getEvents().notifyEvent(digimon.getName() + " has died and will be reborn!", SimulationEvent.EventType.OTHER);
                 Digimon rebornDigimon;
                 if (!digimon.getStage().equals("Rookie") || !digimon.getStage().equals("In-Training")) {
-                    rebornDigimon = DigimonGenerator.generateRebirthDigimon();
+                    rebornDigimon = DigimonGenerator.generateRebirthDigimon(context.getRandom());
                 } else {
                     rebornDigimon = DigimonGenerator.getAllDigimon()
                             .stream()
@@ -30,13 +32,17 @@ public class RebirthSystem {
                                     .equals(digimon.getName()))
                             .distinct()
                             .findFirst()
+                            .map(Digimon::new)
                             .orElse(null);
                 }
 
-                digimonList.set(i, rebornDigimon);
                 assert rebornDigimon != null;
-                SimulationSubject.getInstance().notifyEvent(rebornDigimon.getName() + " has been reborn as a Baby!", SimulationEvent.EventType.OTHER);
+                commands.despawn(sector, digimon, () -> context.increment(SimulationCounter.DEATHS));
+                commands.spawn(sector, rebornDigimon, () -> {
+                    context.increment(SimulationCounter.REBIRTHS);
+                    context.getEvents().notifyEvent(rebornDigimon.getName() + " has been reborn as a Baby!", SimulationEvent.EventType.OTHER);
+                });
             }
         }
     }
-}
\ No newline at end of file
+}
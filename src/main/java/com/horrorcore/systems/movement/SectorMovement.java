@@ -1,17 +1,26 @@
 package com.horrorcore.systems.movement;
 
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
+import com.horrorcore.entity.Building;
 import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.FlowField;
+import com.horrorcore.grid.FlowFieldCache;
 import com.horrorcore.grid.Grid;
 import com.horrorcore.grid.GridCell;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.schedule.CommandBuffer;
 
 import java.util.*;
 
 public class SectorMovement {
     private static final int MAX_PATH_ATTEMPTS = 5;
     private static final int MOVEMENT_RADIUS = 5; // Maximum distance for random movement
+    private static final int HUNGER_THRESHOLD = 50; // Hungry tribe members head for their farms
+    private static final int HOME_RADIUS = Building.BuildingType.CITY_CENTER.getRadius();
+    private static final double EXPLORE_BORDER_CHANCE = 0.25;
+    private static final double MIGRATION_CHANCE = 0.02; // Chance for an explorer to set out for a distant sector
 
     public static boolean moveDigimon(Digimon digimon, Sector currentSector, Random random) {
         GridCell currentCell = findDigimonCell(digimon, currentSector);
@@ -19,6 +28,11 @@ public class SectorMovement {
             return false;
         }
 
+        // Migrating Digimon keep following their planned route
+        if (digimon.isMigrating() || startMigration(digimon, currentSector, currentCell, random)) {
+            return followMigrationRoute(digimon, currentSector, currentCell, random);
+        }
+
         // If Digimon is on a border cell, consider sector transition
         if (currentCell.getType() == GridCell.CellType.BORDER &&
                 shouldTransitionSector(digimon, random)) {
@@ -29,6 +43,72 @@ public class SectorMovement {
         return handleIntraSectorMovement(digimon, currentSector, currentCell, random);
     }
 
+    private static boolean startMigration(Digimon digimon, Sector currentSector,
+                                          GridCell currentCell, Random random) {
+        if (!digimon.shouldExplore() || random.nextDouble() >= MIGRATION_CHANCE) {
+            return false;
+        }
+
+        // Prefer sectors that are not next door; fall back to neighbours in small worlds
+        List<Sector> candidates = new ArrayList<>(router(currentSector).reachableSectors(currentSector));
+        candidates.remove(currentSector);
+        List<Sector> distant = candidates.stream()
+                .filter(sector -> !currentSector.getAdjacentSectors().contains(sector))
+                .toList();
+        if (!distant.isEmpty()) {
+            candidates = distant;
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        Sector destination = candidates.get(random.nextInt(candidates.size()));
+        List<Sector> route = router(currentSector).planRoute(currentSector, currentCell, destination);
+        if (route.isEmpty()) {
+            return false;
+        }
+        digimon.setMigrationRoute(route);
+        currentSector.getContext().getEvents().notifyEvent(
+                digimon.getName() + " has set out from " + currentSector.getName() + " for " + destination.getName(),
+                SimulationEvent.EventType.OTHER
+        );
+        return true;
+    }
+
+    private static boolean followMigrationRoute(Digimon digimon, Sector currentSector,
+                                                GridCell currentCell, Random random) {
+        Sector nextSector = digimon.getNextMigrationStep();
+        FlowField toPortal = router(currentSector).portalField(currentSector, nextSector);
+        if (toPortal != null && toPortal.distanceFrom(currentCell.getX(), currentCell.getY()) == FlowField.UNREACHABLE) {
+            // Buildings cut the Digimon off from the portal; plan again from where it stands
+            List<Sector> route = router(currentSector).planRoute(currentSector, currentCell,
+                    digimon.getMigrationDestination());
+            digimon.setMigrationRoute(route);
+            nextSector = digimon.getNextMigrationStep();
+            toPortal = route.isEmpty() ? null : router(currentSector).portalField(currentSector, nextSector);
+        }
+        if (toPortal == null) {
+            // The route no longer matches the map; give up on it
+            digimon.setMigrationRoute(List.of());
+            return handleIntraSectorMovement(digimon, currentSector, currentCell, random);
+        }
+
+        if (currentCell.getType() == GridCell.CellType.BORDER
+                && router(currentSector).linkedSector(currentSector, currentCell) == nextSector) {
+            GridCell entryCell = router(currentSector).entryCell(nextSector, currentSector, random);
+            if (entryCell == null) {
+                return false; // Wait at the border until there is room on the other side
+            }
+            transitionToNewSector(digimon, currentSector, nextSector, entryCell, digimon::advanceMigration);
+            return true;
+        }
+
+        if (followFlowField(digimon, currentSector, currentCell, toPortal)) {
+            return true;
+        }
+        return attemptAdjacentMove(digimon, currentSector, currentCell, random);
+    }
+
     private static boolean shouldTransitionSector(Digimon digimon, Random random) {
         boolean isYoung = digimon.getAge() <= 25;
         boolean isHealthy = digimon.getHealth() >= 15;
@@ -45,6 +125,12 @@ public class SectorMovement {
 
     private static boolean handleIntraSectorMovement(Digimon digimon, Sector sector,
                                                      GridCell currentCell, Random random) {
+        // Shared goals are served by cached flow fields, so no search is needed
+        FlowField goalField = chooseGoalField(digimon, sector, currentCell, random);
+        if (goalField != null && followFlowField(digimon, sector, currentCell, goalField)) {
+            return true;
+        }
+
         Grid grid = sector.getGrid();
         int attempts = 0;
 
@@ -69,9 +155,10 @@ public class SectorMovement {
                     targetX, targetY
             );
 
-            if (!path.isEmpty() && path.size() > 1) {
+            // Cached paths ignore occupants, so only the next step needs re-checking
+            if (path.size() > 1 && !isInvalidTarget(path.get(1))) {
                 // Move to next cell in path
-                moveToCell(digimon, currentCell, path.get(1));
+                moveToCell(digimon, sector, path.get(1));
                 return true;
             }
 
@@ -82,6 +169,53 @@ public class SectorMovement {
         return attemptAdjacentMove(digimon, sector, currentCell, random);
     }
 
+    /**
+     * Picks a goal that the Digimon shares with others, if it has one.
+     * Hungry tribe members head for their tribe's farms, tribe members that strayed
+     * from their city center head back to it, and curious Digimon head for the sector border.
+     *
+     * @return The flow field towards the chosen goal, or null to fall back to wandering.
+     */
+    private static FlowField chooseGoalField(Digimon digimon, Sector sector,
+                                             GridCell currentCell, Random random) {
+        Grid grid = sector.getGrid();
+        Tribe tribe = digimon.getTribe();
+        if (tribe != null) {
+            if (digimon.getHunger() > HUNGER_THRESHOLD) {
+                FlowField farms = tribeBuildingField(grid, tribe, Building.BuildingType.FARM);
+                int distance = farms.distanceFrom(currentCell.getX(), currentCell.getY());
+                if (distance != FlowField.UNREACHABLE && distance > 1) {
+                    return farms;
+                }
+            }
+            FlowField home = tribeBuildingField(grid, tribe, Building.BuildingType.CITY_CENTER);
+            int distance = home.distanceFrom(currentCell.getX(), currentCell.getY());
+            if (distance != FlowField.UNREACHABLE && distance > HOME_RADIUS) {
+                return home;
+            }
+        }
+        if (digimon.shouldExplore() && random.nextDouble() < EXPLORE_BORDER_CHANCE) {
+            return grid.getFlowFields().get("border", grid::getPassableBorderCells);
+        }
+        return null;
+    }
+
+    private static FlowField tribeBuildingField(Grid grid, Tribe tribe, Building.BuildingType type) {
+        return grid.getFlowFields().get(FlowFieldCache.tribeKey(type, tribe), () -> grid.getTribeBuildings(tribe).stream()
+                .filter(building -> building.getType() == type)
+                .map(building -> grid.getCell(building.getX(), building.getY()))
+                .toList());
+    }
+
+    private static boolean followFlowField(Digimon digimon, Sector sector, GridCell currentCell, FlowField field) {
+        GridCell next = field.nextStep(currentCell);
+        if (next == null || isInvalidTarget(next)) {
+            return false;
+        }
+        moveToCell(digimon, sector, next);
+        return true;
+    }
+
     private static boolean attemptAdjacentMove(Digimon digimon, Sector sector,
                                                GridCell currentCell, Random random) {
         Grid grid = sector.getGrid();
@@ -108,7 +242,7 @@ public class SectorMovement {
                     currentCell.getX() + chosenDir[0],
                     currentCell.getY() + chosenDir[1]
             );
-            moveToCell(digimon, currentCell, targetCell);
+            moveToCell(digimon, sector, targetCell);
             return true;
         }
 
@@ -117,77 +251,44 @@ public class SectorMovement {
 
     private static boolean handleSectorTransition(Digimon digimon, Sector currentSector,
                                                   GridCell currentCell, Random random) {
-        // Get adjacent sectors
-        List<Sector> adjacentSectors = currentSector.getAdjacentSectors();
-        if (adjacentSectors.isEmpty()) {
+        // Each border segment leads to one particular adjacent sector
+        Sector targetSector = router(currentSector).linkedSector(currentSector, currentCell);
+        if (targetSector == null) {
             return false;
         }
 
-        // Choose random adjacent sector
-        Sector targetSector = adjacentSectors.get(random.nextInt(adjacentSectors.size()));
-
-        // Find entry point in new sector
-        GridCell entryCell = findEntryPoint(targetSector, random);
+        // Enter on the target's border segment that links back here
+        GridCell entryCell = router(currentSector).entryCell(targetSector, currentSector, random);
         if (entryCell == null) {
             return false;
         }
 
         // Perform transition
-        transitionToNewSector(digimon, currentSector, targetSector, currentCell, entryCell);
+        transitionToNewSector(digimon, currentSector, targetSector, entryCell, () -> { });
         return true;
     }
 
-    private static GridCell findEntryPoint(Sector sector, Random random) {
-        Grid grid = sector.getGrid();
-        List<GridCell> validEntryCells = new ArrayList<>();
-
-        // Check all border cells
-        for (int x = 0; x < grid.getWidth(); x++) {
-            checkBorderCell(grid, x, 0, validEntryCells);
-            checkBorderCell(grid, x, grid.getHeight() - 1, validEntryCells);
-        }
-        for (int y = 0; y < grid.getHeight(); y++) {
-            checkBorderCell(grid, 0, y, validEntryCells);
-            checkBorderCell(grid, grid.getWidth() - 1, y, validEntryCells);
-        }
-
-        return validEntryCells.isEmpty() ? null :
-                validEntryCells.get(random.nextInt(validEntryCells.size()));
-    }
-
-    private static void checkBorderCell(Grid grid, int x, int y, List<GridCell> validCells) {
-        GridCell cell = grid.getCell(x, y);
-        if (cell.getType() == GridCell.CellType.BORDER && !isInvalidTarget(cell)) {
-            validCells.add(cell);
-        }
+    // The move is deferred to the end of the movement stage; onMoved runs only if the entry cell is still free then
+    private static void transitionToNewSector(Digimon digimon, Sector currentSector,
+                                              Sector targetSector, GridCell entryCell, Runnable onMoved) {
+        CommandBuffer.current().moveSector(digimon, currentSector, targetSector, entryCell, () -> {
+            onMoved.run();
+            currentSector.getContext().increment(SimulationCounter.MOVES);
+
+            currentSector.getContext().getEvents().notifyEvent(
+                    digimon.getName() + " has moved to sector " + targetSector.getName(),
+                    SimulationEvent.EventType.OTHER
+            );
+        });
     }
 
-    private static void transitionToNewSector(Digimon digimon, Sector currentSector,
-                                              Sector targetSector, GridCell currentCell,
-                                              GridCell entryCell) {
-        currentSector.removeDigimon(digimon);
-        currentCell.setOccupant(null);
-        entryCell.setOccupant(digimon);
-        targetSector.addDigimon(digimon);
-
-        SimulationSubject.getInstance().notifyEvent(
-                digimon.getName() + " has moved to sector " + targetSector.getName(),
-                SimulationEvent.EventType.OTHER
-        );
+    private static SectorRouter router(Sector sector) {
+        return sector.getContext().getRouter();
     }
 
     // Utility methods
     private static GridCell findDigimonCell(Digimon digimon, Sector sector) {
-        Grid grid = sector.getGrid();
-        for (int x = 0; x < grid.getWidth(); x++) {
-            for (int y = 0; y < grid.getHeight(); y++) {
-                GridCell cell = grid.getCell(x, y);
-                if (digimon.equals(cell.getOccupant())) {
-                    return cell;
-                }
-            }
-        }
-        return null;
+        return sector.getGrid().locate(digimon);
     }
 
     private static boolean isValidPosition(int x, int y, Grid grid) {
@@ -200,8 +301,8 @@ public class SectorMovement {
                 cell.getBuilding() != null;
     }
 
-    private static void moveToCell(Digimon digimon, GridCell fromCell, GridCell toCell) {
-        fromCell.setOccupant(null);
-        toCell.setOccupant(digimon);
+    // The sector moves the Digimon, so that every step is counted as a move
+    private static void moveToCell(Digimon digimon, Sector sector, GridCell toCell) {
+        sector.moveDigimon(digimon, toCell.getX(), toCell.getY());
     }
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.horrorcore.systems.movement;
+
+import com.horrorcore.entity.Sector;
+import com.horrorcore.grid.FlowField;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+
+import java.util.*;
+
+/**
+ * Plans long-range routes between sectors, in the style of hierarchical pathfinding (HPA*).
+ * The border of every sector is split into one contiguous segment per adjacent sector, so each
+ * border cell leads to exactly one neighbour. Each segment gets a portal cell near its middle,
+ * and walking distances from each portal to every other segment of the sector are cached per
+ * terrain version. A route
+ * request first searches this small abstract graph of portals and only then walks the grid,
+ * one flow-field step at a time.
+ */
+public class SectorRouter {
+    private final Map<Sector, SectorPortals> portalsBySector = new IdentityHashMap<>();
+
+    /**
+     * Returns the adjacent sector that the given border cell leads to.
+     *
+     * @param sector The sector containing the cell.
+     * @param cell   A border cell of the sector.
+     * @return The linked adjacent sector, or null if the cell is not on a linked border segment.
+     */
+    public Sector linkedSector(Sector sector, GridCell cell) {
+        return portals(sector).links.get(cell);
+    }
+
+    /**
+     * Returns the portal cell in a sector that leads to the given adjacent sector.
+     *
+     * @param sector The sector to leave.
+     * @param toward The adjacent sector to enter.
+     * @return The portal cell, or null if the sectors are not adjacent or the segment is impassable.
+     */
+    public GridCell portalCell(Sector sector, Sector toward) {
+        return portals(sector).portals.get(toward);
+    }
+
+    /**
+     * Returns the flow field that leads to the border segment towards an adjacent sector.
+     * Any passable cell of the segment counts as arrived, not only the portal cell itself.
+     *
+     * @param sector The sector to leave.
+     * @param toward The adjacent sector to enter.
+     * @return The flow field to the portal, or null if there is no portal towards that sector.
+     */
+    public FlowField portalField(Sector sector, Sector toward) {
+        SectorPortals sectorPortals = portals(sector);
+        if (!sectorPortals.portals.containsKey(toward)) {
+            return null;
+        }
+        return sectorPortals.fieldTo(sector.getGrid(), toward);
+    }
+
+    /**
+     * Picks the cell where a Digimon arriving from another sector enters the target sector.
+     * The entry is a free cell on the target's border segment that links back to the source,
+     * falling back to any free border cell when that segment is full.
+     *
+     * @param target The sector being entered.
+     * @param source The sector being left.
+     * @param random The random source to draw from.
+     * @return A free border cell of the target sector, or null if its border is full.
+     */
+    public GridCell entryCell(Sector target, Sector source, Random random) {
+        List<GridCell> segment = portals(target).segments.getOrDefault(source, List.of());
+        List<GridCell> free = new ArrayList<>();
+        for (GridCell cell : segment) {
+            if (cell.getOccupant() == null && FlowField.isPassable(cell)) {
+                free.add(cell);
+            }
+        }
+        if (!free.isEmpty()) {
+            return free.get(random.nextInt(free.size()));
+        }
+        return target.getGrid().randomFreeBorderCell(random).orElse(null);
+    }
+
+    /**
+     * Collects every sector that can be reached from the start by crossing borders.
+     *
+     * @param start The sector to start from.
+     * @return The reachable sectors in breadth-first order, including the start.
+     */
+    public Set<Sector> reachableSectors(Sector start) {
+        Set<Sector> visited = new LinkedHashSet<>();
+        Deque<Sector> queue = new ArrayDeque<>();
+        queue.add(start);
+        visited.add(start);
+        while (!queue.isEmpty()) {
+            for (Sector adjacent : queue.poll().getAdjacentSectors()) {
+                if (visited.add(adjacent)) {
+                    queue.add(adjacent);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Plans a route from a cell to a destination sector over the abstract portal graph.
+     * Nodes are the portals of every sector. Edges are the cached walking distances between
+     * portals of the same sector, plus one step to cross each border. The grid is only
+     * consulted for the distances from the starting cell to the portals of its own sector.
+     *
+     * @param start       The sector the Digimon is in.
+     * @param from        The cell the Digimon stands on.
+     * @param destination The sector to reach.
+     * @return The sectors to enter, in order, ending with the destination; empty if unreachable.
+     */
+    public List<Sector> planRoute(Sector start, GridCell from, Sector destination) {
+        if (start == destination) {
+            return List.of();
+        }
+
+        Map<PortalNode, Integer> distances = new HashMap<>();
+        Map<PortalNode, PortalNode> previous = new HashMap<>();
+        PriorityQueue<QueueEntry> open = new PriorityQueue<>(Comparator.comparingInt(QueueEntry::cost));
+
+        for (Sector toward : start.getAdjacentSectors()) {
+            FlowField field = portalField(start, toward);
+            if (field == null) continue;
+            int cost = field.distanceFrom(from.getX(), from.getY());
+            if (cost == FlowField.UNREACHABLE) continue;
+            PortalNode node = new PortalNode(start, toward);
+            distances.put(node, cost);
+            open.add(new QueueEntry(node, cost));
+        }
+
+        while (!open.isEmpty()) {
+            QueueEntry entry = open.poll();
+            PortalNode node = entry.node();
+            if (entry.cost() > distances.getOrDefault(node, Integer.MAX_VALUE)) continue;
+            if (node.toward() == destination) {
+                return reconstructRoute(node, previous);
+            }
+
+            // Cross the border, then walk to each other portal of the sector we entered
+            Sector entered = node.toward();
+            SectorPortals enteredPortals = portals(entered);
+            Integer entryIndex = enteredPortals.indexOf.get(node.sector());
+            if (entryIndex == null) continue;
+            for (Map.Entry<Sector, Integer> exit : enteredPortals.indexOf.entrySet()) {
+                if (exit.getKey() == node.sector()) continue;
+                int walk = enteredPortals.distances[entryIndex][exit.getValue()];
+                if (walk == FlowField.UNREACHABLE) continue;
+                PortalNode next = new PortalNode(entered, exit.getKey());
+                int cost = entry.cost() + 1 + walk;
+                if (cost < distances.getOrDefault(next, Integer.MAX_VALUE)) {
+                    distances.put(next, cost);
+                    previous.put(next, node);
+                    open.add(new QueueEntry(next, cost));
+                }
+            }
+        }
+        return List.of();
+    }
+
+    private static List<Sector> reconstructRoute(PortalNode last, Map<PortalNode, PortalNode> previous) {
+        LinkedList<Sector> route = new LinkedList<>();
+        for (PortalNode node = last; node != null; node = previous.get(node)) {
+            route.addFirst(node.toward());
+        }
+        return route;
+    }
+
+    private SectorPortals portals(Sector sector) {
+        SectorPortals cached = portalsBySector.get(sector);
+        Grid grid = sector.getGrid();
+        if (cached == null
+                || cached.terrainVersion != grid.getTerrainVersion()
+                || cached.adjacencyCount != sector.getAdjacentSectors().size()) {
+            cached = new SectorPortals(sector);
+            portalsBySector.put(sector, cached);
+        }
+        return cached;
+    }
+
+    private record PortalNode(Sector sector, Sector toward) {}
+
+    private record QueueEntry(PortalNode node, int cost) {}
+
+    /**
+     * The border segments, portals and portal-to-portal distances of one sector,
+     * valid for a single terrain version and adjacency list.
+     */
+    private class SectorPortals {
+        private final long terrainVersion;
+        private final int adjacencyCount;
+        // Sectors compare by identity; linked maps keep iteration in adjacency order so that
+        // route ties break the same way in every run with the same seed
+        private final Map<Sector, List<GridCell>> segments = new LinkedHashMap<>();
+        private final Map<Sector, GridCell> portals = new LinkedHashMap<>();
+        private final Map<GridCell, Sector> links = new IdentityHashMap<>();
+        private final Map<Sector, Integer> indexOf = new LinkedHashMap<>();
+        // Keys of the portal fields in the grid's flow field cache; sector names need not be unique
+        private final Map<Sector, String> fieldKeys = new LinkedHashMap<>();
+        private final int[][] distances;
+
+        SectorPortals(Sector sector) {
+            Grid grid = sector.getGrid();
+            this.terrainVersion = grid.getTerrainVersion();
+            List<Sector> adjacent = sector.getAdjacentSectors();
+            this.adjacencyCount = adjacent.size();
+
+            // Split the perimeter, walked clockwise, into one segment per neighbour
+            List<GridCell> perimeter = perimeter(grid);
+            for (int i = 0; i < adjacencyCount; i++) {
+                int from = i * perimeter.size() / adjacencyCount;
+                int to = (i + 1) * perimeter.size() / adjacencyCount;
+                List<GridCell> segment = perimeter.subList(from, to);
+                Sector toward = adjacent.get(i);
+                segments.put(toward, segment);
+                fieldKeys.put(toward, "portal:" + i + "/" + adjacencyCount);
+                segment.forEach(cell -> links.put(cell, toward));
+
+                GridCell portal = middlePassableCell(segment);
+                if (portal != null) {
+                    indexOf.put(toward, indexOf.size());
+                    portals.put(toward, portal);
+                }
+            }
+
+            int portalCount = indexOf.size();
+            this.distances = new int[portalCount][portalCount];
+            for (Map.Entry<Sector, Integer> target : indexOf.entrySet()) {
+                FlowField field = fieldTo(grid, target.getKey());
+                for (Map.Entry<Sector, Integer> source : indexOf.entrySet()) {
+                    GridCell portal = portals.get(source.getKey());
+                    distances[source.getValue()][target.getValue()] = field.distanceFrom(portal.getX(), portal.getY());
+                }
+            }
+        }
+
+        private FlowField fieldTo(Grid grid, Sector toward) {
+            return grid.getFlowFields().get(fieldKeys.get(toward), () -> segments.get(toward).stream()
+                    .filter(cell -> cell.getType() == GridCell.CellType.BORDER && FlowField.isPassable(cell))
+                    .toList());
+        }
+
+        private GridCell middlePassableCell(List<GridCell> segment) {
+            int middle = segment.size() / 2;
+            for (int offset = 0; offset <= middle + 1; offset++) {
+                for (int index : new int[]{middle - offset, middle + offset}) {
+                    if (index >= 0 && index < segment.size()) {
+                        GridCell cell = segment.get(index);
+                        if (cell.getType() == GridCell.CellType.BORDER && FlowField.isPassable(cell)) {
+                            return cell;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private List<GridCell> perimeter(Grid grid) {
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            List<GridCell> cells = new ArrayList<>();
+            for (int x = 0; x < width; x++) cells.add(grid.getCell(x, 0));
+            for (int y = 1; y < height; y++) cells.add(grid.getCell(width - 1, y));
+            for (int x = width - 2; x >= 0; x--) cells.add(grid.getCell(x, height - 1));
+            for (int y = height - 2; y > 0; y--) cells.add(grid.getCell(0, y));
+            return cells;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.horrorcore.systems.schedule;
+
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.GridCell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structural changes to a world recorded by a system while it iterates the world, and played back
+ * once it is done. While the {@link SystemScheduler} runs a system, {@link #current()} is that
+ * system's own buffer, so systems running at once on different threads never share one. The
+ * scheduler plays the buffers of a stage back on the ticking thread once the whole stage has run,
+ * in the order the systems were declared and each in the order its commands were recorded.
+ *
+ * Because nothing is added to or removed from a sector's Digimon, a tribe's members or a grid's
+ * buildings while a system runs, systems can iterate them directly instead of copying them. The
+ * flip side is that a system does not see its own structural changes. Every command checks on
+ * playback that it still applies, e.g. that the Digimon to remove is still there, and is skipped
+ * otherwise; the callbacks passed with a command run only if it was applied.
+ *
+ * Outside of a scheduled system, e.g. in world commands or tests, {@link #current()} applies
+ * every command at once.
+ */
+public final class CommandBuffer {
+    private static final ThreadLocal<CommandBuffer> CURRENT = new ThreadLocal<>();
+    private static final CommandBuffer IMMEDIATE = new CommandBuffer(true);
+    private static final Runnable NOTHING = () -> { };
+
+    private final boolean immediate;
+    private final List<Command> commands = new ArrayList<>();
+
+    CommandBuffer() {
+        this(false);
+    }
+
+    private CommandBuffer(boolean immediate) {
+        this.immediate = immediate;
+    }
+
+    /**
+     * Returns the buffer of the system the calling thread is running, or a buffer that applies
+     * commands immediately if it runs none.
+     */
+    public static CommandBuffer current() {
+        CommandBuffer buffer = CURRENT.get();
+        return buffer != null ? buffer : IMMEDIATE;
+    }
+
+    // Makes this the calling thread's current buffer and returns the one it replaces
+    CommandBuffer bind() {
+        CommandBuffer previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void restore(CommandBuffer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Adds a Digimon to a sector, as {@link Sector#addDigimon} does.
+     */
+    public void spawn(Sector sector, Digimon digimon) {
+        spawn(sector, digimon, NOTHING);
+    }
+
+    /**
+     * Adds a Digimon to a sector, as {@link Sector#addDigimon} does.
+     *
+     * @param onSpawned Run once the Digimon was placed.
+     */
+    public void spawn(Sector sector, Digimon digimon, Runnable onSpawned) {
+        record(new Spawn(sector, digimon, onSpawned));
+    }
+
+    /**
+     * Removes a Digimon that died from its sector, its tribe and the world, recording the death on the sector's
+     * heat map. Skipped if the Digimon is no longer in the sector, e.g. because it already died.
+     *
+     * @param onDespawned Run once the Digimon was removed.
+     */
+    public void despawn(Sector sector, Digimon digimon, Runnable onDespawned) {
+        record(new Despawn(sector, digimon, onDespawned));
+    }
+
+    /**
+     * Moves a Digimon from one sector onto a cell of another. Skipped if the Digimon left its sector or the
+     * cell was taken meanwhile.
+     *
+     * @param onMoved Run once the Digimon moved.
+     */
+    public void moveSector(Digimon digimon, Sector from, Sector to, GridCell entry, Runnable onMoved) {
+        record(new MoveSector(digimon, from, to, entry, onMoved));
+    }
+
+    /**
+     * Makes a Digimon a member of a tribe, taking it out of the tribe it was in.
+     */
+    public void joinTribe(Tribe tribe, Digimon digimon) {
+        record(new JoinTribe(tribe, digimon));
+    }
+
+    /**
+     * Places a building in a sector. Skipped if the building no longer fits, e.g. because another one was placed
+     * in its way meanwhile.
+     */
+    public void placeBuilding(Sector sector, Building building) {
+        placeBuilding(sector, building, NOTHING);
+    }
+
+    /**
+     * Places a building in a sector. Skipped if the building no longer fits, e.g. because another one was placed
+     * in its way meanwhile.
+     *
+     * @param onPlaced Run once the building was placed.
+     */
+    public void placeBuilding(Sector sector, Building building, Runnable onPlaced) {
+        record(new PlaceBuilding(sector, building, onPlaced));
+    }
+
+    private void record(Command command) {
+        if (immediate) {
+            command.apply();
+        } else {
+            commands.add(command);
+        }
+    }
+
+    /**
+     * Returns the number of commands waiting to be played back.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    void discard() {
+        commands.clear();
+    }
+
+    /**
+     * Applies the recorded commands in order and empties the buffer. Commands recorded while playing back
+     * are applied at once.
+     *
+     * @return The number of commands that applied.
+     */
+    public int playback() {
+        int applied = 0;
+        for (Command command : commands) {
+            if (command.apply()) {
+                applied++;
+            }
+        }
+        commands.clear();
+        return applied;
+    }
+
+    private sealed interface Command permits Spawn, Despawn, MoveSector, JoinTribe, PlaceBuilding {
+        /**
+         * @return Whether the command still applied.
+         */
+        boolean apply();
+    }
+
+    private record Spawn(Sector sector, Digimon digimon, Runnable onSpawned) implements Command {
+        public boolean apply() {
+            if (!sector.addDigimon(digimon)) {
+                return false;
+            }
+            onSpawned.run();
+            return true;
+        }
+    }
+
+    private record Despawn(Sector sector, Digimon digimon, Runnable onDespawned) implements Command {
+        public boolean apply() {
+            if (!sector.contains(digimon)) {
+                return false;
+            }
+            sector.recordDeath(digimon);
+            sector.removeDigimon(digimon);
+            Tribe tribe = digimon.getTribe();
+            if (tribe != null) {
+                tribe.removeMember(digimon);
+            }
+            digimon.detach();
+            onDespawned.run();
+            return true;
+        }
+    }
+
+    private record MoveSector(Digimon digimon, Sector from, Sector to, GridCell entry, Runnable onMoved) implements Command {
+        public boolean apply() {
+            if (!from.contains(digimon) || entry.getOccupant() != null || entry.getBuilding() != null
+                    || entry.getType() == GridCell.CellType.BLOCKED) {
+                return false;
+            }
+            from.removeDigimon(digimon);
+            to.addDigimonAt(digimon, entry);
+            onMoved.run();
+            return true;
+        }
+    }
+
+    private record JoinTribe(Tribe tribe, Digimon digimon) implements Command {
+        public boolean apply() {
+            if (tribe.isMember(digimon)) {
+                return false;
+            }
+            tribe.addMember(digimon);
+            return true;
+        }
+    }
+
+    private record PlaceBuilding(Sector sector, Building building, Runnable onPlaced) implements Command {
+        public boolean apply() {
+            if (!sector.placeBuilding(building, building.getX(), building.getY())) {
+                return false;
+            }
+            onPlaced.run();
+            return true;
+        }
+    }
+}
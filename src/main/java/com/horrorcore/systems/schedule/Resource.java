@@ -0,0 +1,28 @@
+package com.horrorcore.systems.schedule;
+
+/**
+ * A part of a world's state that systems declare they read or write. Two systems conflict when
+ * one writes a resource the other reads or writes, and conflicting systems never run at once.
+ */
+public enum Resource {
+    /** Age, health, hunger, aggression, stage, personality and friendships of Digimon. */
+    VITALS,
+    /** Which sector and cell every Digimon occupies, including Digimon being born, added or removed. */
+    POSITIONS,
+    /** The sectors' heat map overlays. */
+    HEAT,
+    /** Tribes, their members, professions, stock and technology. */
+    TRIBES,
+    /** Buildings and the building indexes. */
+    BUILDINGS,
+    /** Alliances and rivalries between tribes. */
+    RELATIONS,
+    /** The world's technological age. */
+    TECHNOLOGY,
+    /** The published world snapshot. */
+    SNAPSHOT,
+    /** The time series recording. */
+    TIME_SERIES,
+    /** The path cache, the cross-sector routes and the flow field caches, which lookups update as they go. */
+    PATHS
+}
@@ -0,0 +1,46 @@
+package com.horrorcore.systems.schedule;
+
+import com.horrorcore.metrics.TickPhase;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * One step of a tick as the {@link SystemScheduler} sees it: what it is called, which phase its time
+ * is charged to, and which resources it reads and writes. A resource that is written need not also
+ * be listed as read.
+ *
+ * @param name   The system name, as shown in the schedule and in the per-system metrics.
+ * @param phase  The tick phase the system's time is charged to, or null for none.
+ * @param reads  The resources the system only reads.
+ * @param writes The resources the system writes.
+ * @param body   The work, run once per tick.
+ */
+public record ScheduledSystem(String name, TickPhase phase, Set<Resource> reads, Set<Resource> writes, Runnable body) {
+
+    public ScheduledSystem {
+        reads = Collections.unmodifiableSet(reads.isEmpty() ? EnumSet.noneOf(Resource.class) : EnumSet.copyOf(reads));
+        writes = Collections.unmodifiableSet(writes.isEmpty() ? EnumSet.noneOf(Resource.class) : EnumSet.copyOf(writes));
+    }
+
+    /**
+     * Returns the resources that make this system and another conflict: those either of them writes and the other uses.
+     *
+     * @return The shared resources, empty if the systems can run at once.
+     */
+    public Set<Resource> conflicts(ScheduledSystem other) {
+        EnumSet<Resource> shared = EnumSet.noneOf(Resource.class);
+        for (Resource resource : writes) {
+            if (other.reads.contains(resource) || other.writes.contains(resource)) {
+                shared.add(resource);
+            }
+        }
+        for (Resource resource : other.writes) {
+            if (reads.contains(resource)) {
+                shared.add(resource);
+            }
+        }
+        return shared;
+    }
+}
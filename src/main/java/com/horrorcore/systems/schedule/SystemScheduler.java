@@ -0,0 +1,317 @@
+package com.horrorcore.systems.schedule;
+
+import com.horrorcore.metrics.LatencyHistogram;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.TickTimer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs the systems of a tick in an order derived from what they read and write rather than
+ * hardcoded. Systems are added in their logical order; a system depends on every earlier system
+ * it {@link ScheduledSystem#conflicts conflicts} with, and the dependencies form a DAG that is
+ * built once, when the first tick runs after a system was added.
+ *
+ * The DAG is split into stages: a system's stage is one after the latest stage of the systems it
+ * depends on. Each stage runs after the previous one has finished. A stage of one system runs on the
+ * ticking thread; the systems of a larger stage, which cannot conflict, run at once on a
+ * work-stealing pool. Every system's time goes to the metrics registry, and to its tick phase.
+ *
+ * Each system records its structural changes into its own {@link CommandBuffer}. Once a stage has
+ * finished, the buffers of its systems are played back on the ticking thread, in declaration order,
+ * so the next stage sees the changes.
+ *
+ * Each system also draws from its own random stream, split from the scheduler's seed in declaration
+ * order, so systems that run at once never share a random source and a seeded world still replays
+ * the same way. While a system runs, {@link #currentRandom()} is its stream. Systems run on the pool
+ * report the phase they run to the tick timer themselves, so the stall watchdog sees them.
+ *
+ * The pool's parallelism is set by the {@value #PARALLELISM_PROPERTY} system property, by default
+ * the number of processors; 1 runs every system on the ticking thread.
+ */
+public class SystemScheduler {
+    public static final String PARALLELISM_PROPERTY = "digimon.scheduler.parallelism";
+    private static final ThreadLocal<Random> CURRENT_RANDOM = new ThreadLocal<>();
+    private static ForkJoinPool sharedPool;
+
+    private final MetricsRegistry metrics;
+    private final TickTimer timer;
+    private final UnaryOperator<Runnable> onWorker;
+    private final ForkJoinPool pool;
+    private final SplittableRandom seeds;
+    private final List<ScheduledSystem> systems = new ArrayList<>();
+    private final List<Random> streams = new ArrayList<>();
+    private List<List<Node>> stages;
+
+    /**
+     * Creates a scheduler that runs parallel stages on the pool shared by all worlds, as configured.
+     *
+     * @param metrics  Where system times are recorded.
+     * @param timer    The timer of the world's ticks, which system times are charged to.
+     * @param onWorker Wraps the body of a system run on a pool thread, e.g. to let that thread access the world.
+     * @param seed     The seed the systems' random streams are split from.
+     */
+    public SystemScheduler(MetricsRegistry metrics, TickTimer timer, UnaryOperator<Runnable> onWorker, long seed) {
+        this(metrics, timer, onWorker, seed, configuredPool());
+    }
+
+    /**
+     * @param pool The pool parallel stages run on, or null to run every system on the ticking thread.
+     */
+    public SystemScheduler(MetricsRegistry metrics, TickTimer timer, UnaryOperator<Runnable> onWorker, long seed,
+                           ForkJoinPool pool) {
+        this.metrics = metrics;
+        this.timer = timer;
+        this.onWorker = onWorker;
+        this.seeds = new SplittableRandom(seed);
+        this.pool = pool;
+    }
+
+    private static synchronized ForkJoinPool configuredPool() {
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        if (parallelism <= 1) {
+            return null;
+        }
+        if (sharedPool == null) {
+            sharedPool = new ForkJoinPool(parallelism);
+        }
+        return sharedPool;
+    }
+
+    /**
+     * Adds a system after those added so far.
+     */
+    public void add(ScheduledSystem system) {
+        systems.add(system);
+        streams.add(new Random(seeds.nextLong()));
+        stages = null;
+    }
+
+    /**
+     * Returns the random stream of the system the calling thread is running.
+     *
+     * @return The stream, or null if the thread runs no system.
+     */
+    public static Random currentRandom() {
+        return CURRENT_RANDOM.get();
+    }
+
+    public List<ScheduledSystem> getSystems() {
+        return List.copyOf(systems);
+    }
+
+    /**
+     * Runs every system once, stage by stage. Must be called by the thread that ticks the world.
+     *
+     * @throws RuntimeException Whatever a system threw; the systems of later stages do not run.
+     */
+    public void run() {
+        for (List<Node> stage : stages()) {
+            if (stage.size() == 1 || pool == null) {
+                for (Node node : stage) {
+                    timer.enter(node.system.phase());
+                    long start = System.nanoTime();
+                    runBuffered(node);
+                    record(node.system, System.nanoTime() - start);
+                }
+                playback(stage);
+                continue;
+            }
+            // The ticking thread only waits; each worker reports its own phase, which is charged after the stage
+            timer.enter(null);
+            List<Callable<Long>> tasks = new ArrayList<>(stage.size());
+            for (Node node : stage) {
+                Runnable body = onWorker.apply(() -> runBuffered(node));
+                tasks.add(() -> {
+                    timer.enterWorker(node.system.phase());
+                    long start = System.nanoTime();
+                    try {
+                        body.run();
+                    } finally {
+                        timer.exitWorker();
+                    }
+                    return System.nanoTime() - start;
+                });
+            }
+            List<Future<Long>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < stage.size(); i++) {
+                record(stage.get(i).system, await(results.get(i)));
+            }
+            playback(stage);
+        }
+        timer.enter(null);
+    }
+
+    private static void runBuffered(Node node) {
+        // Drops what a system recorded in a tick that failed before playing it back
+        node.commands.discard();
+        CommandBuffer previous = node.commands.bind();
+        Random previousRandom = CURRENT_RANDOM.get();
+        CURRENT_RANDOM.set(node.random);
+        try {
+            node.system.body().run();
+        } finally {
+            CommandBuffer.restore(previous);
+            if (previousRandom == null) {
+                CURRENT_RANDOM.remove();
+            } else {
+                CURRENT_RANDOM.set(previousRandom);
+            }
+        }
+    }
+
+    // Applies what the systems of a stage recorded, in the order they were declared
+    private void playback(List<Node> stage) {
+        for (Node node : stage) {
+            if (node.commands.size() > 0) {
+                timer.enter(node.system.phase());
+                node.commands.playback();
+            }
+        }
+    }
+
+    private void record(ScheduledSystem system, long nanos) {
+        metrics.recordSystem(system.name(), nanos);
+        if (system.phase() != null) {
+            timer.charge(system.phase(), nanos);
+        }
+    }
+
+    private static long await(Future<Long> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a system", e);
+        }
+    }
+
+    /**
+     * Returns the stages of the schedule, each listing the systems that may run at once, in order.
+     */
+    public List<List<ScheduledSystem>> getStages() {
+        List<List<ScheduledSystem>> result = new ArrayList<>();
+        for (List<Node> stage : stages()) {
+            result.add(stage.stream().map(node -> node.system).toList());
+        }
+        return result;
+    }
+
+    private List<List<Node>> stages() {
+        if (stages == null) {
+            stages = build(systems, streams);
+        }
+        return stages;
+    }
+
+    private static List<List<Node>> build(List<ScheduledSystem> systems, List<Random> streams) {
+        List<Node> nodes = new ArrayList<>(systems.size());
+        for (ScheduledSystem system : systems) {
+            Node node = new Node(nodes.size(), system, streams.get(nodes.size()));
+            for (Node earlier : nodes) {
+                if (!system.conflicts(earlier.system).isEmpty()) {
+                    node.dependencies.add(earlier);
+                    node.ancestors.set(earlier.index);
+                    node.ancestors.or(earlier.ancestors);
+                    node.stage = Math.max(node.stage, earlier.stage + 1);
+                }
+            }
+            nodes.add(node);
+        }
+        // Keep only the dependencies that no other dependency already implies, for the schedule dump
+        for (Node node : nodes) {
+            List<Node> implied = new ArrayList<>();
+            for (Node dependency : node.dependencies) {
+                for (Node other : node.dependencies) {
+                    if (other.ancestors.get(dependency.index)) {
+                        implied.add(dependency);
+                        break;
+                    }
+                }
+            }
+            node.direct.addAll(node.dependencies);
+            node.direct.removeAll(implied);
+        }
+        List<List<Node>> stages = new ArrayList<>();
+        for (Node node : nodes) {
+            while (stages.size() <= node.stage) {
+                stages.add(new ArrayList<>());
+            }
+            stages.get(node.stage).add(node);
+        }
+        return stages;
+    }
+
+    /**
+     * Describes the schedule: the systems of every stage with what they read and write, the systems they
+     * wait for and the resources they wait on, and their mean time so far.
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        List<List<Node>> stages = stages();
+        for (int s = 0; s < stages.size(); s++) {
+            List<Node> stage = stages.get(s);
+            text.append("Stage ").append(s + 1);
+            if (stage.size() > 1) {
+                text.append(pool != null ? " (" + stage.size() + " systems in parallel)" : " (" + stage.size() + " systems, run in turn)");
+            }
+            text.append('\n');
+            for (Node node : stage) {
+                ScheduledSystem system = node.system;
+                LatencyHistogram times = metrics.getSystemHistogram(system.name());
+                text.append(String.format(Locale.ROOT, "  %-14s reads %s, writes %s", system.name(),
+                        names(system.reads()), names(system.writes())));
+                if (times != null && times.getCount() > 0) {
+                    text.append(String.format(Locale.ROOT, ", mean %.3f ms", times.getMeanNanos() / 1e6));
+                }
+                text.append('\n');
+                for (Node dependency : node.direct) {
+                    text.append("    after ").append(dependency.system.name()).append(" on ")
+                            .append(names(system.conflicts(dependency.system))).append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static String names(Set<Resource> resources) {
+        return resources.isEmpty() ? "nothing" : resources.toString();
+    }
+
+    private static class Node {
+        final int index;
+        final ScheduledSystem system;
+        final Random random;
+        final List<Node> dependencies = new ArrayList<>();
+        final List<Node> direct = new ArrayList<>();
+        // The indexes of every system this one waits for, directly or not
+        final BitSet ancestors = new BitSet();
+        final CommandBuffer commands = new CommandBuffer();
+        int stage;
+
+        Node(int index, ScheduledSystem system, Random random) {
+            this.index = index;
+            this.system = system;
+            this.random = random;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.horrorcore.systems.social;
+
+import java.util.Arrays;
+
+/**
+ * The outgoing edges of one node of a {@link SocialGraph}: the handles of the entities it relates to,
+ * each with a weight and the tick the weight was last settled at. Edges are kept in parallel arrays
+ * with open addressing, so a Digimon's edges take a few small arrays and no object per edge.
+ *
+ * A map never holds more than its graph's degree cap. Adding an edge to a full map first drops the
+ * edges that faded or whose entity was destroyed, and then replaces the weakest edge if the new one
+ * is stronger.
+ */
+final class EdgeMap {
+    private static final int EMPTY = -1;
+
+    private final SocialGraph graph;
+    private int[] targets;
+    private float[] weights;
+    private int[] settled;
+    private int size;
+
+    EdgeMap(SocialGraph graph) {
+        this.graph = graph;
+        allocate(8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the decayed weight of the edge to an entity, or zero if there is none.
+     */
+    float get(int target, int now) {
+        int index = indexOf(target);
+        return targets[index] == target ? weightAt(index, now) : 0;
+    }
+
+    /**
+     * Changes the weight of the edge to an entity, creating it if the change is positive and removing it if
+     * its weight falls below the graph's minimum.
+     */
+    void add(int target, float delta, int now) {
+        int index = indexOf(target);
+        if (targets[index] == target) {
+            float weight = weightAt(index, now) + delta;
+            if (weight < SocialGraph.MIN_WEIGHT) {
+                removeAt(index);
+            } else {
+                weights[index] = weight;
+                settled[index] = now;
+            }
+            return;
+        }
+        if (delta < SocialGraph.MIN_WEIGHT) {
+            return;
+        }
+        if (size == graph.getDegreeCap()) {
+            purge(now);
+            if (size == graph.getDegreeCap() && !evictWeakerThan(delta, now)) {
+                return;
+            }
+        } else if ((size + 1) * 4 > targets.length * 3) {
+            rehash(targets.length * 2, now);
+        }
+        index = indexOf(target);
+        targets[index] = target;
+        weights[index] = delta;
+        settled[index] = now;
+        size++;
+    }
+
+    boolean remove(int target) {
+        int index = indexOf(target);
+        if (targets[index] != target) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Drops the edges that faded below the minimum weight or lead to destroyed entities.
+     */
+    void purge(int now) {
+        rehash(targets.length, now);
+    }
+
+    /**
+     * Sums the decayed weights of the edges to live entities.
+     */
+    float total(int now) {
+        float total = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] != EMPTY && graph.isAlive(targets[i])) {
+                total += weightAt(i, now);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Passes the edges to live entities that did not fade to an action, dropping the others.
+     */
+    void forEach(int now, EdgeConsumer action) {
+        purge(now);
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] != EMPTY) {
+                action.accept(targets[i], weights[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface EdgeConsumer {
+        void accept(int target, float weight);
+    }
+
+    private float weightAt(int index, int now) {
+        return weights[index] * graph.kept(now - settled[index]);
+    }
+
+    // Removes the weakest edge if it is weaker than the given weight
+    private boolean evictWeakerThan(float weight, int now) {
+        int weakest = -1;
+        float weakestWeight = weight;
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] != EMPTY && weightAt(i, now) < weakestWeight) {
+                weakest = i;
+                weakestWeight = weightAt(i, now);
+            }
+        }
+        if (weakest < 0) {
+            return false;
+        }
+        removeAt(weakest);
+        return true;
+    }
+
+    private void removeAt(int hole) {
+        targets[hole] = EMPTY;
+        size--;
+        // Shift later edges of the same run back into the hole unless that would put them before their home
+        int mask = targets.length - 1;
+        for (int next = (hole + 1) & mask; targets[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(targets[next]);
+            boolean homeInBetween = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!homeInBetween) {
+                targets[hole] = targets[next];
+                weights[hole] = weights[next];
+                settled[hole] = settled[next];
+                targets[next] = EMPTY;
+                hole = next;
+            }
+        }
+    }
+
+    // Rebuilds the table with the given capacity, settling the kept edges at the current tick
+    private void rehash(int capacity, int now) {
+        int[] oldTargets = targets;
+        float[] oldWeights = weights;
+        int[] oldSettled = settled;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldTargets.length; i++) {
+            int target = oldTargets[i];
+            if (target == EMPTY || !graph.isAlive(target)) {
+                continue;
+            }
+            float weight = oldWeights[i] * graph.kept(now - oldSettled[i]);
+            if (weight >= SocialGraph.MIN_WEIGHT) {
+                int index = indexOf(target);
+                targets[index] = target;
+                weights[index] = weight;
+                settled[index] = now;
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        targets = new int[capacity];
+        Arrays.fill(targets, EMPTY);
+        weights = new float[capacity];
+        settled = new int[capacity];
+    }
+
+    private int indexOf(int target) {
+        int mask = targets.length - 1;
+        int index = home(target);
+        while (targets[index] != EMPTY && targets[index] != target) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int home(int target) {
+        int hash = target * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (targets.length - 1);
+    }
+}
@@ -0,0 +1,225 @@
+package com.horrorcore.systems.social;
+
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Tribe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * The friendships of one world's Digimon, as a sparse weighted graph. Each Digimon's outgoing edges
+ * live in a small open addressing map keyed by the handles of the entities they lead to, indexed by
+ * the Digimon's slot in the world's {@link EntityStore}; a map left behind by a Digimon that died is
+ * recognised by its handle and reset when the slot is reused. Edges to Digimon that died are dropped
+ * lazily, like the handles of a {@link com.horrorcore.ecs.HandleSet}. A Digimon keeps at most as many
+ * edges as the degree cap set by the {@value #DEGREE_PROPERTY} system property; a full map gives up its
+ * weakest edge for a stronger one.
+ *
+ * Relations between whole tribes, such as an alliance, are kept as one group edge per pair of tribes
+ * instead of an edge for every pair of members, so relating two tribes takes constant time however
+ * large they are. The friendship of one Digimon towards another is the weight of its own edge plus
+ * that of the group edge between their tribes.
+ *
+ * Every weight decays exponentially with a half-life in ticks, set by the {@value #HALF_LIFE_PROPERTY}
+ * system property. Decay is lazy, as on a {@link com.horrorcore.grid.HeatMap}: an edge remembers the
+ * tick its weight was last settled at, and edges that decayed below {@value #MIN_WEIGHT} are dropped
+ * when next touched.
+ */
+public class SocialGraph {
+    public static final String HALF_LIFE_PROPERTY = "digimon.social.halflife";
+    public static final String DEGREE_PROPERTY = "digimon.social.degree";
+    public static final int DEFAULT_HALF_LIFE = 500;
+    public static final int DEFAULT_DEGREE_CAP = 32;
+    // Edges lighter than this are dropped
+    public static final float MIN_WEIGHT = 1;
+
+    private final EntityStore entities;
+    private final IntSupplier clock;
+    private final int degreeCap;
+    // What a weight keeps of itself per tick, and decay[n] of it after n ticks
+    private final double factor;
+    private final float[] decay;
+    // Indexed by slot; holders[slot] is the handle of the entity the edges of the slot belong to
+    private EdgeMap[] edges = new EdgeMap[64];
+    private int[] holders = new int[64];
+    private final Map<Long, GroupEdge> groups = new HashMap<>();
+
+    public SocialGraph(EntityStore entities, IntSupplier clock) {
+        this(entities, clock, Integer.getInteger(HALF_LIFE_PROPERTY, DEFAULT_HALF_LIFE),
+                Integer.getInteger(DEGREE_PROPERTY, DEFAULT_DEGREE_CAP));
+    }
+
+    /**
+     * @param entities  The store of the Digimon whose friendships are kept.
+     * @param clock     Where the current tick is read from.
+     * @param halfLife  The ticks after which a weight has decayed to half.
+     * @param degreeCap The most edges a Digimon keeps.
+     */
+    public SocialGraph(EntityStore entities, IntSupplier clock, int halfLife, int degreeCap) {
+        this.entities = entities;
+        this.clock = clock;
+        this.degreeCap = Math.max(1, degreeCap);
+        this.factor = Math.pow(0.5, 1.0 / Math.max(1, halfLife));
+        // After this many ticks every weight up to a thousand has decayed below the minimum; larger ones are computed
+        int ticks = (int) Math.ceil(Math.log(MIN_WEIGHT / 1000) / Math.log(factor));
+        this.decay = new float[ticks];
+        for (int i = 0; i < ticks; i++) {
+            decay[i] = (float) Math.pow(factor, i);
+        }
+    }
+
+    public int getDegreeCap() {
+        return degreeCap;
+    }
+
+    /**
+     * Strengthens, or with a negative change weakens, the friendship of one Digimon towards another.
+     * Does nothing unless both are placed in this graph's world.
+     */
+    public void befriend(Digimon from, Digimon to, float change) {
+        int source = from.getEntity();
+        int target = to.getEntity();
+        if (source < 0 || target < 0 || source == target) {
+            return;
+        }
+        EdgeMap map = change > 0 ? edgesOf(source, true) : edgesOf(source, false);
+        if (map != null) {
+            map.add(target, change, clock.getAsInt());
+        }
+    }
+
+    /**
+     * Ends the friendship of one Digimon towards another.
+     */
+    public void unfriend(Digimon from, Digimon to) {
+        EdgeMap map = edgesOf(from.getEntity(), false);
+        if (map != null) {
+            map.remove(to.getEntity());
+        }
+    }
+
+    /**
+     * Strengthens, or with a negative change weakens, the relation between two tribes, which every member of
+     * each counts towards its friendship with every member of the other.
+     */
+    public void relate(Tribe first, Tribe second, float change) {
+        if (first == second) {
+            return;
+        }
+        int now = clock.getAsInt();
+        long key = groupKey(first, second);
+        GroupEdge edge = groups.get(key);
+        float weight = (edge != null ? weightAt(edge, now) : 0) + change;
+        if (weight < MIN_WEIGHT) {
+            groups.remove(key);
+        } else {
+            groups.put(key, new GroupEdge(weight, now));
+        }
+    }
+
+    /**
+     * Returns the decayed weight of the relation between two tribes.
+     */
+    public float getRelation(Tribe first, Tribe second) {
+        GroupEdge edge = groups.get(groupKey(first, second));
+        return edge != null ? weightAt(edge, clock.getAsInt()) : 0;
+    }
+
+    /**
+     * Drops the relations of a tribe that is gone.
+     */
+    public void forget(Tribe tribe) {
+        groups.keySet().removeIf(key -> (int) (key >>> 32) == tribe.getId() || key.intValue() == tribe.getId());
+    }
+
+    /**
+     * Returns the friendship of one Digimon towards another: its own edge plus the relation between their tribes.
+     */
+    public float getFriendship(Digimon from, Digimon to) {
+        float friendship = 0;
+        EdgeMap map = edgesOf(from.getEntity(), false);
+        if (map != null && entities.isAlive(to.getEntity())) {
+            friendship += map.get(to.getEntity(), clock.getAsInt());
+        }
+        Tribe fromTribe = from.getTribe();
+        Tribe toTribe = to.getTribe();
+        if (fromTribe != null && toTribe != null) {
+            friendship += getRelation(fromTribe, toTribe);
+        }
+        return friendship;
+    }
+
+    /**
+     * Returns the summed weight of a Digimon's own edges to live Digimon, leaving out tribe relations.
+     */
+    public float getTotalFriendship(Digimon digimon) {
+        EdgeMap map = edgesOf(digimon.getEntity(), false);
+        return map != null ? map.total(clock.getAsInt()) : 0;
+    }
+
+    /**
+     * Returns the live Digimon a Digimon has an edge to, dropping its edges to those that died or faded.
+     */
+    public List<Digimon> getFriends(Digimon digimon) {
+        List<Digimon> friends = new ArrayList<>();
+        EdgeMap map = edgesOf(digimon.getEntity(), false);
+        if (map != null) {
+            map.forEach(clock.getAsInt(), (target, weight) -> friends.add((Digimon) entities.getOwner(target)));
+        }
+        return friends;
+    }
+
+    /**
+     * Returns the number of edges a Digimon holds, including those to Digimon that died and were not dropped yet.
+     */
+    public int getDegree(Digimon digimon) {
+        EdgeMap map = edgesOf(digimon.getEntity(), false);
+        return map != null ? map.size() : 0;
+    }
+
+    boolean isAlive(int entity) {
+        return entities.isAlive(entity);
+    }
+
+    float kept(int elapsed) {
+        return elapsed <= 0 ? 1 : elapsed < decay.length ? decay[elapsed] : (float) Math.pow(factor, elapsed);
+    }
+
+    // Returns the edges of a live entity, creating them if asked to; the edges of an earlier entity in its slot are discarded
+    private EdgeMap edgesOf(int entity, boolean create) {
+        if (!entities.isAlive(entity)) {
+            return null;
+        }
+        int slot = EntityStore.slotOf(entity);
+        if (slot >= edges.length) {
+            int capacity = Math.max(edges.length * 2, slot + 1);
+            edges = Arrays.copyOf(edges, capacity);
+            holders = Arrays.copyOf(holders, capacity);
+        }
+        if (edges[slot] != null && holders[slot] != entity) {
+            edges[slot] = null;
+        }
+        if (edges[slot] == null && create) {
+            edges[slot] = new EdgeMap(this);
+            holders[slot] = entity;
+        }
+        return edges[slot];
+    }
+
+    private static long groupKey(Tribe first, Tribe second) {
+        int low = Math.min(first.getId(), second.getId());
+        int high = Math.max(first.getId(), second.getId());
+        return (long) low << 32 | high;
+    }
+
+    private record GroupEdge(float weight, int settled) {}
+
+    private float weightAt(GroupEdge edge, int now) {
+        return edge.weight() * kept(now - edge.settled());
+    }
+}
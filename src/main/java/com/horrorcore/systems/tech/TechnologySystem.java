@@ -1,21 +1,36 @@
 package com.horrorcore.systems.tech;
 
-import com.horrorcore.World;
+import com.horrorcore.SimulationContext;
 import com.horrorcore.entity.Digimon;
 import com.horrorcore.entity.Tribe;
 import com.horrorcore.systems.events.SimulationEvent;
-import com.horrorcore.systems.events.SimulationSubject;
 
 import java.util.*;
 
 public class TechnologySystem {
     public static final String[] AGES = {"Stone Age", "Bronze Age", "Iron Age", "Digital Age"};
+    // Below this many tribes the fork/join overhead outweighs computing the work in parallel
+    private static final int PARALLEL_WORK_THRESHOLD = 64;
+    private static final int BASE_FOOD_PRODUCTION = 10;
+    private static final int MILITARY_LEVEL_BONUS = 40;
+
+    private final transient SimulationContext context;
     private int currentAgeIndex = 0;
     private final Map<String, Integer> technologyLevels;
     private final Map<String, List<Digimon>> professions;
+    private final int[] professionCounts = new int[Profession.values().length];
     private int researchPoints = 0;
 
-    public TechnologySystem() {
+    // Per-worker yields, recomputed only when a technology level changes
+    private int foodPerFarmer;
+    private int buildingsPerBuilder;
+    private boolean constructionMilestone;
+    private int strengthPerSoldier;
+    private boolean militaryMilestone;
+    private int researchPerScientist;
+
+    public TechnologySystem(SimulationContext context) {
+        this.context = context;
         technologyLevels = new HashMap<>();
         technologyLevels.put("Agriculture", 0);
         technologyLevels.put("Construction", 0);
@@ -23,23 +38,46 @@ public class TechnologySystem {
         technologyLevels.put("Science", 0);
 
         professions = new HashMap<>();
-        professions.put("Farmer", new ArrayList<>());
-        professions.put("Builder", new ArrayList<>());
-        professions.put("Soldier", new ArrayList<>());
-        professions.put("Scientist", new ArrayList<>());
+        for (Profession profession : Profession.values()) {
+            professions.put(profession.title, new ArrayList<>());
+        }
+        updateBonuses();
     }
 
     public TechnologySystem(TechnologySystem technologySystem) {
+        this.context = technologySystem.context;
         this.technologyLevels = new HashMap<>(technologySystem.technologyLevels);
-        this.professions = new HashMap<>(technologySystem.professions);
+        this.professions = new HashMap<>();
+        technologySystem.professions.forEach((title, workers) -> professions.put(title, new ArrayList<>(workers)));
+        System.arraycopy(technologySystem.professionCounts, 0, professionCounts, 0, professionCounts.length);
         this.currentAgeIndex = technologySystem.currentAgeIndex;
         this.researchPoints = technologySystem.researchPoints;
+        updateBonuses();
+    }
+
+    /**
+     * The professions a tribe member can hold, indexed so that head counts can be kept in an array.
+     */
+    private enum Profession {
+        FARMER("Farmer"), BUILDER("Builder"), SOLDIER("Soldier"), SCIENTIST("Scientist");
+
+        private final String title;
+
+        Profession(String title) { this.title = title; }
+
+        static Profession of(String title) {
+            if (title == null) return null;
+            for (Profession profession : values()) {
+                if (profession.title.equals(title)) return profession;
+            }
+            return null;
+        }
     }
 
     public void advanceAge() {
         if (currentAgeIndex < AGES.length - 1) {
             currentAgeIndex++;
-            SimulationSubject.getInstance().notifyEvent("The world has entered the " + AGES[currentAgeIndex] + "!", SimulationEvent.EventType.OTHER);
+            context.getEvents().notifyEvent("The world has entered the " + AGES[currentAgeIndex] + "!", SimulationEvent.EventType.OTHER);
         }
     }
 
@@ -55,74 +93,133 @@ public class TechnologySystem {
                 return;
             }
             
-            if (currentProfession != null) {
-                // Remove from previous profession
-                professions.get(currentProfession).remove(digimon);
-            }
-            
-            professions.get(profession).add(digimon);
+            // Remove from previous profession
+            removeWorker(digimon);
             digimon.setProfession(profession);
-            SimulationSubject.getInstance().notifyEvent(digimon.getName() + " has become a " + profession + "!", SimulationEvent.EventType.OTHER);
+            addWorker(digimon);
+            context.getEvents().notifyEvent(digimon.getName() + " has become a " + profession + "!", SimulationEvent.EventType.OTHER);
         }
     }
 
-    public void performWork(World world) {
-        for (Tribe tribe : world.getTribes()) {
-            int foodProduced = 0;
-            int buildingsConstructed = 0;
-            int militaryStrength = 0;
-    
-            for (Digimon digimon : tribe.getMembers()) {
-                String profession = digimon.getProfession();
-                if (profession == null) continue;
-    
-                switch (profession) {
-                    case "Farmer":
-                        int baseProduction = 10;
-                        double technologyBonus = 1 + (this.getTechnologyLevel("Agriculture") * 0.1);
-                        foodProduced += (int) (baseProduction * technologyBonus);
-                        break;
-                    case "Builder":
-                        if (getTechnologyLevel("Construction") % 10 == 0) {
-                            buildingsConstructed += 1 + (getTechnologyLevel("Construction") / 2);
-                            Tribe.buildCity(tribe);
-                        }
-                        break;
-                    case "Soldier":
-                        militaryStrength += 1 + (getTechnologyLevel("Military") / 2);
-                        if(getTechnologyLevel("Military") % 10 == 0 && tribe.getMilitaryStrength() > 0) {
-                            tribe.setMilitaryStrength(tribe.getMilitaryStrength() + 40);
-                            SimulationSubject.getInstance().notifyEvent(tribe.getName() + " has increased their military strength by 10!", SimulationEvent.EventType.OTHER);
-                        }
-                        break;
-                    case "Scientist":
-                        researchPoints += 1 + (getTechnologyLevel("Science") / 2);
-                        break;
-                }
-            }
-    
-            // Apply the results of the work
-            tribe.addFood(foodProduced);
-            tribe.setMilitaryStrength(tribe.getMilitaryStrength() + militaryStrength);
-            tribe.addResearchPoints(researchPoints);
-    
-            // Log the results
-            SimulationSubject.getInstance().notifyEvent(tribe.getName() + " produced " + foodProduced + " food, constructed " + 
-                                                 buildingsConstructed + " buildings, and increased military strength by " + 
-                                                 militaryStrength + ".", SimulationEvent.EventType.OTHER);
+    /**
+     * Counts a Digimon that joined the tribe towards its profession, if it already has one.
+     *
+     * @param digimon The new member.
+     */
+    public void onMemberJoined(Digimon digimon) {
+        addWorker(digimon);
+    }
+
+    /**
+     * Stops counting a Digimon that left the tribe towards its profession.
+     *
+     * @param digimon The former member.
+     */
+    public void onMemberLeft(Digimon digimon) {
+        removeWorker(digimon);
+    }
+
+    private void addWorker(Digimon digimon) {
+        Profession profession = Profession.of(digimon.getProfession());
+        if (profession != null) {
+            professions.get(profession.title).add(digimon);
+            professionCounts[profession.ordinal()]++;
+        }
+    }
+
+    private void removeWorker(Digimon digimon) {
+        Profession profession = Profession.of(digimon.getProfession());
+        if (profession != null && professions.get(profession.title).removeIf(worker -> worker == digimon)) {
+            professionCounts[profession.ordinal()]--;
+        }
+    }
+
+    /**
+     * Has every tribe do a round of work with its own professions and technology levels.
+     * The output of each tribe only depends on its own head counts and cached bonuses, so it
+     * is computed in parallel for large numbers of tribes. The results are then applied one
+     * tribe at a time, since building cities and publishing events touch shared state.
+     *
+     * @param tribes The tribes to put to work.
+     */
+    public static void performWork(Collection<Tribe> tribes) {
+        List<Tribe> workers = new ArrayList<>(tribes);
+        List<WorkResult> results = (workers.size() >= PARALLEL_WORK_THRESHOLD ? workers.parallelStream() : workers.stream())
+                .map(tribe -> tribe.getTechnologySystem().computeWork(tribe))
+                .toList();
+        for (int i = 0; i < workers.size(); i++) {
+            workers.get(i).getTechnologySystem().applyWork(workers.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * Has a single tribe do a round of work.
+     *
+     * @param tribe The tribe that owns this technology system.
+     */
+    public void performWork(Tribe tribe) {
+        applyWork(tribe, computeWork(tribe));
+    }
+
+    private WorkResult computeWork(Tribe tribe) {
+        int builders = professionCounts[Profession.BUILDER.ordinal()];
+        int soldiers = professionCounts[Profession.SOLDIER.ordinal()];
+        return new WorkResult(
+                professionCounts[Profession.FARMER.ordinal()] * foodPerFarmer,
+                constructionMilestone ? builders * buildingsPerBuilder : 0,
+                constructionMilestone && builders > 0,
+                soldiers * strengthPerSoldier,
+                militaryMilestone && tribe.getMilitaryStrength() > 0 ? soldiers * MILITARY_LEVEL_BONUS : 0,
+                professionCounts[Profession.SCIENTIST.ordinal()] * researchPerScientist);
+    }
+
+    private void applyWork(Tribe tribe, WorkResult result) {
+        if (result.buildCity()) {
+            Tribe.buildCity(tribe);
+        }
+        if (result.militaryBonus() > 0) {
+            tribe.setMilitaryStrength(tribe.getMilitaryStrength() + result.militaryBonus());
+            context.getEvents().notifyEvent(tribe.getName() + " has increased their military strength by " + result.militaryBonus() + "!", SimulationEvent.EventType.OTHER);
         }
-    
+
+        // Apply the results of the work
+        researchPoints += result.research();
+        tribe.addFood(result.food());
+        tribe.setMilitaryStrength(tribe.getMilitaryStrength() + result.militaryStrength());
+        tribe.addResearchPoints(result.research());
+
+        // Log the results
+        context.getEvents().notifyEvent(tribe.getName() + " produced " + result.food() + " food, constructed " +
+                                             result.buildings() + " buildings, and increased military strength by " +
+                                             result.militaryStrength() + ".", SimulationEvent.EventType.OTHER);
+
         // Conduct research after all work is done
         conductResearch();
     }
 
+    private void updateBonuses() {
+        int agriculture = getTechnologyLevel("Agriculture");
+        int construction = getTechnologyLevel("Construction");
+        int military = getTechnologyLevel("Military");
+        foodPerFarmer = (int) (BASE_FOOD_PRODUCTION * (1 + agriculture * 0.1));
+        buildingsPerBuilder = 1 + construction / 2;
+        constructionMilestone = construction % 10 == 0;
+        strengthPerSoldier = 1 + military / 2;
+        militaryMilestone = military % 10 == 0;
+        researchPerScientist = 1 + getTechnologyLevel("Science") / 2;
+    }
+
+    private record WorkResult(int food, int buildings, boolean buildCity, int militaryStrength,
+                              int militaryBonus, int research) {}
+
     public void conductResearch() {
         if (researchPoints >= 10) {
             String[] technologies = {"Agriculture", "Construction", "Military", "Science"};
-            String technology = technologies[new Random().nextInt(technologies.length)];
+            String technology = technologies[context.getRandom().nextInt(technologies.length)];
             technologyLevels.put(technology, technologyLevels.get(technology) + 1);
+            updateBonuses();
             researchPoints -= 10;
-            SimulationSubject.getInstance().notifyEvent("New advancement in " + technology + "! Level: " + technologyLevels.get(technology), SimulationEvent.EventType.OTHER);
+            context.getEvents().notifyEvent("New advancement in " + technology + "! Level: " + technologyLevels.get(technology), SimulationEvent.EventType.OTHER);
         }
     }
 
@@ -134,6 +231,11 @@ public class TechnologySystem {
         return professions.getOrDefault(profession, new ArrayList<>());
     }
 
+    public int getWorkerCount(String profession) {
+        Profession known = Profession.of(profession);
+        return known == null ? 0 : professionCounts[known.ordinal()];
+    }
+
     public int getResearchPoints() {
         return researchPoints;
     }
@@ -163,6 +265,6 @@ public class TechnologySystem {
             return null;
         }
         List<String> professionList = new ArrayList<>(professions.keySet());
-        return professionList.get(new Random().nextInt(professionList.size()));
+        return professionList.get(context.getRandom().nextInt(professionList.size()));
     }
 }
@@ -0,0 +1,166 @@
+package com.horrorcore.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A headless telemetry viewer. It connects to a {@link TelemetryServer}, keeps a {@link WorldMirror}
+ * of what it receives, and can be used to check the stream against the engine or to follow a run
+ * from a terminal:
+ * <pre>
+ * java -cp digimon-simulator.jar com.horrorcore.telemetry.TelemetryClient localhost 8081 [sector index...]
+ * </pre>
+ * A client is used by one thread.
+ */
+public class TelemetryClient implements AutoCloseable {
+    // Server messages are whole world snapshots at most
+    private static final int MAX_MESSAGE = 64 * 1024 * 1024;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final Random maskKeys = new Random();
+    private final WorldMirror mirror = new WorldMirror();
+    private long messages;
+    private long bytes;
+
+    /**
+     * Connects and completes the WebSocket handshake.
+     *
+     * @param host      The server host.
+     * @param port      The server port.
+     * @param timeoutMs How long to wait for the connection and for each read, or 0 to wait indefinitely.
+     * @throws IOException If the connection or the handshake fails.
+     */
+    public TelemetryClient(String host, int port, int timeoutMs) throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMs);
+        socket.setSoTimeout(timeoutMs);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+
+        byte[] nonce = new byte[16];
+        new SecureRandom().nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+        out.write(("GET " + TelemetryServer.PATH + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String status = WebSocket.readLine(in);
+        Map<String, String> headers = WebSocket.readHeaders(in);
+        if (!status.startsWith("HTTP/1.1 101")) {
+            socket.close();
+            throw new IOException("Telemetry handshake refused: " + status);
+        }
+        if (!WebSocket.acceptKey(key).equals(headers.get("sec-websocket-accept"))) {
+            socket.close();
+            throw new IOException("Telemetry handshake answered with the wrong key");
+        }
+    }
+
+    /**
+     * Asks to receive only the given sectors. The server answers with a new snapshot.
+     *
+     * @param sectors The sector indexes, as listed by the mirror.
+     * @throws IOException If sending fails.
+     */
+    public void subscribe(int... sectors) throws IOException {
+        WebSocket.writeFrame(out, WebSocket.OPCODE_BINARY, TelemetryProtocol.encodeSubscribe(sectors), maskKeys);
+    }
+
+    /**
+     * Reads the next message and applies it to the mirror, answering pings on the way.
+     *
+     * @return false if the server closed the connection.
+     * @throws IOException If reading fails, times out or the message is malformed.
+     */
+    public boolean receive() throws IOException {
+        while (true) {
+            WebSocket.Frame frame;
+            try {
+                frame = WebSocket.readFrame(in, MAX_MESSAGE, false);
+            } catch (EOFException e) {
+                return false;
+            }
+            switch (frame.opcode()) {
+                case WebSocket.OPCODE_BINARY -> {
+                    mirror.apply(frame.payload());
+                    messages++;
+                    bytes += frame.payload().length;
+                    return true;
+                }
+                case WebSocket.OPCODE_PING -> WebSocket.writeFrame(out, WebSocket.OPCODE_PONG, frame.payload(), maskKeys);
+                case WebSocket.OPCODE_CLOSE -> {
+                    return false;
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Receives messages until the mirror has reached the given version.
+     *
+     * @throws IOException If the connection closes first, or reading fails or times out.
+     */
+    public void awaitVersion(long version) throws IOException {
+        while (mirror.getVersion() < version) {
+            if (!receive()) {
+                throw new EOFException("Telemetry server closed the connection at version " + mirror.getVersion());
+            }
+        }
+    }
+
+    public WorldMirror getMirror() { return mirror; }
+    public long getMessages() { return messages; }
+    public long getBytes() { return bytes; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            WebSocket.writeFrame(out, WebSocket.OPCODE_CLOSE, new byte[0], maskKeys);
+        } catch (IOException e) {
+            // The server is gone already
+        } finally {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TelemetryClient <host> <port> [sector index...]");
+            System.exit(2);
+        }
+        try (TelemetryClient client = new TelemetryClient(args[0], Integer.parseInt(args[1]), 0)) {
+            if (args.length > 2) {
+                int[] sectors = new int[args.length - 2];
+                for (int i = 0; i < sectors.length; i++) {
+                    sectors[i] = Integer.parseInt(args[i + 2]);
+                }
+                client.subscribe(sectors);
+            }
+            while (client.receive()) {
+                WorldMirror mirror = client.getMirror();
+                System.out.println("tick " + mirror.getTick() + " (version " + mirror.getVersion() + "): "
+                        + mirror.getEntityCount() + " Digimon, " + mirror.getTribes().size() + " tribes, "
+                        + client.getMessages() + " messages, " + client.getBytes() + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.horrorcore.telemetry;
+
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.HeatView;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The binary messages exchanged over the telemetry WebSocket. Every message is one binary frame
+ * and starts with a type byte; numbers are big-endian and strings are modified UTF-8 as written
+ * by {@link DataOutputStream#writeUTF}.
+ *
+ * The server sends a {@link #SNAPSHOT} when a client connects or changes its subscription, and
+ * after that one {@link #DELTA} per update it delivers. A delta carries the changes between the
+ * last state the client was sent and the newest snapshot, so a client that falls behind receives
+ * fewer, larger deltas rather than a backlog. Cells and Digimon are only sent for the sectors the
+ * client subscribed to, and so are their heat map tiles; every client receives all tribes.
+ * <pre>
+ * SNAPSHOT  u8 type, u8 protocol version, i64 version, i32 tick, u8 age,
+ *           u16 sectors { utf name, u16 width, u16 height, bool subscribed, [width * height cell codes, heat if subscribed] },
+ *           i32 entities { entity }, u16 tribes { tribe }
+ * DELTA     u8 type, i64 from version, i64 to version, i32 tick, u8 age,
+ *           i32 cells { u16 sector, u16 cell index, u8 cell code },
+ *           i32 heat tiles { u16 sector, u16 tile index, u8 occupancy, u8 attacks, u8 deaths, i32 territory },
+ *           i32 removed entities { i64 id }, i32 changed entities { entity },
+ *           u16 removed tribes { i32 id }, u16 changed tribes { tribe }
+ * entity    i64 id, u16 sector, i16 x, i16 y, utf name, utf stage, i32 health, i32 age, i32 hunger,
+ *           i32 aggression, i32 tribe, utf profession, bool celestial
+ * tribe     i32 id, utf name, utf leader, i32 members, i32 food, i32 military, i32 research, i32 buildings, u8 age
+ * heat      u16 tile size, u16 columns, u16 rows, then per tile in turn: columns * rows u8 occupancy,
+ *           columns * rows u8 attacks, columns * rows u8 deaths, columns * rows i32 territory
+ * </pre>
+ * The only client message is {@link #SUBSCRIBE}: u8 type, u16 count, count times u16 sector index.
+ * Until a client subscribes it receives every sector.
+ */
+public final class TelemetryProtocol {
+    public static final int PROTOCOL_VERSION = 3;
+    public static final byte SNAPSHOT = 1;
+    public static final byte DELTA = 2;
+    public static final byte SUBSCRIBE = 16;
+
+    private TelemetryProtocol() {}
+
+    /**
+     * Encodes a full snapshot.
+     *
+     * @param snapshot   The snapshot.
+     * @param subscribed The sectors whose cells and Digimon are included, or null for all.
+     * @return The message.
+     */
+    public static byte[] encodeSnapshot(WorldSnapshot snapshot, BitSet subscribed) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(SNAPSHOT);
+            out.writeByte(PROTOCOL_VERSION);
+            out.writeLong(snapshot.version());
+            out.writeInt(snapshot.tick());
+            out.writeByte(snapshot.age());
+            List<SectorView> sectors = snapshot.sectors();
+            out.writeShort(sectors.size());
+            int entities = 0;
+            for (int s = 0; s < sectors.size(); s++) {
+                SectorView sector = sectors.get(s);
+                boolean included = isSubscribed(subscribed, s);
+                out.writeUTF(sector.name());
+                out.writeShort(sector.width());
+                out.writeShort(sector.height());
+                out.writeBoolean(included);
+                if (included) {
+                    out.write(sector.cells());
+                    writeHeat(out, sector.heat());
+                    entities += sector.entities().size();
+                }
+            }
+            out.writeInt(entities);
+            for (int s = 0; s < sectors.size(); s++) {
+                if (isSubscribed(subscribed, s)) {
+                    for (EntityView entity : sectors.get(s).entities()) {
+                        writeEntity(out, s, entity);
+                    }
+                }
+            }
+            out.writeShort(snapshot.tribes().size());
+            for (TribeView tribe : snapshot.tribes()) {
+                writeTribe(out, tribe);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns whether a delta can be computed between two snapshots, which requires the same sectors in the same order.
+     */
+    public static boolean canDelta(WorldSnapshot from, WorldSnapshot to) {
+        if (to.version() <= from.version() || from.sectors().size() != to.sectors().size()) {
+            return false;
+        }
+        for (int s = 0; s < from.sectors().size(); s++) {
+            SectorView before = from.sectors().get(s);
+            SectorView after = to.sectors().get(s);
+            if (!before.name().equals(after.name()) || before.width() != after.width() || before.height() != after.height()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the changes between two snapshots of the same world.
+     *
+     * @param from       The snapshot the client holds.
+     * @param to         The snapshot to bring it to, which must satisfy {@link #canDelta}.
+     * @param subscribed The sectors whose cells and Digimon are included, or null for all.
+     * @return The message.
+     */
+    public static byte[] encodeDelta(WorldSnapshot from, WorldSnapshot to, BitSet subscribed) {
+        try {
+            Section cells = new Section();
+            Section heat = new Section();
+            Section removed = new Section();
+            Section changed = new Section();
+            for (int s = 0; s < to.sectors().size(); s++) {
+                if (!isSubscribed(subscribed, s)) {
+                    continue;
+                }
+                SectorView before = from.sectors().get(s);
+                SectorView after = to.sectors().get(s);
+                // Unchanged terrain shares the cell array
+                if (before.cells() != after.cells()) {
+                    for (int i = 0; i < after.cells().length; i++) {
+                        if (before.cells()[i] != after.cells()[i]) {
+                            cells.out.writeShort(s);
+                            cells.out.writeShort(i);
+                            cells.out.writeByte(after.cells()[i]);
+                            cells.count++;
+                        }
+                    }
+                }
+                HeatView oldHeat = before.heat();
+                HeatView newHeat = after.heat();
+                for (int i = 0; i < newHeat.territory().length; i++) {
+                    if (oldHeat.occupancy()[i] != newHeat.occupancy()[i] || oldHeat.attacks()[i] != newHeat.attacks()[i]
+                            || oldHeat.deaths()[i] != newHeat.deaths()[i] || oldHeat.territory()[i] != newHeat.territory()[i]) {
+                        heat.out.writeShort(s);
+                        heat.out.writeShort(i);
+                        heat.out.writeByte(newHeat.occupancy()[i]);
+                        heat.out.writeByte(newHeat.attacks()[i]);
+                        heat.out.writeByte(newHeat.deaths()[i]);
+                        heat.out.writeInt(newHeat.territory()[i]);
+                        heat.count++;
+                    }
+                }
+                // Both lists are ordered by id
+                List<EntityView> old = before.entities();
+                List<EntityView> now = after.entities();
+                int i = 0, j = 0;
+                while (i < old.size() || j < now.size()) {
+                    long oldId = i < old.size() ? old.get(i).id() : Long.MAX_VALUE;
+                    long newId = j < now.size() ? now.get(j).id() : Long.MAX_VALUE;
+                    if (oldId < newId) {
+                        removed.out.writeLong(oldId);
+                        removed.count++;
+                        i++;
+                    } else if (newId < oldId) {
+                        writeEntity(changed.out, s, now.get(j++));
+                        changed.count++;
+                    } else {
+                        if (!old.get(i).equals(now.get(j))) {
+                            writeEntity(changed.out, s, now.get(j));
+                            changed.count++;
+                        }
+                        i++;
+                        j++;
+                    }
+                }
+            }
+
+            Section removedTribes = new Section();
+            Section changedTribes = new Section();
+            List<TribeView> old = from.tribes();
+            List<TribeView> now = to.tribes();
+            int i = 0, j = 0;
+            while (i < old.size() || j < now.size()) {
+                int oldId = i < old.size() ? old.get(i).id() : Integer.MAX_VALUE;
+                int newId = j < now.size() ? now.get(j).id() : Integer.MAX_VALUE;
+                if (oldId < newId) {
+                    removedTribes.out.writeInt(oldId);
+                    removedTribes.count++;
+                    i++;
+                } else if (newId < oldId) {
+                    writeTribe(changedTribes.out, now.get(j++));
+                    changedTribes.count++;
+                } else {
+                    if (!old.get(i).equals(now.get(j))) {
+                        writeTribe(changedTribes.out, now.get(j));
+                        changedTribes.count++;
+                    }
+                    i++;
+                    j++;
+                }
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + cells.bytes.size() + heat.bytes.size() + removed.bytes.size()
+                    + changed.bytes.size() + removedTribes.bytes.size() + changedTribes.bytes.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(DELTA);
+            out.writeLong(from.version());
+            out.writeLong(to.version());
+            out.writeInt(to.tick());
+            out.writeByte(to.age());
+            out.writeInt(cells.count);
+            cells.bytes.writeTo(out);
+            out.writeInt(heat.count);
+            heat.bytes.writeTo(out);
+            out.writeInt(removed.count);
+            removed.bytes.writeTo(out);
+            out.writeInt(changed.count);
+            changed.bytes.writeTo(out);
+            out.writeShort(removedTribes.count);
+            removedTribes.bytes.writeTo(out);
+            out.writeShort(changedTribes.count);
+            changedTribes.bytes.writeTo(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes a subscription request.
+     *
+     * @param sectors The indexes of the sectors to receive, as listed in the last snapshot.
+     * @return The message.
+     */
+    public static byte[] encodeSubscribe(int... sectors) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(SUBSCRIBE);
+            out.writeShort(sectors.length);
+            for (int sector : sectors) {
+                out.writeShort(sector);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a subscription request.
+     *
+     * @return The subscribed sector indexes.
+     * @throws IOException If the message is not a subscription.
+     */
+    public static BitSet decodeSubscribe(byte[] message) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+        if (in.readByte() != SUBSCRIBE) {
+            throw new IOException("Unknown client message type " + message[0]);
+        }
+        BitSet sectors = new BitSet();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            sectors.set(in.readUnsignedShort());
+        }
+        return sectors;
+    }
+
+    static boolean isSubscribed(BitSet subscribed, int sector) {
+        return subscribed == null || subscribed.get(sector);
+    }
+
+    private static void writeEntity(DataOutputStream out, int sector, EntityView entity) throws IOException {
+        out.writeLong(entity.id());
+        out.writeShort(sector);
+        out.writeShort(entity.x());
+        out.writeShort(entity.y());
+        writeString(out, entity.name());
+        writeString(out, entity.stage());
+        out.writeInt(entity.health());
+        out.writeInt(entity.age());
+        out.writeInt(entity.hunger());
+        out.writeInt(entity.aggression());
+        out.writeInt(entity.tribe());
+        writeString(out, entity.profession());
+        out.writeBoolean(entity.celestial());
+    }
+
+    static EntityView readEntity(DataInputStream in, int[] sector) throws IOException {
+        long id = in.readLong();
+        sector[0] = in.readUnsignedShort();
+        int x = in.readShort();
+        int y = in.readShort();
+        String name = readString(in);
+        String stage = readString(in);
+        // Arguments are evaluated left to right, in wire order
+        return new EntityView(id, name, stage, x, y, in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                in.readInt(), readString(in), in.readBoolean());
+    }
+
+    private static void writeHeat(DataOutputStream out, HeatView heat) throws IOException {
+        out.writeShort(heat.tileSize());
+        out.writeShort(heat.columns());
+        out.writeShort(heat.rows());
+        out.write(heat.occupancy());
+        out.write(heat.attacks());
+        out.write(heat.deaths());
+        for (int owner : heat.territory()) {
+            out.writeInt(owner);
+        }
+    }
+
+    static HeatView readHeat(DataInputStream in) throws IOException {
+        int tileSize = in.readUnsignedShort();
+        int columns = in.readUnsignedShort();
+        int rows = in.readUnsignedShort();
+        byte[] occupancy = new byte[columns * rows];
+        byte[] attacks = new byte[columns * rows];
+        byte[] deaths = new byte[columns * rows];
+        int[] territory = new int[columns * rows];
+        in.readFully(occupancy);
+        in.readFully(attacks);
+        in.readFully(deaths);
+        for (int i = 0; i < territory.length; i++) {
+            territory[i] = in.readInt();
+        }
+        return new HeatView(tileSize, columns, rows, occupancy, attacks, deaths, territory);
+    }
+
+    private static void writeTribe(DataOutputStream out, TribeView tribe) throws IOException {
+        out.writeInt(tribe.id());
+        writeString(out, tribe.name());
+        writeString(out, tribe.leader());
+        out.writeInt(tribe.members());
+        out.writeInt(tribe.food());
+        out.writeInt(tribe.military());
+        out.writeInt(tribe.research());
+        out.writeInt(tribe.buildings());
+        out.writeByte(tribe.age());
+    }
+
+    static TribeView readTribe(DataInputStream in) throws IOException {
+        return new TribeView(in.readInt(), readString(in), readString(in), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                in.readInt(), in.readUnsignedByte());
+    }
+
+    // Null is sent as the empty string, which no Digimon, stage, profession or tribe is named
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeUTF(value != null ? value : "");
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        String value = in.readUTF();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A counted list of records whose count is written before them.
+     */
+    private static class Section {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        int count;
+    }
+}
@@ -0,0 +1,330 @@
+package com.horrorcore.telemetry;
+
+import com.horrorcore.World;
+import com.horrorcore.gui.SimulationObserver;
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.systems.events.SimulationEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams a world to remote viewers over WebSocket, using the binary {@link TelemetryProtocol}.
+ * Viewers connect to {@code ws://host:port/world}; a plain HTTP request to any path is answered
+ * with a short status text. The server listens on the loopback interface unless the
+ * {@code digimon.telemetry.bind} system property names another address, on the port given by
+ * {@code digimon.telemetry.port}, and is not started when the port is unset.
+ *
+ * The server observes the world's event bus and picks up the {@link World#getSnapshot() snapshot}
+ * published at the end of each tick. Every client has a writer thread that sends the newest
+ * snapshot as a delta against the last one it sent that client. Nothing is queued per client:
+ * when a client reads slower than the world ticks, the snapshots published while its writer was
+ * blocked are folded into its next delta, so a slow client costs one baseline snapshot of memory
+ * and receives fewer, larger frames.
+ */
+public class TelemetryServer implements SimulationObserver, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(TelemetryServer.class.getName());
+    public static final String PORT_PROPERTY = "digimon.telemetry.port";
+    public static final String BIND_PROPERTY = "digimon.telemetry.bind";
+    public static final String PATH = "/world";
+    public static final int MAX_CLIENTS = 16;
+    // Clients only send subscriptions and control frames
+    private static final int MAX_CLIENT_PAYLOAD = 4096;
+
+    private final World world;
+    private final ServerSocket serverSocket;
+    private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    // Guards the wait for new snapshots and subscriptions
+    private final Object updates = new Object();
+    private volatile WorldSnapshot latest;
+    private volatile boolean closed;
+
+    /**
+     * Starts serving a world.
+     *
+     * @param world   The world to stream.
+     * @param address The interface to listen on.
+     * @param port    The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public TelemetryServer(World world, InetAddress address, int port) throws IOException {
+        this.world = world;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(address, port));
+        this.latest = world.getSnapshot();
+        world.getContext().getEvents().addObserver(this);
+        Thread acceptor = new Thread(this::accept, "telemetry-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("Telemetry available at ws://" + address.getHostAddress() + ":" + getPort() + PATH);
+    }
+
+    /**
+     * Starts a server for the given world if a port is configured.
+     *
+     * @param world The world to stream.
+     * @return The running server, or null if no port is configured or the server failed to start.
+     */
+    public static TelemetryServer startIfConfigured(World world) {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null) {
+            return null;
+        }
+        try {
+            InetAddress address = System.getProperty(BIND_PROPERTY) != null
+                    ? InetAddress.getByName(System.getProperty(BIND_PROPERTY))
+                    : InetAddress.getLoopbackAddress();
+            return new TelemetryServer(world, address, port);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to start telemetry server on port " + port, e);
+            return null;
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getClientCount() {
+        return connections.size();
+    }
+
+    @Override
+    public void onSimulationEvent(SimulationEvent event) {}
+
+    @Override
+    public void onWorldUpdate(World updated) {
+        publish(updated.getSnapshot());
+    }
+
+    /**
+     * Makes a snapshot the one sent to clients next. Snapshots already published are ignored.
+     */
+    void publish(WorldSnapshot snapshot) {
+        if (snapshot == null || snapshot == latest) {
+            return;
+        }
+        synchronized (updates) {
+            latest = snapshot;
+            updates.notifyAll();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket, connectionIds.incrementAndGet());
+                Thread reader = new Thread(connection::read, "telemetry-client-" + connection.id);
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Failed to accept a telemetry client", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening and disconnects every client.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        world.getContext().getEvents().removeObserver(this);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing the telemetry socket", e);
+        }
+        connections.forEach(Connection::close);
+        synchronized (updates) {
+            updates.notifyAll();
+        }
+    }
+
+    /**
+     * One client. Its reader thread performs the handshake and then handles incoming frames;
+     * its writer thread sends updates. Writes from both threads are serialized on the output stream.
+     */
+    private class Connection {
+        private final Socket socket;
+        private final int id;
+        private OutputStream out;
+        // Handed from the reader to the writer in one step, so a snapshot is always sent for the subscription it covers
+        private final AtomicReference<BitSet> pendingSubscription = new AtomicReference<>();
+        // The writer's; null subscribes to every sector
+        private BitSet subscription;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private WorldSnapshot baseline;
+        private long framesSent;
+        private long snapshotsCoalesced;
+
+        Connection(Socket socket, int id) {
+            this.socket = socket;
+            this.id = id;
+        }
+
+        void read() {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                out = new BufferedOutputStream(socket.getOutputStream());
+                WebSocket.HttpRequest request = WebSocket.readRequest(in);
+                if (!request.isUpgrade()) {
+                    respondStatus();
+                    return;
+                }
+                if (!PATH.equals(request.path())) {
+                    respond("404 Not Found", "Connect a WebSocket to " + PATH + "\n");
+                    return;
+                }
+                if (connections.size() >= MAX_CLIENTS) {
+                    respond("503 Service Unavailable", "Too many telemetry clients\n");
+                    return;
+                }
+                out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                        + "Upgrade: websocket\r\n"
+                        + "Connection: Upgrade\r\n"
+                        + "Sec-WebSocket-Accept: " + WebSocket.acceptKey(request.headers().get("sec-websocket-key")) + "\r\n"
+                        + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                connections.add(this);
+                LOGGER.info("Telemetry client " + id + " connected from " + socket.getRemoteSocketAddress());
+
+                Thread writer = new Thread(this::write, "telemetry-client-" + id + "-writer");
+                writer.setDaemon(true);
+                writer.start();
+
+                while (open.get()) {
+                    WebSocket.Frame frame = WebSocket.readFrame(in, MAX_CLIENT_PAYLOAD, true);
+                    switch (frame.opcode()) {
+                        case WebSocket.OPCODE_BINARY -> {
+                            pendingSubscription.set(TelemetryProtocol.decodeSubscribe(frame.payload()));
+                            synchronized (updates) {
+                                updates.notifyAll();
+                            }
+                        }
+                        case WebSocket.OPCODE_PING -> send(WebSocket.OPCODE_PONG, frame.payload());
+                        case WebSocket.OPCODE_CLOSE -> {
+                            send(WebSocket.OPCODE_CLOSE, frame.payload());
+                            return;
+                        }
+                        default -> { }
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // The client went away
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Telemetry client " + id + " failed", e);
+            } finally {
+                close();
+            }
+        }
+
+        private void respondStatus() throws IOException {
+            WorldSnapshot snapshot = latest;
+            respond("200 OK", "Digimon telemetry: connect a WebSocket to " + PATH + "\n"
+                    + "Tick: " + (snapshot != null ? snapshot.tick() : "none yet") + "\n"
+                    + "Clients: " + connections.size() + "\n");
+        }
+
+        private void respond(String status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            out.write(("HTTP/1.1 " + status + "\r\n"
+                    + "Content-Type: text/plain; charset=utf-8\r\n"
+                    + "Content-Length: " + bytes.length + "\r\n"
+                    + "Connection: close\r\n"
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.flush();
+        }
+
+        void write() {
+            try {
+                while (true) {
+                    WorldSnapshot target;
+                    synchronized (updates) {
+                        target = latest;
+                        while (open.get() && (target == null || (target == baseline && pendingSubscription.get() == null))) {
+                            updates.wait();
+                            target = latest;
+                        }
+                    }
+                    if (!open.get()) {
+                        return;
+                    }
+                    // Taken before encoding, so a subscription arriving meanwhile causes another snapshot
+                    BitSet subscribed = pendingSubscription.getAndSet(null);
+                    if (subscribed != null) {
+                        subscription = subscribed;
+                    }
+                    boolean full = subscribed != null || baseline == null || !TelemetryProtocol.canDelta(baseline, target);
+                    BitSet sectors = subscription;
+                    byte[] message;
+                    if (full) {
+                        message = TelemetryProtocol.encodeSnapshot(target, sectors);
+                    } else {
+                        snapshotsCoalesced += target.version() - baseline.version() - 1;
+                        message = TelemetryProtocol.encodeDelta(baseline, target, sectors);
+                    }
+                    send(WebSocket.OPCODE_BINARY, message);
+                    baseline = target;
+                    framesSent++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Telemetry client " + id + " stopped receiving", e);
+            } finally {
+                close();
+            }
+        }
+
+        private void send(int opcode, byte[] payload) throws IOException {
+            synchronized (this) {
+                WebSocket.writeFrame(out, opcode, payload, null);
+            }
+        }
+
+        // Never waits for a write in progress, which closing the socket aborts
+        void close() {
+            if (!open.compareAndSet(true, false)) {
+                return;
+            }
+            if (connections.remove(this)) {
+                LOGGER.info("Telemetry client " + id + " disconnected after " + framesSent + " frames, "
+                        + snapshotsCoalesced + " snapshots coalesced");
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error closing telemetry client " + id, e);
+            }
+            synchronized (updates) {
+                updates.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.horrorcore.telemetry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The parts of the WebSocket protocol (RFC 6455) the telemetry server and client need:
+ * the opening handshake and unfragmented frames. Extensions and fragmented messages are not supported.
+ */
+final class WebSocket {
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    // Request and header lines longer than this are rejected
+    private static final int MAX_LINE = 8192;
+
+    private WebSocket() {}
+
+    /**
+     * A frame as read from the wire, with its payload unmasked.
+     */
+    record Frame(int opcode, byte[] payload) {}
+
+    /**
+     * The request line and headers of an HTTP request, with header names in lower case.
+     */
+    record HttpRequest(String method, String path, Map<String, String> headers) {
+        boolean isUpgrade() {
+            return "websocket".equalsIgnoreCase(headers.get("upgrade")) && headers.containsKey("sec-websocket-key");
+        }
+    }
+
+    /**
+     * Computes the Sec-WebSocket-Accept value that answers a handshake key.
+     */
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key.trim() + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is required of every Java platform", e);
+        }
+    }
+
+    /**
+     * Reads an HTTP request up to the blank line that ends its headers.
+     *
+     * @throws IOException If the stream ends first or the request is malformed.
+     */
+    static HttpRequest readRequest(InputStream in) throws IOException {
+        String[] requestLine = readLine(in).split(" ");
+        if (requestLine.length != 3) {
+            throw new IOException("Malformed request line");
+        }
+        return new HttpRequest(requestLine[0], requestLine[1], readHeaders(in));
+    }
+
+    /**
+     * Reads header lines up to the blank line that ends them.
+     */
+    static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Reads one CRLF-terminated line, byte by byte so that nothing after the headers is consumed.
+     */
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Connection closed during the handshake");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > MAX_LINE) {
+                throw new IOException("Header line too long");
+            }
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes a frame with the FIN bit set. Clients must mask their frames and servers must not.
+     *
+     * @param mask The source of a masking key for client frames, or null for server frames.
+     */
+    static void writeFrame(OutputStream out, int opcode, byte[] payload, Random mask) throws IOException {
+        int length = payload.length;
+        out.write(0x80 | opcode);
+        int maskBit = mask != null ? 0x80 : 0;
+        if (length < 126) {
+            out.write(maskBit | length);
+        } else if (length <= 0xFFFF) {
+            out.write(maskBit | 126);
+            out.write(length >>> 8);
+            out.write(length);
+        } else {
+            out.write(maskBit | 127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) ((long) length >>> shift));
+            }
+        }
+        if (mask == null) {
+            out.write(payload);
+        } else {
+            byte[] key = new byte[4];
+            mask.nextBytes(key);
+            out.write(key);
+            byte[] masked = new byte[length];
+            for (int i = 0; i < length; i++) {
+                masked[i] = (byte) (payload[i] ^ key[i & 3]);
+            }
+            out.write(masked);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads one frame.
+     *
+     * @param maxPayload The largest payload accepted.
+     * @param fromClient Whether the frame is sent by a client, which must mask it, or by a server, which must not.
+     * @throws EOFException If the connection was closed between frames.
+     * @throws IOException  If the frame is fragmented, too large, masked the wrong way, cut short, or has
+     *                      a length with the most significant bit set.
+     */
+    static Frame readFrame(InputStream in, int maxPayload, boolean fromClient) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            throw new EOFException("Connection closed");
+        }
+        if ((first & 0x80) == 0) {
+            throw new IOException("Fragmented frames are not supported");
+        }
+        int second = readByte(in);
+        boolean masked = (second & 0x80) != 0;
+        if (masked != fromClient) {
+            throw new IOException(fromClient ? "Client frames must be masked" : "Server frames must not be masked");
+        }
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = (readByte(in) << 8) | readByte(in);
+        } else if (length == 127) {
+            length = 0;
+            for (int i = 0; i < 8; i++) {
+                length = (length << 8) | readByte(in);
+            }
+        }
+        // A 64-bit length must have its most significant bit clear (RFC 6455, section 5.2)
+        if (length < 0) {
+            throw new IOException("Frame length has its most significant bit set");
+        }
+        if (length > maxPayload) {
+            throw new IOException("Frame of " + length + " bytes exceeds the limit of " + maxPayload);
+        }
+        byte[] key = null;
+        if (masked) {
+            key = new byte[4];
+            readFully(in, key);
+        }
+        byte[] payload = new byte[(int) length];
+        readFully(in, payload);
+        if (key != null) {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= key[i & 3];
+            }
+        }
+        return new Frame(first & 0x0F, payload);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Connection closed within a frame");
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) {
+                throw new EOFException("Connection closed within a frame");
+            }
+            read += n;
+        }
+    }
+}
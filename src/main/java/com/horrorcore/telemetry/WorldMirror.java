@@ -0,0 +1,192 @@
+package com.horrorcore.telemetry;
+
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.HeatView;
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A viewer's copy of a world, rebuilt from the {@link TelemetryProtocol telemetry messages} it receives.
+ * A mirror holds only what its subscription covers: the cells and Digimon of subscribed sectors, and all tribes.
+ */
+public class WorldMirror {
+    private long version;
+    private int tick;
+    private int age;
+    private final List<String> sectorNames = new ArrayList<>();
+    private final List<byte[]> cells = new ArrayList<>();
+    private final List<HeatView> heat = new ArrayList<>();
+    private final Map<Long, EntityView> entities = new HashMap<>();
+    private final Map<Long, Integer> entitySectors = new HashMap<>();
+    private final Map<Integer, TribeView> tribes = new TreeMap<>();
+
+    /**
+     * Applies a message from the server.
+     *
+     * @param message The payload of one binary frame.
+     * @throws IOException If the message is malformed, of an unknown type, or a delta that does not follow the current version.
+     */
+    public void apply(byte[] message) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+        byte type = in.readByte();
+        if (type == TelemetryProtocol.SNAPSHOT) {
+            applySnapshot(in);
+        } else if (type == TelemetryProtocol.DELTA) {
+            applyDelta(in);
+        } else {
+            throw new IOException("Unknown message type " + type);
+        }
+    }
+
+    private void applySnapshot(DataInputStream in) throws IOException {
+        int protocol = in.readUnsignedByte();
+        if (protocol != TelemetryProtocol.PROTOCOL_VERSION) {
+            throw new IOException("Unsupported telemetry protocol " + protocol);
+        }
+        version = in.readLong();
+        tick = in.readInt();
+        age = in.readUnsignedByte();
+        sectorNames.clear();
+        cells.clear();
+        heat.clear();
+        int sectorCount = in.readUnsignedShort();
+        for (int s = 0; s < sectorCount; s++) {
+            sectorNames.add(in.readUTF());
+            int width = in.readUnsignedShort();
+            int height = in.readUnsignedShort();
+            if (in.readBoolean()) {
+                byte[] sectorCells = new byte[width * height];
+                in.readFully(sectorCells);
+                cells.add(sectorCells);
+                heat.add(TelemetryProtocol.readHeat(in));
+            } else {
+                cells.add(null);
+                heat.add(null);
+            }
+        }
+        entities.clear();
+        entitySectors.clear();
+        int[] sector = new int[1];
+        int entityCount = in.readInt();
+        for (int i = 0; i < entityCount; i++) {
+            EntityView entity = TelemetryProtocol.readEntity(in, sector);
+            entities.put(entity.id(), entity);
+            entitySectors.put(entity.id(), sector[0]);
+        }
+        tribes.clear();
+        int tribeCount = in.readUnsignedShort();
+        for (int i = 0; i < tribeCount; i++) {
+            TribeView tribe = TelemetryProtocol.readTribe(in);
+            tribes.put(tribe.id(), tribe);
+        }
+    }
+
+    private void applyDelta(DataInputStream in) throws IOException {
+        long from = in.readLong();
+        if (from != version) {
+            throw new IOException("Delta from version " + from + " does not apply to version " + version);
+        }
+        version = in.readLong();
+        tick = in.readInt();
+        age = in.readUnsignedByte();
+        int cellCount = in.readInt();
+        for (int i = 0; i < cellCount; i++) {
+            int sector = in.readUnsignedShort();
+            int cell = in.readUnsignedShort();
+            byte code = in.readByte();
+            byte[] sectorCells = cells.get(sector);
+            if (sectorCells == null) {
+                throw new IOException("Cell change in unsubscribed sector " + sector);
+            }
+            sectorCells[cell] = code;
+        }
+        int heatCount = in.readInt();
+        for (int i = 0; i < heatCount; i++) {
+            int sector = in.readUnsignedShort();
+            int tile = in.readUnsignedShort();
+            HeatView sectorHeat = heat.get(sector);
+            if (sectorHeat == null) {
+                throw new IOException("Heat change in unsubscribed sector " + sector);
+            }
+            sectorHeat.occupancy()[tile] = in.readByte();
+            sectorHeat.attacks()[tile] = in.readByte();
+            sectorHeat.deaths()[tile] = in.readByte();
+            sectorHeat.territory()[tile] = in.readInt();
+        }
+        // Removals come first, so that a Digimon moving between sectors is removed and then added again
+        int removed = in.readInt();
+        for (int i = 0; i < removed; i++) {
+            long id = in.readLong();
+            entities.remove(id);
+            entitySectors.remove(id);
+        }
+        int[] sector = new int[1];
+        int changed = in.readInt();
+        for (int i = 0; i < changed; i++) {
+            EntityView entity = TelemetryProtocol.readEntity(in, sector);
+            entities.put(entity.id(), entity);
+            entitySectors.put(entity.id(), sector[0]);
+        }
+        int removedTribes = in.readUnsignedShort();
+        for (int i = 0; i < removedTribes; i++) {
+            tribes.remove(in.readInt());
+        }
+        int changedTribes = in.readUnsignedShort();
+        for (int i = 0; i < changedTribes; i++) {
+            TribeView tribe = TelemetryProtocol.readTribe(in);
+            tribes.put(tribe.id(), tribe);
+        }
+    }
+
+    public long getVersion() { return version; }
+    public int getTick() { return tick; }
+    public int getAge() { return age; }
+    public List<String> getSectorNames() { return List.copyOf(sectorNames); }
+    public int getEntityCount() { return entities.size(); }
+    public List<TribeView> getTribes() { return List.copyOf(tribes.values()); }
+
+    /**
+     * Returns the cell codes of a sector.
+     *
+     * @return The cells, row by row, or null if the sector is not subscribed.
+     */
+    public byte[] getCells(int sector) {
+        byte[] sectorCells = cells.get(sector);
+        return sectorCells != null ? sectorCells.clone() : null;
+    }
+
+    /**
+     * Returns the heat map overlays of a sector.
+     *
+     * @return A copy of the overlays, or null if the sector is not subscribed.
+     */
+    public HeatView getHeat(int sector) {
+        HeatView sectorHeat = heat.get(sector);
+        return sectorHeat != null ? new HeatView(sectorHeat.tileSize(), sectorHeat.columns(), sectorHeat.rows(),
+                sectorHeat.occupancy().clone(), sectorHeat.attacks().clone(), sectorHeat.deaths().clone(),
+                sectorHeat.territory().clone()) : null;
+    }
+
+    /**
+     * Returns the Digimon of a sector, ordered by id like the sectors of a snapshot.
+     */
+    public List<EntityView> getEntities(int sector) {
+        List<EntityView> inSector = new ArrayList<>();
+        entitySectors.forEach((id, entitySector) -> {
+            if (entitySector == sector) {
+                inSector.add(entities.get(id));
+            }
+        });
+        inSector.sort(Comparator.comparingLong(EntityView::id));
+        return inSector;
+    }
+}
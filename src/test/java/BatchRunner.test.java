@@ -0,0 +1,81 @@
+import com.horrorcore.SimulationParameters;
+import com.horrorcore.batch.BatchRunner;
+import com.horrorcore.batch.RunStatistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    @Test
+    public void testBatchAggregatesAndResumesFromResultsFile(@TempDir Path directory) throws Exception {
+        Path results = directory.resolve("results.csv");
+        List<SimulationParameters> grid = SimulationParameters.grid(List.of(0.1, 0.3), List.of(0.0005), List.of(0.3));
+
+        Map<SimulationParameters, RunStatistics> first = runner(grid, 2, results).run();
+        assertEquals(2, first.size());
+        for (RunStatistics configuration : first.values()) {
+            assertEquals(2, configuration.getRuns());
+            assertTrue(configuration.getPopulation().percentile(0.1) <= configuration.getPopulation().percentile(0.9));
+            assertTrue(configuration.getPopulation().getMean() > 0);
+        }
+        assertEquals(1 + 4, Files.readAllLines(results).size(), "Header plus one line per run");
+
+        // An interruption can leave half a line behind; it is dropped and its run repeated
+        Files.writeString(results, "0.3,0.0005,0.3,2,5,", StandardOpenOption.APPEND);
+
+        Map<SimulationParameters, RunStatistics> resumed = runner(grid, 3, results).run();
+        for (RunStatistics configuration : resumed.values()) {
+            assertEquals(3, configuration.getRuns());
+            assertNotNull(configuration.format());
+        }
+        List<String> lines = Files.readAllLines(results);
+        assertEquals(1 + 6, lines.size(), "Only the two missing seeds should have been run");
+        assertTrue(lines.stream().allMatch(line -> line.split(",").length == 12));
+
+        // A last line without its line break may have been cut inside its last field, so it is dropped even if it parses
+        Files.writeString(results, "0.1,0.0005,0.3,5,20,10,3,5,999,0,0,-1", StandardOpenOption.APPEND);
+        Map<SimulationParameters, RunStatistics> cut = runner(grid, 4, results).run();
+        for (RunStatistics configuration : cut.values()) {
+            assertEquals(4, configuration.getRuns());
+            assertTrue(configuration.getPopulation().percentile(1.0) < 999);
+        }
+        lines = Files.readAllLines(results);
+        assertEquals(1 + 8, lines.size());
+        assertTrue(lines.stream().noneMatch(line -> line.contains(",999,")));
+
+        // Runs to another horizon are not mixed into the statistics, and their seeds are run again
+        for (RunStatistics configuration : runner(grid, 2, 6, results).run().values()) {
+            assertEquals(2, configuration.getRuns());
+        }
+        lines = Files.readAllLines(results);
+        assertEquals(1 + 8 + 4, lines.size());
+        assertEquals(4, lines.stream().filter(line -> line.split(",")[3].equals("6")).count(), "The horizon is recorded");
+
+        // A file of other columns is refused rather than rewritten without its results
+        Path old = directory.resolve("old.csv");
+        Files.writeString(old, "birthChance,deathProbability,celestialHelpChance,seed,ticks,population,tribes,techAge,extinctionTick\n"
+                + "0.1,0.0005,0.3,0,5,20,0,0,-1\n");
+        assertThrows(IOException.class, () -> runner(grid, 1, old).run());
+        assertEquals(2, Files.readAllLines(old).size());
+    }
+
+    private static BatchRunner runner(List<SimulationParameters> grid, int seeds, Path results) {
+        return runner(grid, seeds, 5, results);
+    }
+
+    private static BatchRunner runner(List<SimulationParameters> grid, int seeds, int horizon, Path results) {
+        BatchRunner runner = new BatchRunner(grid, seeds, horizon, results);
+        runner.setThreads(2);
+        runner.setInitialPopulation(20);
+        return runner;
+    }
+}
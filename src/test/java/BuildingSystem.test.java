@@ -0,0 +1,144 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.systems.building.BuildingLocation;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import com.horrorcore.systems.building.BuildingSystem;
+import com.horrorcore.systems.schedule.Resource;
+import com.horrorcore.systems.schedule.ScheduledSystem;
+import com.horrorcore.systems.schedule.SystemScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildingSystemTest {
+
+    @Test
+    public void testSearchFindsTheClosestValidLocation() {
+        // Only two sites are open: the corner of the third ring and the edge of the fourth, which is closer
+        Grid grid = new Grid(30, 30, new Random(1));
+        for (int x = 1; x < 29; x++) {
+            for (int y = 1; y < 29; y++) {
+                boolean corner = Math.abs(x - 18) <= 2 && Math.abs(y - 18) <= 2;
+                boolean edge = Math.abs(x - 19) <= 2 && Math.abs(y - 15) <= 2;
+                grid.getCell(x, y).setType(corner || edge ? GridCell.CellType.NORMAL : GridCell.CellType.BLOCKED);
+            }
+        }
+        BuildingLocation near = new BuildingLocation(15, 15);
+        assertEquals(new BuildingLocation(19, 15), BuildingSystem.findBuildingLocationNear(grid, Building.BuildingType.HOUSE, near));
+        assertNull(BuildingSystem.findBuildingLocationNear(grid, Building.BuildingType.FARM, near), "No site is large enough");
+
+        // On cluttered grids the search agrees with checking every cell
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            Grid cluttered = new Grid(24, 24, random);
+            for (int i = 0; i < 40; i++) {
+                cluttered.randomFreeCell(random).orElseThrow().setOccupant(new Digimon("Filler" + i, 10, 50, 30, 20, "Rookie"));
+            }
+            for (Building.BuildingType type : new Building.BuildingType[]{Building.BuildingType.HOUSE, Building.BuildingType.FARM}) {
+                BuildingLocation point = new BuildingLocation(random.nextInt(24), random.nextInt(24));
+                BuildingLocation found = BuildingSystem.findBuildingLocationNear(cluttered, type, point);
+                int closest = closestByScan(cluttered, type.getRadius(), point);
+                if (closest == Integer.MAX_VALUE) {
+                    assertNull(found);
+                } else {
+                    assertNotNull(found);
+                    assertEquals(closest, distance(found, point), "Round " + round + ", " + type);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCityIsAnnouncedOnlyOnceItsCenterIsPlaced() {
+        SimulationContext context = new SimulationContext(5);
+        World world = context.getWorld();
+        world.initialize();
+        Sector sector = world.getSectors().get(0);
+        // Clear the sector, so that a city center fits
+        Grid grid = sector.getGrid();
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                if (grid.getCell(x, y).getType() == GridCell.CellType.BLOCKED) {
+                    grid.getCell(x, y).setType(GridCell.CellType.NORMAL);
+                }
+            }
+        }
+        Digimon leader = new Digimon("Agumon", 30, 80, 0, 10, "Rookie");
+        assertTrue(sector.addDigimon(leader));
+        GridCell leaderCell = grid.locate(leader);
+        Tribe tribe = new Tribe(context, "Flame");
+        tribe.setLeader(leader);
+        Tribe rival = new Tribe(context, "Horn");
+
+        AtomicInteger built = new AtomicInteger();
+        AtomicBoolean interfere = new AtomicBoolean(true);
+        AtomicReference<Building> house = new AtomicReference<>();
+        SystemScheduler scheduler = new SystemScheduler(context.getMetrics(), new TickTimer(context.getMetrics()),
+                UnaryOperator.identity(), 1, null);
+        scheduler.add(new ScheduledSystem("build", TickPhase.TRIBE_WORK, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.BUILDINGS), () -> {
+            BuildingLocation site = BuildingSystem.findBuildingLocationNear(grid,
+                    Building.BuildingType.CITY_CENTER, new BuildingLocation(leaderCell.getX(), leaderCell.getY()));
+            assertTrue(BuildingSystem.buildCity(tribe, world, built::incrementAndGet));
+            assertEquals(0, built.get(), "Nothing is announced before the city center is placed");
+            if (interfere.get()) {
+                // Another tribe builds on the site before the city center is placed
+                house.set(new Building(Building.BuildingType.HOUSE, rival, site.x(), site.y()));
+                assertTrue(sector.placeBuilding(house.get(), site.x(), site.y()));
+            }
+        }));
+
+        scheduler.run();
+        assertEquals(0, built.get(), "A city whose center was skipped is not announced");
+        assertEquals(0, grid.getBuildingIndex().count(tribe));
+
+        grid.removeBuilding(house.get());
+        interfere.set(false);
+        scheduler.run();
+        assertEquals(1, built.get());
+        assertEquals(1, grid.getBuildingIndex().count(tribe, Building.BuildingType.CITY_CENTER));
+        assertTrue(grid.getBuildingIndex().count(tribe) > 1, "Surrounding buildings fit around the city center");
+    }
+
+    private static int closestByScan(Grid grid, int radius, BuildingLocation point) {
+        int closest = Integer.MAX_VALUE;
+        for (int x = radius; x < grid.getWidth() - radius; x++) {
+            for (int y = radius; y < grid.getHeight() - radius; y++) {
+                if (isClear(grid, x, y, radius)) {
+                    closest = Math.min(closest, distance(new BuildingLocation(x, y), point));
+                }
+            }
+        }
+        return closest;
+    }
+
+    private static boolean isClear(Grid grid, int x, int y, int radius) {
+        for (int cx = x - radius; cx <= x + radius; cx++) {
+            for (int cy = y - radius; cy <= y + radius; cy++) {
+                GridCell cell = grid.getCell(cx, cy);
+                if (cell.getType() != GridCell.CellType.NORMAL || cell.getBuilding() != null || cell.getOccupant() != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int distance(BuildingLocation a, BuildingLocation b) {
+        return (a.x() - b.x()) * (a.x() - b.x()) + (a.y() - b.y()) * (a.y() - b.y());
+    }
+}
@@ -0,0 +1,40 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.CellMasks;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CellMasksTest {
+
+    @Test
+    public void testCountsFollowCellChanges() {
+        Grid grid = FlowFieldTest.openGrid(10, 10);
+        CellMasks masks = grid.getMasks();
+        assertEquals(36, masks.count(CellMasks.BORDER, 0, 0, 9, 9));
+        assertEquals(36, masks.count(CellMasks.BORDER, -5, -5, 20, 20), "Rectangles are clipped to the grid");
+        assertEquals(0, masks.count(CellMasks.ALL, 1, 1, 8, 8));
+        assertEquals(0, masks.count(CellMasks.ALL, 5, 5, 4, 4), "An empty rectangle has nothing in it");
+
+        grid.getCell(4, 4).setType(GridCell.CellType.BLOCKED);
+        Digimon agumon = new Digimon("Agumon", 10, 50, 30, 20, "Rookie");
+        grid.getCell(6, 6).setOccupant(agumon);
+        grid.placeBuilding(new Building(Building.BuildingType.HOUSE, new Tribe(new SimulationContext(1), "Builders"), 3, 7));
+        assertEquals(1, masks.count(CellMasks.BLOCKED, 0, 0, 9, 9));
+        assertEquals(1, masks.count(CellMasks.OCCUPANT, 6, 6, 6, 6));
+        assertEquals(1, masks.count(CellMasks.BUILDING, 3, 7, 3, 7));
+        assertEquals(3, masks.count(CellMasks.BLOCKED | CellMasks.BUILDING | CellMasks.OCCUPANT, 1, 1, 8, 8));
+        assertEquals(2, masks.count(CellMasks.ALL, 3, 4, 4, 7), "Layers are summed over the rectangle");
+
+        assertFalse(masks.isSquareClear(CellMasks.OCCUPANT, 5, 5, 1));
+        grid.getCell(6, 6).setOccupant(null);
+        grid.getCell(7, 7).setOccupant(agumon);
+        assertTrue(masks.isSquareClear(CellMasks.OCCUPANT, 5, 5, 1), "Tables are rebuilt after a change");
+        assertFalse(masks.isSquareClear(CellMasks.OCCUPANT, 5, 5, 2));
+        assertTrue(masks.isSquareClear(CellMasks.BLOCKED | CellMasks.OCCUPANT, 6, 2, 1));
+    }
+}
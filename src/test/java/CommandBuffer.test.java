@@ -0,0 +1,57 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import com.horrorcore.systems.schedule.CommandBuffer;
+import com.horrorcore.systems.schedule.Resource;
+import com.horrorcore.systems.schedule.ScheduledSystem;
+import com.horrorcore.systems.schedule.SystemScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandBufferTest {
+
+    @Test
+    public void testStructuralChangesWaitForTheEndOfTheStage() {
+        SimulationContext context = new SimulationContext(11);
+        Sector sector = new Sector("Plains", context);
+        Digimon agumon = new Digimon("Agumon", 30, 80, 0, 10, "Rookie");
+        // Outside of a scheduled system commands apply at once
+        CommandBuffer.current().spawn(sector, agumon);
+        assertTrue(sector.contains(agumon));
+
+        Digimon gabumon = new Digimon("Gabumon", 5, 90, 0, 10, "Rookie");
+        AtomicInteger deaths = new AtomicInteger();
+        AtomicInteger seen = new AtomicInteger();
+        SystemScheduler scheduler = new SystemScheduler(context.getMetrics(), new TickTimer(context.getMetrics()),
+                UnaryOperator.identity(), 1);
+        scheduler.add(new ScheduledSystem("churn", TickPhase.BIRTHS_REBIRTHS, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.POSITIONS), () -> {
+            for (Digimon digimon : sector.getDigimons()) {
+                // Drawn twice, as random deaths may; only the first one applies
+                CommandBuffer.current().despawn(sector, digimon, deaths::incrementAndGet);
+                CommandBuffer.current().despawn(sector, digimon, deaths::incrementAndGet);
+            }
+            CommandBuffer.current().spawn(sector, gabumon);
+            assertEquals(3, CommandBuffer.current().size());
+            assertTrue(sector.contains(agumon), "Nothing changes while the system runs");
+            assertFalse(sector.contains(gabumon));
+        }));
+        scheduler.add(new ScheduledSystem("count", TickPhase.OBSERVERS, EnumSet.of(Resource.POSITIONS),
+                EnumSet.noneOf(Resource.class), () -> seen.set(sector.getDigimons().size())));
+
+        scheduler.run();
+        assertEquals(1, deaths.get());
+        assertEquals(1, seen.get(), "Later stages see the played back changes");
+        assertFalse(sector.contains(agumon));
+        assertEquals(-1, agumon.getEntity(), "Despawned Digimon leave the world's store");
+        assertTrue(sector.contains(gabumon));
+        assertThrows(UnsupportedOperationException.class, () -> sector.getDigimons().add(agumon));
+    }
+}
@@ -0,0 +1,132 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.ecs.Archetype;
+import com.horrorcore.ecs.Component;
+import com.horrorcore.ecs.EntityStore;
+import com.horrorcore.ecs.HandleSet;
+import com.horrorcore.ecs.Query;
+import com.horrorcore.entity.CelestialDigimon;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.systems.lifecycle.AgingSystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityStoreTest {
+
+    @Test
+    public void testEntitiesKeepTheirIdsAcrossArchetypesAndQueriesSkipOthers() {
+        EntityStore store = new EntityStore();
+        int first = store.create("first", EnumSet.of(Component.VITALS));
+        int second = store.create("second", EnumSet.of(Component.VITALS));
+        int aura = store.create("aura", EnumSet.of(Component.VITALS, Component.AURA));
+        store.setInt(first, Component.VITALS, Component.HEALTH, 10);
+        store.setInt(second, Component.VITALS, Component.HEALTH, 20);
+
+        // Gaining a component moves the entity to another archetype and keeps its fields and id
+        store.setObject(first, Component.PROFESSION, "Farmer");
+        assertEquals(10, store.getInt(first, Component.VITALS, Component.HEALTH));
+        assertEquals("Farmer", store.getObject(first, Component.PROFESSION));
+        assertEquals(20, store.getInt(second, Component.VITALS, Component.HEALTH), "The entity moved into the gap keeps its fields");
+
+        Query workers = store.query(Component.PROFESSION);
+        assertEquals(1, workers.count());
+        assertSame(workers, store.query(Component.PROFESSION), "Queries are kept");
+        Query mortal = store.query(Component.VITALS).without(Component.AURA);
+        assertEquals(2, mortal.count());
+        for (Archetype archetype : mortal) {
+            assertFalse(archetype.has(Component.AURA));
+        }
+
+        store.setObject(first, Component.PROFESSION, null);
+        assertEquals(0, workers.count());
+        store.destroy(second);
+        assertFalse(store.isAlive(second));
+        assertTrue(store.isAlive(aura));
+        assertEquals("aura", store.getOwner(aura));
+        assertEquals(2, store.size());
+        assertThrows(IllegalArgumentException.class, () -> store.getInt(second, Component.VITALS, Component.AGE));
+
+        // Placed Digimon keep their state in their world's store and take it back when detached
+        SimulationContext context = new SimulationContext(5);
+        Sector sector = new Sector("Plains", context);
+        Digimon agumon = new Digimon("Agumon", 30, 80, 0, 10, "Rookie");
+        assertEquals(-1, agumon.getEntity());
+        assertTrue(sector.addDigimon(agumon));
+        int entity = agumon.getEntity();
+        EntityStore entities = context.getEntities();
+        assertEquals(30, entities.getInt(entity, Component.VITALS, Component.AGE));
+        assertTrue(entities.has(entity, Component.POSITION));
+        Tribe tribe = new Tribe(context, "Tribe of Agumon");
+        agumon.setTribe(tribe);
+        assertSame(tribe, entities.getObject(entity, Component.MEMBERSHIP));
+        assertTrue(sector.addDigimon(new CelestialDigimon("Seraphimon", 0, 200, 0, 20, "Celestial")));
+
+        AgingSystem.ageAll(entities);
+        assertEquals(31, agumon.getAge());
+        assertEquals(75, agumon.getHealth());
+        assertEquals(10, agumon.getHunger());
+        assertEquals(1, entities.query(Component.AURA).count(), "Celestials carry an aura");
+
+        sector.removeDigimon(agumon);
+        assertEquals(entity, agumon.getEntity(), "Leaving a sector keeps the entity");
+        assertFalse(entities.has(entity, Component.POSITION));
+        agumon.detach();
+        assertFalse(entities.isAlive(entity));
+        assertEquals(31, agumon.getAge());
+        assertSame(tribe, agumon.getTribe());
+    }
+
+    @Test
+    public void testHandlesOfDestroyedEntitiesGoStaleAndTheirSlotsAreReused() {
+        EntityStore store = new EntityStore();
+        int first = store.create("first", EnumSet.of(Component.VITALS));
+        HandleSet friends = new HandleSet(store);
+        assertTrue(friends.add(first));
+        assertFalse(friends.add(first), "Handles are kept once");
+        store.destroy(first);
+        assertFalse(store.isAlive(first));
+
+        // A million entities come and go with at most a hundred alive at once
+        Deque<Integer> alive = new ArrayDeque<>();
+        int[] lastHandles = new int[1 << 20];
+        Arrays.fill(lastHandles, -1);
+        lastHandles[EntityStore.slotOf(first)] = first;
+        for (int i = 0; i < 1_000_000; i++) {
+            int entity = store.create(i, EnumSet.of(Component.VITALS));
+            int slot = EntityStore.slotOf(entity);
+            assertTrue(entity > lastHandles[slot], "A reused slot never hands out an earlier handle again");
+            lastHandles[slot] = entity;
+            alive.add(entity);
+            if (alive.size() > 100) {
+                store.destroy(alive.poll());
+            }
+        }
+        assertEquals(100, store.size());
+        assertTrue(store.getSlots() < 1000, "Slots are reused: " + store.getSlots());
+        assertFalse(store.isAlive(first), "A reused slot does not revive old handles");
+        alive.forEach(entity -> assertTrue(store.isAlive(entity)));
+
+        // Stale handles are dropped when the set is read, or before it grows
+        for (int entity : alive) {
+            friends.add(entity);
+        }
+        int survivor = alive.peekLast();
+        alive.forEach(entity -> {
+            if (entity != survivor) {
+                store.destroy(entity);
+            }
+        });
+        assertEquals(List.of(999_999), friends.owners(Integer.class));
+        assertEquals(1, friends.size());
+        assertTrue(friends.remove(survivor));
+        assertFalse(friends.contains(survivor));
+    }
+}
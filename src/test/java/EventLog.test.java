@@ -0,0 +1,51 @@
+import com.horrorcore.gui.EventLog;
+import com.horrorcore.gui.EventLogList;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogTest {
+
+    @Test
+    public void testListShowsRetainedMatchingEventsNewestFirst() {
+        EventLog log = new EventLog(4);
+        EventLogList list = new EventLogList(log);
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                changes.add((change.wasAdded() ? "+" + change.getAddedSize() : "-" + change.getRemovedSize())
+                        + "@" + change.getFrom());
+            }
+        });
+
+        log.append(1, "Agumon attacked Gabumon");
+        log.append(1, "Tribe founded");
+        log.append(2, "Gabumon attacked Agumon");
+        list.refresh();
+        assertEquals(List.of("[2] Gabumon attacked Agumon", "[1] Tribe founded", "[1] Agumon attacked Gabumon"), list);
+
+        // Three more events push the two oldest out of the log
+        log.append(3, "Patamon ATTACKED Agumon");
+        log.append(3, "Rain");
+        log.append(4, "Drought");
+        assertNull(log.getMessage(1));
+        assertEquals(-1, log.getTick(0));
+        assertEquals(2, log.getFirst());
+        list.refresh();
+        assertEquals(List.of("[4] Drought", "[3] Rain", "[3] Patamon ATTACKED Agumon", "[2] Gabumon attacked Agumon"), list);
+
+        list.setFilter("attacked");
+        assertEquals(List.of("[3] Patamon ATTACKED Agumon", "[2] Gabumon attacked Agumon"), list);
+        // Both earlier matches leave the log as two more events arrive
+        log.append(5, "Gomamon attacked Patamon");
+        log.append(5, "Harvest");
+        list.refresh();
+        assertEquals(List.of("[5] Gomamon attacked Patamon"), list);
+
+        assertEquals(List.of("+3@0", "-2@1", "+3@0", "-4@0", "+2@0", "-2@0", "+1@0"), changes);
+    }
+}
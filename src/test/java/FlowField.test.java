@@ -0,0 +1,110 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.FlowField;
+import com.horrorcore.grid.FlowFieldCache;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowFieldTest {
+
+    @Test
+    public void testFieldStepsTowardsTheGoalAndLeavesWalledOffCellsUnreachable() {
+        Grid grid = openGrid(12, 12);
+        GridCell goal = grid.getCell(8, 6);
+        // A wall across the whole grid at x = 3
+        for (int y = 0; y < grid.getHeight(); y++) {
+            grid.getCell(3, y).setType(GridCell.CellType.BLOCKED);
+        }
+        FlowField field = new FlowField(grid, List.of(goal));
+
+        assertEquals(0, field.distanceFrom(8, 6));
+        assertNull(field.nextStep(goal), "A goal has nowhere further to go");
+        assertEquals(4, field.distanceFrom(8, 2));
+        assertSame(grid.getCell(8, 3), field.nextStep(grid.getCell(8, 2)));
+        assertSame(grid.getCell(7, 6), field.nextStep(grid.getCell(6, 6)));
+        // Following the field from anywhere reachable takes exactly the recorded number of steps
+        GridCell cell = grid.getCell(4, 11);
+        int steps = 0;
+        while (cell != goal) {
+            cell = field.nextStep(cell);
+            steps++;
+        }
+        assertEquals(field.distanceFrom(4, 11), steps);
+
+        assertEquals(FlowField.UNREACHABLE, field.distanceFrom(3, 5), "Blocked cells are never reached");
+        assertEquals(FlowField.UNREACHABLE, field.distanceFrom(1, 5), "Nor is anything behind the wall");
+        assertNull(field.nextStep(grid.getCell(1, 5)));
+
+        // A building is an obstacle too, but a goal cell holding one is still seeded
+        Tribe tribe = new Tribe(new SimulationContext(1), "Builders");
+        Building house = new Building(Building.BuildingType.HOUSE, tribe, 8, 3);
+        grid.placeBuilding(house);
+        FlowField around = new FlowField(grid, List.of(goal));
+        assertEquals(FlowField.UNREACHABLE, around.distanceFrom(8, 3));
+        assertEquals(6, around.distanceFrom(8, 2), "The way leads around the building");
+        FlowField toHouse = new FlowField(grid, List.of(grid.getCell(8, 3)));
+        assertEquals(1, toHouse.distanceFrom(8, 2));
+    }
+
+    @Test
+    public void testCacheRebuildsFieldsOnlyAfterTheTerrainChanged() {
+        Grid grid = openGrid(10, 10);
+        FlowFieldCache cache = grid.getFlowFields();
+        AtomicInteger builds = new AtomicInteger();
+        GridCell goal = grid.getCell(5, 5);
+
+        FlowField first = cache.get("goal", () -> {
+            builds.incrementAndGet();
+            return List.of(goal);
+        });
+        FlowField again = cache.get("goal", () -> {
+            builds.incrementAndGet();
+            return List.of(goal);
+        });
+        assertSame(first, again);
+        assertEquals(1, builds.get(), "Goals are only asked for when a field is built");
+        assertEquals(2, first.distanceFrom(5, 3));
+
+        // Blocking a cell on the way moves the terrain version on and the field is rebuilt around it
+        grid.getCell(5, 4).setType(GridCell.CellType.BLOCKED);
+        assertNotEquals(first.getTerrainVersion(), grid.getTerrainVersion());
+        FlowField rebuilt = cache.get("goal", () -> {
+            builds.incrementAndGet();
+            return List.of(goal);
+        });
+        assertNotSame(first, rebuilt);
+        assertEquals(2, builds.get());
+        assertEquals(4, rebuilt.distanceFrom(5, 3));
+        assertEquals(1, cache.size(), "Stale fields are discarded, not kept alongside");
+
+        // The fields of a tribe that is gone are forgotten without waiting for the terrain to change
+        Tribe tribe = new Tribe(new SimulationContext(1), "Builders");
+        cache.get(FlowFieldCache.tribeKey(Building.BuildingType.HOUSE, tribe), () -> List.of(goal));
+        assertEquals(2, cache.size());
+        cache.forget(tribe);
+        assertEquals(1, cache.size());
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+
+    // A grid without any blocked cells
+    static Grid openGrid(int width, int height) {
+        Grid grid = new Grid(width, height, new Random(1));
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (grid.getCell(x, y).getType() == GridCell.CellType.BLOCKED) {
+                    grid.getCell(x, y).setType(GridCell.CellType.NORMAL);
+                }
+            }
+        }
+        return grid;
+    }
+}
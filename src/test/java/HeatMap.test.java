@@ -0,0 +1,52 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Building;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.grid.HeatMap;
+import com.horrorcore.grid.HeatMap.Layer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeatMapTest {
+
+    @Test
+    public void testLayersRecordActivityAndDecay() {
+        Random random = new Random(1);
+        Grid grid = new Grid(20, 20, random);
+        HeatMap heat = grid.getHeatMap();
+        int[] tick = {0};
+        heat.setClock(() -> tick[0]);
+        assertEquals(1, heat.getTileSize(), "Small grids keep one tile per cell");
+
+        GridCell cell = grid.randomFreeCell(random).orElseThrow();
+        int tile = heat.tileOf(cell.getX(), cell.getY());
+        cell.setOccupant(new Digimon("Agumon", 10, 50, 30, 20, "Rookie"));
+        assertEquals(0, heat.get(Layer.OCCUPANCY, tile), 1e-4, "Occupancy is an average over time");
+
+        // One half-life later the average has moved half way to the occupied share
+        tick[0] = HeatMap.DEFAULT_HALF_LIFE;
+        assertEquals(0.5, heat.get(Layer.OCCUPANCY, tile), 1e-3);
+        heat.recordAttack(cell.getX(), cell.getY());
+        heat.recordAttack(cell.getX(), cell.getY());
+        assertEquals(2, heat.get(Layer.ATTACKS, tile), 1e-4);
+        tick[0] += HeatMap.DEFAULT_HALF_LIFE;
+        assertEquals(1, heat.get(Layer.ATTACKS, tile), 1e-3);
+        assertEquals(128, heat.capture(Layer.ATTACKS)[tile] & 0xff, "One event shows at half intensity");
+        assertEquals(0, heat.get(Layer.DEATHS, tile));
+
+        // A building claims its tile for its tribe until the claim wears off
+        Tribe tribe = new Tribe(new SimulationContext(1), "Builders");
+        GridCell site = grid.randomFreeCell(random).orElseThrow();
+        int siteTile = heat.tileOf(site.getX(), site.getY());
+        grid.placeBuilding(new Building(Building.BuildingType.HOUSE, tribe, site.getX(), site.getY()));
+        assertEquals(tribe.getId(), heat.getOwner(siteTile));
+        assertEquals(tribe.getId(), heat.captureOwners()[siteTile]);
+        tick[0] += 6 * HeatMap.DEFAULT_HALF_LIFE;
+        assertEquals(0, heat.getOwner(siteTile));
+    }
+}
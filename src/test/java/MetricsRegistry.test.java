@@ -0,0 +1,50 @@
+import com.horrorcore.metrics.LatencyHistogram;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.MetricsServer;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.metrics.TickPhase;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    public void testHistogramQuantilesFallInPowerOfTwoBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_500);          // 1.5 microseconds, in the 2 microsecond bucket
+        }
+        histogram.record(3_000_000);          // 3 milliseconds
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(2_000, histogram.quantileNanos(0.5));
+        assertEquals(3_000_000, histogram.quantileNanos(1.0));
+        assertEquals(3_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testPrometheusEndpointServesCountersAndPhases() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long attacksBefore = metrics.getCount(SimulationCounter.ATTACKS);
+        metrics.increment(SimulationCounter.ATTACKS);
+        metrics.recordPhase(TickPhase.MOVEMENT, 2_500_000);
+        metrics.registerGauge("test_gauge", "A gauge for testing", "sector", "File \"Island\"", () -> 7);
+
+        int port = MetricsServer.start(0);
+        try (InputStream in = new URL("http://127.0.0.1:" + port + "/metrics").openStream()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("digimon_attacks_total " + (attacksBefore + 1)));
+            assertTrue(body.contains("# TYPE digimon_tick_phase_seconds histogram"));
+            assertTrue(body.contains("digimon_tick_phase_seconds_bucket{phase=\"movement\",le=\"+Inf\"}"));
+            assertTrue(body.contains("test_gauge{sector=\"File \\\"Island\\\"\"} 7"));
+        } finally {
+            MetricsServer.stop();
+            metrics.removeGauge("test_gauge");
+        }
+    }
+}
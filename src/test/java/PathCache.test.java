@@ -0,0 +1,69 @@
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.grid.PathCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathCacheTest {
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsedPathsAndRecomputesStaleOnes() {
+        Grid grid = FlowFieldTest.openGrid(12, 12);
+        PathCache cache = new PathCache(3, 30);
+        GridCell origin = grid.getCell(1, 1);
+
+        List<GridCell> path = cache.findPath(grid, origin, grid.getCell(1, 5));
+        assertEquals(5, path.size());
+        assertEquals(path, cache.findPath(grid, origin, grid.getCell(1, 5)));
+        assertStats(cache, 1, 1, 0, 0, 1, 5);
+        assertEquals(0.5, cache.getStats().hitRate(), 1e-9);
+
+        // Three entries at most: the least recently used one goes first
+        cache.findPath(grid, origin, grid.getCell(2, 1));
+        cache.findPath(grid, origin, grid.getCell(3, 1));
+        cache.findPath(grid, origin, grid.getCell(1, 5));
+        cache.findPath(grid, origin, grid.getCell(4, 1));
+        assertStats(cache, 2, 4, 1, 0, 3, 5 + 3 + 4);
+        cache.findPath(grid, origin, grid.getCell(1, 5));
+        assertEquals(3, cache.getStats().hits(), "The path looked up again was kept");
+        cache.findPath(grid, origin, grid.getCell(2, 1));
+        assertEquals(5, cache.getStats().misses(), "The oldest path was evicted");
+
+        // Thirty cells at most, however few entries that leaves
+        cache.findPath(grid, origin, grid.getCell(10, 10));
+        assertStats(cache, 3, 6, 3, 0, 3, 19 + 5 + 2);
+        cache.findPath(grid, origin, grid.getCell(1, 10));
+        PathCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.entries(), "Two paths were evicted to make room for the cells of one");
+        assertEquals(19 + 10, stats.cellsStored());
+        assertEquals(5, stats.evictions());
+        assertTrue(stats.estimatedBytes() > 29 * Integer.BYTES);
+
+        // Changing the terrain makes cached paths stale; they are recomputed around the change
+        grid.getCell(5, 10).setType(GridCell.CellType.BLOCKED);
+        grid.getCell(10, 5).setType(GridCell.CellType.BLOCKED);
+        List<GridCell> detour = cache.findPath(grid, origin, grid.getCell(10, 10));
+        assertEquals(1, cache.getStats().invalidations());
+        assertFalse(detour.contains(grid.getCell(5, 10)));
+        assertFalse(detour.contains(grid.getCell(10, 5)));
+        assertEquals(19, detour.size(), "A shortest path still exists around the new obstacles");
+
+        cache.clear();
+        assertEquals(0, cache.getStats().entries());
+        assertEquals(0, cache.getStats().cellsStored());
+    }
+
+    private static void assertStats(PathCache cache, long hits, long misses, long evictions, long invalidations,
+                                    int entries, long cellsStored) {
+        PathCache.Stats stats = cache.getStats();
+        assertEquals(hits, stats.hits(), "hits");
+        assertEquals(misses, stats.misses(), "misses");
+        assertEquals(evictions, stats.evictions(), "evictions");
+        assertEquals(invalidations, stats.invalidations(), "invalidations");
+        assertEquals(entries, stats.entries(), "entries");
+        assertEquals(cellsStored, stats.cellsStored(), "cells stored");
+    }
+}
@@ -0,0 +1,71 @@
+import com.horrorcore.gui.PopulationIndex;
+import com.horrorcore.gui.PopulationIndex.Filter;
+import com.horrorcore.gui.PopulationIndex.Row;
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import com.horrorcore.snapshot.WorldSnapshot.TribeView;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationIndexTest {
+    private static final WorldSnapshot SNAPSHOT = new WorldSnapshot(1, 10, 0, 0, List.of(
+            sector("Forest",
+                    digimon(1, "Agumon", "Rookie", 80, 1, false),
+                    digimon(2, "Gabumon", "Rookie", 40, 0, false),
+                    digimon(3, "Seraphimon", "Mega", 120, 0, true)),
+            sector("Desert",
+                    digimon(4, "Greymon", "Champion", 80, 1, false),
+                    digimon(5, "Tsunomon", "In-Training", 20, 2, false))),
+            List.of(new TribeView(1, "Flame", "Agumon", 2, 0, 0, 0, 0, 0),
+                    new TribeView(2, "Horn", "Tsunomon", 1, 0, 0, 0, 0, 0)));
+
+    private static SectorView sector(String name, EntityView... entities) {
+        return new SectorView(name, 20, 20, 0, new byte[400], List.of(entities), null);
+    }
+
+    private static EntityView digimon(long id, String name, String stage, int health, int tribe, boolean celestial) {
+        return new EntityView(id, name, stage, 1, 1, health, 1, 0, 10, tribe, null, celestial);
+    }
+
+    private static List<String> names(PopulationIndex index) {
+        return index.asList().stream().map(row -> row.entity().name()).toList();
+    }
+
+    @Test
+    public void testFiltersOneSectorOrTheWholeWorld() {
+        PopulationIndex world = PopulationIndex.build(SNAPSHOT, null, Filter.NONE, null);
+        assertEquals(List.of("Agumon", "Gabumon", "Seraphimon", "Greymon", "Tsunomon"), names(world), "Snapshot order without a sort order");
+        assertEquals(5, world.total());
+        assertEquals(List.of("Celestial", "Champion", "In-Training", "Rookie"), List.copyOf(world.stages()));
+        assertEquals(List.of("Flame", "Horn"), List.copyOf(world.tribes()));
+        assertEquals("Desert", world.get(3).sector());
+        assertEquals(PopulationIndex.INDEPENDENT, world.get(1).tribe());
+
+        PopulationIndex forest = PopulationIndex.build(SNAPSHOT, "Forest", new Filter("Rookie", null, 50), null);
+        assertEquals(List.of("Agumon"), names(forest));
+        assertEquals(3, forest.total(), "The total counts the sector before filtering");
+        assertEquals(List.of("Celestial", "Rookie"), List.copyOf(forest.stages()));
+
+        assertEquals(List.of("Gabumon", "Seraphimon"),
+                names(PopulationIndex.build(SNAPSHOT, null, new Filter(null, PopulationIndex.INDEPENDENT, 0), null)));
+        assertEquals(List.of("Seraphimon"), names(PopulationIndex.build(SNAPSHOT, null, new Filter("Celestial", null, 0), null)));
+        assertEquals(0, PopulationIndex.build(SNAPSHOT, "Ocean", Filter.NONE, null).size());
+    }
+
+    @Test
+    public void testSortsStablyInTheTableOrder() {
+        Comparator<Row> byHealthDescending = Comparator.comparing((Row row) -> row.entity().health()).reversed();
+        PopulationIndex index = PopulationIndex.build(SNAPSHOT, null, Filter.NONE, byHealthDescending);
+        assertEquals(List.of("Seraphimon", "Agumon", "Greymon", "Gabumon", "Tsunomon"), names(index),
+                "Rows of equal health keep snapshot order");
+
+        PopulationIndex byTribe = PopulationIndex.build(SNAPSHOT, null, new Filter(null, null, 30),
+                Comparator.comparing(Row::tribe).thenComparing(row -> row.entity().name()));
+        assertEquals(List.of("Agumon", "Greymon", "Gabumon", "Seraphimon"), names(byTribe));
+    }
+}
@@ -0,0 +1,74 @@
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.movement.SectorMovement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectorTest {
+
+    @Test
+    public void testAddDigimonTracksOccupiedCell() {
+        Sector sector = new Sector("Test Sector");
+        Grid grid = sector.getGrid();
+        int freeBefore = grid.getFreeCellCount();
+
+        Digimon digimon = new Digimon("TestDigimon", 10, 50, 30, 20, "Rookie");
+        assertTrue(sector.addDigimon(digimon));
+
+        GridCell cell = grid.locate(digimon);
+        assertNotNull(cell, "Digimon should be located on the grid");
+        assertSame(digimon, cell.getOccupant());
+        assertEquals(freeBefore - 1, grid.getFreeCellCount());
+
+        sector.removeDigimon(digimon);
+        assertNull(grid.locate(digimon));
+        assertNull(cell.getOccupant());
+        assertEquals(freeBefore, grid.getFreeCellCount());
+    }
+
+    @Test
+    public void testFullSectorOverflowsIntoAdjacentSector() {
+        Sector full = new Sector("Full Sector");
+        Sector neighbour = new Sector("Neighbour Sector");
+        full.addAdjacentSector(neighbour);
+
+        int capacity = full.getGrid().getFreeCellCount() + full.getGrid().getFreeBorderCellCount();
+        for (int i = 0; i < capacity; i++) {
+            assertTrue(full.addDigimon(new Digimon("Filler" + i, 10, 50, 30, 20, "Rookie")));
+        }
+        assertEquals(0, full.getGrid().getFreeCellCount());
+        assertEquals(0, full.getGrid().getFreeBorderCellCount());
+
+        Digimon overflow = new Digimon("Overflow", 10, 50, 30, 20, "Rookie");
+        assertTrue(full.addDigimon(overflow), "A full sector should spill into its neighbour");
+        assertNotNull(neighbour.getGrid().locate(overflow));
+        assertTrue(neighbour.getDigimons().contains(overflow));
+
+        Sector isolated = new Sector("Isolated Sector");
+        int isolatedCapacity = isolated.getGrid().getFreeCellCount() + isolated.getGrid().getFreeBorderCellCount();
+        for (int i = 0; i < isolatedCapacity; i++) {
+            isolated.addDigimon(new Digimon("Filler" + i, 10, 50, 30, 20, "Rookie"));
+        }
+        assertFalse(isolated.addDigimon(new Digimon("Rejected", 10, 50, 30, 20, "Rookie")));
+    }
+
+    @Test
+    public void testStepsWithinASectorCountAsMoves() {
+        Sector sector = new Sector("Lonely Sector");
+        Digimon digimon = new Digimon("Wanderer", 10, 50, 30, 20, "Rookie");
+        assertTrue(sector.addDigimon(digimon));
+        GridCell start = sector.getGrid().locate(digimon);
+        long moves = sector.getContext().getCount(SimulationCounter.MOVES);
+
+        // Without adjacent sectors, the Digimon can only step within this one
+        assertTrue(SectorMovement.moveDigimon(digimon, sector, new Random(1)));
+        assertNotSame(start, sector.getGrid().locate(digimon));
+        assertEquals(moves + 1, sector.getContext().getCount(SimulationCounter.MOVES));
+    }
+}
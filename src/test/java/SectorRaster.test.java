@@ -0,0 +1,76 @@
+import com.horrorcore.entity.Building;
+import com.horrorcore.gui.SectorRaster;
+import com.horrorcore.gui.SectorRaster.Viewport;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.gui.SectorRaster.Overlay;
+import com.horrorcore.snapshot.WorldSnapshot.EntityView;
+import com.horrorcore.snapshot.WorldSnapshot.HeatView;
+import com.horrorcore.snapshot.WorldSnapshot.SectorView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectorRasterTest {
+    private static final int NORMAL = 0xFF000000;
+    private static final int BLOCKED = 0xFFFF0000;
+    private static final int GRID_LINE = 0xFF006400;
+    private static final int DIGIMON = 0xFF008000;
+    private static final int BUILDING = 0xFF0000FF;
+    private static final int GLYPH = 0xFFFFFFFF;
+    private static final int VIEWPORT = 0xFF00FF00;
+
+    @Test
+    public void testLevelOfDetailFollowsZoom() {
+        // A 4 by 4 sector with a blocked cell at (1, 0), a house at (2, 2) and a Digimon at (3, 3)
+        byte[] cells = new byte[16];
+        cells[1] = (byte) GridCell.CellType.BLOCKED.ordinal();
+        cells[2 * 4 + 2] = (byte) ((Building.BuildingType.HOUSE.ordinal() + 1) << 2);
+        EntityView digimon = new EntityView(1, "Agumon", "Rookie", 3, 3, 100, 1, 0, 10, 0, null, false);
+        // Attacks at full level on the top-left cell, whose tile is one cell
+        byte[] attacks = new byte[16];
+        attacks[0] = (byte) 255;
+        HeatView heat = new HeatView(1, 4, 4, new byte[16], attacks, new byte[16], new int[16]);
+        SectorView sector = new SectorView("Test", 4, 4, 0, cells, List.of(digimon), heat);
+
+        // One pixel per cell: only colours
+        int[] pixels = new int[16];
+        SectorRaster.rasterize(sector, new Viewport(0, 0, 1), pixels, 4, 4);
+        assertEquals(NORMAL, pixels[0]);
+        assertEquals(BLOCKED, pixels[1]);
+        assertEquals(BUILDING, pixels[2 * 4 + 2]);
+        assertEquals(DIGIMON, pixels[3 * 4 + 3]);
+
+        // Sixteen pixels per cell: grid lines, building squares and glyphs
+        int size = 64;
+        pixels = new int[size * size];
+        SectorRaster.rasterize(sector, new Viewport(0, 0, 16), pixels, size, size);
+        assertEquals(GRID_LINE, pixels[8 * size + 16], "Line between the first two columns");
+        assertEquals(BLOCKED, pixels[8 * size + 24]);
+        assertEquals(BUILDING, pixels[36 * size + 36], "House square inside its cell");
+        assertEquals(GLYPH, pixels[36 * size + 37], "Top-left pixel of the H centered in the house cell");
+        assertEquals(DIGIMON, pixels[50 * size + 56], "Disc around the Digimon's glyph");
+
+        // Zooming keeps the cell under the cursor in place
+        Viewport zoomed = new Viewport(0, 0, 16).zoom(2, 40, 40, 1, 48);
+        assertEquals(32, zoomed.scale());
+        assertEquals(2, zoomed.column(40));
+        assertEquals(2, zoomed.row(40));
+
+        // The minimap shows the whole sector and outlines the part in view
+        int[] minimap = new int[8 * 8];
+        SectorRaster.rasterizeMinimap(sector, new Viewport(0, 0, 16), 32, 32, Overlay.NONE, minimap, 8);
+        assertEquals(VIEWPORT, minimap[0]);
+        assertEquals(VIEWPORT, minimap[3 * 8 + 3], "Bottom-right corner of the top-left quarter");
+        assertEquals(BUILDING, minimap[5 * 8 + 5]);
+        assertEquals(DIGIMON, minimap[7 * 8 + 7]);
+
+        // An overlay tints the terrain of hot tiles and leaves the rest alone
+        pixels = new int[16];
+        SectorRaster.rasterize(sector, new Viewport(0, 0, 1), Overlay.ATTACKS, pixels, 4, 4);
+        assertNotEquals(NORMAL, pixels[0]);
+        assertEquals(BLOCKED, pixels[1]);
+        assertEquals(DIGIMON, pixels[3 * 4 + 3], "Digimon are drawn over the overlay");
+    }
+}
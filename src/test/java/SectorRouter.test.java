@@ -0,0 +1,91 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.grid.FlowField;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.systems.movement.SectorMovement;
+import com.horrorcore.systems.movement.SectorRouter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectorRouterTest {
+
+    @Test
+    public void testRoutesCrossPortalsOfSectorsWithTheSameName() {
+        SimulationContext context = new SimulationContext(3);
+        SectorRouter router = context.getRouter();
+        Sector hub = open(new Sector("Hub", context));
+        Sector first = open(new Sector("Twin", context));
+        Sector second = open(new Sector("Twin", context));
+        hub.addAdjacentSector(first);
+        hub.addAdjacentSector(second);
+
+        GridCell firstPortal = router.portalCell(hub, first);
+        GridCell secondPortal = router.portalCell(hub, second);
+        assertSame(first, router.linkedSector(hub, firstPortal));
+        assertSame(second, router.linkedSector(hub, secondPortal));
+        FlowField toFirst = router.portalField(hub, first);
+        FlowField toSecond = router.portalField(hub, second);
+        assertNotSame(toFirst, toSecond, "Sectors are told apart by more than their names");
+        assertEquals(0, toFirst.distanceFrom(firstPortal.getX(), firstPortal.getY()));
+        assertTrue(toSecond.distanceFrom(firstPortal.getX(), firstPortal.getY()) > 0);
+
+        assertEquals(List.of(hub, second), router.planRoute(first, router.portalCell(first, hub), second));
+        assertEquals(List.of(), router.planRoute(hub, firstPortal, hub));
+    }
+
+    @Test
+    public void testMigrantsCutOffFromTheirPortalPlanAgainOrGiveUp() {
+        SimulationContext context = new SimulationContext(5);
+        Sector hub = open(new Sector("Hub", context));
+        Sector north = open(new Sector("North", context));
+        Sector south = open(new Sector("South", context));
+        hub.addAdjacentSector(north);
+        hub.addAdjacentSector(south);
+        north.addAdjacentSector(south);
+        Grid grid = hub.getGrid();
+        // The border towards the north is the top row and the upper right column; wall off the lower half from it
+        for (int x = 0; x < grid.getWidth(); x++) {
+            grid.getCell(x, 10).setType(GridCell.CellType.BLOCKED);
+        }
+        for (int y = 11; y < grid.getHeight() - 1; y++) {
+            grid.getCell(grid.getWidth() - 1, y).setType(GridCell.CellType.BLOCKED);
+        }
+
+        Digimon agumon = new Digimon("Agumon", 10, 100, 0, 10, "Rookie");
+        assertTrue(hub.addDigimon(agumon));
+        assertTrue(hub.moveDigimon(agumon, 10, 15));
+        agumon.setMigrationRoute(List.of(north));
+        SectorMovement.moveDigimon(agumon, hub, new Random(1));
+        assertSame(south, agumon.getNextMigrationStep(), "The new route goes round through the south");
+        assertSame(north, agumon.getMigrationDestination());
+
+        // Shut in on all sides, the Digimon cannot reach any portal and stops migrating
+        GridCell cell = grid.locate(agumon);
+        int[][] sides = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+        for (int[] side : sides) {
+            grid.getCell(cell.getX() + side[0], cell.getY() + side[1]).setType(GridCell.CellType.BLOCKED);
+        }
+        agumon.setMigrationRoute(List.of(north));
+        SectorMovement.moveDigimon(agumon, hub, new Random(1));
+        assertFalse(agumon.isMigrating());
+    }
+
+    // Clears the blocked cells a sector's grid was generated with
+    private static Sector open(Sector sector) {
+        Grid grid = sector.getGrid();
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                if (grid.getCell(x, y).getType() == GridCell.CellType.BLOCKED) {
+                    grid.getCell(x, y).setType(GridCell.CellType.NORMAL);
+                }
+            }
+        }
+        return sector;
+    }
+}
@@ -0,0 +1,141 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.grid.GridCell;
+import com.horrorcore.gui.SimulationObserver;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.systems.events.SimulationEvent;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationContextTest {
+
+    @Test
+    public void testContextsDoNotShareState() {
+        SimulationContext first = new SimulationContext(1);
+        SimulationContext second = new SimulationContext(2);
+        assertNotSame(first.getWorld(), second.getWorld());
+        assertNotSame(SimulationContext.getDefault().getWorld(), first.getWorld());
+
+        assertEquals(1, new Tribe(first, "First").getId());
+        assertEquals(2, new Tribe(first, "Second").getId());
+        assertEquals(1, new Tribe(second, "Other").getId(), "Tribe ids are numbered per world");
+
+        for (int i = 0; i < SimulationContext.MAX_CELESTIALS; i++) {
+            assertNotNull(DigimonGenerator.generateCelestialDigimon(first));
+        }
+        assertNull(DigimonGenerator.generateCelestialDigimon(first));
+        assertNotNull(DigimonGenerator.generateCelestialDigimon(second), "Each world has its own Celestials");
+
+        AtomicInteger firstEvents = new AtomicInteger();
+        first.getEvents().addObserver(new SimulationObserver() {
+            @Override
+            public void onSimulationEvent(SimulationEvent event) { firstEvents.incrementAndGet(); }
+            @Override
+            public void onWorldUpdate(World world) {}
+        });
+        Sector sector = new Sector("Second Sector", second);
+        Digimon digimon = new Digimon("Agumon", 10, 50, 30, 20, "Rookie");
+        sector.addDigimon(digimon);
+        digimon.evolve("Greymon", "Champion");
+        assertEquals(0, firstEvents.get(), "Events of one world must not reach observers of another");
+
+        // Counters are kept per world too
+        sector.findPath(1, 1, 8, 8);
+        sector.findPath(1, 1, 8, 8);
+        assertEquals(1, second.getCount(SimulationCounter.PATH_SEARCHES), "The second lookup is a cache hit");
+        assertTrue(second.getCount(SimulationCounter.EVENTS_EMITTED) > 0);
+        assertEquals(0, first.getCount(SimulationCounter.PATH_SEARCHES));
+        assertEquals(0, first.getCount(SimulationCounter.EVENTS_EMITTED));
+    }
+
+    @Test
+    public void testWorldsTickConcurrentlyOnASharedPool() throws Exception {
+        int worldCount = 8;
+        int ticks = 10;
+        List<World> worlds = new ArrayList<>();
+        for (int i = 0; i < worldCount; i++) {
+            SimulationContext context = new SimulationContext(i);
+            World world = context.getWorld();
+            world.initialize();
+            for (int j = 0; j < 30; j++) {
+                world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+            }
+            worlds.add(world);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int tick = 0; tick < ticks; tick++) {
+                List<Callable<Boolean>> round = new ArrayList<>();
+                for (World world : worlds) {
+                    round.add(world::tick);
+                }
+                for (Future<Boolean> result : pool.invokeAll(round)) {
+                    assertTrue(result.get(), "Every tick should run");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (World world : worlds) {
+            assertEquals(ticks, world.getTime());
+            for (Sector sector : world.getSectors()) {
+                assertSame(world.getContext(), sector.getContext());
+            }
+            for (Tribe tribe : world.getTribes()) {
+                assertSame(world.getContext(), tribe.getContext());
+            }
+        }
+    }
+
+    @Test
+    public void testSeededWorldsReplayTheSameWay() {
+        List<String> first = replay(42, 200);
+        assertEquals(first, replay(42, 200), "Two worlds of the same seed end in the same state");
+        assertNotEquals(first, replay(43, 200));
+    }
+
+    // Ticks a seeded world and describes the state it ends in, leaving out ids that are numbered across worlds
+    private static List<String> replay(long seed, int ticks) {
+        SimulationContext context = new SimulationContext(seed);
+        World world = context.getWorld();
+        world.initialize();
+        for (int i = 0; i < 60; i++) {
+            world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+        }
+        for (int i = 0; i < ticks; i++) {
+            assertTrue(world.tick());
+        }
+        List<String> state = new ArrayList<>();
+        for (Sector sector : world.getSectors()) {
+            state.add(sector.getName() + ": " + sector.getDigimons().size() + " Digimon, "
+                    + sector.getGrid().getBuildingIndex().count() + " buildings");
+            for (Digimon digimon : sector.getDigimons()) {
+                GridCell cell = sector.getGrid().locate(digimon);
+                state.add(digimon.getName() + " at " + cell.getX() + "," + cell.getY() + " health " + digimon.getHealth()
+                        + " age " + digimon.getAge() + " hunger " + digimon.getHunger() + " aggression " + digimon.getAggression()
+                        + " tribe " + (digimon.getTribe() != null ? digimon.getTribe().getId() : 0)
+                        + " " + digimon.getProfession() + " curiosity " + digimon.getPersonality().getCuriosity());
+            }
+        }
+        world.getTribes().stream().sorted(Comparator.comparingInt(Tribe::getId)).forEach(tribe ->
+                state.add(tribe.getId() + " " + tribe.getName() + " " + tribe.getMembers().size() + " members, food "
+                        + tribe.getTotalFood() + ", military " + tribe.getMilitaryStrength()));
+        return state;
+    }
+}
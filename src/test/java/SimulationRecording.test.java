@@ -0,0 +1,90 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.grid.Grid;
+import com.horrorcore.grid.PathFinder;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.SimulationCounter;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import com.horrorcore.metrics.jfr.SimulationRecording;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationRecordingTest {
+    private static final List<String> EVENTS = List.of("digimon.Tick", "digimon.TickPhase", "digimon.SlowPathSearch",
+            "digimon.EventBurst", "digimon.WorldLockWait");
+
+    @Test
+    public void testSimulationEventsReachARecording() throws Exception {
+        Map<String, String> settings = SimulationRecording.settings("default");
+        assertEquals("2 ms", settings.get("digimon.SlowPathSearch#threshold"), "The simulation's settings are layered over the profile");
+        assertEquals("true", settings.get("digimon.Tick#enabled"));
+
+        Map<String, List<RecordedEvent>> received = new ConcurrentHashMap<>();
+        // Events of one thread arrive in the order they were committed, and the burst is committed last
+        CountDownLatch burstSeen = new CountDownLatch(1);
+        try (RecordingStream stream = new RecordingStream()) {
+            for (String name : EVENTS) {
+                stream.enable(name).withThreshold(Duration.ZERO);
+            }
+            stream.onEvent(event -> {
+                received.computeIfAbsent(event.getEventType().getName(), name -> new CopyOnWriteArrayList<>()).add(event);
+                if (event.getEventType().getName().equals("digimon.EventBurst") && event.getInt("tick") == 77) {
+                    burstSeen.countDown();
+                }
+            });
+            stream.startAsync();
+
+            SimulationContext context = new SimulationContext(4);
+            World world = context.getWorld();
+            world.initialize();
+            for (int i = 0; i < 20; i++) {
+                world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+            }
+            assertTrue(world.tick());
+
+            Grid grid = FlowFieldTest.openGrid(10, 10);
+            PathFinder.findPath(grid, grid.getCell(1, 1), grid.getCell(8, 8));
+
+            // A tick that publishes as many events as the burst threshold
+            MetricsRegistry registry = MetricsRegistry.getInstance();
+            TickTimer timer = new TickTimer(registry);
+            timer.begin(77);
+            timer.enter(TickPhase.EVENTS);
+            for (int i = 0; i < TickTimer.EVENT_BURST_THRESHOLD; i++) {
+                registry.increment(SimulationCounter.EVENTS_EMITTED);
+            }
+            timer.finish(1, 2, 3);
+
+            assertTrue(burstSeen.await(30, TimeUnit.SECONDS), "Only received " + received.keySet());
+        }
+
+        assertEquals(Set.copyOf(EVENTS), received.keySet());
+        assertTrue(received.get("digimon.Tick").stream().anyMatch(event -> event.getInt("tick") == 0), "The world's first tick");
+        assertTrue(received.get("digimon.Tick").stream().anyMatch(event -> event.getInt("tick") == 77
+                && event.getInt("population") == 1 && event.getInt("tribes") == 2 && event.getInt("buildings") == 3));
+        Set<String> labels = Set.copyOf(Arrays.stream(TickPhase.values()).map(TickPhase::getLabel).toList());
+        for (RecordedEvent slice : received.get("digimon.TickPhase")) {
+            assertTrue(labels.contains(slice.getString("phase")), slice.getString("phase"));
+        }
+        assertTrue(received.get("digimon.SlowPathSearch").stream().anyMatch(event -> event.getInt("startX") == 1
+                && event.getInt("goalX") == 8 && event.getInt("pathLength") == 15));
+        assertTrue(received.get("digimon.EventBurst").stream().allMatch(event ->
+                event.getLong("eventsEmitted") >= TickTimer.EVENT_BURST_THRESHOLD));
+        assertTrue(received.get("digimon.WorldLockWait").stream().anyMatch(event -> event.getBoolean("write")));
+    }
+}
@@ -0,0 +1,49 @@
+import com.horrorcore.batch.SoakRunner;
+import com.horrorcore.systems.social.SocialGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoakRunnerTest {
+
+    @Test
+    public void testSoakSamplesTheWorldAndFitsTheHeapSlope() throws Exception {
+        SoakRunner runner = new SoakRunner(600, 100);
+        runner.setInitialPopulation(50);
+        List<SoakRunner.Sample> samples = runner.run();
+        assertEquals(List.of(0, 100, 200, 300, 400, 500, 600), samples.stream().map(SoakRunner.Sample::tick).toList());
+        int peakPopulation = 0;
+        for (SoakRunner.Sample sample : samples) {
+            peakPopulation = Math.max(peakPopulation, sample.population());
+            assertTrue(sample.usedHeap() > 0);
+            assertTrue(sample.entitySlots() >= sample.population(), "Every placed Digimon takes a slot");
+            // The store keeps a few hundred freed slots spare, and the population peaks between samples too
+            assertTrue(sample.entitySlots() <= 2 * peakPopulation + 256,
+                    "Slots grow with the population, not with the ticks: " + sample);
+            assertTrue(sample.friendReferences() <= (long) sample.population() * SocialGraph.DEFAULT_DEGREE_CAP,
+                    "Friendships are capped per Digimon: " + sample);
+        }
+
+        // Once the world has settled, slots only grow when the population does
+        List<SoakRunner.Sample> settled = samples.subList(4, samples.size());
+        SoakRunner.Sample start = settled.get(0);
+        for (SoakRunner.Sample sample : settled) {
+            assertTrue(sample.entitySlots() <= start.entitySlots() + Math.max(0, sample.population() - start.population()),
+                    "Slots stay flat from " + start + " to " + sample);
+        }
+
+        // The heap climbs about 10 KB a tick here while caches fill, then falls back to a sawtooth around 8 MB
+        assertTrue(SoakRunner.heapSlope(samples) < 50_000, "The heap keeps growing: " + samples);
+
+        // Only the second half counts, so the warm-up does not look like a leak
+        List<SoakRunner.Sample> growing = List.of(sample(0, 0), sample(100, 5000), sample(200, 1000), sample(300, 2000));
+        assertEquals(10.0, SoakRunner.heapSlope(growing), 1e-9);
+        assertEquals(0.0, SoakRunner.heapSlope(List.of(sample(0, 1000))));
+    }
+
+    private static SoakRunner.Sample sample(int tick, long usedHeap) {
+        return new SoakRunner.Sample(tick, usedHeap, 0, 0, 0);
+    }
+}
@@ -0,0 +1,85 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.systems.social.SocialGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocialGraphTest {
+
+    @Test
+    public void testFriendshipsAreCappedDecayAndRelateTribesAsGroups() {
+        SimulationContext context = new SimulationContext(7);
+        AtomicInteger tick = new AtomicInteger();
+        SocialGraph graph = new SocialGraph(context.getEntities(), tick::get, 10, 2);
+        Sector sector = new Sector("Plains", context);
+        Digimon agumon = place(sector, "Agumon");
+        Digimon gabumon = place(sector, "Gabumon");
+        Digimon patamon = place(sector, "Patamon");
+        Digimon gomamon = place(sector, "Gomamon");
+
+        graph.befriend(agumon, gabumon, 20);
+        graph.befriend(agumon, gabumon, 20);
+        assertEquals(1, graph.getDegree(agumon), "Befriending twice strengthens one edge");
+        assertEquals(40, graph.getFriendship(agumon, gabumon), 1e-4);
+        assertEquals(0, graph.getFriendship(gabumon, agumon), "Friendships are directed");
+
+        // A full Digimon gives up its weakest friendship for a stronger one, but not for a weaker one
+        graph.befriend(agumon, patamon, 5);
+        graph.befriend(agumon, gomamon, 30);
+        assertEquals(2, graph.getDegree(agumon));
+        assertEquals(0, graph.getFriendship(agumon, patamon));
+        graph.befriend(agumon, patamon, 2);
+        assertEquals(0, graph.getFriendship(agumon, patamon));
+
+        tick.addAndGet(10);
+        assertEquals(20, graph.getFriendship(agumon, gabumon), 1e-3, "Weights halve every half-life");
+        graph.befriend(agumon, gomamon, -20);
+        assertEquals(List.of(gabumon), graph.getFriends(agumon), "Friendships weakened below the minimum end");
+
+        sector.removeDigimon(gabumon);
+        gabumon.detach();
+        assertEquals(1, graph.getDegree(agumon), "Edges to the dead are dropped lazily");
+        assertEquals(List.of(), graph.getFriends(agumon));
+        assertEquals(0, graph.getDegree(agumon));
+
+        // Two tribes are related by one edge, which counts for every pair of their members
+        Tribe first = new Tribe(context, "First");
+        Tribe second = new Tribe(context, "Second");
+        agumon.setTribe(first);
+        patamon.setTribe(second);
+        gomamon.setTribe(second);
+        graph.relate(first, second, 20);
+        assertEquals(20, graph.getFriendship(agumon, patamon), 1e-4);
+        assertEquals(20, graph.getFriendship(gomamon, agumon), 1e-4);
+        assertEquals(0, graph.getDegree(agumon), "No edge per member pair");
+        graph.forget(second);
+        assertEquals(0, graph.getRelation(first, second));
+    }
+
+    @Test
+    public void testWeightsBeyondTheDecayTableKeepDecaying() {
+        SimulationContext context = new SimulationContext(8);
+        AtomicInteger tick = new AtomicInteger();
+        SocialGraph graph = new SocialGraph(context.getEntities(), tick::get, 10, 2);
+        Sector sector = new Sector("Plains", context);
+        Digimon agumon = place(sector, "Agumon");
+        Digimon gabumon = place(sector, "Gabumon");
+
+        // The table covers weights up to a thousand, which decay below the minimum in about a hundred ticks
+        graph.befriend(agumon, gabumon, 100_000);
+        tick.addAndGet(120);
+        assertEquals(100_000 / Math.pow(2, 12), graph.getFriendship(agumon, gabumon), 1e-2);
+    }
+
+    private static Digimon place(Sector sector, String name) {
+        Digimon digimon = new Digimon(name, 10, 100, 0, 10, "Rookie");
+        assertTrue(sector.addDigimon(digimon));
+        return digimon;
+    }
+}
@@ -0,0 +1,164 @@
+import com.horrorcore.CommandResult;
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.StallReport;
+import com.horrorcore.metrics.StallWatchdog;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StallWatchdogTest {
+
+    @Test
+    public void testReportsBlockedPhaseWithLockOwnerOnce() throws Exception {
+        System.setProperty("digimon.watchdog.budget.movement", "50");
+        TickTimer timer = new TickTimer(MetricsRegistry.getInstance());
+        ReentrantLock lock = new ReentrantLock();
+        CountDownLatch inPhase = new CountDownLatch(1);
+
+        lock.lock();
+        Thread simulation = new Thread(() -> {
+            timer.begin(7);
+            timer.setScope("File Island", 3);
+            timer.enter(TickPhase.MOVEMENT);
+            inPhase.countDown();
+            lock.lock();
+            lock.unlock();
+            timer.finish(3, 0, 0);
+        }, "test-simulation");
+        try {
+            StallWatchdog watchdog = new StallWatchdog(timer, simulation);
+            assertNull(watchdog.check(), "An idle simulation should not be reported");
+
+            simulation.start();
+            inPhase.await();
+            Thread.sleep(200);
+
+            StallReport report = watchdog.check();
+            assertNotNull(report);
+            assertEquals(7, report.tick());
+            assertEquals("movement", report.phase());
+            assertEquals("File Island", report.sector());
+            assertEquals("test-simulation", report.thread());
+            assertEquals(Thread.currentThread().getName(), report.lockOwner());
+            assertTrue(report.stack().contains("StallWatchdogTest"));
+            assertNull(watchdog.check(), "The same stall should only be reported once");
+            assertEquals(1, watchdog.getReports().size());
+        } finally {
+            lock.unlock();
+            simulation.join();
+            System.clearProperty("digimon.watchdog.budget.movement");
+        }
+        assertFalse(timer.isTicking());
+    }
+
+    @Test
+    public void testReportsPhaseStalledOnAPoolThread() throws Exception {
+        System.setProperty("digimon.watchdog.budget.combat", "50");
+        TickTimer timer = new TickTimer(MetricsRegistry.getInstance());
+        ReentrantLock lock = new ReentrantLock();
+        CountDownLatch inPhase = new CountDownLatch(1);
+
+        lock.lock();
+        Thread worker = new Thread(() -> {
+            timer.enterWorker(TickPhase.COMBAT);
+            inPhase.countDown();
+            lock.lock();
+            lock.unlock();
+            timer.exitWorker();
+        }, "test-worker");
+        try {
+            // The simulation thread waits for the worker outside of any phase
+            StallWatchdog watchdog = new StallWatchdog(timer, Thread.currentThread());
+            timer.begin(9);
+            worker.start();
+            inPhase.await();
+            Thread.sleep(200);
+
+            StallReport report = watchdog.check();
+            assertNotNull(report);
+            assertEquals(9, report.tick());
+            assertEquals("combat", report.phase());
+            assertEquals("test-worker", report.thread());
+            assertEquals(Thread.currentThread().getName(), report.lockOwner());
+            assertTrue(report.stack().contains("StallWatchdogTest"), report.stack());
+            assertNull(watchdog.check(), "The same stall should only be reported once");
+        } finally {
+            lock.unlock();
+            worker.join();
+            System.clearProperty("digimon.watchdog.budget.combat");
+        }
+        assertTrue(timer.getWorkerSlices().isEmpty());
+        timer.finish(0, 0, 0);
+    }
+
+    @Test
+    public void testReportsATickWaitingForTheWorldLock() throws Exception {
+        System.setProperty("digimon.watchdog.budget.world_lock", "50");
+        World world = new SimulationContext(5).getWorld();
+        world.initialize();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<StallWatchdog> watchdog = new AtomicReference<>();
+        CompletableFuture<Boolean> ticked = new CompletableFuture<>();
+
+        // A command holds the world on its own thread, as one from the GUI would
+        Thread commander = new Thread(() -> world.execute("hold the world", () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CommandResult.applied("held");
+        }), "test-commander");
+        Thread simulation = new Thread(() -> {
+            watchdog.set(world.startWatchdog());
+            ticked.complete(world.tick());
+        }, "test-simulation");
+        try {
+            commander.start();
+            assertTrue(holding.await(10, TimeUnit.SECONDS));
+            simulation.start();
+
+            // The tick gives up on the lock after 5 seconds; the watchdog polls well within that
+            List<StallReport> reports = List.of();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(4);
+            while (reports.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+                reports = watchdog.get() == null ? List.of() : watchdog.get().getReports();
+            }
+            assertEquals(1, reports.size(), "The tick waiting for the world is reported");
+            StallReport report = reports.get(0);
+            assertEquals("world_lock", report.phase());
+            assertEquals("test-simulation", report.thread());
+            assertEquals(0, report.tick());
+            assertTrue(report.stack().contains("World.lockWrite"), report.stack());
+            // The world lock records no owner; the world tells the watchdog who holds it
+            assertTrue(report.lockName().contains("StampedLock"), report.lockName());
+            assertEquals("test-commander", report.lockOwner());
+            assertTrue(report.ownerStack().contains("StallWatchdogTest"), report.ownerStack());
+            assertTrue(report.ownerStack().contains("holds java.util.concurrent.locks.StampedLock@"), report.ownerStack());
+        } finally {
+            release.countDown();
+            commander.join();
+            simulation.join();
+            if (watchdog.get() != null) {
+                watchdog.get().stop();
+            }
+            System.clearProperty("digimon.watchdog.budget.world_lock");
+        }
+        assertTrue(ticked.get(), "The tick runs once the command lets go of the world");
+        assertEquals(1, world.getTime());
+    }
+}
@@ -0,0 +1,123 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.metrics.LatencyHistogram;
+import com.horrorcore.metrics.MetricsRegistry;
+import com.horrorcore.metrics.TickPhase;
+import com.horrorcore.metrics.TickTimer;
+import com.horrorcore.systems.schedule.Resource;
+import com.horrorcore.systems.schedule.ScheduledSystem;
+import com.horrorcore.systems.schedule.SystemScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemSchedulerTest {
+
+    @Test
+    public void testSystemsAreStagedByTheResourcesTheyShare() {
+        SimulationContext context = new SimulationContext(3);
+        MetricsRegistry metrics = context.getMetrics();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        Set<String> workers = ConcurrentHashMap.newKeySet();
+        ThreadLocal<Boolean> wrapped = ThreadLocal.withInitial(() -> false);
+        SystemScheduler scheduler = new SystemScheduler(metrics, new TickTimer(metrics), body -> () -> {
+            wrapped.set(true);
+            try {
+                body.run();
+            } finally {
+                wrapped.remove();
+            }
+        }, 3, pool);
+
+        StringBuilder order = new StringBuilder();
+        scheduler.add(new ScheduledSystem("move", TickPhase.MOVEMENT, EnumSet.noneOf(Resource.class),
+                EnumSet.of(Resource.POSITIONS), () -> order.append("move ")));
+        scheduler.add(new ScheduledSystem("fight", TickPhase.COMBAT, EnumSet.of(Resource.POSITIONS),
+                EnumSet.of(Resource.VITALS), () -> order.append("fight ")));
+        // Both only read what the earlier systems wrote, so they may run together
+        Runnable observer = () -> {
+            assertTrue(wrapped.get(), "Parallel systems run wrapped");
+            workers.add(Thread.currentThread().getName());
+        };
+        scheduler.add(new ScheduledSystem("sample", TickPhase.OBSERVERS, EnumSet.of(Resource.VITALS, Resource.POSITIONS),
+                EnumSet.of(Resource.TIME_SERIES), observer));
+        scheduler.add(new ScheduledSystem("capture", TickPhase.OBSERVERS, EnumSet.of(Resource.VITALS, Resource.POSITIONS),
+                EnumSet.of(Resource.SNAPSHOT), observer));
+
+        List<List<ScheduledSystem>> stages = scheduler.getStages();
+        assertEquals(3, stages.size());
+        assertEquals(List.of("sample", "capture"), stages.get(2).stream().map(ScheduledSystem::name).toList());
+
+        scheduler.run();
+        assertEquals("move fight ", order.toString(), "Conflicting systems keep their declared order");
+        assertFalse(workers.isEmpty());
+        assertTrue(workers.stream().allMatch(name -> name.startsWith("ForkJoinPool")), "Parallel stages run on the pool");
+        assertTrue(metrics.getSystemHistogram("capture").getCount() > 0);
+
+        // Implied dependencies are left out of the dump: capture waits for fight, which waits for move
+        String schedule = scheduler.describe();
+        assertTrue(schedule.contains("Stage 3 (2 systems in parallel)"), schedule);
+        assertTrue(schedule.contains("after fight on [VITALS]"), schedule);
+        assertEquals(1, schedule.split("after move", -1).length - 1, schedule);
+        pool.shutdown();
+
+        // A world's own schedule runs every system each tick
+        World world = context.getWorld();
+        world.initialize();
+        LatencyHistogram mortality = metrics.getSystemHistogram("mortality");
+        long before = mortality == null ? 0 : mortality.getCount();
+        assertTrue(world.tick());
+        assertNotNull(world.getSnapshot());
+        assertEquals(before + 1, metrics.getSystemHistogram("mortality").getCount());
+        assertTrue(world.describeSchedule().contains("snapshot"));
+    }
+
+    @Test
+    public void testSystemsDrawFromTheirOwnStreamsAndReportTheirPhase() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<Map<String, Long>> draws = new ArrayList<>();
+            for (int run = 0; run < 2; run++) {
+                TickTimer timer = new TickTimer(metrics);
+                SystemScheduler scheduler = new SystemScheduler(metrics, timer, UnaryOperator.identity(), 11, pool);
+                Map<String, Long> drawn = new ConcurrentHashMap<>();
+                Set<Random> streams = ConcurrentHashMap.newKeySet();
+                for (String name : List.of("left", "right")) {
+                    // Neither shares a resource with the other, so both run at once on the pool
+                    scheduler.add(new ScheduledSystem(name, TickPhase.EVENTS, EnumSet.noneOf(Resource.class),
+                            EnumSet.noneOf(Resource.class), () -> {
+                        Random stream = SystemScheduler.currentRandom();
+                        streams.add(stream);
+                        drawn.put(name, stream.nextLong());
+                        assertTrue(timer.getWorkerSlices().stream().anyMatch(slice ->
+                                slice.thread() == Thread.currentThread() && slice.phase() == TickPhase.EVENTS),
+                                "A system on the pool reports its phase");
+                    }));
+                }
+                assertEquals(1, scheduler.getStages().size());
+                timer.begin(0);
+                scheduler.run();
+                timer.finish(0, 0, 0);
+                assertEquals(2, streams.size(), "Each system has a stream of its own");
+                assertTrue(timer.getWorkerSlices().isEmpty());
+                draws.add(drawn);
+            }
+            assertEquals(draws.get(0), draws.get(1), "The same seed splits into the same streams");
+            assertNotEquals(draws.get(0).get("left"), draws.get(0).get("right"));
+            assertNull(SystemScheduler.currentRandom(), "Outside of a system there is no stream");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
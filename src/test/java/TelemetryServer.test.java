@@ -0,0 +1,115 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.snapshot.WorldSnapshot;
+import com.horrorcore.snapshot.WorldSnapshot.HeatView;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import com.horrorcore.telemetry.TelemetryClient;
+import com.horrorcore.telemetry.TelemetryServer;
+import com.horrorcore.telemetry.WorldMirror;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryServerTest {
+
+    @Test
+    public void testClientsMirrorTheEngineThroughSnapshotsAndDeltas() throws Exception {
+        SimulationContext context = new SimulationContext(3);
+        World world = context.getWorld();
+        world.initialize();
+        for (int i = 0; i < 30; i++) {
+            world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+        }
+        assertTrue(world.tick());
+
+        try (TelemetryServer server = new TelemetryServer(world, InetAddress.getLoopbackAddress(), 0);
+             TelemetryClient everything = new TelemetryClient("127.0.0.1", server.getPort(), 10_000);
+             TelemetryClient oneSector = new TelemetryClient("127.0.0.1", server.getPort(), 10_000)) {
+            everything.awaitVersion(world.getSnapshot().version());
+            assertMirrors(world.getSnapshot(), everything.getMirror(), null);
+
+            oneSector.receive();
+            oneSector.subscribe(2);
+            oneSector.receive();
+            assertNull(oneSector.getMirror().getCells(0), "Unsubscribed sectors are not sent");
+            assertMirrors(world.getSnapshot(), oneSector.getMirror(), Set.of(2));
+
+            for (int i = 0; i < 6; i++) {
+                assertTrue(world.tick());
+            }
+            WorldSnapshot latest = world.getSnapshot();
+            everything.awaitVersion(latest.version());
+            oneSector.awaitVersion(latest.version());
+            assertMirrors(latest, everything.getMirror(), null);
+            assertMirrors(latest, oneSector.getMirror(), Set.of(2));
+            assertTrue(everything.getMessages() <= 1 + 6, "Never more than one message per published snapshot");
+        }
+    }
+
+    @Test
+    public void testServerClosesConnectionsSendingMalformedFrames() throws Exception {
+        SimulationContext context = new SimulationContext(4);
+        World world = context.getWorld();
+        world.initialize();
+        assertTrue(world.tick());
+
+        // A subscription sent without a mask, and a masked frame whose 64-bit length has the sign bit set
+        byte[] unmasked = {(byte) 0x82, 3, 1, 0, 0};
+        byte[] negativeLength = {(byte) 0x82, (byte) 0xFF, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0, 1, 2, 3, 4};
+        try (TelemetryServer server = new TelemetryServer(world, InetAddress.getLoopbackAddress(), 0)) {
+            for (byte[] frame : new byte[][]{unmasked, negativeLength}) {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                    socket.setSoTimeout(10_000);
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("GET " + TelemetryServer.PATH + " HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\n"
+                            + "Connection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                            + "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(frame);
+                    out.flush();
+
+                    // The server answers the handshake and may send a snapshot, then drops the connection
+                    InputStream in = socket.getInputStream();
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // Read until the server closes the connection; a timeout fails the test
+                    }
+                }
+            }
+
+            // A well-formed, masked subscription is still accepted
+            try (TelemetryClient client = new TelemetryClient("127.0.0.1", server.getPort(), 10_000)) {
+                client.receive();
+                client.subscribe(0);
+                client.receive();
+                assertEquals(world.getSnapshot().version(), client.getMirror().getVersion());
+            }
+        }
+    }
+
+    private static void assertMirrors(WorldSnapshot snapshot, WorldMirror mirror, Set<Integer> subscribed) {
+        assertEquals(snapshot.version(), mirror.getVersion());
+        assertEquals(snapshot.tick(), mirror.getTick());
+        assertEquals(snapshot.tribes(), mirror.getTribes());
+        for (int s = 0; s < snapshot.sectors().size(); s++) {
+            if (subscribed == null || subscribed.contains(s)) {
+                assertArrayEquals(snapshot.sectors().get(s).cells(), mirror.getCells(s));
+                assertEquals(snapshot.sectors().get(s).entities(), mirror.getEntities(s));
+                HeatView heat = snapshot.sectors().get(s).heat();
+                HeatView mirrored = mirror.getHeat(s);
+                assertArrayEquals(heat.occupancy(), mirrored.occupancy());
+                assertArrayEquals(heat.attacks(), mirrored.attacks());
+                assertArrayEquals(heat.deaths(), mirrored.deaths());
+                assertArrayEquals(heat.territory(), mirrored.territory());
+            } else {
+                assertTrue(mirror.getEntities(s).isEmpty());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.metrics.timeseries.TimeSeriesFile;
+import com.horrorcore.metrics.timeseries.TimeSeriesRecorder;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesRecorderTest {
+
+    @Test
+    public void testRecordedTicksReadBackFromMappedFile(@TempDir Path directory) throws Exception {
+        SimulationContext context = new SimulationContext(7);
+        World world = context.getWorld();
+        world.initialize();
+        for (int i = 0; i < 40; i++) {
+            world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom()));
+        }
+
+        Path file = directory.resolve("run.dgts");
+        int ticks = 10;
+        // Small blocks so the run spans several full blocks and a partial one
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(world, file, 4)) {
+            world.setTimeSeriesRecorder(recorder);
+            for (int i = 0; i < ticks; i++) {
+                assertTrue(world.tick());
+            }
+            recorder.sample(world);
+            recorder.sample(world);
+            assertEquals(ticks + 1, recorder.getRows(), "A tick already sampled is not recorded again");
+        }
+
+        TimeSeriesFile series = TimeSeriesFile.open(file);
+        assertEquals(ticks + 1, series.getRowCount(), "One row per tick plus the sample taken after the last tick");
+        int[] tick = series.readColumn("tick");
+        int[] population = series.readColumn("population");
+        for (int row = 0; row < ticks; row++) {
+            assertEquals(row, tick[row]);
+            int bySector = 0;
+            int byStage = 0;
+            for (int column = 0; column < series.getColumns().size(); column++) {
+                String name = series.getColumns().get(column);
+                if (name.startsWith("population.sector.")) bySector += series.getInt(column, row);
+                if (name.startsWith("population.stage.")) byStage += series.getInt(column, row);
+            }
+            assertEquals(population[row], bySector);
+            assertEquals(population[row], byStage);
+            assertTrue(series.readColumn("births")[row] >= 0);
+        }
+        assertEquals(world.getPopulation(), population[ticks]);
+
+        StringWriter csv = new StringWriter();
+        series.exportCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(ticks + 2, lines.length);
+        assertEquals(String.join(",", series.getColumns()), lines[0]);
+        assertTrue(lines[1].startsWith("0,"));
+    }
+}
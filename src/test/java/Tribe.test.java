@@ -0,0 +1,82 @@
+import com.horrorcore.SimulationContext;
+import com.horrorcore.entity.Digimon;
+import com.horrorcore.entity.Sector;
+import com.horrorcore.entity.Tribe;
+import com.horrorcore.systems.tech.TechnologySystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TribeTest {
+
+    @Test
+    public void testMembersBelongToOneTribeAndAreCountedByProfession() {
+        SimulationContext context = new SimulationContext(9);
+        Sector sector = new Sector("Plains", context);
+        Tribe first = new Tribe(context, "First");
+        Tribe second = new Tribe(context, "Second");
+        Digimon agumon = place(sector, "Agumon", "Farmer");
+
+        first.addMember(agumon);
+        first.addMember(agumon);
+        assertEquals(1, first.getMembers().size(), "Joining twice lists a member once");
+        assertTrue(first.isMember(agumon));
+        assertEquals(1, first.getTechnologySystem().getWorkerCount("Farmer"));
+
+        first.getTechnologySystem().assignProfession(agumon, "Soldier");
+        assertEquals(0, first.getTechnologySystem().getWorkerCount("Farmer"));
+        assertEquals(1, first.getTechnologySystem().getWorkerCount("Soldier"));
+
+        second.addMember(agumon);
+        assertSame(second, agumon.getTribe());
+        assertFalse(first.isMember(agumon), "Joining another tribe leaves the first one");
+        assertEquals(List.of(), first.getMembers());
+        assertEquals(0, first.getTechnologySystem().getWorkerCount("Soldier"));
+        assertEquals(1, second.getTechnologySystem().getWorkerCount("Soldier"));
+
+        second.removeMember(agumon);
+        assertNull(agumon.getTribe());
+        assertEquals(0, second.getTechnologySystem().getWorkerCount("Soldier"));
+    }
+
+    @Test
+    public void testWorkYieldsFollowHeadCounts() {
+        SimulationContext context = new SimulationContext(9);
+        Sector sector = new Sector("Plains", context);
+        Tribe tribe = new Tribe(context, "Workers");
+        tribe.addMember(place(sector, "Agumon", "Farmer"));
+        tribe.addMember(place(sector, "Gabumon", "Farmer"));
+        tribe.addMember(place(sector, "Tentomon", "Scientist"));
+        tribe.addMember(place(sector, "Guilmon", "Soldier"));
+        int food = tribe.getTotalFood();
+        int strength = tribe.getMilitaryStrength();
+
+        tribe.getTechnologySystem().performWork(tribe);
+        assertEquals(food + 2 * 10, tribe.getTotalFood(), "Ten food per farmer");
+        assertEquals(1, tribe.getResearchPoints());
+        // One per soldier, plus the bonus of every tenth military level, which level 0 counts as
+        assertEquals(strength + 1 + 40, tribe.getMilitaryStrength());
+
+        // Many tribes work in parallel, each with its own yields
+        List<Tribe> tribes = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            Tribe small = new Tribe(context, "Farmers " + i);
+            small.addMember(place(sector, "Farmer" + i, "Farmer"));
+            tribes.add(small);
+        }
+        TechnologySystem.performWork(tribes);
+        for (Tribe small : tribes) {
+            assertEquals(150 + 10, small.getTotalFood(), small.getName());
+        }
+    }
+
+    private static Digimon place(Sector sector, String name, String profession) {
+        Digimon digimon = new Digimon(name, 10, 100, 0, 10, "Rookie");
+        assertTrue(sector.addDigimon(digimon));
+        digimon.setProfession(profession);
+        return digimon;
+    }
+}
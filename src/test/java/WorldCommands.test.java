@@ -0,0 +1,58 @@
+import com.horrorcore.CommandResult;
+import com.horrorcore.SimulationContext;
+import com.horrorcore.World;
+import com.horrorcore.gui.SimulationObserver;
+import com.horrorcore.systems.events.SimulationEvent;
+import com.horrorcore.systems.lifecycle.DigimonGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldCommandsTest {
+
+    @Test
+    public void testCommandsRunAtTickBoundariesAndReportResults() throws Exception {
+        SimulationContext context = new SimulationContext(7);
+        World world = context.getWorld();
+        world.initialize();
+        assertEquals(CommandResult.Status.REJECTED, world.addDigimon(null).status());
+        assertEquals(CommandResult.Status.REJECTED, world.loadState().status(), "Nothing was saved yet");
+        assertTrue(world.addDigimon(DigimonGenerator.generateRandomDigimon(context.getRandom())).isApplied());
+
+        // Hold a tick open in its observers, which run while the tick owns the world
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        context.getEvents().addObserver(new SimulationObserver() {
+            @Override
+            public void onSimulationEvent(SimulationEvent event) {
+            }
+
+            @Override
+            public void onWorldUpdate(World updated) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        CompletableFuture<Boolean> tick = CompletableFuture.supplyAsync(world::tick);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<CommandResult> save = world.submit("test save", world::saveState);
+        assertFalse(save.isDone(), "A command waits for the running tick");
+        assertEquals(0, world.getTime(), "Plain reads do not wait for the tick");
+
+        release.countDown();
+        assertTrue(tick.get(10, TimeUnit.SECONDS));
+        assertTrue(save.get(10, TimeUnit.SECONDS).isApplied(), "The tick runs queued commands as it ends");
+        assertTrue(world.loadState().isApplied());
+        assertEquals(1, world.getTime());
+        assertFalse(world.getSectors().isEmpty());
+    }
+}